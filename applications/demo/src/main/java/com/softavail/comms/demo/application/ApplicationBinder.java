@@ -1,6 +1,7 @@
 package com.softavail.comms.demo.application;
 
 import com.softavail.comms.demo.application.factory.AgentServiceClientFactory;
+import com.softavail.comms.demo.application.factory.AsyncTaskServiceClientFactory;
 import com.softavail.comms.demo.application.factory.ClientFactory;
 import com.softavail.comms.demo.application.factory.ExecutionFactory;
 import com.softavail.comms.demo.application.factory.PlanServiceClientFactory;
@@ -10,19 +11,25 @@ import com.softavail.comms.demo.application.factory.TaskServiceClientFactory;
 import com.softavail.comms.demo.application.impl.Cfg4jConfiguration;
 import com.softavail.comms.demo.application.impl.ConfigurationImpl;
 import com.softavail.comms.demo.application.impl.ConfigurationProperties;
+import com.softavail.comms.demo.application.impl.InMemoryConversationStore;
+import com.softavail.comms.demo.application.impl.NexMoConversationServiceImpl;
 import com.softavail.comms.demo.application.impl.NexMoServiceImpl;
 import com.softavail.comms.demo.application.services.Configuration;
+import com.softavail.comms.demo.application.services.ConversationService;
+import com.softavail.comms.demo.application.services.ConversationStore;
 import com.softavail.comms.demo.application.services.NexMoService;
 import com.softavail.comms.nexmo.answer.AnswerStrategy;
 import com.softavail.comms.nexmo.answer.AnswerStrategyWithCallback;
 import com.softavail.comms.nexmo.ivr.IvrStrategy;
 import com.softavail.comms.nexmo.ivr.IvrStrategyWithSimpleFlow;
+import com.softavail.comms.nexmo.util.OrderedExecutor;
 import com.softavail.commsrouter.api.interfaces.AgentService;
 import com.softavail.commsrouter.api.interfaces.PlanService;
 import com.softavail.commsrouter.api.interfaces.QueueService;
 import com.softavail.commsrouter.api.interfaces.RouterService;
 import com.softavail.commsrouter.api.interfaces.TaskService;
 import com.softavail.commsrouter.client.AgentServiceClient;
+import com.softavail.commsrouter.client.AsyncTaskServiceClient;
 import com.softavail.commsrouter.client.PlanServiceClient;
 import com.softavail.commsrouter.client.QueueServiceClient;
 import com.softavail.commsrouter.client.RouterServiceClient;
@@ -62,6 +69,14 @@ public class ApplicationBinder extends AbstractBinder {
         .to(NexMoService.class)
         .in(Singleton.class);
 
+    bind(InMemoryConversationStore.class)
+        .to(ConversationStore.class)
+        .in(Singleton.class);
+
+    bind(NexMoConversationServiceImpl.class)
+        .to(ConversationService.class)
+        .in(Singleton.class);
+
     bindFactory(RouterServiceClientFactory.class)
         .to(RouterService.class)
         .to(RouterServiceClient.class);
@@ -70,6 +85,14 @@ public class ApplicationBinder extends AbstractBinder {
         .to(TaskService.class)
         .to(TaskServiceClient.class);
 
+    bindFactory(AsyncTaskServiceClientFactory.class)
+        .to(AsyncTaskServiceClient.class)
+        .in(Singleton.class);
+
+    bind(OrderedExecutor.class)
+        .to(OrderedExecutor.class)
+        .in(Singleton.class);
+
     bindFactory(PlanServiceClientFactory.class)
         .to(PlanService.class)
         .to(PlanServiceClient.class);
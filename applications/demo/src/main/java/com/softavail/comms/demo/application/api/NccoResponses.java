@@ -0,0 +1,59 @@
+package com.softavail.comms.demo.application.api;
+
+import com.softavail.comms.nexmo.answer.AnswerStrategyException;
+import com.softavail.comms.nexmo.answer.AnswerStrategyWithCallback;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Resumes suspended webhook requests with the NCCO of an answer once it is ready. NexMo gets an
+ * error in place of the NCCO if there is none in time, so it can fall back rather than hang up.
+ *
+ * @author ikrustev
+ */
+final class NccoResponses {
+
+  private static final Logger LOGGER = LogManager.getLogger(NccoResponses.class);
+
+  private NccoResponses() {
+  }
+
+  /**
+   * @param strategyErrorStatus status to respond with when the strategy rejects the request
+   */
+  static void resume(AsyncResponse asyncResponse, CompletableFuture<String> answer, String path,
+      Response.Status strategyErrorStatus) {
+
+    asyncResponse.setTimeout(AnswerStrategyWithCallback.ANSWER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    asyncResponse.setTimeoutHandler(timedOut -> {
+      LOGGER.error("{} failed: no answer in {} seconds", path,
+          AnswerStrategyWithCallback.ANSWER_TIMEOUT_SECONDS);
+      timedOut.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+          .entity("No answer in time").build());
+    });
+
+    answer.whenComplete((answerNcco, error) -> {
+      Response response;
+      if (error == null) {
+        LOGGER.debug("{} ncco: {}", path, answerNcco);
+        response = Response.ok(answerNcco, MediaType.APPLICATION_JSON).build();
+      } else {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        LOGGER.error("{} failed: {}", path, cause.getMessage());
+        Response.Status status = cause instanceof AnswerStrategyException
+            ? strategyErrorStatus : Response.Status.INTERNAL_SERVER_ERROR;
+        response = Response.status(status).entity(cause.getMessage()).build();
+      }
+      LOGGER.debug("{} response: {}", path, response);
+      asyncResponse.resume(response);
+    });
+  }
+
+}
@@ -1,6 +1,5 @@
 package com.softavail.comms.demo.application.api;
 
-import com.softavail.comms.nexmo.answer.AnswerStrategyException;
 import com.softavail.comms.nexmo.answer.AnswerStrategyWithCallback;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -11,6 +10,8 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -28,34 +29,19 @@ public class NexMoAnswerOutResource {
    * .
    * @param kind String
    * @param taskId String
-   * @return JSON
+   * @param asyncResponse resumed with the NCCO as JSON
    */
   @GET
-  public Response getNccoResponse(
+  public void getNccoResponse(
       @QueryParam("kind") String kind,
-      @QueryParam("taskId") String taskId) {
+      @QueryParam("taskId") String taskId,
+      @Suspended AsyncResponse asyncResponse) {
 
     LOGGER.debug("/answer_outbound kind:{}, taskId: {}",
         kind, taskId);
 
-    Response response;
-    
-    try {
-      String answerNcco = strategy.answerOutboundCall(kind, taskId);
-      LOGGER.debug("/answer_outbound ncco: {}", answerNcco);
-      response = Response.ok(answerNcco, MediaType.APPLICATION_JSON).build();
-    } catch (AnswerStrategyException e) {
-      LOGGER.error("/answer_outbound failed: {}", e.getMessage());
-      response =  Response.status(Response.Status.BAD_REQUEST)
-          .entity(e.getMessage()).build();
-    } catch (Exception ex) {
-      LOGGER.error("/answer_outbound failed: {}", ex.getMessage());
-      response =  Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-          .entity(ex.getMessage()).build();
-    }
-    
-    LOGGER.debug("/answer_outbound response: {}", response.toString());
-    return response;
+    NccoResponses.resume(asyncResponse, strategy.answerOutboundCallAsync(kind, taskId),
+        "/answer_outbound", Response.Status.BAD_REQUEST);
   }
   
 }
@@ -2,7 +2,6 @@ package com.softavail.comms.demo.application.api;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.softavail.comms.demo.application.services.Configuration;
-import com.softavail.comms.nexmo.answer.AnswerStrategyException;
 import com.softavail.comms.nexmo.answer.AnswerStrategyWithCallback;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -13,6 +12,8 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -30,61 +31,34 @@ public class NexMoEventCallbackResource {
   AnswerStrategyWithCallback strategy;
 
   @POST
-  public Response handleCallbackEvent(
+  public void handleCallbackEvent(
       @QueryParam("taskId") String taskId,
       @QueryParam("callback_state") String callbackState,
-      JsonNode payload) {
+      JsonNode payload,
+      @Suspended AsyncResponse asyncResponse) {
 
     LOGGER.debug("/event_callback task:{},state:{}", taskId, callbackState);
     LOGGER.debug("payload: {}", payload);
-    
-    Response response = null;
 
-    try {
-      String answerNcco = strategy.continueAnswerInboundCall(payload, taskId, callbackState);
-      LOGGER.debug("/event_callback ncco: {}", answerNcco);
-      response = Response.ok(answerNcco, MediaType.APPLICATION_JSON).build();
-    } catch (AnswerStrategyException e) {
-      LOGGER.error("failed to handle callback event {}", e.getMessage());
-      response =  Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-          .entity(e.getMessage()).build();
-    } catch (Exception ex) {
-      LOGGER.error("failed to handle callback event {}", ex.getMessage());
-      response =  Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-          .entity(ex.getMessage()).build();
-    }
-
-    LOGGER.debug("/event_callback response: {}", response.toString());
-    return response;
+    NccoResponses.resume(asyncResponse,
+        strategy.continueAnswerInboundCallAsync(payload, taskId, callbackState),
+        "/event_callback", Response.Status.INTERNAL_SERVER_ERROR);
   }
 
   @POST
   @Path("connect_callback")
-  public Response handleConnectCallbackEvent(
+  public void handleConnectCallbackEvent(
       @QueryParam("taskId") String taskId,
       @QueryParam("action") String action,
-      JsonNode payload) {
+      JsonNode payload,
+      @Suspended AsyncResponse asyncResponse) {
 
     LOGGER.debug("/event_callback/connect_callback task:{}, action:{}", taskId, action);
     LOGGER.debug("payload: {}", payload);
-    
-    Response response = null;
-    try {
-      String answerNcco = strategy.continueAnswerOutboundCall(payload, taskId, action);
-      LOGGER.debug("/event_callback/connect_callback ncco: {}", answerNcco);
-      response = Response.ok(answerNcco, MediaType.APPLICATION_JSON).build();
-    } catch (AnswerStrategyException e) {
-      LOGGER.error("failed to handle connect_callback event {}", e.getMessage());
-      response =  Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-          .entity(e.getMessage()).build();
-    } catch (Exception ex) {
-      LOGGER.error("failed to handle connect_callback event {}", ex.getMessage());
-      response =  Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-          .entity(ex.getMessage()).build();
-    }
 
-    LOGGER.debug("/event_callback/connect_callback response: {}", response.toString());
-    return response;
+    NccoResponses.resume(asyncResponse,
+        strategy.continueAnswerOutboundCallAsync(payload, taskId, action),
+        "/event_callback/connect_callback", Response.Status.INTERNAL_SERVER_ERROR);
   }
   
 
@@ -0,0 +1,34 @@
+package com.softavail.comms.demo.application.factory;
+
+import com.softavail.comms.demo.application.services.Configuration;
+import com.softavail.commsrouter.client.AsyncTaskServiceClient;
+import org.glassfish.hk2.api.Factory;
+
+import javax.inject.Inject;
+import javax.ws.rs.client.Client;
+
+/**
+ * @author ikrustev
+ */
+public class AsyncTaskServiceClientFactory implements Factory<AsyncTaskServiceClient> {
+
+  // Router calls on the way at a time, the rest wait in the client without holding a thread
+  private static final int MAX_IN_FLIGHT = 64;
+
+  @Inject
+  Client client;
+
+  @Inject
+  Configuration configuration;
+
+  @Override
+  public AsyncTaskServiceClient provide() {
+    return new AsyncTaskServiceClient(client, configuration.getCommsApiEndpoint(), MAX_IN_FLIGHT);
+  }
+
+  @Override
+  public void dispose(AsyncTaskServiceClient instance) {
+    // Do nothing
+  }
+
+}
@@ -0,0 +1,438 @@
+package com.softavail.comms.demo.application.impl;
+
+import com.softavail.comms.demo.application.model.NexMoCall;
+import com.softavail.comms.demo.application.model.NexMoCallDirection;
+import com.softavail.comms.demo.application.model.NexMoCallStatus;
+import com.softavail.comms.demo.application.model.NexMoConversation;
+import com.softavail.comms.demo.application.model.NexMoConversationStatus;
+import com.softavail.comms.demo.application.services.ConversationStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Single node {@link ConversationStore} on concurrent maps. Reads take no locks and writes lock
+ * only the entry they change; stored values are replaced, never modified in place.
+ *
+ * <p>Finished conversations and calls are dropped finishedTtl after they finished, anything
+ * else once idle for idleTtl. Expired entries are swept by the writes themselves, at most once
+ * per sweep interval. When a map grows over maxSize, the write evicts finished entries, oldest
+ * first, from a queue kept in finish order, so it costs no more than the entries it evicts.
+ *
+ * @author ikrustev
+ */
+public class InMemoryConversationStore implements ConversationStore {
+
+  private static final Logger LOGGER = LogManager.getLogger(InMemoryConversationStore.class);
+
+  public static final int DEFAULT_MAX_SIZE = 100_000;
+  public static final long DEFAULT_FINISHED_TTL_MINUTES = 10;
+  public static final long DEFAULT_IDLE_TTL_MINUTES = 24 * 60;
+
+  private static final Set<NexMoConversationStatus> FINISHED_CONVERSATION =
+      EnumSet.of(NexMoConversationStatus.COMPLETED, NexMoConversationStatus.TIMEOUT);
+
+  private static final Set<NexMoCallStatus> FINISHED_CALL = EnumSet.of(
+      NexMoCallStatus.COMPLETED, NexMoCallStatus.FAILED, NexMoCallStatus.REJECTED,
+      NexMoCallStatus.CANCELLED, NexMoCallStatus.BUSY, NexMoCallStatus.TIMEOUT);
+
+  private final int maxSize;
+  private final long finishedTtlNanos;
+  private final long idleTtlNanos;
+  private final long sweepIntervalNanos;
+  private final LongSupplier nanoClock;
+
+  private final Map<String, Stored<NexMoConversation>> conversations = new ConcurrentHashMap<>();
+  private final Map<String, String> conversationByCaller = new ConcurrentHashMap<>();
+  private final Map<String, String> conversationByAgent = new ConcurrentHashMap<>();
+  private final Map<String, String> conversationByTaskId = new ConcurrentHashMap<>();
+
+  private final Map<String, Stored<NexMoCall>> calls = new ConcurrentHashMap<>();
+  private final Map<CallKey, String> callByConversation = new ConcurrentHashMap<>();
+
+  // Keys in the order their entries finished. Entries removed or restarted since are skipped
+  private final Queue<Finished> finishedConversations = new ConcurrentLinkedQueue<>();
+  private final Queue<Finished> finishedCalls = new ConcurrentLinkedQueue<>();
+
+  private final AtomicLong lastSweepNanos;
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+
+  public InMemoryConversationStore() {
+    this(DEFAULT_MAX_SIZE, DEFAULT_FINISHED_TTL_MINUTES, DEFAULT_IDLE_TTL_MINUTES,
+        TimeUnit.MINUTES, System::nanoTime);
+  }
+
+  InMemoryConversationStore(int maxSize, long finishedTtl, long idleTtl, TimeUnit unit,
+      LongSupplier nanoClock) {
+
+    this.maxSize = maxSize;
+    this.finishedTtlNanos = unit.toNanos(finishedTtl);
+    this.idleTtlNanos = unit.toNanos(idleTtl);
+    this.sweepIntervalNanos = Math.max(1, finishedTtlNanos / 10);
+    this.nanoClock = nanoClock;
+    this.lastSweepNanos = new AtomicLong(nanoClock.getAsLong());
+  }
+
+  @Override
+  public NexMoConversation getConversation(String id) {
+    return copy(conversations.get(id));
+  }
+
+  @Override
+  public NexMoConversation putConversationIfAbsent(NexMoConversation conversation) {
+    Stored<NexMoConversation> stored = conversations.computeIfAbsent(conversation.getId(),
+        id -> {
+          Stored<NexMoConversation> created = stored(conversation.clone(), null);
+          index(null, created.value);
+          return track(finishedConversations, id, null, created);
+        });
+    afterWrite();
+    return stored.value.clone();
+  }
+
+  @Override
+  public NexMoConversation updateConversation(String id,
+      UnaryOperator<NexMoConversation> update) {
+
+    // Indexed while the entry is locked, so concurrent updates can't leave stale keys behind
+    Stored<NexMoConversation> after = conversations.computeIfPresent(id, (key, stored) -> {
+      Stored<NexMoConversation> updated = stored(update.apply(stored.value.clone()), stored);
+      index(stored.value, updated.value);
+      return track(finishedConversations, key, stored, updated);
+    });
+    if (after == null) {
+      return null;
+    }
+    afterWrite();
+    return after.value.clone();
+  }
+
+  @Override
+  public NexMoConversation findConversationByCaller(String callUuid) {
+    return findConversation(conversationByCaller, callUuid,
+        conversation -> conversation.getCaller() != null ? conversation.getCaller().getUuid()
+            : null);
+  }
+
+  @Override
+  public NexMoConversation findConversationByAgent(String callUuid) {
+    return findConversation(conversationByAgent, callUuid,
+        conversation -> conversation.getAgent() != null ? conversation.getAgent().getUuid()
+            : null);
+  }
+
+  @Override
+  public NexMoConversation findConversationByTaskId(String taskId) {
+    return findConversation(conversationByTaskId, taskId, NexMoConversation::getTaskId);
+  }
+
+  @Override
+  public NexMoCall getCall(String uuid) {
+    Stored<NexMoCall> stored = calls.get(uuid);
+    return stored != null ? stored.value.clone() : null;
+  }
+
+  @Override
+  public void putCall(NexMoCall call, BinaryOperator<NexMoCall> merge) {
+    calls.compute(call.getUuid(), (uuid, existing) -> {
+      Stored<NexMoCall> stored = storedCall(existing == null ? call.clone()
+          : merge.apply(existing.value.clone(), call.clone()), existing);
+      if (existing != null) {
+        unindex(existing.value);
+      }
+      if (stored.value.getConversationUuid() != null && stored.value.getDirection() != null) {
+        callByConversation.put(new CallKey(stored.value), uuid);
+      }
+      return track(finishedCalls, uuid, existing, stored);
+    });
+    afterWrite();
+  }
+
+  @Override
+  public void removeCall(String uuid) {
+    Stored<NexMoCall> removed = calls.remove(uuid);
+    if (removed != null) {
+      unindex(removed.value);
+    }
+  }
+
+  @Override
+  public NexMoCall findCall(String conversationUuid, NexMoCallDirection direction) {
+    String uuid = callByConversation.get(new CallKey(conversationUuid, direction));
+    if (uuid == null) {
+      return null;
+    }
+    NexMoCall call = getCall(uuid);
+    if (call == null || !new CallKey(call).equals(new CallKey(conversationUuid, direction))) {
+      return null;
+    }
+    return call;
+  }
+
+  int getConversationCount() {
+    return conversations.size();
+  }
+
+  int getCallCount() {
+    return calls.size();
+  }
+
+  /**
+   * Drops expired entries, then the oldest finished ones while a map is over the maximum size.
+   */
+  void sweep() {
+    long now = nanoClock.getAsLong();
+    int before = conversations.size() + calls.size();
+
+    sweep(conversations, finishedConversations, now, this::unindex);
+    sweep(calls, finishedCalls, now, this::unindex);
+
+    int swept = before - conversations.size() - calls.size();
+    if (swept > 0) {
+      LOGGER.debug("Swept {} conversations and calls; {} conversations and {} calls left",
+          swept, conversations.size(), calls.size());
+    }
+  }
+
+  private <T> void sweep(Map<String, Stored<T>> map, Queue<Finished> finished, long now,
+      Consumer<T> unindex) {
+
+    map.forEach((key, stored) -> {
+      boolean expired = stored.finishedNanos != null
+          ? now - stored.finishedNanos >= finishedTtlNanos
+          : now - stored.touchedNanos >= idleTtlNanos;
+      if (expired) {
+        remove(map, key, stored, unindex);
+      }
+    });
+    finished.removeIf(entry -> !entry.isCurrent(map.get(entry.key)));
+
+    evictFinished(map, finished, unindex);
+    if (map.size() > maxSize) {
+      LOGGER.warn("{} active entries over the maximum of {}", map.size() - maxSize, maxSize);
+    }
+  }
+
+  private <T> void evictFinished(Map<String, Stored<T>> map, Queue<Finished> finished,
+      Consumer<T> unindex) {
+
+    while (map.size() > maxSize) {
+      Finished oldest = finished.poll();
+      if (oldest == null) {
+        return;
+      }
+      Stored<T> stored = map.get(oldest.key);
+      if (oldest.isCurrent(stored)) {
+        remove(map, oldest.key, stored, unindex);
+      }
+    }
+  }
+
+  // Queues an entry once, when it becomes finished
+  private static <T> Stored<T> track(Queue<Finished> finished, String key, Stored<T> before,
+      Stored<T> after) {
+
+    if (after.finishedNanos != null && (before == null || before.finishedNanos == null)) {
+      finished.add(new Finished(key, after.finishedNanos));
+    }
+    return after;
+  }
+
+  private <T> void remove(Map<String, Stored<T>> map, String key, Stored<T> stored,
+      Consumer<T> unindex) {
+
+    // Only if not replaced since the sweep read it
+    if (map.remove(key, stored)) {
+      unindex.accept(stored.value);
+    }
+  }
+
+  private void afterWrite() {
+    if (conversations.size() > maxSize) {
+      evictFinished(conversations, finishedConversations, this::unindex);
+    }
+    if (calls.size() > maxSize) {
+      evictFinished(calls, finishedCalls, this::unindex);
+    }
+
+    long now = nanoClock.getAsLong();
+    long last = lastSweepNanos.get();
+    if (now - last >= sweepIntervalNanos && sweeping.compareAndSet(false, true)) {
+      try {
+        lastSweepNanos.set(now);
+        sweep();
+      } finally {
+        sweeping.set(false);
+      }
+    }
+  }
+
+  private NexMoConversation findConversation(Map<String, String> index, String key,
+      Function<NexMoConversation, String> indexedValue) {
+
+    if (key == null) {
+      return null;
+    }
+    String id = index.get(key);
+    if (id == null) {
+      return null;
+    }
+    Stored<NexMoConversation> stored = conversations.get(id);
+    // The index may briefly point at a conversation that no longer has this key
+    if (stored == null || !key.equals(indexedValue.apply(stored.value))) {
+      return null;
+    }
+    return stored.value.clone();
+  }
+
+  private void index(NexMoConversation before, NexMoConversation after) {
+    reindex(conversationByCaller, callerUuid(before), callerUuid(after), after.getId());
+    reindex(conversationByAgent, agentUuid(before), agentUuid(after), after.getId());
+    reindex(conversationByTaskId, before != null ? before.getTaskId() : null, after.getTaskId(),
+        after.getId());
+  }
+
+  private void unindex(NexMoConversation conversation) {
+    String id = conversation.getId();
+    removeIndex(conversationByCaller, callerUuid(conversation), id);
+    removeIndex(conversationByAgent, agentUuid(conversation), id);
+    removeIndex(conversationByTaskId, conversation.getTaskId(), id);
+  }
+
+  private void unindex(NexMoCall call) {
+    if (call.getConversationUuid() != null && call.getDirection() != null) {
+      callByConversation.remove(new CallKey(call), call.getUuid());
+    }
+  }
+
+  private static void reindex(Map<String, String> index, String before, String after,
+      String id) {
+
+    if (before != null && !before.equals(after)) {
+      index.remove(before, id);
+    }
+    if (after != null) {
+      index.put(after, id);
+    }
+  }
+
+  private static void removeIndex(Map<String, String> index, String key, String id) {
+    if (key != null) {
+      index.remove(key, id);
+    }
+  }
+
+  private static String callerUuid(NexMoConversation conversation) {
+    return conversation != null && conversation.getCaller() != null
+        ? conversation.getCaller().getUuid() : null;
+  }
+
+  private static String agentUuid(NexMoConversation conversation) {
+    return conversation != null && conversation.getAgent() != null
+        ? conversation.getAgent().getUuid() : null;
+  }
+
+  private static NexMoConversation copy(Stored<NexMoConversation> stored) {
+    return stored != null ? stored.value.clone() : null;
+  }
+
+  private Stored<NexMoConversation> stored(NexMoConversation conversation,
+      Stored<NexMoConversation> previous) {
+
+    return new Stored<>(conversation, nanoClock.getAsLong(),
+        FINISHED_CONVERSATION.contains(conversation.getStatus()), previous);
+  }
+
+  private Stored<NexMoCall> storedCall(NexMoCall call, Stored<NexMoCall> previous) {
+    return new Stored<>(call, nanoClock.getAsLong(), FINISHED_CALL.contains(call.getStatus()),
+        previous);
+  }
+
+  private static final class Stored<T> {
+
+    private final T value;
+    private final long touchedNanos;
+    private final Long finishedNanos;
+
+    // An entry updated after it finished keeps its finish time, so its TTL is not extended
+    private Stored(T value, long nowNanos, boolean finished, Stored<T> previous) {
+      this.value = value;
+      this.touchedNanos = nowNanos;
+      if (!finished) {
+        this.finishedNanos = null;
+      } else if (previous != null && previous.finishedNanos != null) {
+        this.finishedNanos = previous.finishedNanos;
+      } else {
+        this.finishedNanos = nowNanos;
+      }
+    }
+
+  }
+
+  private static final class Finished {
+
+    private final String key;
+    private final long finishedNanos;
+
+    private Finished(String key, long finishedNanos) {
+      this.key = key;
+      this.finishedNanos = finishedNanos;
+    }
+
+    private boolean isCurrent(Stored<?> stored) {
+      return stored != null && stored.finishedNanos != null
+          && stored.finishedNanos == finishedNanos;
+    }
+
+  }
+
+  private static final class CallKey {
+
+    private final String conversationUuid;
+    private final NexMoCallDirection direction;
+
+    private CallKey(NexMoCall call) {
+      this(call.getConversationUuid(), call.getDirection());
+    }
+
+    private CallKey(String conversationUuid, NexMoCallDirection direction) {
+      this.conversationUuid = conversationUuid;
+      this.direction = direction;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof CallKey)) {
+        return false;
+      }
+      CallKey other = (CallKey) object;
+      return Objects.equals(conversationUuid, other.conversationUuid)
+          && direction == other.direction;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(conversationUuid, direction);
+    }
+
+  }
+
+}
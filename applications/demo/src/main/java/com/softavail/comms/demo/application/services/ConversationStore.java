@@ -0,0 +1,58 @@
+package com.softavail.comms.demo.application.services;
+
+import com.softavail.comms.demo.application.model.NexMoCall;
+import com.softavail.comms.demo.application.model.NexMoCallDirection;
+import com.softavail.comms.demo.application.model.NexMoConversation;
+
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Persistence SPI behind {@link ConversationService}. The in-memory implementation serves a
+ * single node; an implementation backed by a shared store lets several instances of the answer
+ * and event resources serve the same calls.
+ *
+ * <p>Implementations own the values they are given and hand out copies, so callers can neither
+ * see nor make changes outside of {@link #updateConversation} and {@link #putCall}. They
+ * also decide when finished conversations and calls are dropped.
+ *
+ * @author ikrustev
+ */
+public interface ConversationStore {
+
+  NexMoConversation getConversation(String id);
+
+  /**
+   * Stores the conversation unless one with the same id exists.
+   *
+   * @return a copy of the stored conversation, the existing one if there was one
+   */
+  NexMoConversation putConversationIfAbsent(NexMoConversation conversation);
+
+  /**
+   * Atomically replaces the conversation with the result of the update, which gets a copy.
+   *
+   * @return a copy of the updated conversation, or null if there is none with this id
+   */
+  NexMoConversation updateConversation(String id, UnaryOperator<NexMoConversation> update);
+
+  NexMoConversation findConversationByCaller(String callUuid);
+
+  NexMoConversation findConversationByAgent(String callUuid);
+
+  NexMoConversation findConversationByTaskId(String taskId);
+
+  NexMoCall getCall(String uuid);
+
+  /**
+   * Stores the call if it is new, otherwise atomically replaces it with the result of merging.
+   *
+   * @param merge gets a copy of the stored call and the given one
+   */
+  void putCall(NexMoCall call, BinaryOperator<NexMoCall> merge);
+
+  void removeCall(String uuid);
+
+  NexMoCall findCall(String conversationUuid, NexMoCallDirection direction);
+
+}
@@ -14,6 +14,7 @@ import com.softavail.comms.demo.application.factory.NexMoModelFactory;
 import com.softavail.comms.demo.application.services.Configuration;
 import com.softavail.comms.demo.application.services.NexMoService;
 import com.softavail.comms.nexmo.ncco.NccoFactory;
+import com.softavail.comms.nexmo.util.OrderedExecutor;
 import com.softavail.comms.nexmo.util.PhoneConverter;
 import com.softavail.commsrouter.api.dto.arg.CreateTaskArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateTaskArg;
@@ -30,10 +31,8 @@ import com.softavail.commsrouter.api.dto.model.attribute.AttributeValueVisitor;
 import com.softavail.commsrouter.api.dto.model.attribute.BooleanAttributeValueDto;
 import com.softavail.commsrouter.api.dto.model.attribute.DoubleAttributeValueDto;
 import com.softavail.commsrouter.api.dto.model.attribute.StringAttributeValueDto;
-import com.softavail.commsrouter.api.exception.BadValueException;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
-import com.softavail.commsrouter.api.exception.NotFoundException;
-import com.softavail.commsrouter.client.TaskServiceClient;
+import com.softavail.commsrouter.client.AsyncTaskServiceClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -43,13 +42,29 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.inject.Inject;
 import javax.ws.rs.core.UriBuilder;
 
+/**
+ * Callback IVR on top of the router. Each webhook is answered by a pipeline of non-blocking
+ * router calls, run by an {@link OrderedExecutor} keyed by the task, or by the conversation
+ * until there is a task. Events of one call are handled in the order they arrive, and the
+ * webhook threads are free while the router is slow.
+ */
 public class AnswerStrategyWithCallback implements AnswerStrategy {
 
   private static final Logger LOGGER = LogManager.getLogger(AnswerStrategyWithCallback.class);
 
+  /**
+   * How long a webhook waits for its answer. NexMo gives up on answer URLs after a few seconds.
+   */
+  public static final long ANSWER_TIMEOUT_SECONDS = 4;
+
   private static final String KEY_STATE = "callback_state";
   private static final String KEY_NUMBER = "callback_number";
   private static final String KEY_TEMP_NUMBER = "temp_number";
@@ -99,7 +114,9 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
 
   private NccoFactory nccoFactory = new NccoFactory();
 
-  private TaskServiceClient taskServiceClient;
+  private AsyncTaskServiceClient taskServiceClient;
+
+  private OrderedExecutor orderedExecutor;
 
   private Configuration configuration;
 
@@ -107,21 +124,17 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
 
   private boolean withFeatureRecordName;
 
-  private Map<String, String> requirements;
-
-  private Map<String, String> userContext;
-
   @Inject
   AnswerStrategyWithCallback(
-      TaskServiceClient taskServiceClient,
+      AsyncTaskServiceClient taskServiceClient,
+      OrderedExecutor orderedExecutor,
       Configuration configuration,
       NexMoService nexMoService) {
     this.taskServiceClient =  taskServiceClient;
+    this.orderedExecutor = orderedExecutor;
     this.configuration = configuration;
     this.nexMoService = nexMoService;
     this.withFeatureRecordName = false;
-    this.requirements = null;
-    this.userContext = null;
   }
 
   @Override
@@ -129,15 +142,21 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
       Map<String, String> requirements, Map<String, String> userContext)
       throws AnswerStrategyException {
 
+    return await(answerInboundCallWithParamsAsync(requirements, userContext));
+  }
+
+  /**
+   * Non-blocking {@link #answerInboundCallWithParams}.
+   */
+  public CompletableFuture<String> answerInboundCallWithParamsAsync(
+      Map<String, String> requirements, Map<String, String> userContext) {
+
     if (requirements == null) {
-      throw new AnswerStrategyException("Invalid argument: <requirements>");
+      return failed(new AnswerStrategyException("Invalid argument: <requirements>"));
     }
 
-    this.requirements = requirements;
-    this.userContext = userContext;
-
-    LOGGER.debug("requirements: {}", this.requirements);
-    LOGGER.debug("userContext: {}", this.userContext);
+    LOGGER.debug("requirements: {}", requirements);
+    LOGGER.debug("userContext: {}", userContext);
 
     String convUuid = requirements.get("conversation_uuid");
     String from = requirements.get("from");
@@ -146,153 +165,187 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
     if (userContext != null) {
       tag = userContext.get("customer_uuid");
     }
-    return answerInboundCall(convUuid, from, to, tag);
+    return answerInboundCallAsync(convUuid, from, to, tag, requirements, userContext);
   }
 
   @Override
   public String answerInboundCall(final String convUuid, final String from, final String to,
       String tag) throws AnswerStrategyException {
 
+    return await(answerInboundCallAsync(convUuid, from, to, tag, null, null));
+  }
+
+  private CompletableFuture<String> answerInboundCallAsync(final String convUuid,
+      final String from, final String to, String tag, Map<String, String> requirements,
+      Map<String, String> userContext) {
+
     LOGGER.debug("answerInboundCall");
 
     if (null == convUuid) {
-      throw new AnswerStrategyException("Missing param: <conversation_uuid>");
+      return failed(new AnswerStrategyException("Missing param: <conversation_uuid>"));
     }
 
     if (null == from) {
-      throw new AnswerStrategyException("Missing param: <from>");
+      return failed(new AnswerStrategyException("Missing param: <from>"));
     }
 
     if (null == to) {
-      throw new AnswerStrategyException("Missing param: <to>");
+      return failed(new AnswerStrategyException("Missing param: <to>"));
     }
 
     // Create task
     String conversationName = "conv-" + UUID.randomUUID().toString();
-    CreatedTaskDto task = createRegularTask(conversationName, from, tag);
-
-    if (null == task) {
-      return respondWithErrorTalkNcco();
-    }
-
-    // Check answer time prediction
-    if (task.getQueueTasks() < 1) {
-      // replace regular task
-      return respondWithRegularTask(conversationName);
-    }
-
-    if (task.getQueueTasks() < 3 ) {
-      // prompt callback
-      return respondByTransitionToPromptCallback(task.getRef());
-    }
-
-    // continue callback
-    return respondWithCallbackTask(task.getRef(), from);
+    return orderedExecutor.submit(convUuid, () ->
+        createRegularTask(conversationName, from, tag, requirements, userContext)
+            .thenCompose(task -> {
+
+              if (null == task) {
+                return completed(respondWithErrorTalkNcco());
+              }
+
+              // Check answer time prediction
+              if (task.getQueueTasks() < 1) {
+                // replace regular task
+                return completed(respondWithRegularTask(conversationName));
+              }
+
+              if (task.getQueueTasks() < 3 ) {
+                // prompt callback
+                return respondByTransitionToPromptCallback(task.getRef());
+              }
+
+              // continue callback
+              return respondWithCallbackTask(task.getRef(), from);
+            }));
   }
 
   @Override
   public String continueAnswerInboundCall(JsonNode userInfo, String taskId, String state)
       throws AnswerStrategyException {
 
-    LOGGER.debug("continueAnswerInboundCall");
+    return await(continueAnswerInboundCallAsync(userInfo, taskId, state));
+  }
 
-    TaskDto task = getTask(taskId);
-    if (null == task) {
-      LOGGER.warn("Can't get task: {}", taskId);
-      return respondWithErrorTalkNcco();
-    }
+  /**
+   * Non-blocking {@link #continueAnswerInboundCall}.
+   */
+  public CompletableFuture<String> continueAnswerInboundCallAsync(JsonNode userInfo,
+      String taskId, String state) {
 
-    AttributeGroupDto taskContext =  task.getUserContext();
-    if (null == taskContext) {
-      LOGGER.warn("Task does not have a context: {}", taskId);
-      return respondWithErrorTalkNcco();
-    }
+    LOGGER.debug("continueAnswerInboundCall");
 
-    // check if the task has been assigned during callback ivr
-    if (task.getState() == TaskState.assigned) {
-      return handleAssignedTask(task);
-    }
+    return orderedExecutor.submit(taskId, () -> getTask(taskId).thenCompose(task -> {
+      if (null == task) {
+        LOGGER.warn("Can't get task: {}", taskId);
+        return completed(respondWithErrorTalkNcco());
+      }
 
-    String callbackState = stringAttributeValueDto(taskContext.get(KEY_STATE));
-    LOGGER.trace("evt state: {}, task state: {}", state, callbackState);
-
-    // TODO: Check the state from task and from callback
-
-    String nccoResponse = null;
-
-    switch (callbackState) {
-      case STATE_PROMPT_CALLBACK:
-        nccoResponse = handlePromptCallbackResponse(userInfo, task);
-        break;
-      case STATE_PROMPT_CALLERID:
-        nccoResponse = handlePromptCallerIdResponse(userInfo, task);
-        break;
-      case STATE_GET_NUMBER:
-        nccoResponse = handleGetNumberResponse(userInfo, task);
-        break;
-      case STATE_CONFIRM_NUMBER:
-        nccoResponse = handleConfirmNumberResponse(userInfo, task);
-        break;
-      case STATE_RECORD_NAME:
-        nccoResponse = handleRecordNameResponse(userInfo, task);
-        break;
-      default:
-        nccoResponse = respondWithErrorTalkNcco();
-        break;
-    }
+      AttributeGroupDto taskContext =  task.getUserContext();
+      if (null == taskContext) {
+        LOGGER.warn("Task does not have a context: {}", taskId);
+        return completed(respondWithErrorTalkNcco());
+      }
 
-    if (null == nccoResponse) {
-      throw new AnswerStrategyException("Could not build next ncco");
-    }
+      // check if the task has been assigned during callback ivr
+      if (task.getState() == TaskState.assigned) {
+        return handleAssignedTask(task);
+      }
 
-    return nccoResponse;
+      String callbackState = stringAttributeValueDto(taskContext.get(KEY_STATE));
+      LOGGER.trace("evt state: {}, task state: {}", state, callbackState);
+
+      // TODO: Check the state from task and from callback
+
+      CompletableFuture<String> nccoResponse;
+
+      switch (callbackState) {
+        case STATE_PROMPT_CALLBACK:
+          nccoResponse = handlePromptCallbackResponse(userInfo, task);
+          break;
+        case STATE_PROMPT_CALLERID:
+          nccoResponse = handlePromptCallerIdResponse(userInfo, task);
+          break;
+        case STATE_GET_NUMBER:
+          nccoResponse = handleGetNumberResponse(userInfo, task);
+          break;
+        case STATE_CONFIRM_NUMBER:
+          nccoResponse = handleConfirmNumberResponse(userInfo, task);
+          break;
+        case STATE_RECORD_NAME:
+          nccoResponse = handleRecordNameResponse(userInfo, task);
+          break;
+        default:
+          nccoResponse = completed(respondWithErrorTalkNcco());
+          break;
+      }
+
+      return nccoResponse;
+    }));
   }
 
   @Override
   public String answerOutboundCall(String kind, String taskId) throws AnswerStrategyException {
+    return await(answerOutboundCallAsync(kind, taskId));
+  }
 
-    String nccoResponse;
+  /**
+   * Non-blocking {@link #answerOutboundCall}.
+   */
+  public CompletableFuture<String> answerOutboundCallAsync(String kind, String taskId) {
 
     // Handle the answer
     if (kind != null && kind.equals("callback_agent")) {
-      nccoResponse = handleOutboundAnswerFromAgentForCallbackTask(taskId);
+      return orderedExecutor.submit(taskId,
+          () -> handleOutboundAnswerFromAgentForCallbackTask(taskId));
     } else if (kind != null && kind.equals("regular_agent")) {
-      nccoResponse = handleOutboundAnswerFromAgentForRegularTask(taskId);
+      return orderedExecutor.submit(taskId,
+          () -> handleOutboundAnswerFromAgentForRegularTask(taskId));
     }  else if (kind != null && kind.equals("callback_customer")) {
-      nccoResponse = handleOutboundAnswerFromCustomerForCallbackTask(taskId);
-    } else {
-      nccoResponse = respondWithErrorTalkNcco();
+      return orderedExecutor.submit(taskId,
+          () -> handleOutboundAnswerFromCustomerForCallbackTask(taskId));
     }
 
-    return nccoResponse;
+    return completed(respondWithErrorTalkNcco());
   }
 
   @Override
   public String continueAnswerOutboundCall(JsonNode userInfo, String taskId, String action)
       throws AnswerStrategyException {
+
+    return await(continueAnswerOutboundCallAsync(userInfo, taskId, action));
+  }
+
+  /**
+   * Non-blocking {@link #continueAnswerOutboundCall}.
+   */
+  public CompletableFuture<String> continueAnswerOutboundCallAsync(JsonNode userInfo,
+      String taskId, String action) {
+
     LOGGER.debug("continueAnswerOutboundCall");
 
-    TaskDto task = getTask(taskId);
-    if (null == task) {
-      LOGGER.warn("Can't get task: {}", taskId);
-      return respondWithErrorTalkNcco();
-    }
+    return orderedExecutor.submit(taskId, () -> getTask(taskId).thenCompose(task -> {
+      if (null == task) {
+        LOGGER.warn("Can't get task: {}", taskId);
+        return completed(respondWithErrorTalkNcco());
+      }
 
-    String nccoResponse = null;
-    if (null != action && action.equals("confirm_name")) {
-      nccoResponse = handleOutboundPromptCustomerName(userInfo, task);
-    }
+      String nccoResponse = null;
+      if (null != action && action.equals("confirm_name")) {
+        nccoResponse = handleOutboundPromptCustomerName(userInfo, task);
+      }
 
-    if (null == nccoResponse) {
-      throw new AnswerStrategyException("Could not build next ncco");
-    }
+      if (null == nccoResponse) {
+        throw new CompletionException(new AnswerStrategyException("Could not build next ncco"));
+      }
 
-    return nccoResponse;
+      return completed(nccoResponse);
+    }));
   }
 
-  private String handlePromptCallbackResponse(JsonNode userInfo, TaskDto task) {
+  private CompletableFuture<String> handlePromptCallbackResponse(JsonNode userInfo,
+      TaskDto task) {
     LOGGER.debug("handlePromptCallbackResponse");
-    String response = "[]";// empty NCCO
+    CompletableFuture<String> response;
     String number = parseDtmfFromUserInfo(userInfo);
     if (number != null && number.equals("1")) {
 
@@ -310,58 +363,59 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
     return response;
   }
 
-  private String handleAssignedTask(TaskDto task) {
+  private CompletableFuture<String> handleAssignedTask(TaskDto task) {
 
     LOGGER.debug("handleAssignedTask");
 
-    try {
-
-      if (task == null) {
-        return respondWithErrorTalkNcco();
-      }
+    if (task == null) {
+      return completed(respondWithErrorTalkNcco());
+    }
 
-      AttributeGroupDto taskContext = task.getUserContext();
-      if (null == taskContext) {
-        return respondWithErrorTalkNcco();
-      }
+    AttributeGroupDto taskContext = task.getUserContext();
+    if (null == taskContext) {
+      return completed(respondWithErrorTalkNcco());
+    }
 
-      String convName = attributeGroupDtogetString(KEY_CONV_NAME, taskContext);
-      if (null == convName || convName.length() == 0) {
-        return respondWithErrorTalkNcco();
-      }
+    String convName = attributeGroupDtogetString(KEY_CONV_NAME, taskContext);
+    if (null == convName || convName.length() == 0) {
+      return completed(respondWithErrorTalkNcco());
+    }
 
-      // update task
-      AttributeGroupDto updContext = new AttributeGroupDto();
-      updContext.put(KEY_STATE, new StringAttributeValueDto(STATE_ASSIGNED));
-      updContext.put(KEY_KIND, new StringAttributeValueDto("callback"));
-      boolean taskUpdated = updateTaskContext(task.getRef(), updContext);
+    // update task
+    AttributeGroupDto updContext = new AttributeGroupDto();
+    updContext.put(KEY_STATE, new StringAttributeValueDto(STATE_ASSIGNED));
+    updContext.put(KEY_KIND, new StringAttributeValueDto("callback"));
+    return updateTaskContext(task.getRef(), updContext).thenApply(taskUpdated -> {
       if (false == taskUpdated) {
         return respondWithErrorTalkNcco();
       }
 
-      // connect customer to the conversation
-      List<Ncco> list = nccoFactory
-          .nccoListWithAnswerFromCustomerForCallbackTask(MESSAGE_ASSIGNED_CALLBACK_TASK, convName);
+      try {
+        // connect customer to the conversation
+        List<Ncco> list = nccoFactory.nccoListWithAnswerFromCustomerForCallbackTask(
+            MESSAGE_ASSIGNED_CALLBACK_TASK, convName);
 
-      // preparing a response
-      NccoResponseBuilder builder = new NccoResponseBuilder();
-      list.forEach(ncco -> {
-        builder.appendNcco(ncco);
-      });
+        // preparing a response
+        NccoResponseBuilder builder = new NccoResponseBuilder();
+        list.forEach(ncco -> {
+          builder.appendNcco(ncco);
+        });
 
-      // respond
-      NccoResponse nccoResponse = builder.getValue();
-      return nccoResponse.toJson();
-    } catch (Exception e) {
-      LOGGER.error("respondByTransitionToRegularTask: {}", e.getMessage());
-    }
+        // respond
+        NccoResponse nccoResponse = builder.getValue();
+        return nccoResponse.toJson();
+      } catch (Exception e) {
+        LOGGER.error("respondByTransitionToRegularTask: {}", e.getMessage());
+      }
 
-    return respondWithErrorTalkNcco();
+      return respondWithErrorTalkNcco();
+    });
   }
 
-  private String handlePromptCallerIdResponse(JsonNode userInfo, TaskDto task) {
+  private CompletableFuture<String> handlePromptCallerIdResponse(JsonNode userInfo,
+      TaskDto task) {
     LOGGER.debug("handlePromptCallerIdResponse");
-    String response = "[]";// empty NCCO
+    CompletableFuture<String> response;
     String number = parseDtmfFromUserInfo(userInfo);
     if (number != null && number.equals("1")) {
       if (withFeatureRecordName) {
@@ -376,9 +430,10 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
     return response;
   }
 
-  private String handleGetNumberResponse(JsonNode userInfo, TaskDto task) {
+  private CompletableFuture<String> handleGetNumberResponse(JsonNode userInfo,
+      TaskDto task) {
     LOGGER.debug("handleGetNumberResponse");
-    String response = "[]";// empty NCCO
+    CompletableFuture<String> response;
     String number = parseDtmfFromUserInfo(userInfo);
 
     if (number != null && number.length() > 9) {
@@ -390,9 +445,10 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
     return response;
   }
 
-  private String handleConfirmNumberResponse(JsonNode userInfo, TaskDto task) {
+  private CompletableFuture<String> handleConfirmNumberResponse(JsonNode userInfo,
+      TaskDto task) {
     LOGGER.debug("handleConfirmNumberResponse");
-    String response = "[]";// empty NCCO
+    CompletableFuture<String> response;
     String dtmf = parseDtmfFromUserInfo(userInfo);
 
     if (dtmf != null && dtmf.equals("1")) {
@@ -411,7 +467,8 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
     return response;
   }
 
-  private String handleRecordNameResponse(JsonNode userInfo, TaskDto task) {
+  private CompletableFuture<String> handleRecordNameResponse(JsonNode userInfo,
+      TaskDto task) {
     LOGGER.debug("handleRecordNameResponse");
     String recordingUrl = parseRecordingUrlFromUserInfo(userInfo);
     AttributeGroupDto taskContext = null;
@@ -424,60 +481,64 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
     return respondByTransitionToEnd(task, taskContext);
   }
 
-  private String respondWithCallbackTask(String taskId, String callbackNumber) {
+  private CompletableFuture<String> respondWithCallbackTask(String taskId,
+      String callbackNumber) {
 
-    TaskDto task = getTask(taskId);
-    if (null == task) {
-      return respondWithErrorTalkNcco();
-    }
+    return getTask(taskId).thenCompose(task -> {
+      if (null == task) {
+        return completed(respondWithErrorTalkNcco());
+      }
 
-    //TODO: set task's kind to callback
-    AttributeGroupDto taskContext = new AttributeGroupDto();
-    taskContext.put(KEY_KIND, new StringAttributeValueDto("cllback"));
+      //TODO: set task's kind to callback
+      AttributeGroupDto taskContext = new AttributeGroupDto();
+      taskContext.put(KEY_KIND, new StringAttributeValueDto("cllback"));
 
-    boolean updateTaskContextResult = updateTaskContext(task.getRef(), taskContext);
-    if (false == updateTaskContextResult) {
-      return respondWithErrorTalkNcco();
-    }
+      return updateTaskContext(task.getRef(), taskContext).thenCompose(updateTaskContextResult -> {
+        if (false == updateTaskContextResult) {
+          return completed(respondWithErrorTalkNcco());
+        }
 
-    if (callbackNumber != null && callbackNumber.length() > 9
-        && Character.isDigit(callbackNumber.charAt(1))) {
-      return respondByTransitionToPromptCallerId(task, callbackNumber, INFORM_CALLBACK_MESSAGE);
-    }
+        if (callbackNumber != null && callbackNumber.length() > 9
+            && Character.isDigit(callbackNumber.charAt(1))) {
+          return respondByTransitionToPromptCallerId(task, callbackNumber,
+              INFORM_CALLBACK_MESSAGE);
+        }
 
-    return respondByTransitionToGetNumber(task, INFORM_CALLBACK_MESSAGE);
+        return respondByTransitionToGetNumber(task, INFORM_CALLBACK_MESSAGE);
+      });
+    });
   }
 
-  private String respondByTransitionToPromptCallback(String taskId) {
+  private CompletableFuture<String> respondByTransitionToPromptCallback(String taskId) {
 
     AttributeGroupDto taskContext = new AttributeGroupDto();
     taskContext.put(KEY_STATE, new StringAttributeValueDto(STATE_PROMPT_CALLBACK));
 
     LOGGER.debug("will updateTaskContext with 'callback_state': {}",
         STATE_PROMPT_CALLBACK);
-    boolean taskUpdated = updateTaskContext(taskId, taskContext);
+    return updateTaskContext(taskId, taskContext).thenApply(taskUpdated -> {
+      if (false == taskUpdated) {
+        return respondWithErrorTalkNcco();
+      }
 
-    if (false == taskUpdated) {
-      return respondWithErrorTalkNcco();
-    }
+      URI uri = UriBuilder.fromPath(getEventUrl())
+          .queryParam("taskId", taskId)
+          .queryParam(KEY_STATE, STATE_PROMPT_CALLBACK)
+          .build();
+      String finalEventUrl = uri.toString();
+      List<Ncco> list =
+          nccoFactory.nccoListWithPromptCallback(PROMPT_CALLBACK_MESSAGE, finalEventUrl);
 
-    URI uri = UriBuilder.fromPath(getEventUrl())
-        .queryParam("taskId", taskId)
-        .queryParam(KEY_STATE, STATE_PROMPT_CALLBACK)
-        .build();
-    String finalEventUrl = uri.toString();
-    List<Ncco> list =
-        nccoFactory.nccoListWithPromptCallback(PROMPT_CALLBACK_MESSAGE, finalEventUrl);
+      // preparing a response
+      NccoResponseBuilder builder = new NccoResponseBuilder();
+      list.forEach(ncco -> {
+        builder.appendNcco(ncco);
+      });
 
-    // preparing a response
-    NccoResponseBuilder builder = new NccoResponseBuilder();
-    list.forEach(ncco -> {
-      builder.appendNcco(ncco);
+      // respond
+      NccoResponse nccoResponse = builder.getValue();
+      return nccoResponse.toJson();
     });
-
-    // respond
-    NccoResponse nccoResponse = builder.getValue();
-    return nccoResponse.toJson();
   }
 
   private String respondWithRegularTask(String convName) {
@@ -501,152 +562,152 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
     return respondWithErrorTalkNcco();
   }
 
-  private String respondByTransitionToRegularTask(TaskDto task) {
+  private CompletableFuture<String> respondByTransitionToRegularTask(TaskDto task) {
     LOGGER.debug("respondByTransitionToRegularTask");
 
     AttributeGroupDto taskContext = new AttributeGroupDto();
     taskContext.put(KEY_KIND, new StringAttributeValueDto("regular"));
 
-    boolean updateTaskContextResult = updateTaskContext(task.getRef(), taskContext);
-    if (false == updateTaskContextResult) {
-      respondWithErrorTalkNcco();
-    }
-
-    try {
-      String convName = attributeGroupDtogetString(KEY_CONV_NAME, task.getUserContext());
-      List<Ncco> list = nccoFactory.nccoListWithAnswerFromCustomerForRegularTask(
-          MESSAGE_REGULAR_TASK_GREETING, convName, getMusicOnHoldUrl());
+    return updateTaskContext(task.getRef(), taskContext).thenApply(updateTaskContextResult -> {
+      try {
+        String convName = attributeGroupDtogetString(KEY_CONV_NAME, task.getUserContext());
+        List<Ncco> list = nccoFactory.nccoListWithAnswerFromCustomerForRegularTask(
+            MESSAGE_REGULAR_TASK_GREETING, convName, getMusicOnHoldUrl());
 
-      NccoResponseBuilder builder = new NccoResponseBuilder();
-      list.forEach(ncco -> {
-        builder.appendNcco(ncco);
-      });
+        NccoResponseBuilder builder = new NccoResponseBuilder();
+        list.forEach(ncco -> {
+          builder.appendNcco(ncco);
+        });
 
-      NccoResponse nccoResponse = builder.getValue();
-      return nccoResponse.toJson();
-    } catch (Exception e) {
-      LOGGER.error("respondByTransitionToRegularTask: {}", e.getMessage());
-    }
+        NccoResponse nccoResponse = builder.getValue();
+        return nccoResponse.toJson();
+      } catch (Exception e) {
+        LOGGER.error("respondByTransitionToRegularTask: {}", e.getMessage());
+      }
 
-    return respondWithErrorTalkNcco();
+      return respondWithErrorTalkNcco();
+    });
   }
 
-  private String respondByTransitionToPromptCallerId(TaskDto task, String callerId,
-      String callbackText) {
+  private CompletableFuture<String> respondByTransitionToPromptCallerId(TaskDto task,
+      String callerId, String callbackText) {
     LOGGER.debug("respondByTransitionToPromptCallerId");
     String taskId = task.getRef();
     String state = STATE_PROMPT_CALLERID;
     AttributeGroupDto taskContext = new AttributeGroupDto();
     taskContext.put(KEY_STATE, new StringAttributeValueDto(state));
     taskContext.put(KEY_KIND, new StringAttributeValueDto("callback"));
-    boolean taskUpdated = updateTaskContext(taskId, taskContext);
+    return updateTaskContext(taskId, taskContext).thenApply(taskUpdated -> {
+      if (false == taskUpdated) {
+        return respondWithErrorTalkNcco();
+      }
 
-    if (false == taskUpdated) {
-      return respondWithErrorTalkNcco();
-    }
+      URI uri = UriBuilder.fromPath(getEventUrl())
+          .queryParam("taskId", taskId)
+          .queryParam(KEY_STATE, state)
+          .build();
+      String finalEventUrl = uri.toString();
+      String machineReadableCallerId = PhoneConverter.machineReadable(callerId);
+      String text = String.format(PROMPT_CALLERID_MESSAGE, machineReadableCallerId);
+      String finalText = null;
 
-    URI uri = UriBuilder.fromPath(getEventUrl())
-        .queryParam("taskId", taskId)
-        .queryParam(KEY_STATE, state)
-        .build();
-    String finalEventUrl = uri.toString();
-    String machineReadableCallerId = PhoneConverter.machineReadable(callerId);
-    String text = String.format(PROMPT_CALLERID_MESSAGE, machineReadableCallerId);
-    String finalText = null;
-
-    if (callbackText != null && callbackText.length() > 0) {
-      finalText = new StringBuilder().append(callbackText).append(text).toString();
-    } else {
-      finalText = text;
-    }
+      if (callbackText != null && callbackText.length() > 0) {
+        finalText = new StringBuilder().append(callbackText).append(text).toString();
+      } else {
+        finalText = text;
+      }
 
-    List<Ncco> list = nccoFactory.nccoListWithPromptCallerId(finalText, finalEventUrl);
+      List<Ncco> list = nccoFactory.nccoListWithPromptCallerId(finalText, finalEventUrl);
 
-    // preparing a response
-    NccoResponseBuilder builder = new NccoResponseBuilder();
-    list.forEach(ncco -> {
-      builder.appendNcco(ncco);
-    });
+      // preparing a response
+      NccoResponseBuilder builder = new NccoResponseBuilder();
+      list.forEach(ncco -> {
+        builder.appendNcco(ncco);
+      });
 
-    // respond
-    NccoResponse nccoResponse = builder.getValue();
-    return nccoResponse.toJson();
+      // respond
+      NccoResponse nccoResponse = builder.getValue();
+      return nccoResponse.toJson();
+    });
   }
 
-  private String respondByTransitionToGetNumber(TaskDto task, String callbackText) {
+  private CompletableFuture<String> respondByTransitionToGetNumber(TaskDto task,
+      String callbackText) {
     LOGGER.debug("respondByTransitionToGetNumber");
     String taskId = task.getRef();
     String state = STATE_GET_NUMBER;
     AttributeGroupDto taskContext = new AttributeGroupDto();
     taskContext.put(KEY_STATE, new StringAttributeValueDto(state));
     taskContext.put(KEY_KIND, new StringAttributeValueDto("callback"));
-    boolean taskUpdated = updateTaskContext(taskId, taskContext);
-
-    if (false == taskUpdated) {
-      return respondWithErrorTalkNcco();
-    }
+    return updateTaskContext(taskId, taskContext).thenApply(taskUpdated -> {
+      if (false == taskUpdated) {
+        return respondWithErrorTalkNcco();
+      }
 
-    URI uri = UriBuilder.fromPath(getEventUrl())
-        .queryParam("taskId", taskId)
-        .queryParam(KEY_STATE, state)
-        .build();
-    String finalEventUrl = uri.toString();
-    String finalText = null;
+      URI uri = UriBuilder.fromPath(getEventUrl())
+          .queryParam("taskId", taskId)
+          .queryParam(KEY_STATE, state)
+          .build();
+      String finalEventUrl = uri.toString();
+      String finalText = null;
 
-    if (callbackText != null && callbackText.length() > 0) {
-      finalText = new StringBuilder().append(callbackText).append(GET_NUMBER_MESSAGE).toString();
-    } else {
-      finalText = GET_NUMBER_MESSAGE;
-    }
+      if (callbackText != null && callbackText.length() > 0) {
+        finalText = new StringBuilder().append(callbackText).append(GET_NUMBER_MESSAGE).toString();
+      } else {
+        finalText = GET_NUMBER_MESSAGE;
+      }
 
-    List<Ncco> list = nccoFactory.nccoListWithGetNumber(finalText, finalEventUrl);
+      List<Ncco> list = nccoFactory.nccoListWithGetNumber(finalText, finalEventUrl);
 
-    // preparing a response
-    NccoResponseBuilder builder = new NccoResponseBuilder();
-    list.forEach(ncco -> {
-      builder.appendNcco(ncco);
-    });
+      // preparing a response
+      NccoResponseBuilder builder = new NccoResponseBuilder();
+      list.forEach(ncco -> {
+        builder.appendNcco(ncco);
+      });
 
 
-    // respond
-    NccoResponse nccoResponse = builder.getValue();
-    return nccoResponse.toJson();
+      // respond
+      NccoResponse nccoResponse = builder.getValue();
+      return nccoResponse.toJson();
+    });
   }
 
-  private String respondByTransitionToConfirmNumber(TaskDto task, String number) {
+  private CompletableFuture<String> respondByTransitionToConfirmNumber(TaskDto task,
+      String number) {
     LOGGER.debug("respondByTransitionToConfirmNumber");
     String taskId = task.getRef();
     String state = STATE_CONFIRM_NUMBER;
     AttributeGroupDto taskContext = new AttributeGroupDto();
     taskContext.put(KEY_STATE, new StringAttributeValueDto(state));
     taskContext.put(KEY_TEMP_NUMBER, new StringAttributeValueDto(number));
-    boolean taskUpdated = updateTaskContext(taskId, taskContext);
+    return updateTaskContext(taskId, taskContext).thenApply(taskUpdated -> {
+      if (false == taskUpdated) {
+        return respondWithErrorTalkNcco();
+      }
 
-    if (false == taskUpdated) {
-      return respondWithErrorTalkNcco();
-    }
+      URI uri = UriBuilder.fromPath(getEventUrl())
+          .queryParam("taskId", taskId)
+          .queryParam(KEY_STATE, state)
+          .build();
+      String finalEventUrl = uri.toString();
+      String machineReadableNumber = PhoneConverter.machineReadable(number);
+      String confirmationMessage = String.format(CONFIRM_NUMBER_MESSAGE, machineReadableNumber);
+      List<Ncco> list = nccoFactory.nccoListWithConfirmNumber(confirmationMessage, finalEventUrl);
 
-    URI uri = UriBuilder.fromPath(getEventUrl())
-        .queryParam("taskId", taskId)
-        .queryParam(KEY_STATE, state)
-        .build();
-    String finalEventUrl = uri.toString();
-    String machineReadableNumber = PhoneConverter.machineReadable(number);
-    String confirmationMessage = String.format(CONFIRM_NUMBER_MESSAGE, machineReadableNumber);
-    List<Ncco> list = nccoFactory.nccoListWithConfirmNumber(confirmationMessage, finalEventUrl);
+      // preparing a response
+      NccoResponseBuilder builder = new NccoResponseBuilder();
+      list.forEach(ncco -> {
+        builder.appendNcco(ncco);
+      });
 
-    // preparing a response
-    NccoResponseBuilder builder = new NccoResponseBuilder();
-    list.forEach(ncco -> {
-      builder.appendNcco(ncco);
+      // respond
+      NccoResponse nccoResponse = builder.getValue();
+      return nccoResponse.toJson();
     });
-
-    // respond
-    NccoResponse nccoResponse = builder.getValue();
-    return nccoResponse.toJson();
   }
 
-  private String respondByTransitionToRecordName(TaskDto task, AttributeGroupDto moreContext) {
+  private CompletableFuture<String> respondByTransitionToRecordName(TaskDto task,
+      AttributeGroupDto moreContext) {
     LOGGER.debug("respondByTransitionToRecordName");
     String taskId = task.getRef();
     String state = STATE_RECORD_NAME;
@@ -659,32 +720,33 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
       });
     }
 
-    boolean taskUpdated = updateTaskContext(taskId, taskContext);
+    return updateTaskContext(taskId, taskContext).thenApply(taskUpdated -> {
+      if (false == taskUpdated) {
+        return respondWithErrorTalkNcco();
+      }
 
-    if (false == taskUpdated) {
-      return respondWithErrorTalkNcco();
-    }
+      URI uri = UriBuilder.fromPath(getEventUrl())
+          .queryParam("taskId", taskId)
+          .queryParam(KEY_STATE, state)
+          .build();
+      String finalEventUrl = uri.toString();
 
-    URI uri = UriBuilder.fromPath(getEventUrl())
-        .queryParam("taskId", taskId)
-        .queryParam(KEY_STATE, state)
-        .build();
-    String finalEventUrl = uri.toString();
+      // preparing a response
+      List<Ncco> list = nccoFactory.nccoListWithPromptRecordName(PROMPT_RECORD_NAME_MESSAGE,
+          finalEventUrl, FINAL_MESSAGE);
+      NccoResponseBuilder builder = new NccoResponseBuilder();
+      list.forEach(ncco -> {
+        builder.appendNcco(ncco);
+      });
 
-    // preparing a response
-    List<Ncco> list = nccoFactory.nccoListWithPromptRecordName(PROMPT_RECORD_NAME_MESSAGE,
-        finalEventUrl, FINAL_MESSAGE);
-    NccoResponseBuilder builder = new NccoResponseBuilder();
-    list.forEach(ncco -> {
-      builder.appendNcco(ncco);
+      // respond
+      NccoResponse nccoResponse = builder.getValue();
+      return nccoResponse.toJson();
     });
-
-    // respond
-    NccoResponse nccoResponse = builder.getValue();
-    return nccoResponse.toJson();
   }
 
-  private String respondByTransitionToEnd(TaskDto task, AttributeGroupDto moreContext) {
+  private CompletableFuture<String> respondByTransitionToEnd(TaskDto task,
+      AttributeGroupDto moreContext) {
     LOGGER.debug("respondByTransitionToEnd");
     String taskId = task.getRef();
     String state = STATE_END;
@@ -697,128 +759,120 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
       });
     }
 
-    boolean taskUpdated = updateTaskContext(taskId, taskContext);
-
-    if (false == taskUpdated) {
-      return respondWithErrorTalkNcco();
-    }
+    return updateTaskContext(taskId, taskContext).thenApply(taskUpdated -> {
+      if (false == taskUpdated) {
+        return respondWithErrorTalkNcco();
+      }
 
-    // preparing a response
-    NccoResponseBuilder builder = new NccoResponseBuilder();
-    Ncco talkNcco = nccoFactory.nccoTalkWithRegularTaskGreeting(FINAL_MESSAGE);
-    builder.appendNcco(talkNcco);
+      // preparing a response
+      NccoResponseBuilder builder = new NccoResponseBuilder();
+      Ncco talkNcco = nccoFactory.nccoTalkWithRegularTaskGreeting(FINAL_MESSAGE);
+      builder.appendNcco(talkNcco);
 
-    // respond
-    NccoResponse nccoResponse = builder.getValue();
-    return nccoResponse.toJson();
+      // respond
+      NccoResponse nccoResponse = builder.getValue();
+      return nccoResponse.toJson();
+    });
   }
 
-  private String handleOutboundAnswerFromAgentForCallbackTask(String taskId) {
+  private CompletableFuture<String> handleOutboundAnswerFromAgentForCallbackTask(
+      String taskId) {
     LOGGER.trace("handleOutboundAnswerFromAgentForCallbackTask");
 
-    String answer = null;
-    TaskDto task = getTask(taskId);
+    return getTask(taskId).thenApply(task -> {
+      if (null == task) {
+        return respondWithErrorTalkNcco();
+      }
 
-    if (null != task) {
       // call customer at number
-      String callbackNumber = attributeGroupDtogetString("callback_number", task.getUserContext());
-      if (null != callbackNumber) {
-        String conversationName = attributeGroupDtogetString(KEY_CONV_NAME, task.getUserContext());
-        if (null != conversationName) {
+      AttributeGroupDto taskContext = task.getUserContext();
+      String callbackNumber = attributeGroupDtogetString("callback_number", taskContext);
+      String conversationName = attributeGroupDtogetString(KEY_CONV_NAME, taskContext);
+      String callbackState =  attributeGroupDtogetString(KEY_STATE, taskContext);
+      if (null == callbackNumber || null == conversationName
+          || null == callbackState || callbackState.length() == 0) {
+        return respondWithErrorTalkNcco();
+      }
 
-          String callbackState =  attributeGroupDtogetString(KEY_STATE, task.getUserContext());
-
-          if (null != callbackState && callbackState.length() > 0) {
-            boolean flagOk = false;
-            // check the callback state and call customer only if it has completed its callback IVR
-            if (callbackState.equals(STATE_END)) {
-              LOGGER.trace("Will customer to connect it to the agent");
-              flagOk = true;
-              new Thread(new Runnable() {
-                @Override
-                public void run() {
-                  callCustomer(callbackNumber, taskId);
-                }
-              }).start();
-            } else if (callbackState.equals(STATE_ASSIGNED)) {
-              LOGGER.trace("Will not call customer as the task has been assigned");
-              flagOk = true;
-            }
-
-            if (flagOk) {
-              String text = "Please wait while we are connecting to the customer";
-              String musicOnHoldUrl = configuration.getMusicOnHoldUrl();
-              List<Ncco> list = nccoFactory.nccoListWithAnswerFromAgentForCallbackTask(text,
-                  conversationName, musicOnHoldUrl);
-
-              // preparing a response
-              NccoResponseBuilder builder = new NccoResponseBuilder();
-              list.forEach(ncco -> {
-                builder.appendNcco(ncco);
-              });
-
-              NccoResponse nccoResponse = builder.getValue();
-              answer = nccoResponse.toJson();
-            } else {
-              LOGGER.trace("Customer's call has been left unfinished. Will not try to connect");
-            }
-          }
-        }
+      // check the callback state and call customer only if it has completed its callback IVR
+      if (callbackState.equals(STATE_END)) {
+        LOGGER.trace("Will customer to connect it to the agent");
+        // runs once this answer is done, as the next step of the task, and completes once the
+        // task has the customer call, so the following steps read the updated task
+        orderedExecutor.submit(taskId, () -> callCustomer(callbackNumber, taskId));
+      } else if (callbackState.equals(STATE_ASSIGNED)) {
+        LOGGER.trace("Will not call customer as the task has been assigned");
+      } else {
+        LOGGER.trace("Customer's call has been left unfinished. Will not try to connect");
+        return respondWithErrorTalkNcco();
       }
-    }
 
-    if (null != answer) {
-      return answer;
-    }
+      String text = "Please wait while we are connecting to the customer";
+      String musicOnHoldUrl = configuration.getMusicOnHoldUrl();
+      List<Ncco> list = nccoFactory.nccoListWithAnswerFromAgentForCallbackTask(text,
+          conversationName, musicOnHoldUrl);
 
-    return respondWithErrorTalkNcco();
+      // preparing a response
+      NccoResponseBuilder builder = new NccoResponseBuilder();
+      list.forEach(ncco -> {
+        builder.appendNcco(ncco);
+      });
+
+      NccoResponse nccoResponse = builder.getValue();
+      return nccoResponse.toJson();
+    });
   }
 
-  private String handleOutboundAnswerFromCustomerForCallbackTask(String taskId) {
+  private CompletableFuture<String> handleOutboundAnswerFromCustomerForCallbackTask(
+      String taskId) {
     LOGGER.trace("handleOutboundAnswerFromCustomerForCallbackTask");
 
-    TaskDto task = getTask(taskId);
+    return getTask(taskId).thenApply(task -> {
 
-    if (null != task) {
-      if (this.withFeatureRecordName) {
-        String recordingUrl = attributeGroupDtogetString(KEY_RECORDING_URL, task.getUserContext());
-        //TODO: check if string is valid URL
-        if (null != recordingUrl && recordingUrl.length() > 0) {
-          return respondOutboundByPromptCustomerName(task, recordingUrl);
+      if (null != task) {
+        if (this.withFeatureRecordName) {
+          String recordingUrl =
+              attributeGroupDtogetString(KEY_RECORDING_URL, task.getUserContext());
+          //TODO: check if string is valid URL
+          if (null != recordingUrl && recordingUrl.length() > 0) {
+            return respondOutboundByPromptCustomerName(task, recordingUrl);
+          }
         }
-      }
 
-      return respondOutboundByConnectCustomer(task);
-    }
+        return respondOutboundByConnectCustomer(task);
+      }
 
-    return respondWithErrorTalkNcco();
+      return respondWithErrorTalkNcco();
+    });
   }
 
-  private String handleOutboundAnswerFromAgentForRegularTask(String taskId) {
+  private CompletableFuture<String> handleOutboundAnswerFromAgentForRegularTask(String taskId) {
 
     LOGGER.trace("handleOutboundAnswerFromAgentForRegularTask");
 
-    TaskDto task = getTask(taskId);
+    return getTask(taskId).thenApply(task -> {
 
-    if (null != task) {
-      String conversationName = attributeGroupDtogetString(KEY_CONV_NAME, task.getUserContext());
-      if (null != conversationName) {
+      if (null != task) {
+        String conversationName =
+            attributeGroupDtogetString(KEY_CONV_NAME, task.getUserContext());
+        if (null != conversationName) {
 
-        List<Ncco> list = nccoFactory.nccoListWithAnswerFromAgentForRegularTask(
-            MESSAGE_REGULAR_TASK_GREETING, conversationName, getMusicOnHoldUrl());
+          List<Ncco> list = nccoFactory.nccoListWithAnswerFromAgentForRegularTask(
+              MESSAGE_REGULAR_TASK_GREETING, conversationName, getMusicOnHoldUrl());
 
-        // preparing a response
-        NccoResponseBuilder builder = new NccoResponseBuilder();
-        list.forEach(ncco -> {
-          builder.appendNcco(ncco);
-        });
+          // preparing a response
+          NccoResponseBuilder builder = new NccoResponseBuilder();
+          list.forEach(ncco -> {
+            builder.appendNcco(ncco);
+          });
 
-        NccoResponse nccoResponse = builder.getValue();
-        return nccoResponse.toJson();
+          NccoResponse nccoResponse = builder.getValue();
+          return nccoResponse.toJson();
+        }
       }
-    }
 
-    return respondWithErrorTalkNcco();
+      return respondWithErrorTalkNcco();
+    });
   }
 
   private String handleOutboundPromptCustomerName(JsonNode userInfo, TaskDto task) {
@@ -919,43 +973,44 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
     return null;
   }
 
-  private CreatedTaskDto createRegularTask(String conversationName, String from, String tag) {
-    CreatedTaskDto task = null;
+  private CompletableFuture<CreatedTaskDto> createRegularTask(String conversationName,
+      String from, String tag, Map<String, String> requirements,
+      Map<String, String> userContext) {
 
+    CreateTaskArg taskReq = new CreateTaskArg();
     try {
-      CreateTaskArg taskReq = new CreateTaskArg();
       URI uri = UriBuilder.fromPath(getTaskCallbackUrl()).build();
 
       taskReq.setCallbackUrl(uri.toURL());
 
-      AttributeGroupDto userContext = new AttributeGroupDto();
-      userContext.put(KEY_CONV_NAME, new StringAttributeValueDto(conversationName));
+      AttributeGroupDto taskContext = new AttributeGroupDto();
+      taskContext.put(KEY_CONV_NAME, new StringAttributeValueDto(conversationName));
       // basic check for valid phone number
       if (from != null && from.length() > 9 && Character.isDigit(from.charAt(1))) {
-        userContext.put(KEY_NUMBER, new StringAttributeValueDto(from));
+        taskContext.put(KEY_NUMBER, new StringAttributeValueDto(from));
       }
       // add userContext if any
-      if (this.userContext != null && this.userContext.size() > 0) {
+      if (userContext != null && userContext.size() > 0) {
         LOGGER.trace("Will create task with userContext");
 
-        this.userContext.keySet().forEach(key -> {
-          String value = this.userContext.get(key);
-          userContext.put(key, new StringAttributeValueDto(value));
+        userContext.keySet().forEach(key -> {
+          String value = userContext.get(key);
+          taskContext.put(key, new StringAttributeValueDto(value));
         });
       }
-      taskReq.setUserContext(userContext);
+      taskReq.setUserContext(taskContext);
 
       // add requirements if any
-      if (this.requirements != null && this.requirements.size() > 0) {
+      if (requirements != null && requirements.size() > 0) {
         LOGGER.trace("Will create task with requirements");
-        AttributeGroupDto requirements = new AttributeGroupDto();
+        AttributeGroupDto taskRequirements = new AttributeGroupDto();
 
-        this.requirements.keySet().forEach(key -> {
-          String value = this.requirements.get(key);
-          requirements.put(key, new StringAttributeValueDto(value));
+        requirements.keySet().forEach(key -> {
+          String value = requirements.get(key);
+          taskRequirements.put(key, new StringAttributeValueDto(value));
         });
 
-        taskReq.setRequirements(requirements);
+        taskReq.setRequirements(taskRequirements);
         taskReq.setPlanRef(getPlanId());
         if (tag != null) {
           taskReq.setTag(tag);
@@ -963,49 +1018,71 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
       } else {
         taskReq.setQueueRef(getQueueId());
       }
-
-      task = taskServiceClient.create(taskReq, getRouterId());
-    } catch (CommsRouterException e) {
-      LOGGER.error("createRegularTask failed: {}", e.getMessage());
     } catch (Exception ex) {
       LOGGER.error("createRegularTask failed: {}", ex.getMessage());
+      return completed(null);
     }
 
-    return task;
+    return taskServiceClient.create(taskReq, getRouterId())
+        .exceptionally(ex -> {
+          LOGGER.error("createRegularTask failed: {}", ex.getMessage());
+          return null;
+        });
   }
 
-  private boolean updateTaskContext(String taskRef, AttributeGroupDto taskContext) {
-    boolean result = false;
-
-    try {
-      RouterObjectRef routerObjectId = new RouterObjectRef(taskRef, getRouterId());
-      UpdateTaskContext updTaskContext = new UpdateTaskContext();
-      updTaskContext.setUserContext(taskContext);
-      taskServiceClient.updateContext(updTaskContext, routerObjectId);
-      result = true;
-    } catch (CommsRouterException e) {
-      LOGGER.error("updateTaskContext failed: {}", e.getMessage());
-    } catch (Exception ex) {
-      LOGGER.error("updateTaskContext failed: {}", ex.getMessage());
-    }
+  private CompletableFuture<Boolean> updateTaskContext(String taskRef,
+      AttributeGroupDto taskContext) {
+
+    RouterObjectRef routerObjectId = new RouterObjectRef(taskRef, getRouterId());
+    UpdateTaskContext updTaskContext = new UpdateTaskContext();
+    updTaskContext.setUserContext(taskContext);
+    return taskServiceClient.updateContext(updTaskContext, routerObjectId)
+        .handle((ignored, ex) -> {
+          if (ex != null) {
+            LOGGER.error("updateTaskContext failed: {}", ex.getMessage());
+            return false;
+          }
+          return true;
+        });
+  }
 
-    return result;
+  private CompletableFuture<TaskDto> getTask(String taskRef) {
+    RouterObjectRef routerObjectId = new RouterObjectRef(taskRef, getRouterId());
+    return taskServiceClient.get(routerObjectId)
+        .handle((task, ex) -> {
+          if (ex != null) {
+            LOGGER.error("getTask {} failed: {}", taskRef, ex.getMessage());
+            return null;
+          }
+          LOGGER.trace("task:{}", task);
+          return task;
+        });
   }
 
-  private TaskDto getTask(String taskRef) {
-    TaskDto task = null;
+  private String await(CompletableFuture<String> answer) throws AnswerStrategyException {
     try {
-      RouterObjectRef routerObjectId = new RouterObjectRef(taskRef, getRouterId());
-      task = taskServiceClient.get(routerObjectId);
-
-      LOGGER.trace("task:{}", task);
-    } catch (CommsRouterException e) {
-      e.printStackTrace();
-    } catch (Exception ex) {
-      ex.printStackTrace();
+      return answer.get(ANSWER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof AnswerStrategyException) {
+        throw (AnswerStrategyException) ex.getCause();
+      }
+      throw new AnswerStrategyException(ex.getCause());
+    } catch (TimeoutException ex) {
+      throw new AnswerStrategyException("No answer in " + ANSWER_TIMEOUT_SECONDS + " seconds");
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new AnswerStrategyException(ex);
     }
+  }
 
-    return task;
+  private static <T> CompletableFuture<T> completed(T value) {
+    return CompletableFuture.completedFuture(value);
+  }
+
+  private static <T> CompletableFuture<T> failed(Throwable error) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(error);
+    return future;
   }
 
   private String respondWithErrorTalkNcco() {
@@ -1106,7 +1183,7 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
     return "";
   }
 
-  private boolean callCustomer(String number, String taskRef) {
+  private CompletableFuture<Boolean> callCustomer(String number, String taskRef) {
 
     boolean flagOk = false;
     CallEvent callEvent = null;
@@ -1155,28 +1232,28 @@ public class AnswerStrategyWithCallback implements AnswerStrategy {
       LOGGER.error("Failed to make a call to customer with error: {}", ex.getLocalizedMessage());
     }
 
-    try {
-      if (flagOk) {
-        AttributeGroupDto userContext = new AttributeGroupDto();
-        UpdateTaskContext updateCtx = new UpdateTaskContext();
-        userContext.put("customer_uuid", new StringAttributeValueDto(callEvent.getUuid()));
-        updateCtx.setUserContext(userContext);
-        taskServiceClient.updateContext(updateCtx,
-            new RouterObjectRef(taskRef, configuration.getCommsRouterId()));
-      } else {
-        // complete the task
-        LOGGER.debug("Failed to call customer, mark task as completed: {}", taskRef);
-        UpdateTaskArg updateArg = new UpdateTaskArg();
-        updateArg.setState(TaskState.completed);
-        taskServiceClient.update(updateArg,
-            new RouterObjectRef(taskRef, configuration.getCommsRouterId()));
-      }
-    } catch (BadValueException | NotFoundException e1) {
-      LOGGER.error("Failed to update task context with error: {}", e1.getLocalizedMessage());
-    } catch (Exception e2) {
-      LOGGER.error("Failed to update task context with eror: {}", e2.getLocalizedMessage());
+    CompletableFuture<Void> taskUpdated;
+    if (flagOk) {
+      AttributeGroupDto userContext = new AttributeGroupDto();
+      UpdateTaskContext updateCtx = new UpdateTaskContext();
+      userContext.put("customer_uuid", new StringAttributeValueDto(callEvent.getUuid()));
+      updateCtx.setUserContext(userContext);
+      taskUpdated = taskServiceClient.updateContext(updateCtx,
+          new RouterObjectRef(taskRef, configuration.getCommsRouterId()));
+    } else {
+      // complete the task
+      LOGGER.debug("Failed to call customer, mark task as completed: {}", taskRef);
+      UpdateTaskArg updateArg = new UpdateTaskArg();
+      updateArg.setState(TaskState.completed);
+      taskUpdated = taskServiceClient.update(updateArg,
+          new RouterObjectRef(taskRef, configuration.getCommsRouterId()));
     }
-
-    return flagOk;
+    boolean called = flagOk;
+    return taskUpdated.handle((ignored, ex) -> {
+      if (ex != null) {
+        LOGGER.error("Failed to update task context with error: {}", ex.getLocalizedMessage());
+      }
+      return called;
+    });
   }
 }
@@ -0,0 +1,139 @@
+package com.softavail.comms.nexmo.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the steps of many conversations on a bounded pool, one step of a conversation at a time
+ * and in the order they were submitted. Steps of different conversations run in parallel.
+ *
+ * <p>A step may return an unfinished future, e.g. of a call to the router; the next step of the
+ * conversation waits for it without holding a thread. When the pool and its queue are full,
+ * new steps fail with a {@link RejectedExecutionException} right away.
+ *
+ * @author ikrustev
+ */
+public class OrderedExecutor {
+
+  private static final Logger LOGGER = LogManager.getLogger(OrderedExecutor.class);
+
+  public static final int DEFAULT_THREADS = 16;
+  public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+  private final ThreadPoolExecutor executor;
+
+  // The last step submitted for each conversation, until it completes
+  private final Map<String, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+
+  public OrderedExecutor() {
+    this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  public OrderedExecutor(int threads, int queueCapacity) {
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory());
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Queues a step of the conversation with this key behind its previous ones.
+   *
+   * @return completes with the future the step returned
+   */
+  public <T> CompletableFuture<T> submit(String key, Supplier<CompletableFuture<T>> step) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+
+    if (key == null) {
+      // Nothing to order it with
+      execute(key, step, result);
+      return result;
+    }
+
+    tails.compute(key, (k, tail) -> {
+      CompletableFuture<?> previous = tail != null ? tail : CompletableFuture.completedFuture(null);
+      // Failures of the previous step are its submitter's concern, not this one's
+      previous.whenComplete((value, error) -> execute(key, step, result));
+      return result;
+    });
+
+    result.whenComplete((value, error) -> tails.remove(key, result));
+    return result;
+  }
+
+  /**
+   * Same as {@link #submit}, for steps that block, e.g. on a third party client.
+   */
+  public <T> CompletableFuture<T> supply(String key, Supplier<T> step) {
+    return submit(key, () -> CompletableFuture.completedFuture(step.get()));
+  }
+
+  /**
+   * The pool to run the continuations of steps on.
+   */
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  public int getActiveKeys() {
+    return tails.size();
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private <T> void execute(String key, Supplier<CompletableFuture<T>> step,
+      CompletableFuture<T> result) {
+
+    try {
+      executor.execute(() -> run(step, result));
+    } catch (RejectedExecutionException ex) {
+      LOGGER.warn("Conversation {} step rejected: {} steps queued", key,
+          executor.getQueue().size());
+      result.completeExceptionally(ex);
+    }
+  }
+
+  private static <T> void run(Supplier<CompletableFuture<T>> step, CompletableFuture<T> result) {
+    try {
+      step.get().whenComplete((value, error) -> {
+        if (error != null) {
+          result.completeExceptionally(error instanceof CompletionException
+              ? error.getCause() : error);
+        } else {
+          result.complete(value);
+        }
+      });
+    } catch (RuntimeException ex) {
+      LOGGER.error("Step failed: {}", ex.getMessage());
+      result.completeExceptionally(ex);
+    }
+  }
+
+  private static class NamedThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "conversation-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
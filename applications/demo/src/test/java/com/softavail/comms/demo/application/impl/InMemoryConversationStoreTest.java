@@ -0,0 +1,210 @@
+package com.softavail.comms.demo.application.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.softavail.comms.demo.application.model.NexMoCall;
+import com.softavail.comms.demo.application.model.NexMoCallDirection;
+import com.softavail.comms.demo.application.model.NexMoCallStatus;
+import com.softavail.comms.demo.application.model.NexMoConversation;
+import com.softavail.comms.demo.application.model.NexMoConversationStatus;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author ikrustev
+ */
+public class InMemoryConversationStoreTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  private final InMemoryConversationStore store =
+      new InMemoryConversationStore(3, 10, 100, TimeUnit.NANOSECONDS, now::get);
+
+  @Test
+  public void findsConversationsByCallerAgentAndTask() {
+    store.putConversationIfAbsent(new NexMoConversation("conv", call("caller"), "task"));
+    store.updateConversation("conv", conversation -> {
+      conversation.setAgent(call("agent"));
+      return conversation;
+    });
+
+    assertEquals("conv", store.findConversationByCaller("caller").getId());
+    assertEquals("conv", store.findConversationByAgent("agent").getId());
+    assertEquals("conv", store.findConversationByTaskId("task").getId());
+    assertNull(store.findConversationByAgent("caller"));
+  }
+
+  @Test
+  public void replacedAgentIsNoLongerFound() {
+    store.putConversationIfAbsent(new NexMoConversation("conv", call("caller"), "task"));
+    store.updateConversation("conv", conversation -> {
+      conversation.setAgent(call("first"));
+      return conversation;
+    });
+    store.updateConversation("conv", conversation -> {
+      conversation.setAgent(call("second"));
+      return conversation;
+    });
+
+    assertNull(store.findConversationByAgent("first"));
+    assertEquals("conv", store.findConversationByAgent("second").getId());
+  }
+
+  @Test
+  public void handsOutCopies() {
+    NexMoConversation created =
+        store.putConversationIfAbsent(new NexMoConversation("conv", call("caller"), "task"));
+    created.setStatus(NexMoConversationStatus.CONNECTED);
+
+    assertEquals(NexMoConversationStatus.STARTED, store.getConversation("conv").getStatus());
+  }
+
+  @Test
+  public void putConversationKeepsExisting() {
+    store.putConversationIfAbsent(new NexMoConversation("conv", call("caller"), "task"));
+    NexMoConversation existing =
+        store.putConversationIfAbsent(new NexMoConversation("conv", call("other"), "other"));
+
+    assertEquals("task", existing.getTaskId());
+    assertNull(store.findConversationByTaskId("other"));
+  }
+
+  @Test
+  public void updateOfMissingConversationReturnsNull() {
+    assertNull(store.updateConversation("missing", conversation -> conversation));
+  }
+
+  @Test
+  public void mergesCallUpdates() {
+    NexMoCall call = call("call");
+    call.setDirection(NexMoCallDirection.INBOUND);
+    call.setStatus(NexMoCallStatus.STARTED);
+    store.putCall(call, (stored, given) -> stored);
+
+    NexMoCall update = call("call");
+    update.setStatus(NexMoCallStatus.ANSWERED);
+    store.putCall(update, (stored, given) -> {
+      stored.setStatus(given.getStatus());
+      return stored;
+    });
+
+    NexMoCall found = store.findCall("conv-call", NexMoCallDirection.INBOUND);
+    assertNotNull(found);
+    assertEquals(NexMoCallStatus.ANSWERED, found.getStatus());
+    assertNull(store.findCall("conv-call", NexMoCallDirection.OUTBOUND));
+
+    store.removeCall("call");
+    assertNull(store.getCall("call"));
+    assertNull(store.findCall("conv-call", NexMoCallDirection.INBOUND));
+  }
+
+  @Test
+  public void evictsFinishedAfterTtl() {
+    store.putConversationIfAbsent(new NexMoConversation("done", call("caller1"), "task1"));
+    store.putConversationIfAbsent(new NexMoConversation("active", call("caller2"), "task2"));
+    store.updateConversation("done", conversation -> {
+      conversation.setStatus(NexMoConversationStatus.COMPLETED);
+      return conversation;
+    });
+
+    now.addAndGet(9);
+    store.sweep();
+    assertNotNull(store.getConversation("done"));
+
+    now.addAndGet(1);
+    store.sweep();
+    assertNull(store.getConversation("done"));
+    assertNull(store.findConversationByTaskId("task1"));
+    assertNotNull(store.getConversation("active"));
+  }
+
+  @Test
+  public void updateKeepsTheFinishTime() {
+    store.putConversationIfAbsent(new NexMoConversation("done", call("caller"), "task"));
+    store.updateConversation("done", conversation -> {
+      conversation.setStatus(NexMoConversationStatus.COMPLETED);
+      return conversation;
+    });
+
+    now.addAndGet(5);
+    store.updateConversation("done", conversation -> {
+      conversation.setAgent(call("agent"));
+      return conversation;
+    });
+
+    now.addAndGet(5);
+    store.sweep();
+    assertNull(store.getConversation("done"));
+  }
+
+  @Test
+  public void evictsIdleAfterTtl() {
+    store.putConversationIfAbsent(new NexMoConversation("idle", call("caller"), "task"));
+    NexMoCall call = call("call");
+    call.setStatus(NexMoCallStatus.RINGING);
+    store.putCall(call, (stored, given) -> given);
+
+    now.addAndGet(100);
+    store.sweep();
+
+    assertNull(store.getConversation("idle"));
+    assertNull(store.getCall("call"));
+  }
+
+  @Test
+  public void evictsOldestFinishedOverMaxSize() {
+    for (int i = 0; i < 4; ++i) {
+      now.incrementAndGet();
+      NexMoCall call = call("call" + i);
+      call.setStatus(i < 2 ? NexMoCallStatus.COMPLETED : NexMoCallStatus.ANSWERED);
+      store.putCall(call, (stored, given) -> given);
+    }
+
+    assertEquals(3, store.getCallCount());
+    assertNull(store.getCall("call0"));
+    assertNotNull(store.getCall("call1"));
+  }
+
+  @Test
+  public void skipsRestartedEntriesOverMaxSize() {
+    NexMoCall restarted = call("call0");
+    restarted.setStatus(NexMoCallStatus.COMPLETED);
+    store.putCall(restarted, (stored, given) -> given);
+    now.incrementAndGet();
+    restarted.setStatus(NexMoCallStatus.ANSWERED);
+    store.putCall(restarted, (stored, given) -> given);
+
+    for (int i = 1; i < 4; ++i) {
+      now.incrementAndGet();
+      NexMoCall call = call("call" + i);
+      call.setStatus(i == 1 ? NexMoCallStatus.COMPLETED : NexMoCallStatus.ANSWERED);
+      store.putCall(call, (stored, given) -> given);
+    }
+
+    assertEquals(3, store.getCallCount());
+    assertNotNull(store.getCall("call0"));
+    assertNull(store.getCall("call1"));
+  }
+
+  @Test
+  public void keepsActiveOverMaxSize() {
+    for (int i = 0; i < 5; ++i) {
+      NexMoCall call = call("call" + i);
+      call.setStatus(NexMoCallStatus.ANSWERED);
+      store.putCall(call, (stored, given) -> given);
+    }
+
+    assertEquals(5, store.getCallCount());
+    assertSame(NexMoCallStatus.ANSWERED, store.getCall("call0").getStatus());
+  }
+
+  private static NexMoCall call(String uuid) {
+    return new NexMoCall(uuid, "conv-" + uuid);
+  }
+
+}
@@ -0,0 +1,125 @@
+package com.softavail.comms.nexmo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ikrustev
+ */
+public class OrderedExecutorTest {
+
+  private final OrderedExecutor executor = new OrderedExecutor(4, 100);
+
+  @After
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void runsStepsOfAKeyInOrder() throws Exception {
+    List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+    CompletableFuture<Void> pending = new CompletableFuture<>();
+
+    // The first step waits on an unfinished future without holding a thread
+    CompletableFuture<Integer> first = executor.submit("conversation", () -> {
+      order.add(1);
+      return pending.thenApply(ignored -> 1);
+    });
+    CompletableFuture<Integer> second = executor.supply("conversation", () -> {
+      order.add(2);
+      return 2;
+    });
+
+    Thread.sleep(100);
+    assertEquals(Collections.singletonList(1), order);
+    assertFalse(second.isDone());
+
+    pending.complete(null);
+    assertEquals(2, (int) second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, (int) first.get(5, TimeUnit.SECONDS));
+    assertEquals(2, order.size());
+  }
+
+  @Test
+  public void runsKeysInParallel() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CompletableFuture<Void> first = executor.submit("first", () -> {
+      try {
+        blocked.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return CompletableFuture.completedFuture(null);
+    });
+
+    executor.supply("second", () -> true).get(5, TimeUnit.SECONDS);
+    assertFalse(first.isDone());
+
+    blocked.countDown();
+    first.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void failedStepDoesNotStopTheNext() throws Exception {
+    CompletableFuture<Object> failed = executor.supply("conversation", () -> {
+      throw new IllegalStateException("step failed");
+    });
+    CompletableFuture<String> next = executor.supply("conversation", () -> "next");
+
+    assertEquals("next", next.get(5, TimeUnit.SECONDS));
+    try {
+      failed.get(5, TimeUnit.SECONDS);
+      fail("Expected the step to fail");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void rejectsStepsOverCapacity() throws Exception {
+    OrderedExecutor small = new OrderedExecutor(1, 1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    try {
+      small.supply("first", () -> {
+        try {
+          blocked.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        return null;
+      });
+      small.supply("second", () -> null);
+      CompletableFuture<Object> rejected = small.supply("third", () -> null);
+
+      try {
+        rejected.get(5, TimeUnit.SECONDS);
+        fail("Expected the step to be rejected");
+      } catch (ExecutionException ex) {
+        assertTrue(ex.getCause() instanceof RejectedExecutionException);
+      }
+    } finally {
+      blocked.countDown();
+      small.shutdown();
+    }
+  }
+
+  @Test
+  public void runsStepsWithoutKey() throws Exception {
+    assertEquals("done", executor.supply(null, () -> "done").get(5, TimeUnit.SECONDS));
+  }
+
+}
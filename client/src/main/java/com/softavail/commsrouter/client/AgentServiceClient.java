@@ -18,17 +18,21 @@ package com.softavail.commsrouter.client;
 
 import com.softavail.commsrouter.api.dto.arg.CreateAgentArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateAgentArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateAgentBatchItemArg;
 import com.softavail.commsrouter.api.dto.misc.PaginatedList;
 import com.softavail.commsrouter.api.dto.misc.PagingRequest;
 import com.softavail.commsrouter.api.dto.model.AgentDto;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.UpdatedAgentBatchItemDto;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.api.interfaces.AgentService;
 
+import java.net.URI;
 import java.util.List;
 import javax.inject.Inject;
 import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.UriBuilder;
 
@@ -39,23 +43,22 @@ public class AgentServiceClient extends ServiceClientBase<AgentDto, ApiObjectRef
     implements AgentService {
 
   private final Client client;
-  private final String endpoint;
+  private final UriBuilder apiUrl;
   private final String routerRef;
 
   @Inject
   public AgentServiceClient(Client client, String endpoint, String routerRef) {
     this.client = client;
-    this.endpoint = endpoint;
+    this.apiUrl = UriBuilder.fromPath(endpoint)
+        .path("routers")
+        .path("{routerId}")
+        .path("agents");
     this.routerRef = routerRef;
   }
 
   @Override
   UriBuilder getApiUrl() {
-    return UriBuilder.fromPath(endpoint)
-        .path("routers")
-        .path("{routerId}")
-        .path("agents")
-        .clone();
+    return apiUrl.clone();
   }
 
   @Override
@@ -85,6 +88,22 @@ public class AgentServiceClient extends ServiceClientBase<AgentDto, ApiObjectRef
     post(updateArg, objectRef);
   }
 
+  @Override
+  public List<UpdatedAgentBatchItemDto> updateBatch(List<UpdateAgentBatchItemArg> updateArgs,
+      String routerRef)
+      throws CommsRouterException {
+
+    URI uri = getApiUrl()
+        .path("batch")
+        .build(routerRef);
+
+    return getClient()
+        .target(uri)
+        .request(getMediaType())
+        .post(Entity.entity(updateArgs, getMediaType()),
+            new GenericType<List<UpdatedAgentBatchItemDto>>() {});
+  }
+
   @Override
   public AgentDto get(RouterObjectRef routerObjectRef)
       throws CommsRouterException {
@@ -93,8 +112,7 @@ public class AgentServiceClient extends ServiceClientBase<AgentDto, ApiObjectRef
   }
 
   @Override
-  public PaginatedList<AgentDto> list(PagingRequest request)
-      throws CommsRouterException {
+  public PaginatedList<AgentDto> list(PagingRequest request) {
 
     PagingRequest pagingRequest = new PagingRequest(
         routerRef, request.getToken(), request.getPerPage(), request.getSort(), request.getQuery());
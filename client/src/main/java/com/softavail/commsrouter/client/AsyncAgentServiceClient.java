@@ -0,0 +1,101 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import com.softavail.commsrouter.api.dto.arg.CreateAgentArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateAgentArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateAgentBatchItemArg;
+import com.softavail.commsrouter.api.dto.model.AgentDto;
+import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.UpdatedAgentBatchItemDto;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericType;
+
+/**
+ * Non-blocking counterpart of {@link AgentServiceClient}, for callers pushing many agent state
+ * changes. It shares the in-flight window behaviour of {@link AsyncTaskServiceClient}.
+ *
+ * @author ikrustev
+ */
+public class AsyncAgentServiceClient extends AsyncServiceClientBase {
+
+  private static final Logger LOGGER = LogManager.getLogger(AsyncAgentServiceClient.class);
+
+  private final WebTarget batch;
+
+  public AsyncAgentServiceClient(Client client, String endpoint, int maxInFlight) {
+    this(client, endpoint, maxInFlight, maxInFlight * DEFAULT_WAITING_PER_IN_FLIGHT);
+  }
+
+  public AsyncAgentServiceClient(Client client, String endpoint, int maxInFlight,
+      int maxWaiting) {
+
+    super(client, endpoint, "agents", maxInFlight, maxWaiting);
+    this.batch = collection.path("batch");
+  }
+
+  public CompletableFuture<ApiObjectRef> create(CreateAgentArg createArg, String routerRef) {
+    WebTarget target = resolve(collection, routerRef);
+    LOGGER.debug("Queueing create in router {}: {}", routerRef, createArg);
+    return submit(target.request(getMediaType()), HttpMethod.POST,
+        Entity.entity(createArg, getMediaType()),
+        response -> response.readEntity(ApiObjectRef.class));
+  }
+
+  public CompletableFuture<ApiObjectRef> replace(CreateAgentArg createArg, RouterObjectRef ref) {
+    WebTarget target = resolve(item, ref);
+    LOGGER.debug("Queueing replace of {}: {}", ref, createArg);
+    return submit(target.request(getMediaType()), HttpMethod.PUT,
+        Entity.entity(createArg, getMediaType()),
+        response -> response.readEntity(ApiObjectRef.class));
+  }
+
+  public CompletableFuture<Void> update(UpdateAgentArg updateArg, RouterObjectRef ref) {
+    LOGGER.debug("Queueing update of {}: {}", ref, updateArg);
+    return updateItem(updateArg, ref);
+  }
+
+  public CompletableFuture<List<UpdatedAgentBatchItemDto>> updateBatch(
+      List<UpdateAgentBatchItemArg> updateArgs, String routerRef) {
+
+    WebTarget target = resolve(batch, routerRef);
+    LOGGER.debug("Queueing batch of {} in router {}", updateArgs.size(), routerRef);
+    return submit(target.request(getMediaType()), HttpMethod.POST,
+        Entity.entity(updateArgs, getMediaType()),
+        response -> response.readEntity(new GenericType<List<UpdatedAgentBatchItemDto>>() {}));
+  }
+
+  public CompletableFuture<AgentDto> get(RouterObjectRef ref) {
+    LOGGER.debug("Queueing get of {}", ref);
+    return getItem(ref, AgentDto.class);
+  }
+
+  public CompletableFuture<Void> delete(RouterObjectRef ref) {
+    LOGGER.debug("Queueing delete of {}", ref);
+    return deleteItem(ref);
+  }
+
+}
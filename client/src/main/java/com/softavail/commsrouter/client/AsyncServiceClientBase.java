@@ -0,0 +1,130 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Common part of the non-blocking clients: the resource templates, the media type and the
+ * in-flight window every call goes through.
+ *
+ * @author ikrustev
+ */
+public abstract class AsyncServiceClientBase {
+
+  /**
+   * Calls that may wait for an in-flight slot, per slot, unless given explicitly.
+   */
+  public static final int DEFAULT_WAITING_PER_IN_FLIGHT = 64;
+
+  static final String ROUTER_ID = "routerId";
+  static final String RESOURCE_ID = "resourceId";
+
+  final WebTarget collection;
+  final WebTarget item;
+  private final InFlightWindow window;
+
+  private volatile MediaType mediaType = MediaType.APPLICATION_JSON_TYPE;
+
+  AsyncServiceClientBase(Client client, String endpoint, String resource, int maxInFlight,
+      int maxWaiting) {
+
+    // The templates are parsed once here and only resolved per call
+    this.collection = client.target(endpoint).path("routers").path("{routerId}").path(resource);
+    this.item = collection.path("{resourceId}");
+    this.window = new InFlightWindow(maxInFlight, maxWaiting);
+  }
+
+  /**
+   * Sets the media type of request and response bodies, JSON by default. Smile needs the
+   * {@link SmileFeature} registered on the client.
+   */
+  public void setMediaType(MediaType mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  public int getInFlight() {
+    return window.getInFlight();
+  }
+
+  public int getWaiting() {
+    return window.getWaiting();
+  }
+
+  MediaType getMediaType() {
+    return mediaType;
+  }
+
+  WebTarget resolve(WebTarget template, String routerRef) {
+    return template.resolveTemplate(ROUTER_ID, routerRef);
+  }
+
+  WebTarget resolve(WebTarget template, RouterObjectRef ref) {
+    return template
+        .resolveTemplate(ROUTER_ID, ref.getRouterRef())
+        .resolveTemplate(RESOURCE_ID, ref.getRef());
+  }
+
+  <T extends ApiObjectRef> CompletableFuture<T> getItem(RouterObjectRef ref, Class<T> type) {
+    return submit(resolve(item, ref).request(mediaType), HttpMethod.GET, null, response -> {
+      T dto = response.readEntity(type);
+      dto.setHash(response.getHeaderString(HttpHeaders.ETAG));
+      return dto;
+    });
+  }
+
+  CompletableFuture<Void> updateItem(Object updateArg, RouterObjectRef ref) {
+    Invocation.Builder request = resolve(item, ref).request(mediaType);
+    if (ref.getHash() != null) {
+      request.header(HttpHeaders.IF_MATCH, ref.getHash());
+    }
+    return submit(request, HttpMethod.POST, Entity.entity(updateArg, mediaType),
+        response -> null);
+  }
+
+  CompletableFuture<Void> deleteItem(RouterObjectRef ref) {
+    return submit(resolve(item, ref).request(mediaType), HttpMethod.DELETE, null,
+        response -> null);
+  }
+
+  <T> CompletableFuture<T> submit(Invocation.Builder request, String method,
+      Entity<?> entity, Function<Response, T> reader) {
+
+    return window.submit(() -> {
+      ResponseFuture<T> future = new ResponseFuture<>(reader);
+      if (entity == null) {
+        request.async().method(method, future);
+      } else {
+        request.async().method(method, entity, future);
+      }
+      return future;
+    });
+  }
+
+}
@@ -0,0 +1,122 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import com.softavail.commsrouter.api.dto.arg.CreateTaskArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateTaskArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateTaskContext;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskBatchItemDto;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskDto;
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.TaskDto;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericType;
+
+/**
+ * Non-blocking counterpart of {@link TaskServiceClient} for high volume callers. Calls return
+ * at once; at most maxInFlight of them are sent at a time and the rest wait their turn, up to
+ * maxWaiting of them.
+ *
+ * <p>Use it with a client from {@link PooledClientFactory} sized to the same window, so each
+ * in-flight call has a kept-alive connection and an invocation thread ready.
+ *
+ * @author ikrustev
+ */
+public class AsyncTaskServiceClient extends AsyncServiceClientBase {
+
+  private static final Logger LOGGER = LogManager.getLogger(AsyncTaskServiceClient.class);
+
+  private final WebTarget batch;
+  private final WebTarget userContext;
+
+  public AsyncTaskServiceClient(Client client, String endpoint, int maxInFlight) {
+    this(client, endpoint, maxInFlight, maxInFlight * DEFAULT_WAITING_PER_IN_FLIGHT);
+  }
+
+  public AsyncTaskServiceClient(Client client, String endpoint, int maxInFlight,
+      int maxWaiting) {
+
+    super(client, endpoint, "tasks", maxInFlight, maxWaiting);
+    this.batch = collection.path("batch");
+    this.userContext = item.path("user_context");
+  }
+
+  public CompletableFuture<CreatedTaskDto> create(CreateTaskArg createArg, String routerRef) {
+    WebTarget target = resolve(collection, routerRef);
+    LOGGER.debug("Queueing create in router {}: {}", routerRef, createArg);
+    return submit(target.request(getMediaType()), HttpMethod.POST,
+        Entity.entity(createArg, getMediaType()),
+        response -> response.readEntity(CreatedTaskDto.class));
+  }
+
+  /**
+   * Sends every create as its own request, pipelined through the in-flight window.
+   *
+   * @return one future per argument, in the same order
+   */
+  public List<CompletableFuture<CreatedTaskDto>> createAll(List<CreateTaskArg> createArgs,
+      String routerRef) {
+
+    return createArgs.stream()
+        .map(createArg -> create(createArg, routerRef))
+        .collect(Collectors.toList());
+  }
+
+  public CompletableFuture<List<CreatedTaskBatchItemDto>> createBatch(
+      List<CreateTaskArg> createArgs, String routerRef) {
+
+    WebTarget target = resolve(batch, routerRef);
+    LOGGER.debug("Queueing batch of {} in router {}", createArgs.size(), routerRef);
+    return submit(target.request(getMediaType()), HttpMethod.POST,
+        Entity.entity(createArgs, getMediaType()),
+        response -> response.readEntity(new GenericType<List<CreatedTaskBatchItemDto>>() {}));
+  }
+
+  public CompletableFuture<TaskDto> get(RouterObjectRef ref) {
+    LOGGER.debug("Queueing get of {}", ref);
+    return getItem(ref, TaskDto.class);
+  }
+
+  public CompletableFuture<Void> update(UpdateTaskArg updateArg, RouterObjectRef ref) {
+    LOGGER.debug("Queueing update of {}: {}", ref, updateArg);
+    return updateItem(updateArg, ref);
+  }
+
+  public CompletableFuture<Void> updateContext(UpdateTaskContext taskContext,
+      RouterObjectRef ref) {
+
+    WebTarget target = resolve(userContext, ref);
+    LOGGER.debug("Queueing context update of {}: {}", ref, taskContext);
+    return submit(target.request(getMediaType()), HttpMethod.POST,
+        Entity.entity(taskContext, getMediaType()), response -> null);
+  }
+
+  public CompletableFuture<Void> delete(RouterObjectRef ref) {
+    LOGGER.debug("Queueing delete of {}", ref);
+    return deleteItem(ref);
+  }
+
+}
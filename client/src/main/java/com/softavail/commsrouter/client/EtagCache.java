@@ -0,0 +1,162 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Last DTO and ETag read from each resource URI, so service clients can send conditional GETs
+ * and answer a 304 from memory. Bounded by entry count, least recently used out first, and by
+ * age since the entry was last stored or revalidated.
+ *
+ * <p>One cache can be shared by several service clients. Cached DTOs are handed out to every
+ * caller reading the same URI and must not be modified.
+ *
+ * @author ikrustev
+ */
+public class EtagCache {
+
+  private final int maximumSize;
+  private final long ttlNanos;
+  private final LongSupplier nanoClock;
+  private final Map<URI, Entry> entries;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public EtagCache(int maximumSize, long ttl, TimeUnit unit) {
+    this(maximumSize, ttl, unit, System::nanoTime);
+  }
+
+  EtagCache(int maximumSize, long ttl, TimeUnit unit, LongSupplier nanoClock) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.nanoClock = nanoClock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * @return the entry to revalidate, or null if there is none or it has expired
+   */
+  Entry get(URI uri) {
+    long now = nanoClock.getAsLong();
+    synchronized (entries) {
+      Entry entry = entries.get(uri);
+      if (entry == null) {
+        return null;
+      }
+      if (now - entry.storedNanos >= ttlNanos) {
+        entries.remove(uri);
+        evictions.increment();
+        return null;
+      }
+      return entry;
+    }
+  }
+
+  void put(URI uri, String etag, Object value) {
+    Entry entry = new Entry(etag, value, nanoClock.getAsLong());
+    synchronized (entries) {
+      entries.put(uri, entry);
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (entries.size() > maximumSize) {
+        eldest.next();
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * Counts a 304 answered from the entry, which then stays fresh for another TTL.
+   */
+  void hit(URI uri, Entry entry) {
+    hits.increment();
+    put(uri, entry.etag, entry.value);
+  }
+
+  void miss() {
+    misses.increment();
+  }
+
+  void invalidate(URI uri) {
+    synchronized (entries) {
+      entries.remove(uri);
+    }
+  }
+
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  public double getHitRate() {
+    long hitCount = hits.sum();
+    long requestCount = hitCount + misses.sum();
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  @Override
+  public String toString() {
+    return "EtagCache [size = " + size() + ", hits = " + getHitCount() + ", misses = "
+        + getMissCount() + ", evictions = " + getEvictionCount() + "]";
+  }
+
+  static final class Entry {
+
+    final String etag;
+    final Object value;
+    final long storedNanos;
+
+    private Entry(String etag, Object value, long storedNanos) {
+      this.etag = etag;
+      this.value = value;
+      this.storedNanos = storedNanos;
+    }
+
+  }
+
+}
@@ -0,0 +1,131 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the requests a client has in flight. Calls over the limit wait in a queue and are
+ * started as earlier ones complete, so submitting never blocks the caller. When the queue is
+ * full too, the call fails right away with a {@link RejectedExecutionException}.
+ *
+ * @author ikrustev
+ */
+class InFlightWindow {
+
+  private final int limit;
+  private final int maxWaiting;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger waitingCount = new AtomicInteger();
+  private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+  // Drain requests not yet served; only the thread that raised it from zero drains
+  private final AtomicInteger drainRequests = new AtomicInteger();
+
+  InFlightWindow(int limit, int maxWaiting) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("In-flight limit must be positive: " + limit);
+    }
+    if (maxWaiting < 0) {
+      throw new IllegalArgumentException("Waiting limit must not be negative: " + maxWaiting);
+    }
+    this.limit = limit;
+    this.maxWaiting = maxWaiting;
+  }
+
+  <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    // Calls about to take a free slot pass through the queue too
+    int capacity = maxWaiting + limit - inFlight.get();
+    if (waitingCount.incrementAndGet() > capacity) {
+      waitingCount.decrementAndGet();
+      result.completeExceptionally(new RejectedExecutionException(
+          "Over " + maxWaiting + " calls are waiting for one of " + limit + " in-flight slots"));
+      return result;
+    }
+    waiting.add(() -> {
+      CompletableFuture<T> started;
+      try {
+        started = call.get();
+      } catch (RuntimeException ex) {
+        started = new CompletableFuture<>();
+        started.completeExceptionally(ex);
+      }
+      started.whenComplete((value, throwable) -> {
+        release();
+        if (throwable != null) {
+          result.completeExceptionally(throwable);
+        } else {
+          result.complete(value);
+        }
+      });
+    });
+    drain();
+    return result;
+  }
+
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  int getWaiting() {
+    return waitingCount.get();
+  }
+
+  private void release() {
+    inFlight.decrementAndGet();
+    drain();
+  }
+
+  // A call completing synchronously releases its slot from within the loop below. That only
+  // raises the request count, and the loop runs once more instead of recursing
+  private void drain() {
+    if (drainRequests.getAndIncrement() != 0) {
+      return;
+    }
+    int requests = 1;
+    do {
+      startWaiting();
+      requests = drainRequests.addAndGet(-requests);
+    } while (requests != 0);
+  }
+
+  private void startWaiting() {
+    while (!waiting.isEmpty()) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        // The call holding the slot drains again when it completes
+        return;
+      }
+      if (!inFlight.compareAndSet(current, current + 1)) {
+        continue;
+      }
+      Runnable next = waiting.poll();
+      if (next == null) {
+        inFlight.decrementAndGet();
+        continue;
+      }
+      waitingCount.decrementAndGet();
+      next.run();
+    }
+  }
+
+}
@@ -0,0 +1,137 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import com.softavail.commsrouter.api.dto.misc.PaginatedList;
+import com.softavail.commsrouter.api.dto.misc.PagingRequest;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Iterates the items of every page of a list. Each page is fetched on the executor as soon as
+ * the token for it is known, but never more than prefetchPages ahead of the page being consumed.
+ *
+ * @author ikrustev
+ */
+class PageIterator<T> implements Iterator<T>, AutoCloseable {
+
+  private final Function<PagingRequest, PaginatedList<T>> fetch;
+  private final PagingRequest request;
+  private final Executor executor;
+  private final int prefetchPages;
+
+  // Requested pages the consumer has not started on, in order; guarded by this
+  private final Deque<CompletableFuture<PaginatedList<T>>> pages = new ArrayDeque<>();
+  // Token of the next page, held back while prefetchPages are already requested
+  private String pendingToken;
+  private boolean closed;
+
+  private Iterator<T> current = Collections.emptyIterator();
+
+  PageIterator(Function<PagingRequest, PaginatedList<T>> fetch, PagingRequest request,
+      Executor executor, int prefetchPages) {
+
+    if (prefetchPages < 1) {
+      throw new IllegalArgumentException("Prefetch pages must be positive: " + prefetchPages);
+    }
+    this.fetch = fetch;
+    this.request = request;
+    this.executor = executor;
+    this.prefetchPages = prefetchPages;
+    synchronized (this) {
+      requestPage(request.getToken());
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!current.hasNext()) {
+      CompletableFuture<PaginatedList<T>> page;
+      synchronized (this) {
+        page = pages.pollFirst();
+        if (pendingToken != null) {
+          requestPage(pendingToken);
+          pendingToken = null;
+        }
+      }
+      if (page == null) {
+        return false;
+      }
+      try {
+        current = page.join().getList().iterator();
+      } catch (CompletionException ex) {
+        if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        }
+        throw ex;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return current.next();
+  }
+
+  /**
+   * Stops requesting pages. A page already being fetched still completes.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    pendingToken = null;
+  }
+
+  // Called with the lock held. The fetch takes the lock to chain the following page, so that
+  // one is always queued behind this one.
+  private void requestPage(String token) {
+    if (closed) {
+      return;
+    }
+    PagingRequest pageRequest = new PagingRequest(request.getRouterRef(), token,
+        request.getPerPage(), request.getSort(), request.getQuery());
+    pages.addLast(CompletableFuture.supplyAsync(() -> {
+      PaginatedList<T> page = fetch.apply(pageRequest);
+      pageFetched(page.getNextToken());
+      return page;
+    }, executor));
+  }
+
+  private synchronized void pageFetched(String nextToken) {
+    if (nextToken == null || nextToken.isEmpty()) {
+      return;
+    }
+    if (pages.size() < prefetchPages) {
+      requestPage(nextToken);
+    } else {
+      pendingToken = nextToken;
+    }
+  }
+
+}
@@ -40,23 +40,22 @@ public class PlanServiceClient extends ServiceClientBase<PlanDto, ApiObjectRef>
     implements PlanService {
 
   private final Client client;
-  private final String endpoint;
+  private final UriBuilder apiUrl;
   private final String routerRef;
 
   @Inject
   public PlanServiceClient(Client client, String endpoint, String routerRef) {
     this.client = client;
-    this.endpoint = endpoint;
+    this.apiUrl = UriBuilder.fromPath(endpoint)
+        .path("routers")
+        .path("{routerId}")
+        .path("plans");
     this.routerRef = routerRef;
   }
 
   @Override
   UriBuilder getApiUrl() {
-    return UriBuilder.fromPath(endpoint)
-        .path("routers")
-        .path("{routerId}")
-        .path("plans")
-        .clone();
+    return apiUrl.clone();
   }
 
   @Override
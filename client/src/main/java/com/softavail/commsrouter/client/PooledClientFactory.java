@@ -0,0 +1,68 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+/**
+ * Creates clients that keep connections to the API alive in a pool and run async invocations on
+ * a thread pool of the same size, so the pool bounds both sockets and in-flight requests.
+ *
+ * @author ikrustev
+ */
+public class PooledClientFactory {
+
+  public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 1500;
+  public static final int DEFAULT_READ_TIMEOUT_MILLIS = 10000;
+  public static final long IDLE_CONNECTION_SECONDS = 30;
+
+  private PooledClientFactory() {
+  }
+
+  public static Client create(int maxConnections) {
+    return create(maxConnections, DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * @param maxConnections connections kept to the API host, and threads running async calls
+   */
+  public static Client create(int maxConnections, int connectTimeoutMillis,
+      int readTimeoutMillis) {
+
+    PoolingHttpClientConnectionManager connectionManager =
+        new PoolingHttpClientConnectionManager(IDLE_CONNECTION_SECONDS, TimeUnit.SECONDS);
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+    ClientConfig config = new ClientConfig();
+    config.connectorProvider(new ApacheConnectorProvider());
+    config.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+    config.property(ClientProperties.ASYNC_THREADPOOL_SIZE, maxConnections);
+    config.property(ClientProperties.CONNECT_TIMEOUT, connectTimeoutMillis);
+    config.property(ClientProperties.READ_TIMEOUT, readTimeoutMillis);
+    return ClientBuilder.newClient(config);
+  }
+
+}
@@ -23,6 +23,7 @@ import com.softavail.commsrouter.api.dto.misc.PagingRequest;
 import com.softavail.commsrouter.api.dto.misc.SizeDto;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.QueueDto;
+import com.softavail.commsrouter.api.dto.model.QueueStatsDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
@@ -35,7 +36,6 @@ import java.util.List;
 import javax.inject.Inject;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.core.GenericType;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriBuilder;
 
 /**
@@ -45,20 +45,22 @@ public class QueueServiceClient extends ServiceClientBase<QueueDto, ApiObjectRef
     implements QueueService {
 
   private final Client client;
-  private final String endpoint;
+  private final UriBuilder apiUrl;
   private final String routerRef;
 
   @Inject
   public QueueServiceClient(Client client, String endpoint, String routerId) {
     this.client = client;
-    this.endpoint = endpoint;
+    this.apiUrl = UriBuilder.fromPath(endpoint)
+        .path("routers")
+        .path("{routerId}")
+        .path("queues");
     this.routerRef = routerId;
   }
 
   @Override
   UriBuilder getApiUrl() {
-    return UriBuilder.fromPath(endpoint).path("routers")
-        .path("{routerId}").path("queues").clone();
+    return apiUrl.clone();
   }
 
   @Override
@@ -111,30 +113,45 @@ public class QueueServiceClient extends ServiceClientBase<QueueDto, ApiObjectRef
   public long getQueueSize(RouterObjectRef routerObjectRef)
       throws NotFoundException {
 
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("{resourceRef}")
         .path("size")
         .build(routerObjectRef.getRouterRef(), routerObjectRef.getRef());
 
     return getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
+        .request(getMediaType())
         .get(SizeDto.class)
         .getSize();
   }
 
+  @Override
+  public QueueStatsDto getStats(RouterObjectRef routerObjectRef)
+      throws NotFoundException {
+
+    URI uri = getApiUrl()
+        .path("{resourceRef}")
+        .path("stats")
+        .build(routerObjectRef.getRouterRef(), routerObjectRef.getRef());
+
+    return getClient()
+        .target(uri)
+        .request(getMediaType())
+        .get(QueueStatsDto.class);
+  }
+
   @Override
   public Collection<TaskDto> getTasks(RouterObjectRef routerObjectId)
       throws NotFoundException {
 
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("{resourceRef}")
         .path("tasks")
         .build(routerObjectId.getRouterRef(), routerObjectId.getRef());
 
     return getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
+        .request(getMediaType())
         .get(new GenericType<Collection<TaskDto>>(){});
   }
 
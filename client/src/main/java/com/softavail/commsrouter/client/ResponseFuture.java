@@ -0,0 +1,61 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status.Family;
+
+/**
+ * Completes with the entity read from a successful async response, or exceptionally with a
+ * {@link WebApplicationException} carrying the status of any other.
+ *
+ * @author ikrustev
+ */
+class ResponseFuture<T> extends CompletableFuture<T> implements InvocationCallback<Response> {
+
+  private final Function<Response, T> reader;
+
+  ResponseFuture(Function<Response, T> reader) {
+    this.reader = reader;
+  }
+
+  @Override
+  public void completed(Response response) {
+    try {
+      if (response.getStatusInfo().getFamily() != Family.SUCCESSFUL) {
+        completeExceptionally(new WebApplicationException(
+            response.getStatusInfo().getReasonPhrase(), response.getStatus()));
+        return;
+      }
+      complete(reader.apply(response));
+    } catch (RuntimeException ex) {
+      completeExceptionally(ex);
+    } finally {
+      response.close();
+    }
+  }
+
+  @Override
+  public void failed(Throwable throwable) {
+    completeExceptionally(throwable);
+  }
+
+}
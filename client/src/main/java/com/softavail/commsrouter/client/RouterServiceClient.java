@@ -40,19 +40,18 @@ public class RouterServiceClient extends ServiceClientBase<RouterDto, ApiObjectR
     implements RouterService, PaginatedService<RouterDto> {
 
   private Client client;
-  private final String endpoint;
+  private final UriBuilder apiUrl;
 
   @Inject
   public RouterServiceClient(Client client, String endpoint) {
     this.client = client;
-    this.endpoint = endpoint;
+    this.apiUrl = UriBuilder.fromPath(endpoint)
+        .path("routers");
   }
 
   @Override
   UriBuilder getApiUrl() {
-    return UriBuilder
-        .fromPath(endpoint)
-        .path("routers").clone();
+    return apiUrl.clone();
   }
 
   @Override
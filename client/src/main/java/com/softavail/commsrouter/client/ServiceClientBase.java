@@ -30,13 +30,21 @@ import java.lang.reflect.Type;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriBuilder;
 
 /**
@@ -46,9 +54,20 @@ public abstract class ServiceClientBase<T extends ApiObjectRef, R extends ApiObj
 
   private static final Logger LOGGER = LogManager.getLogger(ServiceClientBase.class);
 
+  public static final int DEFAULT_PREFETCH_PAGES = 1;
+
+  private static final Executor PREFETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "commsrouter-client-prefetch");
+    thread.setDaemon(true);
+    return thread;
+  });
+
   private final Class<T> responseType;
   private final Class<R> createResponseType;
 
+  private volatile MediaType mediaType = MediaType.APPLICATION_JSON_TYPE;
+  private volatile EtagCache etagCache;
+
   @SuppressWarnings("unchecked")
   public ServiceClientBase() {
     Type tp = getClass().getGenericSuperclass();
@@ -59,33 +78,33 @@ public abstract class ServiceClientBase<T extends ApiObjectRef, R extends ApiObj
 
   // POST over container creates. Returns object
   protected R post(Object obj) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .build();
 
     LOGGER.debug("Doing POST to: {} with payload: {}", uri, obj);
 
     return getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
-        .post(Entity.entity(obj, MediaType.APPLICATION_JSON_TYPE), createResponseType);
+        .request(getMediaType())
+        .post(Entity.entity(obj, getMediaType()), createResponseType);
   }
 
   // POST over container creates. Returns object
   protected R post(Object obj, String containerId) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .build(containerId);
 
     LOGGER.debug("Doing POST to: {} with payload: {}", uri, obj);
 
     return getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
-        .post(Entity.entity(obj, MediaType.APPLICATION_JSON_TYPE), createResponseType);
+        .request(getMediaType())
+        .post(Entity.entity(obj, getMediaType()), createResponseType);
   }
 
   // POST over resource updates. Returns void
   protected void post(Object obj, ApiObjectRef ref) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("{resourceRef}")
         .build(ref.getRef());
 
@@ -93,13 +112,13 @@ public abstract class ServiceClientBase<T extends ApiObjectRef, R extends ApiObj
 
     getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
-        .post(Entity.entity(obj, MediaType.APPLICATION_JSON_TYPE));
+        .request(getMediaType())
+        .post(Entity.entity(obj, getMediaType()));
   }
 
   // POST over resource updates. Returns void
   protected void post(Object obj, RouterObjectRef ref) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("{resourceRef}")
         .build(ref.getRouterRef(), ref.getRef());
 
@@ -107,28 +126,28 @@ public abstract class ServiceClientBase<T extends ApiObjectRef, R extends ApiObj
 
     Response response = getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
+        .request(getMediaType())
         .header(HttpHeaders.IF_MATCH, ref.getHash())
-        .post(Entity.entity(obj, MediaType.APPLICATION_JSON_TYPE));
+        .post(Entity.entity(obj, getMediaType()));
     if (!response.getStatusInfo().getFamily().equals(Family.SUCCESSFUL)) {
       // TODO Throw exception!
     }
   }
 
   protected R put(Object obj, String ref) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .build(ref);
 
     LOGGER.debug("Doing PUT to: {} with payload: {}", uri, obj);
 
     return getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
-        .put(Entity.entity(obj, MediaType.APPLICATION_JSON_TYPE), createResponseType);
+        .request(getMediaType())
+        .put(Entity.entity(obj, getMediaType()), createResponseType);
   }
 
   protected R put(Object obj, RouterObjectRef ref) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("{resourceRef}")
         .build(ref.getRouterRef(), ref.getRef());
 
@@ -136,45 +155,59 @@ public abstract class ServiceClientBase<T extends ApiObjectRef, R extends ApiObj
 
     return getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
-        .put(Entity.entity(obj, MediaType.APPLICATION_JSON_TYPE), createResponseType);
+        .request(getMediaType())
+        .put(Entity.entity(obj, getMediaType()), createResponseType);
   }
 
   protected T getItem(ApiObjectRef ref) {
-    URI uri = getApiUrl().clone().path(ref.getRef()).build();
-
-    LOGGER.debug("Doing GET from: {}", uri);
+    URI uri = getApiUrl().path(ref.getRef()).build();
 
-    Response response = getClient()
-        .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
-        .get();
-
-    T t = response.readEntity(responseType);
-    t.setHash(response.getHeaderString(HttpHeaders.ETAG));
-
-    return t;
+    return getItem(uri);
   }
 
   protected T getItem(RouterObjectRef ref) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("{resourceId}").build(ref.getRouterRef(), ref.getRef());
 
+    return getItem(uri);
+  }
+
+  private T getItem(URI uri) {
+    EtagCache cache = etagCache;
+    EtagCache.Entry cached = cache != null ? cache.get(uri) : null;
+
     LOGGER.debug("Doing GET from: {}", uri);
 
-    Response response = getClient()
+    Invocation.Builder request = getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
-        .get();
+        .request(getMediaType());
+    if (cached != null) {
+      request.header(HttpHeaders.IF_NONE_MATCH, cached.etag);
+    }
+    Response response = request.get();
+
+    if (cached != null && response.getStatus() == Status.NOT_MODIFIED.getStatusCode()) {
+      response.close();
+      cache.hit(uri, cached);
+      return responseType.cast(cached.value);
+    }
 
     T t = response.readEntity(responseType);
-    t.setHash(response.getHeaderString(HttpHeaders.ETAG));
+    String etag = response.getHeaderString(HttpHeaders.ETAG);
+    t.setHash(etag);
+
+    if (cache != null) {
+      cache.miss();
+      if (etag != null) {
+        cache.put(uri, etag, t);
+      }
+    }
 
     return t;
   }
 
   protected PaginatedList<T> getList(PagingRequest request, GenericType<List<T>> genericType) {
-    UriBuilder uriBuilder = getApiUrl().clone()
+    UriBuilder uriBuilder = getApiUrl()
         .queryParam(PaginatedService.ITEMS_PER_PAGE_PARAM, request.getPerPage());
 
     if (request.getToken() != null) {
@@ -200,7 +233,7 @@ public abstract class ServiceClientBase<T extends ApiObjectRef, R extends ApiObj
 
     Response response = getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
+        .request(getMediaType())
         .get();
 
     List<T> list = response.readEntity(genericType);
@@ -218,19 +251,42 @@ public abstract class ServiceClientBase<T extends ApiObjectRef, R extends ApiObj
     return new PaginatedList<>(list, nextToken);
   }
 
+  public abstract PaginatedList<T> list(PagingRequest request);
+
+  /**
+   * Walks all pages of the list, request.getPerPage() items at a time, fetching the next page
+   * while the current one is consumed.
+   */
+  public Stream<T> stream(PagingRequest request) {
+    return stream(request, DEFAULT_PREFETCH_PAGES);
+  }
+
+  /**
+   * @param prefetchPages how many pages may be fetched ahead of the one being consumed
+   */
+  public Stream<T> stream(PagingRequest request, int prefetchPages) {
+    PageIterator<T> iterator =
+        new PageIterator<>(this::list, request, PREFETCH_EXECUTOR, prefetchPages);
+    return StreamSupport
+        .stream(Spliterators.spliteratorUnknownSize(iterator,
+            Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(iterator::close);
+  }
+
   protected void deleteRequest(ApiObjectRef ref) {
-    URI uri = getApiUrl().clone().path(ref.getRef()).build();
+    URI uri = getApiUrl().path(ref.getRef()).build();
 
     LOGGER.debug("Doing DELETE to: {}", uri);
 
     getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
+        .request(getMediaType())
         .delete();
+    invalidate(uri);
   }
 
   protected void deleteRequest(RouterObjectRef ref) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("{resourceRef}")
         .build(ref.getRouterRef(), ref.getRef());
 
@@ -238,10 +294,45 @@ public abstract class ServiceClientBase<T extends ApiObjectRef, R extends ApiObj
 
     getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
+        .request(getMediaType())
         .delete();
+    invalidate(uri);
+  }
+
+  /**
+   * Sets the media type of request and response bodies, JSON by default. Smile needs the
+   * {@link SmileFeature} registered on the client.
+   */
+  public void setMediaType(MediaType mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  protected MediaType getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Turns on conditional GETs for single items, answered from the given cache on 304.
+   * Null turns them off.
+   */
+  public void setEtagCache(EtagCache etagCache) {
+    this.etagCache = etagCache;
+  }
+
+  public EtagCache getEtagCache() {
+    return etagCache;
+  }
+
+  private void invalidate(URI uri) {
+    EtagCache cache = etagCache;
+    if (cache != null) {
+      cache.invalidate(uri);
+    }
   }
 
+  /**
+   * @return a copy of the resource URI template, built once per client
+   */
   abstract UriBuilder getApiUrl();
 
   abstract Client getClient();
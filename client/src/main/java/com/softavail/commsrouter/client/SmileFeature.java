@@ -0,0 +1,43 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
+
+import javax.ws.rs.core.Feature;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Lets a client read and write Smile bodies. Register it on the client, then switch the service
+ * clients over with {@link ServiceClientBase#setMediaType(MediaType)}.
+ *
+ * @author ikrustev
+ */
+public class SmileFeature implements Feature {
+
+  public static final MediaType APPLICATION_SMILE_TYPE =
+      MediaType.valueOf(WireFormats.APPLICATION_SMILE);
+
+  @Override
+  public boolean configure(FeatureContext context) {
+    context.register(new JacksonSmileProvider(WireFormats.createSmileMapper()));
+    return true;
+  }
+
+}
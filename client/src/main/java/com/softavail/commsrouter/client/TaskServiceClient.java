@@ -21,6 +21,7 @@ import com.softavail.commsrouter.api.dto.arg.UpdateTaskArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateTaskContext;
 import com.softavail.commsrouter.api.dto.misc.PaginatedList;
 import com.softavail.commsrouter.api.dto.misc.PagingRequest;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskBatchItemDto;
 import com.softavail.commsrouter.api.dto.model.CreatedTaskDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
@@ -34,7 +35,6 @@ import javax.inject.Inject;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.GenericType;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriBuilder;
 
 /**
@@ -44,20 +44,22 @@ public class TaskServiceClient extends ServiceClientBase<TaskDto, CreatedTaskDto
     implements TaskService {
 
   private final Client client;
-  private final String endpoint;
+  private final UriBuilder apiUrl;
   private final String routerRef;
 
   @Inject
   public TaskServiceClient(Client client, String endpoint, String routerRef) {
     this.client = client;
-    this.endpoint = endpoint;
+    this.apiUrl = UriBuilder.fromPath(endpoint)
+        .path("routers")
+        .path("{routerId}")
+        .path("tasks");
     this.routerRef = routerRef;
   }
 
   @Override
   UriBuilder getApiUrl() {
-    return UriBuilder.fromPath(endpoint).path("routers")
-        .path("{routerId}").path("tasks").clone();
+    return apiUrl.clone();
   }
 
   @Override
@@ -73,6 +75,22 @@ public class TaskServiceClient extends ServiceClientBase<TaskDto, CreatedTaskDto
     return post(createArg, routerId);
   }
 
+  @Override
+  public List<CreatedTaskBatchItemDto> createBatch(List<CreateTaskArg> createArgs,
+      String routerId)
+      throws CommsRouterException {
+
+    URI uri = getApiUrl()
+        .path("batch")
+        .build(routerId);
+
+    return getClient()
+        .target(uri)
+        .request(getMediaType())
+        .post(Entity.entity(createArgs, getMediaType()),
+            new GenericType<List<CreatedTaskBatchItemDto>>() {});
+  }
+
   @Override
   public CreatedTaskDto replace(CreateTaskArg createArg, RouterObjectRef routerObjectId)
       throws CommsRouterException {
@@ -114,14 +132,14 @@ public class TaskServiceClient extends ServiceClientBase<TaskDto, CreatedTaskDto
   public TaskDto getByTag(String routerId, String tag)
       throws CommsRouterException {
 
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("byTag")
         .queryParam("tag", tag)
         .build(routerId);
 
     return getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
+        .request(getMediaType())
         .get(TaskDto.class);
   }
 
@@ -140,27 +158,27 @@ public class TaskServiceClient extends ServiceClientBase<TaskDto, CreatedTaskDto
 
   // POST over resource updates. Returns void
   private void postContext(Object obj, RouterObjectRef id) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("{resourceId}")
         .path("user_context")
         .build(id.getRouterRef(), id.getRef());
 
     getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
-        .post(Entity.entity(obj, MediaType.APPLICATION_JSON_TYPE));
+        .request(getMediaType())
+        .post(Entity.entity(obj, getMediaType()));
   }
 
   protected CreatedTaskDto putContext(Object obj, RouterObjectRef id) {
-    URI uri = getApiUrl().clone()
+    URI uri = getApiUrl()
         .path("{resourceId}")
         .path("user_context")
         .build(id.getRouterRef(), id.getRef());
 
     return getClient()
         .target(uri)
-        .request(MediaType.APPLICATION_JSON_TYPE)
-        .put(Entity.entity(obj, MediaType.APPLICATION_JSON_TYPE), CreatedTaskDto.class);
+        .request(getMediaType())
+        .put(Entity.entity(obj, getMediaType()), CreatedTaskDto.class);
   }
 
 }
@@ -2,13 +2,16 @@ package com.softavail.commsrouter.client;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.put;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.client.WireMock;
@@ -27,6 +30,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 
@@ -145,6 +149,43 @@ public class AgentServiceClientTest {
         agent.getAddress(), agentDto.getAddress());
   }
 
+  @Test
+  public void getWithEtagCache() throws Exception {
+    String agentId = UUID.randomUUID().toString();
+    String url = "/api/routers/" + routerRef + "/agents/" + agentId;
+    AgentDto agent = new AgentDto();
+    agent.setAddress("sip:someone@somesip.pip");
+
+    stubFor(WireMock.get(urlEqualTo(url))
+        .willReturn(aResponse()
+            .withStatus(200)
+            .withHeader("Content-Type", "application/json")
+            .withHeader("ETag", "\"v1\"")
+            .withBody(objectMapper.writeValueAsString(agent))));
+    stubFor(WireMock.get(urlEqualTo(url))
+        .atPriority(1)
+        .withHeader("If-None-Match", equalTo("\"v1\""))
+        .willReturn(aResponse()
+            .withStatus(304)));
+
+    EtagCache cache = new EtagCache(10, 1, TimeUnit.MINUTES);
+    AgentServiceClient cachingClient = new AgentServiceClient(client, endpoint, routerRef);
+    cachingClient.setEtagCache(cache);
+
+    AgentDto first = cachingClient.get(new RouterObjectRef(agentId, routerRef));
+    AgentDto second = cachingClient.get(new RouterObjectRef(agentId, routerRef));
+
+    assertEquals("address matches", agent.getAddress(), second.getAddress());
+    // The quotes of the entity tag are stripped from the hash
+    assertEquals("v1", second.getHash());
+    assertSame("served from the cache", first, second);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    // The second get was the conditional one, answered with 304
+    verify(2, getRequestedFor(urlEqualTo(url)));
+    verify(1, getRequestedFor(urlEqualTo(url)).withHeader("If-None-Match", equalTo("\"v1\"")));
+  }
+
   @Test
   public void list() throws Exception {
   }
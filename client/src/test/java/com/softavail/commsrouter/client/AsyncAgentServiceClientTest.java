@@ -0,0 +1,129 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.softavail.commsrouter.api.dto.arg.UpdateAgentArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateAgentBatchItemArg;
+import com.softavail.commsrouter.api.dto.model.AgentState;
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.UpdatedAgentBatchItemDto;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.client.Client;
+
+/**
+ * @author ikrustev
+ */
+public class AsyncAgentServiceClientTest {
+
+  private static final int MAX_IN_FLIGHT = 2;
+
+  @ClassRule
+  public static WireMockClassRule wireMockRule =
+      new WireMockClassRule(wireMockConfig().dynamicPort());
+
+  @Rule
+  public WireMockClassRule instance = wireMockRule;
+
+  private static Client client;
+
+  private static AsyncAgentServiceClient serviceClient;
+
+  @BeforeClass
+  public static void setUpClass() {
+    client = PooledClientFactory.create(MAX_IN_FLIGHT);
+    serviceClient = new AsyncAgentServiceClient(client,
+        "http://localhost:" + wireMockRule.port() + "/api", MAX_IN_FLIGHT);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    client.close();
+  }
+
+  @Test
+  public void updateSendsIfMatch() throws Exception {
+    String routerRef = UUID.randomUUID().toString();
+    String agentRef = UUID.randomUUID().toString();
+    String url = "/api/routers/" + routerRef + "/agents/" + agentRef;
+
+    stubFor(post(urlEqualTo(url))
+        .willReturn(aResponse()
+            .withStatus(204)));
+
+    UpdateAgentArg updateArg = new UpdateAgentArg();
+    updateArg.setState(AgentState.ready);
+    RouterObjectRef ref = new RouterObjectRef(agentRef, routerRef);
+    ref.setHash("\"v1\"");
+
+    serviceClient.update(updateArg, ref).get(10, TimeUnit.SECONDS);
+
+    verify(postRequestedFor(urlEqualTo(url))
+        .withHeader("If-Match", equalTo("v1"))
+        .withRequestBody(containing("ready")));
+  }
+
+  @Test
+  public void updateBatch() throws Exception {
+    String routerRef = UUID.randomUUID().toString();
+    String url = "/api/routers/" + routerRef + "/agents/batch";
+
+    stubFor(post(urlEqualTo(url))
+        .willReturn(aResponse()
+            .withStatus(200)
+            .withHeader("Content-Type", "application/json")
+            .withBody("[{\"index\":0,\"ref\":\"agent\"}]")));
+
+    UpdateAgentBatchItemArg updateArg = new UpdateAgentBatchItemArg();
+    updateArg.setRef("agent");
+    updateArg.setHash("v1");
+    updateArg.setState(AgentState.busy);
+
+    List<UpdatedAgentBatchItemDto> results = serviceClient
+        .updateBatch(Collections.singletonList(updateArg), routerRef)
+        .get(10, TimeUnit.SECONDS);
+
+    assertEquals(1, results.size());
+    assertEquals("agent", results.get(0).getRef());
+    assertNull(results.get(0).getErrorCode());
+    assertEquals(0, serviceClient.getInFlight());
+    verify(postRequestedFor(urlEqualTo(url))
+        .withRequestBody(containing("\"hash\":\"v1\"")));
+  }
+
+}
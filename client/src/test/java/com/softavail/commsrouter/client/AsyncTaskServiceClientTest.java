@@ -0,0 +1,156 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.softavail.commsrouter.api.dto.arg.CreateTaskArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateTaskContext;
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.attribute.AttributeGroupDto;
+import com.softavail.commsrouter.api.dto.model.attribute.StringAttributeValueDto;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskDto;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.Client;
+
+/**
+ * @author ikrustev
+ */
+public class AsyncTaskServiceClientTest {
+
+  private static final int MAX_IN_FLIGHT = 4;
+
+  @ClassRule
+  public static WireMockClassRule wireMockRule =
+      new WireMockClassRule(wireMockConfig().dynamicPort());
+
+  @Rule
+  public WireMockClassRule instance = wireMockRule;
+
+  private static Client client;
+
+  private static AsyncTaskServiceClient serviceClient;
+
+  @BeforeClass
+  public static void setUpClass() {
+    client = PooledClientFactory.create(MAX_IN_FLIGHT);
+    serviceClient = new AsyncTaskServiceClient(client,
+        "http://localhost:" + wireMockRule.port() + "/api", MAX_IN_FLIGHT);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    client.close();
+  }
+
+  @Test
+  public void createAll() throws Exception {
+    String routerRef = UUID.randomUUID().toString();
+
+    stubFor(post(urlEqualTo("/api/routers/" + routerRef + "/tasks"))
+        .withHeader("Accept", equalTo("application/json"))
+        .willReturn(aResponse()
+            .withStatus(201)
+            .withFixedDelay(20)
+            .withHeader("Content-Type", "application/json")
+            .withBody("{\"ref\":\"task\",\"queueTasks\":1}")));
+
+    List<CreateTaskArg> createArgs = new ArrayList<>();
+    for (int i = 0; i < 20; ++i) {
+      createArgs.add(new CreateTaskArg());
+    }
+
+    List<CompletableFuture<CreatedTaskDto>> results =
+        serviceClient.createAll(createArgs, routerRef);
+
+    assertTrue("in flight: " + serviceClient.getInFlight(),
+        serviceClient.getInFlight() <= MAX_IN_FLIGHT);
+
+    for (CompletableFuture<CreatedTaskDto> result : results) {
+      assertEquals("task", result.get(10, TimeUnit.SECONDS).getRef());
+    }
+    assertEquals(0, serviceClient.getInFlight());
+    assertEquals(0, serviceClient.getWaiting());
+    verify(20, postRequestedFor(urlEqualTo("/api/routers/" + routerRef + "/tasks")));
+  }
+
+  @Test
+  public void rejectedCreateFails() throws Exception {
+    String routerRef = UUID.randomUUID().toString();
+
+    stubFor(post(urlEqualTo("/api/routers/" + routerRef + "/tasks"))
+        .willReturn(aResponse()
+            .withStatus(429)
+            .withHeader("Retry-After", "1")));
+
+    try {
+      serviceClient.create(new CreateTaskArg(), routerRef).get(10, TimeUnit.SECONDS);
+      fail("Expected the create to fail");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof WebApplicationException);
+      assertEquals(429, ((WebApplicationException) ex.getCause()).getResponse().getStatus());
+    }
+    assertEquals(0, serviceClient.getInFlight());
+  }
+
+  @Test
+  public void updateContext() throws Exception {
+    String routerRef = UUID.randomUUID().toString();
+    String taskRef = UUID.randomUUID().toString();
+    String url = "/api/routers/" + routerRef + "/tasks/" + taskRef + "/user_context";
+
+    stubFor(post(urlEqualTo(url))
+        .willReturn(aResponse()
+            .withStatus(204)));
+
+    AttributeGroupDto context = new AttributeGroupDto();
+    context.put("callback_state", new StringAttributeValueDto("completed"));
+    UpdateTaskContext taskContext = new UpdateTaskContext();
+    taskContext.setUserContext(context);
+
+    serviceClient.updateContext(taskContext, new RouterObjectRef(taskRef, routerRef))
+        .get(10, TimeUnit.SECONDS);
+
+    verify(postRequestedFor(urlEqualTo(url))
+        .withRequestBody(containing("callback_state")));
+  }
+
+}
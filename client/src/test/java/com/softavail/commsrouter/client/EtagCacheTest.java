@@ -0,0 +1,83 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author ikrustev
+ */
+public class EtagCacheTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  public void evictsLeastRecentlyUsedOverSize() {
+    EtagCache cache = new EtagCache(2, 1, TimeUnit.MINUTES, now::get);
+    cache.put(URI.create("/a"), "a", "A");
+    cache.put(URI.create("/b"), "b", "B");
+    assertNotNull(cache.get(URI.create("/a")));
+
+    cache.put(URI.create("/c"), "c", "C");
+
+    assertEquals(2, cache.size());
+    assertNull(cache.get(URI.create("/b")));
+    assertNotNull(cache.get(URI.create("/a")));
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  public void expiresAfterTtlUnlessRevalidated() {
+    EtagCache cache = new EtagCache(10, 10, TimeUnit.SECONDS, now::get);
+    URI uri = URI.create("/a");
+    cache.put(uri, "a", "A");
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+    EtagCache.Entry entry = cache.get(uri);
+    cache.hit(uri, entry);
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+    assertNotNull(cache.get(uri));
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertNull(cache.get(uri));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void countsHitsAndMisses() {
+    EtagCache cache = new EtagCache(10, 1, TimeUnit.MINUTES, now::get);
+    URI uri = URI.create("/a");
+    cache.miss();
+    cache.put(uri, "a", "A");
+    cache.hit(uri, cache.get(uri));
+    cache.hit(uri, cache.get(uri));
+
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+  }
+
+}
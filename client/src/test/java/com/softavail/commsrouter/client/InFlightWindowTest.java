@@ -0,0 +1,133 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author ikrustev
+ */
+public class InFlightWindowTest {
+
+  @Test
+  public void startsQueuedCallsAsEarlierOnesComplete() {
+    InFlightWindow window = new InFlightWindow(2, 10);
+    List<CompletableFuture<Integer>> started = new ArrayList<>();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+    for (int i = 0; i < 5; ++i) {
+      results.add(window.submit(() -> {
+        CompletableFuture<Integer> call = new CompletableFuture<>();
+        started.add(call);
+        return call;
+      }));
+    }
+
+    assertEquals(2, started.size());
+    assertEquals(2, window.getInFlight());
+    assertEquals(3, window.getWaiting());
+
+    started.get(0).complete(0);
+    assertEquals(3, started.size());
+    assertEquals(0, results.get(0).join().intValue());
+
+    started.get(1).completeExceptionally(new IllegalStateException());
+    assertEquals(4, started.size());
+    assertTrue(results.get(1).isCompletedExceptionally());
+
+    for (int i = 2; i < 5; ++i) {
+      started.get(i).complete(i);
+    }
+    assertEquals(5, started.size());
+    assertEquals(0, window.getInFlight());
+    assertEquals(0, window.getWaiting());
+    assertEquals(4, results.get(4).join().intValue());
+  }
+
+  @Test
+  public void callThrowingStillReleasesItsSlot() {
+    InFlightWindow window = new InFlightWindow(1, 10);
+
+    CompletableFuture<Integer> failed = window.submit(() -> {
+      throw new IllegalStateException();
+    });
+    CompletableFuture<Integer> next = window.submit(() -> CompletableFuture.completedFuture(1));
+
+    assertTrue(failed.isCompletedExceptionally());
+    assertEquals(1, next.join().intValue());
+    assertEquals(0, window.getInFlight());
+  }
+
+  @Test
+  public void rejectsCallsOverTheWaitingLimit() {
+    InFlightWindow window = new InFlightWindow(1, 2);
+    CompletableFuture<Integer> first = new CompletableFuture<>();
+
+    window.submit(() -> first);
+    CompletableFuture<Integer> second = window.submit(() -> CompletableFuture.completedFuture(2));
+    CompletableFuture<Integer> third = window.submit(() -> CompletableFuture.completedFuture(3));
+    CompletableFuture<Integer> rejected =
+        window.submit(() -> CompletableFuture.completedFuture(4));
+
+    assertEquals(2, window.getWaiting());
+    assertTrue(rejected.isCompletedExceptionally());
+    try {
+      rejected.join();
+      fail("Expected the call to be rejected");
+    } catch (CompletionException ex) {
+      assertTrue(ex.getCause() instanceof RejectedExecutionException);
+    }
+
+    first.complete(1);
+    assertEquals(2, second.join().intValue());
+    assertEquals(3, third.join().intValue());
+    assertEquals(0, window.getWaiting());
+  }
+
+  @Test
+  public void drainsSynchronousCompletionsWithoutRecursing() {
+    int calls = 100000;
+    InFlightWindow window = new InFlightWindow(1, calls);
+    CompletableFuture<Integer> first = new CompletableFuture<>();
+    window.submit(() -> first);
+
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < calls; ++i) {
+      int value = i;
+      results.add(window.submit(() -> CompletableFuture.completedFuture(value)));
+    }
+    assertEquals(calls, window.getWaiting());
+
+    // Each call completes as it starts; recursing per call would overflow the stack
+    first.complete(-1);
+
+    assertEquals(0, window.getWaiting());
+    assertEquals(0, window.getInFlight());
+    assertEquals(calls - 1, results.get(calls - 1).join().intValue());
+  }
+
+}
@@ -0,0 +1,95 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.softavail.commsrouter.api.dto.misc.PaginatedList;
+import com.softavail.commsrouter.api.dto.misc.PagingRequest;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * @author ikrustev
+ */
+public class PageIteratorTest {
+
+  private static final int PAGES = 5;
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final AtomicInteger fetches = new AtomicInteger();
+
+  // Pages are numbered by their token; page i holds items 10 * i and 10 * i + 1
+  private final Function<PagingRequest, PaginatedList<Integer>> fetch = request -> {
+    fetches.incrementAndGet();
+    int page = request.getToken() == null ? 0 : Integer.parseInt(request.getToken());
+    String nextToken = page + 1 < PAGES ? String.valueOf(page + 1) : null;
+    return new PaginatedList<>(Arrays.asList(10 * page, 10 * page + 1), nextToken);
+  };
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void walksAllPagesInOrder() {
+    PageIterator<Integer> iterator =
+        new PageIterator<>(fetch, new PagingRequest(null, 2), executor, 2);
+
+    List<Integer> items = new ArrayList<>();
+    iterator.forEachRemaining(items::add);
+
+    assertEquals(Arrays.asList(0, 1, 10, 11, 20, 21, 30, 31, 40, 41), items);
+    assertEquals(PAGES, fetches.get());
+  }
+
+  @Test
+  public void fetchesNoFurtherThanPrefetchPagesAhead() throws Exception {
+    PageIterator<Integer> iterator =
+        new PageIterator<>(fetch, new PagingRequest(null, 2), executor, 1);
+
+    assertEquals(0, iterator.next().intValue());
+    Thread.sleep(100);
+
+    // The page being consumed and one ahead of it
+    assertTrue("fetches: " + fetches.get(), fetches.get() <= 2);
+
+    iterator.close();
+    iterator.forEachRemaining(item -> { });
+    assertTrue("fetches: " + fetches.get(), fetches.get() < PAGES);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void fetchFailureIsRethrown() {
+    PageIterator<Integer> iterator = new PageIterator<>(request -> {
+      throw new IllegalStateException();
+    }, new PagingRequest(null, 2), executor, 1);
+
+    iterator.hasNext();
+  }
+
+}
@@ -20,8 +20,18 @@ import com.google.common.base.Throwables;
 
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.api.exception.ReferenceIntegrityViolationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
@@ -29,37 +39,127 @@ import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceException;
 
 /**
+ * Runs transactions, retrying the ones that fail on an optimistic lock after a backoff.
+ *
+ * <p>The synchronous calls back off on the calling thread, as their caller waits for the outcome
+ * anyway; the wait of one call is capped at the maximum backoff delay in total. Work running on
+ * shared threads, like the dispatcher, uses
+ * {@link #executeWithLockRetry(String, TransactionLogic, ScheduledExecutorService)}, which
+ * schedules the retries instead of holding the thread.
+ *
  * @author ikrustev
  */
 public class JpaTransactionManager {
 
+  private static final Logger LOGGER = LogManager.getLogger(JpaTransactionManager.class);
+
+  public static final String DEFAULT_TAG = "default";
+
   private final EntityManagerFactory emf;
   private final int lockRetryCount;
+  private final LockRetryBackoff lockRetryBackoff;
+  private final TransactionListener listener;
+  private final ThreadLocal<Deque<List<Runnable>>> afterCommitActions =
+      ThreadLocal.withInitial(ArrayDeque::new);
 
   public JpaTransactionManager(EntityManagerFactory emf, int lockRetryCount) {
+    this(emf, lockRetryCount, LockRetryBackoff.NONE, TransactionListener.NONE);
+  }
+
+  public JpaTransactionManager(EntityManagerFactory emf, int lockRetryCount,
+      LockRetryBackoff lockRetryBackoff, TransactionListener listener) {
     this.emf = emf;
     this.lockRetryCount = lockRetryCount;
+    this.lockRetryBackoff = lockRetryBackoff;
+    this.listener = listener;
   }
 
   public <RESULT> RESULT execute(int lockRetryCount, TransactionLogic<RESULT> transactionLogic)
       throws CommsRouterException {
 
+    return execute(DEFAULT_TAG, lockRetryCount, transactionLogic);
+  }
+
+  public <RESULT> RESULT execute(String tag, int lockRetryCount,
+      TransactionLogic<RESULT> transactionLogic)
+      throws CommsRouterException {
+
+    return execute(tag, lockRetryCount, 1, transactionLogic);
+  }
+
+  /**
+   * Runs the transaction with lock retries, without holding a thread while backing off. The
+   * first attempt runs on the calling thread; on a lock conflict the next attempt is scheduled
+   * on the scheduler after the backoff delay.
+   *
+   * @return the result, or the failure of the last attempt
+   */
+  public <RESULT> CompletableFuture<RESULT> executeWithLockRetry(String tag,
+      TransactionLogic<RESULT> transactionLogic, ScheduledExecutorService scheduler) {
+
+    CompletableFuture<RESULT> result = new CompletableFuture<>();
+    attempt(tag, transactionLogic, scheduler, 1, result);
+    return result;
+  }
+
+  private <RESULT> void attempt(String tag, TransactionLogic<RESULT> transactionLogic,
+      ScheduledExecutorService scheduler, int attempt, CompletableFuture<RESULT> result) {
+
+    try {
+      result.complete(execute(tag, 0, attempt, transactionLogic));
+    } catch (PersistenceException ex) {
+      if (!OptimisticLockException.class.isInstance(ex.getCause()) || attempt > lockRetryCount) {
+        result.completeExceptionally(ex);
+        return;
+      }
+      long delayMillis = lockRetryBackoff.getDelayMillis(attempt);
+      listener.onLockRetry(tag, attempt, delayMillis);
+      try {
+        scheduler.schedule(
+            () -> attempt(tag, transactionLogic, scheduler, attempt + 1, result),
+            delayMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException rejected) {
+        result.completeExceptionally(ex);
+      }
+    } catch (CommsRouterException | RuntimeException ex) {
+      result.completeExceptionally(ex);
+    }
+  }
+
+  private <RESULT> RESULT execute(String tag, int lockRetryCount, int firstAttempt,
+      TransactionLogic<RESULT> transactionLogic)
+      throws CommsRouterException {
+
+    long startNanos = System.nanoTime();
+    int attempt = firstAttempt - 1;
+    long waitedMillis = 0;
+    boolean committed = false;
+    List<Runnable> actions = new ArrayList<>();
+    afterCommitActions.get().push(actions);
     EntityManager em = emf.createEntityManager();
     try {
       EntityTransaction dbTransaction = em.getTransaction();
+      RESULT result;
       for (; ; ) {
         try {
+          listener.onAttempt(tag, ++attempt);
+          actions.clear();
           dbTransaction.begin();
-          RESULT result = transactionLogic.run(em);
+          result = transactionLogic.run(em);
           dbTransaction.commit();
-          return result;
+          committed = true;
+          break;
         } catch (PersistenceException ex) {
           if (dbTransaction.isActive()) {
             dbTransaction.rollback();
           }
+          listener.onRollback(tag, ex);
 
           if (OptimisticLockException.class.isInstance(ex.getCause()) && lockRetryCount > 0) {
             --lockRetryCount;
+            // The persistence context still holds the stale versions that failed
+            em.clear();
+            waitedMillis += backOff(tag, attempt, waitedMillis, ex);
             continue;
           }
 
@@ -91,26 +191,86 @@ public class JpaTransactionManager {
           if (dbTransaction.isActive()) {
             dbTransaction.rollback();
           }
+          listener.onRollback(tag, ex);
           throw ex;
         }
       }
+      // Out of the try above: the transaction is committed, whatever the actions do
+      runAfterCommit(tag, actions);
+      return result;
     } finally {
+      afterCommitActions.get().pop();
       em.close();
+      listener.onCompleted(tag, committed, attempt, System.nanoTime() - startNanos);
     }
   }
 
+  /**
+   * Runs the action on this thread once the innermost transaction it is called from commits.
+   * The action is dropped if the transaction rolls back or is retried.
+   * It should not throw - the transaction is already committed, so a failure is only logged.
+   */
+  public void afterCommit(Runnable action) {
+    List<Runnable> actions = afterCommitActions.get().peek();
+    if (actions == null) {
+      throw new IllegalStateException("afterCommit called outside of a transaction");
+    }
+    actions.add(action);
+  }
+
+  private static void runAfterCommit(String tag, List<Runnable> actions) {
+    for (Runnable action : actions) {
+      try {
+        action.run();
+      } catch (RuntimeException ex) {
+        LOGGER.error("Transaction {}: after commit action failed: {}", tag, ex, ex);
+      }
+    }
+  }
+
+  /**
+   * @return the milliseconds waited
+   */
+  private long backOff(String tag, int attempt, long waitedMillis, PersistenceException ex) {
+    long delayMillis = Math.min(lockRetryBackoff.getDelayMillis(attempt),
+        lockRetryBackoff.getDelayMaxMillis() - waitedMillis);
+    listener.onLockRetry(tag, attempt, Math.max(delayMillis, 0));
+    if (delayMillis <= 0) {
+      return 0;
+    }
+    try {
+      Thread.sleep(delayMillis);
+    } catch (InterruptedException interrupted) {
+      Thread.currentThread().interrupt();
+      throw ex;
+    }
+    return delayMillis;
+  }
+
   public <RESULT> RESULT execute(TransactionLogic<RESULT> transactionLogic)
       throws CommsRouterException {
 
     return execute(0, transactionLogic);
   }
 
+  public <RESULT> RESULT execute(String tag, TransactionLogic<RESULT> transactionLogic)
+      throws CommsRouterException {
+
+    return execute(tag, 0, transactionLogic);
+  }
+
   public <RESULT> RESULT executeWithLockRetry(TransactionLogic<RESULT> transactionLogic)
       throws CommsRouterException {
 
     return execute(lockRetryCount, transactionLogic);
   }
 
+  public <RESULT> RESULT executeWithLockRetry(String tag, TransactionLogic<RESULT> transactionLogic)
+      throws CommsRouterException {
+
+    return execute(tag, lockRetryCount, transactionLogic);
+  }
+
   public void executeVoid(VoidTransactionLogic voidTransactionLogic)
       throws CommsRouterException {
 
@@ -123,6 +283,12 @@ public class JpaTransactionManager {
     execute(lockRetryCount, voidTransactionLogic);
   }
 
+  public void executeVoidWithLockRetry(String tag, VoidTransactionLogic voidTransactionLogic)
+      throws CommsRouterException {
+
+    execute(tag, lockRetryCount, voidTransactionLogic);
+  }
+
   public void close() {
     emf.close();
   }
@@ -0,0 +1,74 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.jpa;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter between optimistic lock retries, so that transactions that
+ * collided once do not all retry at the same instant and collide again.
+ *
+ * @author ikrustev
+ */
+public class LockRetryBackoff {
+
+  public static final LockRetryBackoff NONE = new LockRetryBackoff(0, 0, 0);
+
+  private final long delayMillis;
+  private final long delayMaxMillis;
+  private final double jitterFactor;
+
+  /**
+   * @param delayMillis delay before the first retry, doubled on each following one
+   * @param delayMaxMillis upper bound of the delay
+   * @param jitterFactor part of the delay, between 0 and 1, that is randomized
+   */
+  public LockRetryBackoff(long delayMillis, long delayMaxMillis, double jitterFactor) {
+    if (delayMillis < 0 || delayMaxMillis < delayMillis) {
+      throw new IllegalArgumentException(
+          "Invalid lock retry delay " + delayMillis + " / max " + delayMaxMillis);
+    }
+    if (jitterFactor < 0 || jitterFactor > 1) {
+      throw new IllegalArgumentException("Invalid lock retry jitter factor " + jitterFactor);
+    }
+    this.delayMillis = delayMillis;
+    this.delayMaxMillis = delayMaxMillis;
+    this.jitterFactor = jitterFactor;
+  }
+
+  public long getDelayMaxMillis() {
+    return delayMaxMillis;
+  }
+
+  /**
+   * @param retry one based number of the retry
+   * @return milliseconds to wait before it
+   */
+  public long getDelayMillis(int retry) {
+    if (delayMillis == 0) {
+      return 0;
+    }
+    int shift = Math.min(Math.max(retry - 1, 0), 30);
+    long delay = Math.min(delayMaxMillis, delayMillis << shift);
+    long jitter = (long) (delay * jitterFactor);
+    if (jitter == 0) {
+      return delay;
+    }
+    return delay - jitter + ThreadLocalRandom.current().nextLong(jitter + 1);
+  }
+
+}
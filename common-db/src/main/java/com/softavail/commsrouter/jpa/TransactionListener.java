@@ -0,0 +1,36 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.jpa;
+
+/**
+ * Receives the lifecycle of transactions run by {@link JpaTransactionManager}, per call site tag.
+ *
+ * @author ikrustev
+ */
+public interface TransactionListener {
+
+  TransactionListener NONE = new TransactionListener() {};
+
+  default void onAttempt(String tag, int attempt) {}
+
+  default void onRollback(String tag, Throwable cause) {}
+
+  default void onLockRetry(String tag, int attempt, long delayMillis) {}
+
+  default void onCompleted(String tag, boolean committed, int attempts, long durationNanos) {}
+
+}
@@ -16,6 +16,8 @@
 
 package com.softavail.commsrouter.domain;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 
@@ -33,8 +35,12 @@ import javax.persistence.Version;
 @MappedSuperclass
 public class ApiObject implements Serializable {
 
+  // Polling clients ask about the same object versions over and over
+  private static final Cache<String, String> HASH_STRINGS =
+      CacheBuilder.newBuilder().maximumSize(100_000).build();
+
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequence.NAME)
   private Long id;
 
   private String ref;
@@ -98,9 +104,22 @@ public class ApiObject implements Serializable {
   }
 
   public String hashString() {
-    String hashFields = String.format("%d%s%d", id, ref, version);
-    HashCode hash = Hashing.sha256().hashString(hashFields, StandardCharsets.UTF_8);
-    return hash.toString();
+    return hashString(id, ref, version);
+  }
+
+  /**
+   * The hash of an object from its identity and version alone, so it can be checked without
+   * loading the object.
+   */
+  public static String hashString(Long id, String ref, Integer version) {
+    String hashFields = new StringBuilder().append(id).append(ref).append(version).toString();
+    String hashString = HASH_STRINGS.getIfPresent(hashFields);
+    if (hashString == null) {
+      HashCode hash = Hashing.sha256().hashString(hashFields, StandardCharsets.UTF_8);
+      hashString = hash.toString();
+      HASH_STRINGS.put(hashFields, hashString);
+    }
+    return hashString;
   }
 
 }
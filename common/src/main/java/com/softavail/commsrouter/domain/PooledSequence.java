@@ -0,0 +1,33 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.domain;
+
+/**
+ * Name of the id generator shared by the entities. It is declared once, in the package info of
+ * the domain package in core: an enhanced sequence per entity, named after the entity with a
+ * _seq suffix, handing out blocks of 50 ids through the pooled-lo optimizer.
+ *
+ * @author ikrustev
+ */
+public final class PooledSequence {
+
+  public static final String NAME = "pooled_sequence";
+
+  private PooledSequence() {
+  }
+
+}
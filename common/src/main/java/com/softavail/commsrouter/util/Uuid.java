@@ -16,48 +16,77 @@
 
 package com.softavail.commsrouter.util;
 
-import java.math.BigInteger;
-import java.nio.ByteBuffer;
-import java.util.UUID;
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by @author mapuo on 20.09.17.
+ *
+ * <p>Generates refs of 26 characters, 5 bits each, that sort in the order they were created:
+ * <ul>
+ * <li>50 bits of milliseconds since the epoch, so new rows land at the end of the
+ * {@code (router_id, ref)} indexes instead of all over them</li>
+ * <li>15 bits of node id, picked at random once per process</li>
+ * <li>15 bits of sequence within the millisecond, so refs of one node never repeat</li>
+ * <li>50 random bits, so refs of nodes that picked the same id do not repeat either</li>
+ * </ul>
+ *
+ * <p>The alphabet is digits and lower case letters in ASCII order, without i, l, o and u, so refs
+ * sort and compare the same under case insensitive collations. When a millisecond runs out of
+ * sequence numbers, or the clock steps back, the next refs borrow the following milliseconds.
  */
 public class Uuid {
 
-  private static final char[] ALPHABET = {
-      '0', '1', '2', '3', '4', '5', '6', '7',
-      '8', '9', 'a', 'b', 'c', 'd', 'e', 'f',
-      'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n',
-      'o', 'p', 'q', 'r', 's', 't', 'u', 'v',
-      'w', 'x', 'y', 'z', 'A', 'B', 'C', 'D',
-      'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L',
-      'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T',
-      'U', 'V', 'W', 'X', 'Y', 'X'
-  };
-
-  private static final BigInteger BASE = BigInteger.valueOf(62);
-
-  private static String toString(BigInteger number) {
-    StringBuilder builder = new StringBuilder();
-    while (number.compareTo(BigInteger.ZERO) >= 1) {
-      BigInteger[] mod = number.divideAndRemainder(BASE);
-      builder.append(ALPHABET[mod[1].intValue()]);
-      number = mod[0];
-    }
-    return builder.toString();
+  private static final char[] ALPHABET = "0123456789abcdefghjkmnpqrstvwxyz".toCharArray();
+
+  private static final int BITS_PER_CHAR = 5;
+  private static final int CHAR_MASK = (1 << BITS_PER_CHAR) - 1;
+  private static final int SEQUENCE_BITS = 15;
+  private static final int NODE_BITS = 15;
+  private static final int TIME_CHARS = 10;
+  private static final int NODE_SEQUENCE_CHARS = (NODE_BITS + SEQUENCE_BITS) / BITS_PER_CHAR;
+  private static final int RANDOM_CHARS = 10;
+  private static final long RANDOM_MASK = (1L << (RANDOM_CHARS * BITS_PER_CHAR)) - 1;
+
+  public static final int LENGTH = TIME_CHARS + NODE_SEQUENCE_CHARS + RANDOM_CHARS;
+
+  private static final long NODE = new SecureRandom().nextInt(1 << NODE_BITS);
+
+  // Milliseconds and sequence of the last ref, as one number so a single CAS advances both
+  private static final AtomicLong LAST = new AtomicLong();
+
+  public static String get() {
+    long timeAndSequence = next(System.currentTimeMillis());
+    long time = timeAndSequence >>> SEQUENCE_BITS;
+    long nodeAndSequence =
+        NODE << SEQUENCE_BITS | timeAndSequence & ((1L << SEQUENCE_BITS) - 1);
+    long random = ThreadLocalRandom.current().nextLong() & RANDOM_MASK;
+
+    char[] chars = new char[LENGTH];
+    encode(time, chars, 0, TIME_CHARS);
+    encode(nodeAndSequence, chars, TIME_CHARS, NODE_SEQUENCE_CHARS);
+    encode(random, chars, TIME_CHARS + NODE_SEQUENCE_CHARS, RANDOM_CHARS);
+    return new String(chars);
   }
 
-  private static BigInteger getRandom() {
-    UUID uuid = UUID.randomUUID();
-    ByteBuffer bb = ByteBuffer.wrap(new byte[16]);
-    bb.putLong(uuid.getMostSignificantBits());
-    bb.putLong(uuid.getLeastSignificantBits());
-    return new BigInteger(1, bb.array());
+  private static long next(long millis) {
+    long start = millis << SEQUENCE_BITS;
+    while (true) {
+      long last = LAST.get();
+      // Past the last sequence number of a millisecond, the increment carries into the next one
+      long next = Math.max(start, last + 1);
+      if (LAST.compareAndSet(last, next)) {
+        return next;
+      }
+    }
   }
 
-  public static String get() {
-    return toString(getRandom());
+  private static void encode(long value, char[] chars, int offset, int count) {
+    for (int index = offset + count - 1; index >= offset; --index) {
+      chars[index] = ALPHABET[(int) value & CHAR_MASK];
+      value >>>= BITS_PER_CHAR;
+    }
   }
 
 }
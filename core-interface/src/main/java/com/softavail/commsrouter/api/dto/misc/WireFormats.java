@@ -0,0 +1,47 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.misc;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Media types the API speaks besides JSON, and the mappers both ends use for them.
+ *
+ * <p>Smile is binary JSON: the same data model and DTO bindings, but no text encoding of numbers
+ * and back references for repeated attribute names instead of writing them out again.
+ *
+ * @author ikrustev
+ */
+public final class WireFormats {
+
+  public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+  private WireFormats() {
+  }
+
+  /**
+   * @return a new mapper writing and reading Smile, configured like the API's JSON mapper
+   */
+  public static ObjectMapper createSmileMapper() {
+    ObjectMapper objectMapper = new ObjectMapper(new SmileFactory());
+    objectMapper.setSerializationInclusion(Include.NON_NULL);
+    return objectMapper;
+  }
+
+}
@@ -0,0 +1,98 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.model;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Progress of a chunked bulk delete, with the number of rows deleted so far per table.
+ *
+ * @author ikrustev
+ */
+public class BulkDeleteStatusDto {
+
+  private String id;
+  private String target;
+  private BulkDeleteState state;
+  private Map<String, Long> deleted;
+  private String error;
+  private Date startDate;
+  private Date endDate;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getTarget() {
+    return target;
+  }
+
+  public void setTarget(String target) {
+    this.target = target;
+  }
+
+  public BulkDeleteState getState() {
+    return state;
+  }
+
+  public void setState(BulkDeleteState state) {
+    this.state = state;
+  }
+
+  public Map<String, Long> getDeleted() {
+    return deleted;
+  }
+
+  public void setDeleted(Map<String, Long> deleted) {
+    this.deleted = deleted;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public Date getStartDate() {
+    return startDate;
+  }
+
+  public void setStartDate(Date startDate) {
+    this.startDate = startDate;
+  }
+
+  public Date getEndDate() {
+    return endDate;
+  }
+
+  public void setEndDate(Date endDate) {
+    this.endDate = endDate;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkDelete[" + id + " " + target + " " + state + " " + deleted + "]";
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.softavail.commsrouter.api.exception.ExceptionPresentation;
+
+/**
+ * Outcome of one task of a batch create: either the created task or the reason it was rejected.
+ * The error code is one of the codes of the regular error responses.
+ *
+ * @author ikrustev
+ */
+@JsonInclude(Include.NON_NULL)
+public class CreatedTaskBatchItemDto extends CreatedTaskDto {
+
+  private int index;
+  private String errorCode;
+  private String errorDescription;
+
+  public CreatedTaskBatchItemDto() {}
+
+  public CreatedTaskBatchItemDto(int index, String taskRef, Long queueTasks) {
+    super(taskRef, queueTasks);
+    this.index = index;
+  }
+
+  public CreatedTaskBatchItemDto(int index, Throwable error) {
+    this.index = index;
+    this.errorCode = ExceptionPresentation.getErrorCode(error);
+    this.errorDescription = ExceptionPresentation.getErrorDescription(error);
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public String getErrorCode() {
+    return errorCode;
+  }
+
+  public void setErrorCode(String errorCode) {
+    this.errorCode = errorCode;
+  }
+
+  public String getErrorDescription() {
+    return errorDescription;
+  }
+
+  public void setErrorDescription(String errorDescription) {
+    this.errorDescription = errorDescription;
+  }
+
+  @JsonIgnore
+  public boolean isCreated() {
+    return errorCode == null;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("CreatedTaskBatchItemDto{");
+    sb.append("index=").append(index);
+    sb.append(", ref='").append(getRef()).append('\'');
+    sb.append(", queueTasks=").append(getQueueTasks());
+    sb.append(", errorCode='").append(errorCode).append('\'');
+    sb.append('}');
+    return sb.toString();
+  }
+
+}
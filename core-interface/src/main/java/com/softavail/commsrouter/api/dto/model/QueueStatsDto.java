@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.model;
+
+import java.util.Date;
+
+/**
+ * Live counters of a queue, kept in memory and periodically reconciled with the database.
+ *
+ * @author ikrustev
+ */
+public class QueueStatsDto {
+
+  private String ref;
+  private long waitingTasks;
+  private Date oldestWaitingTaskDate;
+  private long readyAgents;
+  private long busyAgents;
+
+  public String getRef() {
+    return ref;
+  }
+
+  public void setRef(String ref) {
+    this.ref = ref;
+  }
+
+  public long getWaitingTasks() {
+    return waitingTasks;
+  }
+
+  public void setWaitingTasks(long waitingTasks) {
+    this.waitingTasks = waitingTasks;
+  }
+
+  public Date getOldestWaitingTaskDate() {
+    return oldestWaitingTaskDate;
+  }
+
+  public void setOldestWaitingTaskDate(Date oldestWaitingTaskDate) {
+    this.oldestWaitingTaskDate = oldestWaitingTaskDate;
+  }
+
+  public long getReadyAgents() {
+    return readyAgents;
+  }
+
+  public void setReadyAgents(long readyAgents) {
+    this.readyAgents = readyAgents;
+  }
+
+  public long getBusyAgents() {
+    return busyAgents;
+  }
+
+  public void setBusyAgents(long busyAgents) {
+    this.busyAgents = busyAgents;
+  }
+
+  @Override
+  public String toString() {
+    return "QueueStats [ref=" + ref + ", waitingTasks=" + waitingTasks
+        + ", oldestWaitingTaskDate=" + oldestWaitingTaskDate + ", readyAgents=" + readyAgents
+        + ", busyAgents=" + busyAgents + "]";
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import java.util.Date;
+
+/**
+ * A change within a router: a task or agent state transition, or a change of the number of
+ * tasks waiting in a queue. A dropped event tells how many events a slow subscriber missed.
+ *
+ * @author ikrustev
+ */
+@JsonInclude(Include.NON_NULL)
+public class RouterEventDto {
+
+  private RouterEventType type;
+  private String ref;
+  private String state;
+  private String queueRef;
+  private Long delta;
+  private Date date;
+
+  public RouterEventDto() {}
+
+  public RouterEventDto(RouterEventType type, String ref) {
+    this.type = type;
+    this.ref = ref;
+    this.date = new Date();
+  }
+
+  public static RouterEventDto task(String taskRef, TaskState state, String queueRef) {
+    RouterEventDto event = new RouterEventDto(RouterEventType.task, taskRef);
+    event.setState(state.name());
+    event.setQueueRef(queueRef);
+    return event;
+  }
+
+  public static RouterEventDto agent(String agentRef, AgentState state) {
+    RouterEventDto event = new RouterEventDto(RouterEventType.agent, agentRef);
+    event.setState(state.name());
+    return event;
+  }
+
+  public static RouterEventDto queue(String queueRef, long delta) {
+    RouterEventDto event = new RouterEventDto(RouterEventType.queue, queueRef);
+    event.setDelta(delta);
+    return event;
+  }
+
+  public static RouterEventDto dropped(long count) {
+    RouterEventDto event = new RouterEventDto(RouterEventType.dropped, null);
+    event.setDelta(count);
+    return event;
+  }
+
+  public RouterEventType getType() {
+    return type;
+  }
+
+  public void setType(RouterEventType type) {
+    this.type = type;
+  }
+
+  public String getRef() {
+    return ref;
+  }
+
+  public void setRef(String ref) {
+    this.ref = ref;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public void setState(String state) {
+    this.state = state;
+  }
+
+  public String getQueueRef() {
+    return queueRef;
+  }
+
+  public void setQueueRef(String queueRef) {
+    this.queueRef = queueRef;
+  }
+
+  public Long getDelta() {
+    return delta;
+  }
+
+  public void setDelta(Long delta) {
+    this.delta = delta;
+  }
+
+  public Date getDate() {
+    return date;
+  }
+
+  public void setDate(Date date) {
+    this.date = date;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("RouterEventDto{");
+    sb.append("type=").append(type);
+    sb.append(", ref='").append(ref).append('\'');
+    sb.append(", state='").append(state).append('\'');
+    sb.append(", queueRef='").append(queueRef).append('\'');
+    sb.append(", delta=").append(delta);
+    sb.append('}');
+    return sb.toString();
+  }
+
+}
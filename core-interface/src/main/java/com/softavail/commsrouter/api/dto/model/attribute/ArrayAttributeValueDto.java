@@ -26,7 +26,15 @@ import java.util.List;
  */
 public abstract class ArrayAttributeValueDto<ELEMENT> extends AttributeValueDto {
 
-  private List<ELEMENT> value = new ArrayList<>();
+  private List<ELEMENT> value;
+
+  public ArrayAttributeValueDto() {
+    this(new ArrayList<>());
+  }
+
+  protected ArrayAttributeValueDto(List<ELEMENT> value) {
+    this.value = value;
+  }
 
   public List<ELEMENT> getValue() {
     return value;
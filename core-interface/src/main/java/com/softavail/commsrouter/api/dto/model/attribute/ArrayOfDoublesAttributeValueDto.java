@@ -18,11 +18,29 @@ package com.softavail.commsrouter.api.dto.model.attribute;
 
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 
+import java.util.List;
+
 /**
  * Created by @author mapuo on 15.10.17.
  */
 public class ArrayOfDoublesAttributeValueDto extends ArrayAttributeValueDto<Double> {
 
+  public ArrayOfDoublesAttributeValueDto() {
+    super(new DoubleList());
+  }
+
+  /**
+   * Adds without boxing, unless the value was replaced by a list of another kind.
+   */
+  public void add(double element) {
+    List<Double> value = getValue();
+    if (value instanceof DoubleList) {
+      ((DoubleList) value).addDouble(element);
+    } else {
+      value.add(element);
+    }
+  }
+
   @Override
   public String toString() {
     return getValue().toString();
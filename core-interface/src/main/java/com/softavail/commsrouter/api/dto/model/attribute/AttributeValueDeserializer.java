@@ -20,18 +20,16 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.JsonNodeType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.util.Iterator;
 
 /**
+ * Reads attribute values token by token. Arrays go straight into their DTO, without a tree
+ * or a mapper in between.
+ *
  * @author Ergyun Syuleyman
  */
 public class AttributeValueDeserializer extends StdDeserializer<AttributeValueDto> {
@@ -58,52 +56,11 @@ public class AttributeValueDeserializer extends StdDeserializer<AttributeValueDt
         case VALUE_STRING:
           return new StringAttributeValueDto(jp.getText());
         case VALUE_TRUE:
-          return new BooleanAttributeValueDto(jp.getBooleanValue());
+          return new BooleanAttributeValueDto(true);
         case VALUE_FALSE:
-          return new BooleanAttributeValueDto(jp.getBooleanValue());
-        case START_ARRAY: {
-          ArrayAttributeValueDto arrayValue = null;
-          ObjectMapper mapper = new ObjectMapper();
-          ArrayNode arrayNode = mapper.readTree(jp);
-          Iterator<JsonNode> it = arrayNode.elements();
-          JsonNodeType arrayElemType = null;
-          while (it.hasNext()) {
-            JsonNode node = it.next();
-            if (arrayValue == null) {
-              // get the first element type
-              arrayElemType = node.getNodeType();
-              switch (arrayElemType) {
-                case STRING:
-                  arrayValue = new ArrayOfStringsAttributeValueDto();
-                  break;
-                case NUMBER:
-                  arrayValue = new ArrayOfDoublesAttributeValueDto();
-                  break;
-                default:
-                  throw new UnsupportedOperationException(
-                      "Unsupported array attribute items type.");
-              }
-            } else if (arrayElemType != node.getNodeType()) {
-              String errString = String.format(
-                  "Array doesn't support different element types!Expected:{}, Found:{} ",
-                  arrayElemType, node.getNodeType());
-              LOGGER.warn(errString);
-              throw new UnsupportedOperationException(errString);
-            }
-            switch (arrayElemType) {
-              case STRING:
-                ((ArrayOfStringsAttributeValueDto) arrayValue).add(node.asText());
-                break;
-              case NUMBER:
-                ((ArrayOfDoublesAttributeValueDto) arrayValue).add(node.asDouble());
-                break;
-              default:
-                break;
-            }
-          }
-          return arrayValue;
-        }
-
+          return new BooleanAttributeValueDto(false);
+        case START_ARRAY:
+          return deserializeArray(jp);
         default:
           break;
       }
@@ -112,4 +69,49 @@ public class AttributeValueDeserializer extends StdDeserializer<AttributeValueDt
     throw new UnsupportedOperationException("Not supported attribute value yet.");
   }
 
+  /**
+   * @return the array, typed by its first element, or null if it is empty
+   */
+  private static ArrayAttributeValueDto deserializeArray(JsonParser jp) throws IOException {
+    JsonToken firstToken = jp.nextToken();
+    switch (firstToken) {
+      case END_ARRAY:
+        return null;
+      case VALUE_STRING: {
+        ArrayOfStringsAttributeValueDto arrayValue = new ArrayOfStringsAttributeValueDto();
+        JsonToken token = firstToken;
+        do {
+          if (token != JsonToken.VALUE_STRING) {
+            throw mixedTypes(firstToken, token);
+          }
+          arrayValue.add(jp.getText());
+          token = jp.nextToken();
+        } while (token != JsonToken.END_ARRAY);
+        return arrayValue;
+      }
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT: {
+        ArrayOfDoublesAttributeValueDto arrayValue = new ArrayOfDoublesAttributeValueDto();
+        JsonToken token = firstToken;
+        do {
+          if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+            throw mixedTypes(firstToken, token);
+          }
+          arrayValue.add(jp.getDoubleValue());
+          token = jp.nextToken();
+        } while (token != JsonToken.END_ARRAY);
+        return arrayValue;
+      }
+      default:
+        throw new UnsupportedOperationException("Unsupported array attribute items type.");
+    }
+  }
+
+  private static UnsupportedOperationException mixedTypes(JsonToken expected, JsonToken found) {
+    String errString = "Array doesn't support different element types! Expected: " + expected
+        + ", Found: " + found;
+    LOGGER.warn(errString);
+    return new UnsupportedOperationException(errString);
+  }
+
 }
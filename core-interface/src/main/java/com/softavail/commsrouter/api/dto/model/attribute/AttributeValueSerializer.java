@@ -22,6 +22,7 @@ import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 
 import java.io.IOException;
+import java.util.List;
 
 
 /**
@@ -104,9 +105,10 @@ public class AttributeValueSerializer extends StdSerializer<AttributeValueDto> {
     @Override
     public void handleArrayOfStringsValue(ArrayOfStringsAttributeValueDto value) {
       try {
-        gen.writeStartArray();
-        for (Object object : value.getValue()) {
-          gen.writeObject(object);
+        List<String> elements = value.getValue();
+        gen.writeStartArray(elements.size());
+        for (String element : elements) {
+          gen.writeString(element);
         }
         gen.writeEndArray();
       } catch (IOException ex) {
@@ -117,9 +119,21 @@ public class AttributeValueSerializer extends StdSerializer<AttributeValueDto> {
     @Override
     public void handleArrayOfDoublesValue(ArrayOfDoublesAttributeValueDto value) {
       try {
-        gen.writeStartArray();
-        for (Object object : value.getValue()) {
-          gen.writeObject(object);
+        List<Double> elements = value.getValue();
+        gen.writeStartArray(elements.size());
+        if (elements instanceof DoubleList) {
+          DoubleList doubles = (DoubleList) elements;
+          for (int index = 0; index < doubles.size(); ++index) {
+            gen.writeNumber(doubles.getDouble(index));
+          }
+        } else {
+          for (Double element : elements) {
+            if (element != null) {
+              gen.writeNumber(element);
+            } else {
+              gen.writeNull();
+            }
+          }
         }
         gen.writeEndArray();
       } catch (IOException ex) {
@@ -0,0 +1,101 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.model.attribute;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of doubles backed by a primitive array, so array attribute values are parsed and
+ * written without boxing every element.
+ *
+ * @author ikrustev
+ */
+public class DoubleList extends AbstractList<Double> implements RandomAccess {
+
+  private double[] elements;
+  private int size;
+
+  public DoubleList() {
+    this(8);
+  }
+
+  public DoubleList(int capacity) {
+    this.elements = new double[Math.max(capacity, 1)];
+  }
+
+  public double getDouble(int index) {
+    checkIndex(index);
+    return elements[index];
+  }
+
+  public void addDouble(double element) {
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, size * 2);
+    }
+    elements[size++] = element;
+    ++modCount;
+  }
+
+  @Override
+  public Double get(int index) {
+    return getDouble(index);
+  }
+
+  @Override
+  public Double set(int index, Double element) {
+    Double previous = getDouble(index);
+    elements[index] = element;
+    return previous;
+  }
+
+  @Override
+  public void add(int index, Double element) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, size * 2);
+    }
+    System.arraycopy(elements, index, elements, index + 1, size - index);
+    elements[index] = element;
+    ++size;
+    ++modCount;
+  }
+
+  @Override
+  public Double remove(int index) {
+    Double previous = getDouble(index);
+    System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+    --size;
+    ++modCount;
+    return previous;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+}
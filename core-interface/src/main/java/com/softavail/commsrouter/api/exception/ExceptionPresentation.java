@@ -108,6 +108,33 @@ public class ExceptionPresentation {
     this.violations = violations;
   }
 
+  /**
+   * Maps an exception to the error code clients already know: the API exceptions keep their own
+   * code, invalid arguments are a BadValueException and anything else is an
+   * InternalErrorException.
+   */
+  public static String getErrorCode(Throwable exception) {
+    if (exception instanceof CommsRouterException) {
+      return exception.getClass().getSimpleName();
+    }
+    if (exception instanceof IllegalArgumentException) {
+      return BadValueException.class.getSimpleName();
+    }
+    return InternalErrorException.class.getSimpleName();
+  }
+
+  /**
+   * The description going with {@link #getErrorCode(Throwable)}. Messages of unexpected
+   * exceptions stay in the server log.
+   */
+  public static String getErrorDescription(Throwable exception) {
+    if (exception instanceof CommsRouterException
+        || exception instanceof IllegalArgumentException) {
+      return exception.getMessage();
+    }
+    return "Internal error";
+  }
+
   public ErrorPresentation getError() {
     return error;
   }
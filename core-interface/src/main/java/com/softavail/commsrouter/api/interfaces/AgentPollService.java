@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.interfaces;
+
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+
+/**
+ * Pull mode assignment: agents wait for their next task instead of having it pushed to the task
+ * callback URL.
+ *
+ * @author ikrustev
+ */
+public interface AgentPollService {
+
+  /**
+   * Hands the task currently assigned to the agent, or else the next one assigned to it, to the
+   * receiver. An assignment the receiver takes is not sent to the task callback URL.
+   *
+   * @return stops the wait; does nothing once the receiver has been handed an assignment
+   */
+  Runnable pollNextTask(RouterObjectRef agentRef, TaskAssignmentReceiver receiver)
+      throws CommsRouterException;
+
+}
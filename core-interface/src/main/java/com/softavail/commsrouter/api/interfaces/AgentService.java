@@ -18,11 +18,15 @@ package com.softavail.commsrouter.api.interfaces;
 
 import com.softavail.commsrouter.api.dto.arg.CreateAgentArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateAgentArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateAgentBatchItemArg;
 import com.softavail.commsrouter.api.dto.model.AgentDto;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.UpdatedAgentBatchItemDto;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 
+import java.util.List;
+
 /**
  * Created by @author mapuo on 04.09.17.
  */
@@ -37,4 +41,8 @@ public interface AgentService extends RouterObjectService<AgentDto> {
   void update(UpdateAgentArg updateArg, RouterObjectRef objectRef)
       throws CommsRouterException;
 
+  List<UpdatedAgentBatchItemDto> updateBatch(List<UpdateAgentBatchItemArg> updateArgs,
+      String routerRef)
+      throws CommsRouterException;
+
 }
@@ -0,0 +1,51 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.interfaces;
+
+import com.softavail.commsrouter.api.dto.model.BulkDeleteStatusDto;
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+
+/**
+ * Deletes a router with everything in it, or a queue with its tasks, using chunked set based
+ * statements instead of loading and removing entities one by one.
+ *
+ * @author ikrustev
+ */
+public interface BulkDeleteService {
+
+  /**
+   * @param async when true return right after the job is queued; the status can be polled by id
+   */
+  BulkDeleteStatusDto deleteRouter(String routerRef, boolean async)
+      throws CommsRouterException;
+
+  /**
+   * Deletes the queue together with its tasks. The queue must not be used by a plan.
+   *
+   * @param async when true return right after the job is queued; the status can be polled by id
+   */
+  BulkDeleteStatusDto deleteQueue(RouterObjectRef queueRef, boolean async)
+      throws CommsRouterException;
+
+  /**
+   * The status is kept in memory by the node that ran the job, for a limited number of jobs.
+   */
+  BulkDeleteStatusDto getStatus(String id)
+      throws CommsRouterException;
+
+}
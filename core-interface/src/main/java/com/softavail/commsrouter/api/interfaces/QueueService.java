@@ -20,6 +20,7 @@ import com.softavail.commsrouter.api.dto.arg.CreateQueueArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateQueueArg;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.QueueDto;
+import com.softavail.commsrouter.api.dto.model.QueueStatsDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
@@ -43,6 +44,9 @@ public interface QueueService extends RouterObjectService<QueueDto> {
   long getQueueSize(RouterObjectRef objectRef)
       throws CommsRouterException;
 
+  QueueStatsDto getStats(RouterObjectRef objectRef)
+      throws CommsRouterException;
+
   Collection<TaskDto> getTasks(RouterObjectRef objectRef)      throws CommsRouterException;
 
 }
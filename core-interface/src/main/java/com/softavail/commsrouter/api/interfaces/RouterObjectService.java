@@ -28,6 +28,15 @@ public interface RouterObjectService<ENTITYT extends RouterObjectRef>
   ENTITYT get(RouterObjectRef routerObjectRef)
       throws CommsRouterException;
 
+  /**
+   * @return the hash of the current version of the object, the same as the one of the object
+   *     returned by get; implementations may read it without loading the whole object
+   */
+  default String getHash(RouterObjectRef routerObjectRef)
+      throws CommsRouterException {
+    return get(routerObjectRef).getHash();
+  }
+
   void delete(RouterObjectRef routerObjectRef)
       throws CommsRouterException;
 
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.interfaces;
+
+import com.softavail.commsrouter.api.dto.model.TaskAssignmentDto;
+
+/**
+ * Takes an assignment on behalf of an agent polling for its next task.
+ *
+ * @author ikrustev
+ */
+@FunctionalInterface
+public interface TaskAssignmentReceiver {
+
+  /**
+   * @return false if the receiver can no longer deliver the assignment, e.g. the poll timed out
+   */
+  boolean receive(TaskAssignmentDto taskAssignment);
+
+}
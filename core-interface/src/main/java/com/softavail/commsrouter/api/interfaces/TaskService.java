@@ -19,11 +19,14 @@ package com.softavail.commsrouter.api.interfaces;
 import com.softavail.commsrouter.api.dto.arg.CreateTaskArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateTaskArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateTaskContext;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskBatchItemDto;
 import com.softavail.commsrouter.api.dto.model.CreatedTaskDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 
+import java.util.List;
+
 /**
  * Created by @author mapuo on 04.09.17.
  */
@@ -35,6 +38,9 @@ public interface TaskService
   CreatedTaskDto create(CreateTaskArg createArg, String routerId)
       throws CommsRouterException;
 
+  List<CreatedTaskBatchItemDto> createBatch(List<CreateTaskArg> createArgs, String routerId)
+      throws CommsRouterException;
+
   CreatedTaskDto replace(CreateTaskArg createArg, RouterObjectRef objectRef)
       throws CommsRouterException;
 
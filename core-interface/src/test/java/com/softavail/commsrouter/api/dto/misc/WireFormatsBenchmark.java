@@ -0,0 +1,103 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.misc;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.softavail.commsrouter.api.dto.model.TaskDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON and Smile on a page of tasks: payload size is printed at setup, the benchmarks
+ * measure writing and reading the page.
+ *
+ * <p>Not a unit test - run its main method from the test classpath.
+ *
+ * @author ikrustev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatsBenchmark {
+
+  private static final TypeReference<List<TaskDto>> TASK_LIST =
+      new TypeReference<List<TaskDto>>() {};
+
+  @Param({"json", "smile"})
+  public String format;
+
+  @Param({"1", "50"})
+  public int pageSize;
+
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private List<TaskDto> tasks;
+  private byte[] payload;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = "smile".equals(format)
+        ? WireFormats.createSmileMapper()
+        : new ObjectMapper().setSerializationInclusion(Include.NON_NULL);
+    writer = objectMapper.writerFor(TASK_LIST);
+    reader = objectMapper.readerFor(TASK_LIST);
+    tasks = WireFormatsTest.createTasks(pageSize);
+    payload = writer.writeValueAsBytes(tasks);
+    System.out.printf("%n%s payload for %d tasks: %d bytes%n", format, pageSize, payload.length);
+  }
+
+  @Benchmark
+  public byte[] write() throws IOException {
+    return writer.writeValueAsBytes(tasks);
+  }
+
+  @Benchmark
+  public List<TaskDto> read() throws IOException {
+    return reader.readValue(payload);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(WireFormatsBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+}
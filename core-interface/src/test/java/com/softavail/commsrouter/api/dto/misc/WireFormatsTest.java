@@ -0,0 +1,101 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.softavail.commsrouter.api.dto.model.TaskDto;
+import com.softavail.commsrouter.api.dto.model.TaskState;
+import com.softavail.commsrouter.api.dto.model.attribute.AttributeGroupDto;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author ikrustev
+ */
+public class WireFormatsTest {
+
+  private static final TypeReference<List<TaskDto>> TASK_LIST =
+      new TypeReference<List<TaskDto>>() {};
+
+  private final ObjectMapper jsonMapper =
+      new ObjectMapper().setSerializationInclusion(Include.NON_NULL);
+  private final ObjectMapper smileMapper = WireFormats.createSmileMapper();
+
+  @Test
+  public void smileRoundTrip() throws IOException {
+    List<TaskDto> tasks = createTasks(3);
+
+    List<TaskDto> read = smileMapper.readValue(smileMapper.writeValueAsBytes(tasks), TASK_LIST);
+
+    assertEquals(tasks.size(), read.size());
+    for (int i = 0; i < tasks.size(); ++i) {
+      assertEquals(tasks.get(i).toString(), read.get(i).toString());
+      assertEquals(jsonMapper.writeValueAsString(tasks.get(i)),
+          jsonMapper.writeValueAsString(read.get(i)));
+    }
+  }
+
+  @Test
+  public void smileIsSmallerForPages() throws IOException {
+    List<TaskDto> tasks = createTasks(50);
+
+    int json = jsonMapper.writeValueAsBytes(tasks).length;
+    int smile = smileMapper.writeValueAsBytes(tasks).length;
+
+    assertTrue("JSON: " + json + ", Smile: " + smile, smile < json);
+  }
+
+  static List<TaskDto> createTasks(int count) {
+    List<TaskDto> tasks = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      AttributeGroupDto requirements = new AttributeGroupDto();
+      requirements.add("language", i % 2 == 0 ? "en" : "es");
+      requirements.add("priority", (double) (i % 5));
+      requirements.add("vip", i % 7 == 0);
+      requirements.addToArray("skills", "sales");
+      requirements.addToArray("skills", "support");
+      for (int j = 0; j < 8; ++j) {
+        requirements.addToArray("scores", i * 0.25 + j);
+      }
+
+      AttributeGroupDto userContext = new AttributeGroupDto();
+      userContext.add("customer", "customer-" + i);
+      userContext.add("orderTotal", 100.0 + i);
+
+      TaskDto task = new TaskDto();
+      task.setRef("task-" + i);
+      task.setRouterRef("router");
+      task.setQueueRef("queue-" + (i % 4));
+      task.setState(TaskState.waiting);
+      task.setCallbackUrl("http://localhost:8080/callback");
+      task.setPriority((long) (i % 3));
+      task.setRequirements(requirements);
+      task.setUserContext(userContext);
+      tasks.add(task);
+    }
+    return tasks;
+  }
+
+}
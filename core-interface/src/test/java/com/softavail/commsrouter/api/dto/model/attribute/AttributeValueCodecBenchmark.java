@@ -0,0 +1,109 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.model.attribute;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.softavail.commsrouter.api.dto.arg.CreateTaskArg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes task create payloads whose requirements hold array attributes.
+ *
+ * <p>Not a unit test - run its main method from the test classpath.
+ *
+ * @author ikrustev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeValueCodecBenchmark {
+
+  @Param({"4", "64"})
+  public int arraySize;
+
+  private ObjectReader reader;
+  private ObjectWriter writer;
+  private String payload;
+  private CreateTaskArg task;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    reader = objectMapper.readerFor(CreateTaskArg.class);
+    writer = objectMapper.writerFor(CreateTaskArg.class);
+
+    StringBuilder numbers = new StringBuilder();
+    StringBuilder strings = new StringBuilder();
+    for (int i = 0; i < arraySize; ++i) {
+      String separator = i == 0 ? "" : ",";
+      numbers.append(separator).append(i * 1.5);
+      strings.append(separator).append("\"skill-").append(i).append('"');
+    }
+    payload = "{"
+        + "\"queueRef\":\"queue\","
+        + "\"callbackUrl\":\"http://localhost:8080/callback\","
+        + "\"requirements\":{"
+        + "\"language\":\"en\","
+        + "\"priority\":3,"
+        + "\"skills\":[" + strings + "],"
+        + "\"scores\":[" + numbers + "],"
+        + "\"regions\":[" + strings + "]"
+        + "},"
+        + "\"userContext\":{\"history\":[" + numbers + "]}"
+        + "}";
+    task = reader.readValue(payload);
+  }
+
+  @Benchmark
+  public CreateTaskArg read() throws IOException {
+    return reader.readValue(payload);
+  }
+
+  @Benchmark
+  public String write() throws IOException {
+    return writer.writeValueAsString(task);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(AttributeValueCodecBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+}
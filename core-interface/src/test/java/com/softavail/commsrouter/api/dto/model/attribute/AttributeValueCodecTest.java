@@ -0,0 +1,96 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.dto.model.attribute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author ikrustev
+ */
+public class AttributeValueCodecTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void readsScalarsAndArrays() throws IOException {
+    AttributeGroupDto group = objectMapper.readValue("{"
+        + "\"language\":\"en\","
+        + "\"age\":42,"
+        + "\"vip\":true,"
+        + "\"skills\":[\"sales\",\"support\"],"
+        + "\"scores\":[1,2.5,-3e2],"
+        + "\"empty\":[]"
+        + "}", AttributeGroupDto.class);
+
+    assertEquals("en", ((StringAttributeValueDto) group.get("language")).getValue());
+    assertEquals(42.0, ((DoubleAttributeValueDto) group.get("age")).getValue(), 0.0);
+    assertTrue(((BooleanAttributeValueDto) group.get("vip")).getValue());
+    assertEquals(Arrays.asList("sales", "support"),
+        ((ArrayOfStringsAttributeValueDto) group.get("skills")).getValue());
+    assertEquals(Arrays.asList(1.0, 2.5, -300.0),
+        ((ArrayOfDoublesAttributeValueDto) group.get("scores")).getValue());
+    assertNull(group.get("empty"));
+  }
+
+  @Test
+  public void parserContinuesAfterArray() throws IOException {
+    AttributeGroupDto group =
+        objectMapper.readValue("{\"scores\":[1,2],\"after\":\"x\"}", AttributeGroupDto.class);
+
+    assertEquals(2, ((ArrayOfDoublesAttributeValueDto) group.get("scores")).getValue().size());
+    assertEquals("x", ((StringAttributeValueDto) group.get("after")).getValue());
+  }
+
+  @Test
+  public void writesWhatItReads() throws IOException {
+    String content = "{\"scores\":[1.0,2.5],\"skills\":[\"sales\"],\"vip\":false}";
+    AttributeGroupDto group = objectMapper.readValue(content, AttributeGroupDto.class);
+
+    AttributeGroupDto written = objectMapper.readValue(
+        objectMapper.writeValueAsString(group), AttributeGroupDto.class);
+
+    assertEquals(group.get("scores").toString(), written.get("scores").toString());
+    assertEquals(group.get("skills").toString(), written.get("skills").toString());
+    assertEquals(group.get("vip").toString(), written.get("vip").toString());
+  }
+
+  @Test(expected = JsonMappingException.class)
+  public void mixedArrayIsRejected() throws IOException {
+    objectMapper.readValue("{\"mixed\":[1,\"two\"]}", AttributeGroupDto.class);
+  }
+
+  @Test
+  public void doubleListGrows() {
+    ArrayOfDoublesAttributeValueDto value = new ArrayOfDoublesAttributeValueDto();
+    for (int i = 0; i < 100; ++i) {
+      value.add((double) i);
+    }
+    value.add(Double.valueOf(100));
+    assertEquals(101, value.getValue().size());
+    assertEquals(100.0, value.getValue().get(100), 0.0);
+  }
+
+}
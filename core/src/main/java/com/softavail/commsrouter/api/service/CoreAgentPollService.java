@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.service;
+
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.TaskAssignmentDto;
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.api.interfaces.AgentPollService;
+import com.softavail.commsrouter.api.interfaces.TaskAssignmentReceiver;
+import com.softavail.commsrouter.app.AppContext;
+import com.softavail.commsrouter.app.TaskAssignmentReceivers;
+import com.softavail.commsrouter.domain.Task;
+
+/**
+ * @author ikrustev
+ */
+public class CoreAgentPollService implements AgentPollService {
+
+  private final AppContext app;
+
+  public CoreAgentPollService(AppContext app) {
+    this.app = app;
+  }
+
+  @Override
+  public Runnable pollNextTask(RouterObjectRef agentRef, TaskAssignmentReceiver receiver)
+      throws CommsRouterException {
+
+    TaskAssignmentReceivers receivers = app.taskDispatcher.getAssignmentReceivers();
+
+    Long agentId = app.db.transactionManager.execute(em -> {
+      return app.db.agent.get(em, agentRef).getId();
+    });
+
+    // Register before looking for the current task, so an assignment made meanwhile is not missed
+    receivers.register(agentId, receiver);
+
+    TaskAssignmentDto current;
+    try {
+      current = app.db.transactionManager.execute(em -> {
+        Task task = app.db.task.findAssignedToAgent(em, agentId);
+        if (task == null) {
+          return null;
+        }
+        return new TaskAssignmentDto(app.entityMapper.task.toDto(task),
+            app.entityMapper.agent.toDto(task.getAgent()));
+      });
+    } catch (CommsRouterException | RuntimeException ex) {
+      receivers.unregister(agentId, receiver);
+      throw ex;
+    }
+
+    if (current != null && receivers.unregister(agentId, receiver)) {
+      receiver.receive(current);
+    }
+
+    return () -> receivers.unregister(agentId, receiver);
+  }
+
+}
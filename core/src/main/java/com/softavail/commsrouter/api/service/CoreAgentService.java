@@ -18,15 +18,19 @@ package com.softavail.commsrouter.api.service;
 
 import com.softavail.commsrouter.api.dto.arg.CreateAgentArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateAgentArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateAgentBatchItemArg;
 import com.softavail.commsrouter.api.dto.model.AgentDto;
 import com.softavail.commsrouter.api.dto.model.AgentState;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.UpdatedAgentBatchItemDto;
 import com.softavail.commsrouter.api.dto.model.attribute.AttributeGroupDto;
 import com.softavail.commsrouter.api.exception.BadValueException;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.api.exception.InternalErrorException;
 import com.softavail.commsrouter.api.exception.InvalidStateException;
+import com.softavail.commsrouter.api.exception.NotFoundException;
+import com.softavail.commsrouter.api.exception.PreconditionFailedException;
 import com.softavail.commsrouter.api.interfaces.AgentService;
 import com.softavail.commsrouter.app.AgentDispatchInfo;
 import com.softavail.commsrouter.app.AppContext;
@@ -41,6 +45,9 @@ import com.softavail.commsrouter.util.Uuid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import javax.persistence.EntityManager;
 
@@ -60,6 +67,8 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
   public ApiObjectRef create(CreateAgentArg createArg, String routerRef)
       throws CommsRouterException {
 
+    app.taskDispatcher.getAdmissionControl().admitAgentWrites(routerRef, 1);
+
     RouterObjectRef routerObjectRef =
         RouterObjectRef.builder().setRef(Uuid.get()).setRouterRef(routerRef).build();
 
@@ -72,6 +81,8 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
   public ApiObjectRef replace(CreateAgentArg createArg, RouterObjectRef objectRef)
       throws CommsRouterException {
 
+    app.taskDispatcher.getAdmissionControl().admitAgentWrites(objectRef.getRouterRef(), 1);
+
     return app.db.transactionManager.execute((em) -> {
       Agent agent = repository.getNoThrow(em, objectRef);
       if (agent != null) {
@@ -81,6 +92,7 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
         }
         em.remove(agent);
         em.flush();
+        repository.evictRef(objectRef);
       }
       return doCreate(em, createArg, objectRef);
     });
@@ -104,6 +116,7 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
     agent.setCapabilities(app.entityMapper.attributes.fromDto(createArg.getCapabilities()));
     agent.setState(AgentState.offline);
     em.persist(agent);
+    app.taskDispatcher.agentChanged(agent, null);
     attachQueues(em, agent, true);
     return agent.cloneApiObjectRef();
   }
@@ -148,6 +161,8 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
   public void update(UpdateAgentArg updateArg, RouterObjectRef objectRef)
       throws CommsRouterException {
 
+    app.taskDispatcher.getAdmissionControl().admitAgentWrites(objectRef.getRouterRef(), 1);
+
     AgentDispatchInfo dispatchInfo = updateAgent(updateArg, objectRef);
     if (dispatchInfo != null) {
       app.taskDispatcher.dispatchAgent(dispatchInfo);
@@ -155,6 +170,104 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
 
   }
 
+  @Override
+  public List<UpdatedAgentBatchItemDto> updateBatch(List<UpdateAgentBatchItemArg> updateArgs,
+      String routerRef)
+      throws CommsRouterException {
+
+    Integer maxSize = app.coreConfiguration.getApiAgentBatchMaxSize();
+    if (updateArgs.size() > maxSize) {
+      throw new BadValueException(
+          "A batch may hold at most " + maxSize + " agents, got " + updateArgs.size());
+    }
+
+    app.taskDispatcher.getAdmissionControl().admitAgentWrites(routerRef, updateArgs.size());
+
+    UpdatedAgentBatchItemDto[] results = new UpdatedAgentBatchItemDto[updateArgs.size()];
+
+    List<AgentDispatchInfo> dispatchInfos =
+        app.db.transactionManager.execute("agent.updateBatch", (em) -> {
+
+          if (updateArgs.stream().anyMatch(updateArg -> updateArg.getCapabilities() != null)) {
+            // ! get the agents after the router config lock
+            app.db.router.lockConfigByRef(em, routerRef);
+          }
+
+          List<AgentDispatchInfo> result = new ArrayList<>();
+          for (int index = 0; index < updateArgs.size(); ++index) {
+            UpdateAgentBatchItemArg updateArg = updateArgs.get(index);
+            Agent agent;
+            try {
+              agent = checkBatchItem(em, updateArg, routerRef);
+            } catch (BadValueException | NotFoundException | InvalidStateException
+                | PreconditionFailedException ex) {
+              // Rejected before the agent was changed
+              results[index] = new UpdatedAgentBatchItemDto(index, updateArg.getRef(), ex);
+              continue;
+            }
+            // The agent may be changed from here on, so a failure fails the whole batch
+            AgentDispatchInfo dispatchInfo = applyBatchItem(em, agent, updateArg);
+            if (dispatchInfo != null) {
+              result.add(dispatchInfo);
+            }
+            results[index] = new UpdatedAgentBatchItemDto(index, updateArg.getRef());
+          }
+          return result;
+        });
+
+    if (!dispatchInfos.isEmpty()) {
+      app.taskDispatcher.dispatchAgents(dispatchInfos);
+    }
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Runs every check of a batch item without changing the agent.
+   */
+  private Agent checkBatchItem(EntityManager em, UpdateAgentBatchItemArg updateArg,
+      String routerRef)
+      throws CommsRouterException {
+
+    if (updateArg.getRef() == null) {
+      throw new BadValueException("Agent ref is required");
+    }
+    validateState(updateArg.getState());
+    if (updateArg.getCapabilities() != null) {
+      // validate capabilities
+      app.validators.agentCapabilitiesValidator.validate(updateArg.getCapabilities(), routerRef);
+    }
+
+    RouterObjectRef objectRef =
+        RouterObjectRef.builder().setRef(updateArg.getRef()).setRouterRef(routerRef).build();
+    objectRef.setHash(updateArg.getHash());
+    Agent agent = app.db.agent.get(em, objectRef);
+    checkResourceVersion(agent, objectRef);
+    checkStateChange(agent, updateArg.getState());
+    return agent;
+  }
+
+  private AgentDispatchInfo applyBatchItem(EntityManager em, Agent agent,
+      UpdateAgentBatchItemArg updateArg)
+      throws CommsRouterException {
+
+    boolean agentBecameAvailable = checkStateChange(agent, updateArg.getState());
+
+    if (updateArg.getCapabilities() != null) {
+      updateCapabilities(em, agent, updateArg.getCapabilities());
+    }
+    updateFields(agent, updateArg);
+    setState(agent, updateArg.getState());
+
+    if (!agentBecameAvailable) {
+      return null;
+    }
+    AgentDispatchInfo dispatchInfo = new AgentDispatchInfo();
+    dispatchInfo.setAgentId(agent.getId());
+    dispatchInfo.setRouterId(agent.getRouter().getId());
+    return dispatchInfo;
+  }
+
   private Boolean capabilitiesAreEqual(AttributeGroupDto newAttributes,
       AttributeGroupDto oldAttributes) {
     if (newAttributes == null && oldAttributes != null) {
@@ -181,12 +294,9 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
   private AgentDispatchInfo updateAgent(UpdateAgentArg updateArg, RouterObjectRef objectRef)
       throws CommsRouterException {
 
-    if (updateArg.getState() == AgentState.busy || updateArg.getState() == AgentState.unavailable) {
-      throw new BadValueException(
-          "Setting agent state to '" + updateArg.getState() + "' not allowed");
-    }
+    validateState(updateArg.getState());
 
-    return app.db.transactionManager.execute((em) -> {
+    return app.db.transactionManager.execute("agent.update", (em) -> {
 
       Agent agent;
       if (updateArg.getCapabilities() != null) {
@@ -205,9 +315,7 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
         checkResourceVersion(agent, objectRef);
       }
 
-      Fields.update(agent::setAddress, agent.getAddress(), updateArg.getAddress());
-      Fields.update(agent::setName, agent.getName(), updateArg.getName());
-      Fields.update(agent::setDescription, agent.getDescription(), updateArg.getDescription());
+      updateFields(agent, updateArg);
       boolean agentBecameAvailable = updateState(agent, updateArg.getState());
       if (!agentBecameAvailable) {
         return null;
@@ -219,8 +327,35 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
     });
   }
 
+  private void validateState(AgentState newState) throws BadValueException {
+    if (newState == AgentState.busy || newState == AgentState.unavailable) {
+      throw new BadValueException("Setting agent state to '" + newState + "' not allowed");
+    }
+  }
+
+  private void updateFields(Agent agent, UpdateAgentArg updateArg) {
+    Fields.update(agent::setAddress, agent.getAddress(), updateArg.getAddress());
+    Fields.update(agent::setName, agent.getName(), updateArg.getName());
+    Fields.update(agent::setDescription, agent.getDescription(), updateArg.getDescription());
+  }
+
   private boolean updateState(Agent agent, AgentState newState)
       throws InvalidStateException, InternalErrorException {
+    boolean agentBecameAvailable = checkStateChange(agent, newState);
+    setState(agent, newState);
+    return agentBecameAvailable;
+  }
+
+  private void setState(Agent agent, AgentState newState) {
+    AgentState previousState = agent.getState();
+    if (newState != null && newState != previousState) {
+      agent.setState(newState);
+      app.taskDispatcher.agentChanged(agent, previousState);
+    }
+  }
+
+  private boolean checkStateChange(Agent agent, AgentState newState)
+      throws InvalidStateException, InternalErrorException {
     if (newState == null) {
       // no change requested
       return false;
@@ -245,7 +380,6 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
       default:
         throw new InternalErrorException("Unexpected agent state: " + oldState);
     }
-    agent.setState(newState);
     return agentBecameAvailable;
   }
 
@@ -274,6 +408,7 @@ public class CoreAgentService extends CoreRouterObjectService<AgentDto, Agent>
             "Deleting agent in state " + agent.getState() + " not allowed");
       }
       em.remove(agent);
+      app.db.agent.evictRef(routerObjectRef);
     });
   }
 
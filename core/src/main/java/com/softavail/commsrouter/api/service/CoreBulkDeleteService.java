@@ -0,0 +1,298 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.api.service;
+
+import com.softavail.commsrouter.api.dto.model.BulkDeleteState;
+import com.softavail.commsrouter.api.dto.model.BulkDeleteStatusDto;
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.api.exception.InvalidStateException;
+import com.softavail.commsrouter.api.exception.NotFoundException;
+import com.softavail.commsrouter.api.interfaces.BulkDeleteService;
+import com.softavail.commsrouter.app.AppContext;
+import com.softavail.commsrouter.domain.Queue;
+import com.softavail.commsrouter.util.ThreadPoolKiller;
+import com.softavail.commsrouter.util.Uuid;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ObjIntConsumer;
+import javax.persistence.EntityManager;
+
+/**
+ * Purges routers and queues chunk by chunk, each chunk in its own transaction, so locks are held
+ * briefly and the persistence context never holds the deleted rows. Asynchronous jobs run one at
+ * a time. The last transaction of a router purge locks the router and sweeps up the rows created
+ * while the chunks ran, so the router goes together with all of its children.
+ *
+ * <p>Job status lives in memory on the node that runs the job: it is lost on restart, other
+ * nodes do not know it, and only the last {@value #MAX_FINISHED_JOBS} finished jobs are kept.
+ *
+ * @author ikrustev
+ */
+public class CoreBulkDeleteService implements BulkDeleteService {
+
+  private static final Logger LOGGER = LogManager.getLogger(CoreBulkDeleteService.class);
+
+  private static final int MAX_FINISHED_JOBS = 100;
+
+  @FunctionalInterface
+  private interface ChunkDelete {
+    int delete(EntityManager em, Long routerId, int chunkSize, ObjIntConsumer<String> deleted);
+  }
+
+  @FunctionalInterface
+  private interface JobLogic {
+    void run() throws CommsRouterException;
+  }
+
+  private static class Job {
+
+    private final String id = Uuid.get();
+    private final String target;
+    private final Date startDate = new Date();
+    private final ConcurrentMap<String, Long> deleted = new ConcurrentHashMap<>();
+    private volatile BulkDeleteState state = BulkDeleteState.running;
+    private volatile String error;
+    private volatile Date endDate;
+
+    Job(String target) {
+      this.target = target;
+    }
+
+    void add(String table, int count) {
+      if (count > 0) {
+        deleted.merge(table, (long) count, Long::sum);
+      }
+    }
+
+    void finish(BulkDeleteState state, String error) {
+      this.error = error;
+      this.endDate = new Date();
+      this.state = state;
+    }
+
+    BulkDeleteStatusDto toDto() {
+      BulkDeleteStatusDto dto = new BulkDeleteStatusDto();
+      dto.setId(id);
+      dto.setTarget(target);
+      dto.setState(state);
+      dto.setDeleted(new TreeMap<>(deleted));
+      dto.setError(error);
+      dto.setStartDate(startDate);
+      dto.setEndDate(endDate);
+      return dto;
+    }
+
+  }
+
+  private final AppContext app;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<String> finishedJobs = new ConcurrentLinkedQueue<>();
+
+  public CoreBulkDeleteService(AppContext app) {
+    this.app = app;
+  }
+
+  @Override
+  public BulkDeleteStatusDto deleteRouter(String routerRef, boolean async)
+      throws CommsRouterException {
+
+    Long routerId = app.db.transactionManager.execute(em -> {
+      return app.db.router.getByRef(em, routerRef).getId();
+    });
+
+    Job job = new Job("router/" + routerRef);
+    return start(job, async, () -> {
+      purgeRouter(job, routerId);
+      app.db.router.evictRef(routerRef);
+      app.taskDispatcher.routerRemoved(routerId, routerRef);
+    });
+  }
+
+  @Override
+  public BulkDeleteStatusDto deleteQueue(RouterObjectRef queueRef, boolean async)
+      throws CommsRouterException {
+
+    Long routerId = app.db.transactionManager.execute(em -> {
+      return app.db.router.getByRef(em, queueRef.getRouterRef()).getId();
+    });
+    Long queueId = app.db.transactionManager.execute(em -> {
+      Queue queue = app.db.queue.get(em, queueRef);
+      if (app.db.bulkDelete.isQueueRouted(em, queue.getId())) {
+        throw new InvalidStateException("Queue " + queueRef.getRef() + " is used by a plan");
+      }
+      return queue.getId();
+    });
+
+    Job job = new Job("router/" + queueRef.getRouterRef() + "/queue/" + queueRef.getRef());
+    return start(job, async, () -> purgeQueue(job, routerId, queueId));
+  }
+
+  @Override
+  public BulkDeleteStatusDto getStatus(String id)
+      throws CommsRouterException {
+
+    Job job = jobs.get(id);
+    if (job == null) {
+      throw new NotFoundException("Bulk delete " + id + " not found");
+    }
+    return job.toDto();
+  }
+
+  public void close() {
+    ThreadPoolKiller.shutdown(executor, "BulkDelete");
+  }
+
+  private BulkDeleteStatusDto start(Job job, boolean async, JobLogic logic)
+      throws CommsRouterException {
+
+    jobs.put(job.id, job);
+
+    if (!async) {
+      run(job, logic);
+      return job.toDto();
+    }
+
+    executor.submit(() -> {
+      try {
+        run(job, logic);
+      } catch (CommsRouterException | RuntimeException ex) {
+        // Already recorded in the job status
+        LOGGER.debug("Bulk delete {} failed", job.id, ex);
+      }
+    });
+    return job.toDto();
+  }
+
+  private void run(Job job, JobLogic logic)
+      throws CommsRouterException {
+
+    LOGGER.info("Bulk delete {} of {} started", job.id, job.target);
+    try {
+      logic.run();
+      job.finish(BulkDeleteState.completed, null);
+      LOGGER.info("Bulk delete {} of {} completed: {}", job.id, job.target, job.deleted);
+    } catch (CommsRouterException | RuntimeException ex) {
+      job.finish(BulkDeleteState.failed, ex.getMessage());
+      LOGGER.error("Bulk delete {} of {} failed", job.id, job.target, ex);
+      throw ex;
+    } finally {
+      retire(job);
+    }
+  }
+
+  private void purgeRouter(Job job, Long routerId)
+      throws CommsRouterException {
+
+    // Children first, so that every chunk leaves the foreign keys intact
+    Map<String, ChunkDelete> chunkDeletes = new LinkedHashMap<>();
+    chunkDeletes.put("bulkDelete.task", app.db.bulkDelete::deleteTaskChunk);
+    chunkDeletes.put("bulkDelete.agent", app.db.bulkDelete::deleteAgentChunk);
+    chunkDeletes.put("bulkDelete.plan", app.db.bulkDelete::deletePlanChunk);
+    chunkDeletes.put("bulkDelete.queue", app.db.bulkDelete::deleteQueueChunk);
+    chunkDeletes.put("bulkDelete.skill", app.db.bulkDelete::deleteSkillChunk);
+    for (Map.Entry<String, ChunkDelete> chunkDelete : chunkDeletes.entrySet()) {
+      deleteChunks(job, chunkDelete.getKey(), routerId, chunkDelete.getValue());
+    }
+    int chunkSize = app.coreConfiguration.getJpaBulkDeleteChunkSize();
+    app.db.transactionManager.execute("bulkDelete.router", em -> {
+      // The router row lock keeps new children out until the router is gone: creating one
+      // checks the router row. Those created since their chunks ran are swept up here
+      app.db.router.lock(em, routerId);
+      app.db.router.lockConfig(em, routerId);
+      ObjIntConsumer<String> deleted = deletedAfterCommit(job);
+      for (ChunkDelete chunkDelete : chunkDeletes.values()) {
+        while (chunkDelete.delete(em, routerId, chunkSize, deleted) > 0) {
+          LOGGER.debug("Bulk delete {}: swept up children created meanwhile", job.id);
+        }
+      }
+      return app.db.bulkDelete.deleteRouter(em, routerId, deleted);
+    });
+  }
+
+  private void purgeQueue(Job job, Long routerId, Long queueId)
+      throws CommsRouterException {
+
+    // Keep the queue processor off the tasks being deleted. Resumed on failure too, so that
+    // the tasks left are assigned again
+    app.taskDispatcher.pauseQueue(queueId);
+    try {
+      deleteChunks(job, "bulkDelete.queueTask", routerId, (em, id, chunkSize, deleted) ->
+          app.db.bulkDelete.deleteQueueTaskChunk(em, queueId, chunkSize, deleted));
+      int chunkSize = app.coreConfiguration.getJpaBulkDeleteChunkSize();
+      app.db.transactionManager.execute("bulkDelete.queue", em -> {
+        app.db.router.lockConfig(em, routerId);
+        // Tasks created in the queue since the last chunk
+        ObjIntConsumer<String> deleted = deletedAfterCommit(job);
+        app.db.bulkDelete.deleteQueueTaskChunk(em, queueId, chunkSize, deleted);
+        return app.db.bulkDelete.deleteQueue(em, queueId, deleted);
+      });
+    } finally {
+      app.taskDispatcher.resumeQueue(routerId, queueId);
+    }
+  }
+
+  private void deleteChunks(Job job, String tag, Long routerId, ChunkDelete chunkDelete)
+      throws CommsRouterException {
+
+    int chunkSize = app.coreConfiguration.getJpaBulkDeleteChunkSize();
+    for (; ; ) {
+      int count = app.db.transactionManager.execute(tag, em -> {
+        // Serialize with agent and queue changes, one chunk at a time
+        app.db.router.lockConfig(em, routerId);
+        return chunkDelete.delete(em, routerId, chunkSize, deletedAfterCommit(job));
+      });
+      if (count == 0) {
+        return;
+      }
+      LOGGER.debug("Bulk delete {}: {}", job.id, job.deleted);
+    }
+  }
+
+  /**
+   * Collects the rows deleted by the current transaction and adds them to the job once it
+   * commits, so a rolled back or retried chunk is not counted. Must be called from inside it.
+   */
+  private ObjIntConsumer<String> deletedAfterCommit(Job job) {
+    Map<String, Integer> deleted = new HashMap<>();
+    app.db.transactionManager.afterCommit(() -> deleted.forEach(job::add));
+    return (table, count) -> deleted.merge(table, count, Integer::sum);
+  }
+
+  private void retire(Job job) {
+    finishedJobs.add(job.id);
+    while (finishedJobs.size() > MAX_FINISHED_JOBS) {
+      String oldest = finishedJobs.poll();
+      if (oldest != null) {
+        jobs.remove(oldest);
+      }
+    }
+  }
+
+}
@@ -20,6 +20,7 @@ import com.softavail.commsrouter.api.dto.arg.CreateQueueArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateQueueArg;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.QueueDto;
+import com.softavail.commsrouter.api.dto.model.QueueStatsDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
 import com.softavail.commsrouter.api.dto.model.TaskState;
@@ -183,6 +184,17 @@ public class CoreQueueService extends CoreRouterObjectService<QueueDto, Queue>
     });
   }
 
+  @Override
+  public QueueStatsDto getStats(RouterObjectRef routerObjectRef) throws CommsRouterException {
+
+    Long queueId = app.db.transactionManager
+        .execute(em -> app.db.queue.get(em, routerObjectRef).getId());
+
+    QueueStatsDto stats = app.taskDispatcher.getQueueCounters().get(queueId).toStats();
+    stats.setRef(routerObjectRef.getRef());
+    return stats;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public Collection<TaskDto> getTasks(RouterObjectRef routerObjectRef) throws CommsRouterException {
@@ -194,7 +206,7 @@ public class CoreQueueService extends CoreRouterObjectService<QueueDto, Queue>
           + "WHERE r.ref = :routerRef AND q.ref = :queueRef "
           + "AND t.state = :state ORDER BY t.priority DESC";
 
-      List<Task> list = em.createQuery(qlString)
+      List<Task> list = app.db.task.withDtoGraph(em, em.createQuery(qlString))
           .setParameter("routerRef", routerObjectRef.getRouterRef())
           .setParameter("queueRef", routerObjectRef.getRef())
           .setParameter("state", TaskState.waiting).getResultList();
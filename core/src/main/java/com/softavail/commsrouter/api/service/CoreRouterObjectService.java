@@ -26,9 +26,11 @@ import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.api.exception.NotFoundException;
 import com.softavail.commsrouter.api.interfaces.RouterObjectService;
 import com.softavail.commsrouter.app.AppContext;
+import com.softavail.commsrouter.domain.ApiObject;
 import com.softavail.commsrouter.domain.Router;
 import com.softavail.commsrouter.domain.RouterObject;
 import com.softavail.commsrouter.domain.dto.mappers.EntityMapper;
+import com.softavail.commsrouter.domain.result.VersionResult;
 import com.softavail.commsrouter.jpa.RouterObjectRepository;
 import org.hibernate.query.Query;
 
@@ -68,11 +70,18 @@ public class CoreRouterObjectService<DTOT extends RouterObjectRef, ENTITYT exten
       throws CommsRouterException {
 
     return app.db.transactionManager.execute((em) -> {
-      ENTITYT entity = repository.get(em, routerObjectRef);
+      ENTITYT entity = repository.getForDto(em, routerObjectRef);
       return entityMapper.toDto(entity);
     });
   }
 
+  @Override
+  public String getHash(RouterObjectRef routerObjectRef) throws CommsRouterException {
+    VersionResult version = app.db.transactionManager
+        .execute(em -> repository.getVersion(em, routerObjectRef));
+    return ApiObject.hashString(version.id, routerObjectRef.getRef(), version.version);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public PaginatedList<DTOT> list(PagingRequest request)
@@ -104,7 +113,7 @@ public class CoreRouterObjectService<DTOT extends RouterObjectRef, ENTITYT exten
       List<Order> sortOrder = PaginationHelper.getSortOrder(cb, root, request.getSort());
       query.orderBy(sortOrder);
 
-      TypedQuery<ENTITYT> typedQuery = em.createQuery(query);
+      TypedQuery<ENTITYT> typedQuery = repository.withDtoGraph(em, em.createQuery(query));
 
       System.out.println(typedQuery.unwrap(Query.class).getQueryString());
 
@@ -20,6 +20,7 @@ import com.softavail.commsrouter.api.dto.arg.CreateTaskArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateTaskArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateTaskContext;
 import com.softavail.commsrouter.api.dto.model.AgentState;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskBatchItemDto;
 import com.softavail.commsrouter.api.dto.model.CreatedTaskDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
@@ -48,8 +49,13 @@ import com.softavail.commsrouter.util.Uuid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
@@ -61,6 +67,21 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
 
   private static final Logger LOGGER = LogManager.getLogger(CoreTaskService.class);
 
+  /**
+   * Router, plans and queues already loaded by the current transaction.
+   */
+  private static class ResolvedRefs {
+
+    private final Router router;
+    private final Map<String, Plan> plans = new HashMap<>();
+    private final Map<String, Queue> queues = new HashMap<>();
+
+    ResolvedRefs(Router router) {
+      this.router = router;
+    }
+
+  }
+
   public CoreTaskService(AppContext app) {
     super(app, app.db.task, app.entityMapper.task);
   }
@@ -70,6 +91,7 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
       throws CommsRouterException {
 
     validate(createArg);
+    app.taskDispatcher.getAdmissionControl().admitTasks(routerId, 1);
 
     RouterObjectRef routerObjectId =
         RouterObjectRef.builder().setRef(Uuid.get()).setRouterRef(routerId)
@@ -83,6 +105,54 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
     return new CreatedTaskDto(dispatchInfo.getTaskRef(), dispatchInfo.getQueuePosition());
   }
 
+  @Override
+  public List<CreatedTaskBatchItemDto> createBatch(List<CreateTaskArg> createArgs,
+      String routerId)
+      throws CommsRouterException {
+
+    Integer maxSize = app.coreConfiguration.getApiTaskBatchMaxSize();
+    if (createArgs.size() > maxSize) {
+      throw new BadValueException(
+          "A batch may hold at most " + maxSize + " tasks, got " + createArgs.size());
+    }
+
+    CreatedTaskBatchItemDto[] results = new CreatedTaskBatchItemDto[createArgs.size()];
+
+    List<Integer> validIndexes = new ArrayList<>();
+    for (int index = 0; index < createArgs.size(); ++index) {
+      try {
+        validate(createArgs.get(index));
+        validIndexes.add(index);
+      } catch (IllegalArgumentException ex) {
+        results[index] = new CreatedTaskBatchItemDto(index, ex);
+      }
+    }
+
+    app.taskDispatcher.getAdmissionControl().admitTasks(routerId, validIndexes.size());
+
+    int chunkSize = app.coreConfiguration.getJpaTaskBatchChunkSize();
+    for (int from = 0; from < validIndexes.size(); from += chunkSize) {
+      List<Integer> indexes =
+          validIndexes.subList(from, Math.min(from + chunkSize, validIndexes.size()));
+      List<TaskDispatchInfo> dispatchInfos;
+      try {
+        dispatchInfos = app.db.transactionManager.execute("task.createBatch",
+            em -> doCreateBatch(em, createArgs, indexes, routerId, results));
+      } catch (NotFoundException ex) {
+        // Item lookups are handled per item, so this is the router itself
+        throw ex;
+      } catch (CommsRouterException | RuntimeException ex) {
+        LOGGER.error("Router {}: failure creating a batch of {} tasks: {}", routerId,
+            indexes.size(), ex, ex);
+        indexes.forEach(index -> results[index] = new CreatedTaskBatchItemDto(index, ex));
+        continue;
+      }
+      app.taskDispatcher.dispatchTasks(dispatchInfos);
+    }
+
+    return Arrays.asList(results);
+  }
+
   @Override
   public TaskDto getByTag(String routerId, String tag)
       throws CommsRouterException {
@@ -99,6 +169,7 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
       throws CommsRouterException {
 
     validate(createArg);
+    app.taskDispatcher.getAdmissionControl().admitTasks(objectId.getRouterRef(), 1);
 
     TaskDispatchInfo dispatchInfo = app.db.transactionManager.execute(em -> {
 
@@ -108,8 +179,10 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
           throw new InvalidStateException(
               "Replacing task in state " + task.getState() + " not allowed");
         }
+        app.taskDispatcher.taskRemoved(task);
         em.remove(task);
         em.flush();
+        repository.evictRef(objectId);
       }
       return doCreate(em, createArg, objectId);
     });
@@ -128,7 +201,8 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
         rejectTaskAssignment(objectRef);
         break;
       case canceled:
-        app.db.transactionManager.executeVoidWithLockRetry(em -> cancelTask(em, objectRef));
+        app.db.transactionManager
+            .executeVoidWithLockRetry("task.cancel", em -> cancelTask(em, objectRef));
         break;
       case completed:
         completeTask(objectRef);
@@ -198,37 +272,89 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
   private TaskDispatchInfo doCreate(EntityManager em, CreateTaskArg createArg, RouterObjectRef obj)
       throws CommsRouterException {
 
+    Task task = persistTask(em, createArg, obj, new ResolvedRefs(getRouter(em, obj)));
+
+    TaskDispatchInfo result = app.entityMapper.task.toDispatchInfo(task);
+    // Counted in the database, as the queue counters only see the tasks of this node
+    result.setQueuePosition(app.db.queue.getQueueSize(em, task.getQueue().getId()) - 1);
+    app.taskDispatcher.taskAdded(task);
+    return result;
+  }
+
+  private List<TaskDispatchInfo> doCreateBatch(EntityManager em, List<CreateTaskArg> createArgs,
+      List<Integer> indexes, String routerId, CreatedTaskBatchItemDto[] results)
+      throws CommsRouterException {
+
+    ResolvedRefs refs = new ResolvedRefs(app.db.router.getByRef(em, routerId));
+
+    List<TaskDispatchInfo> dispatchInfos = new ArrayList<>(indexes.size());
+    List<Integer> createdIndexes = new ArrayList<>(indexes.size());
+    Map<Long, List<Integer>> createdByQueueId = new LinkedHashMap<>();
+    for (Integer index : indexes) {
+      RouterObjectRef objectRef =
+          RouterObjectRef.builder().setRef(Uuid.get()).setRouterRef(routerId).build();
+      try {
+        Task task = persistTask(em, createArgs.get(index), objectRef, refs);
+        createdByQueueId.computeIfAbsent(task.getQueue().getId(), queueId -> new ArrayList<>())
+            .add(dispatchInfos.size());
+        dispatchInfos.add(app.entityMapper.task.toDispatchInfo(task));
+        createdIndexes.add(index);
+        app.taskDispatcher.taskAdded(task);
+      } catch (CommsRouterException ex) {
+        results[index] = new CreatedTaskBatchItemDto(index, ex);
+      }
+    }
+    // The batch tasks are the last ones waiting in their queues, in the order they were given
+    Map<Long, Long> queueSizes = app.db.queue.getQueueSizes(em, createdByQueueId.keySet());
+    createdByQueueId.forEach((queueId, created) -> {
+      long firstPosition = queueSizes.getOrDefault(queueId, 0L) - created.size();
+      for (int i = 0; i < created.size(); ++i) {
+        dispatchInfos.get(created.get(i)).setQueuePosition(firstPosition + i);
+      }
+    });
+    for (int i = 0; i < dispatchInfos.size(); ++i) {
+      TaskDispatchInfo dispatchInfo = dispatchInfos.get(i);
+      int index = createdIndexes.get(i);
+      results[index] = new CreatedTaskBatchItemDto(index, dispatchInfo.getTaskRef(),
+          dispatchInfo.getQueuePosition());
+    }
+    return dispatchInfos;
+  }
+
+  private Task persistTask(EntityManager em, CreateTaskArg createArg, RouterObjectRef obj,
+      ResolvedRefs refs)
+      throws CommsRouterException {
+
     // validate requirements
     app.validators.taskRequirementsValidator
         .validate(createArg.getRequirements(), obj.getRouterRef());
 
-    Task task = fromPlan(em, createArg, obj);
+    Task task = fromPlan(em, createArg, obj, refs);
     task.setState(TaskState.waiting);
     task.setCallbackUrl(createArg.getCallbackUrl().toString());
     task.setUserContext(app.entityMapper.attributes.fromDto(createArg.getUserContext()));
     task.setTag(createArg.getTag());
 
     em.persist(task);
-
-    Long queueId = task.getQueue().getId();
-
-    TaskDispatchInfo result = app.entityMapper.task.toDispatchInfo(task);
-    result.setQueuePosition(app.db.queue.getQueueSize(em, queueId) - 1);
-    return result;
+    return task;
   }
 
-  private Task fromPlan(EntityManager em, CreateTaskArg createArg, RouterObjectRef objectId)
+  private Task fromPlan(EntityManager em, CreateTaskArg createArg, RouterObjectRef objectId,
+      ResolvedRefs refs)
       throws NotFoundException, CommsRouterException {
 
-    Router router = getRouter(em, objectId);
     Task task = new Task(objectId);
-    task.setRouter(router);
+    task.setRouter(refs.router);
     task.setRequirements(app.entityMapper.attributes.fromDto(createArg.getRequirements()));
 
     if (createArg.getPlanRef() != null) {
 
-      Plan plan = app.db.plan.get(em, RouterObjectRef.builder().setRef(createArg.getPlanRef())
-          .setRouterRef(objectId.getRouterRef()).build());
+      Plan plan = refs.plans.get(createArg.getPlanRef());
+      if (plan == null) {
+        plan = app.db.plan.get(em, RouterObjectRef.builder().setRef(createArg.getPlanRef())
+            .setRouterRef(objectId.getRouterRef()).build());
+        refs.plans.put(plan.getRef(), plan);
+      }
       Route matchedRoute = null;
       CommsRouterEvaluator evaluator = app.evaluatorFactory.provide(null, null);
       List<Rule> rules = plan.getRules();
@@ -267,8 +393,12 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
 
     } else {
 
-      Queue queue = app.db.queue.get(em, RouterObjectRef.builder().setRef(createArg.getQueueRef())
-          .setRouterRef(objectId.getRouterRef()).build());
+      Queue queue = refs.queues.get(createArg.getQueueRef());
+      if (queue == null) {
+        queue = app.db.queue.get(em, RouterObjectRef.builder().setRef(createArg.getQueueRef())
+            .setRouterRef(objectId.getRouterRef()).build());
+        refs.queues.put(queue.getRef(), queue);
+      }
       task.setQueue(queue);
     }
 
@@ -320,19 +450,21 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
 
     task.setState(TaskState.waiting);
     task.setAgent(null);
+    app.taskDispatcher.taskChanged(task, 1);
+    app.taskDispatcher.agentChanged(agent, AgentState.busy);
 
     return app.entityMapper.task.toDispatchInfo(task);
   }
 
   private void rejectTaskAssignment(RouterObjectRef objectRef) throws CommsRouterException {
     final TaskDispatchInfo dispatchInfo = app.db.transactionManager
-        .executeWithLockRetry(em -> rejectAssignment(em, objectRef));
+        .executeWithLockRetry("task.reject", em -> rejectAssignment(em, objectRef));
     app.taskDispatcher.dispatchTask(dispatchInfo);
   }
 
   private void completeTask(RouterObjectRef objectRef) throws CommsRouterException {
     final AgentDispatchInfo dispatchInfo = app.db.transactionManager
-        .executeWithLockRetry(em -> completeTask(em, objectRef));
+        .executeWithLockRetry("task.complete", em -> completeTask(em, objectRef));
     app.taskDispatcher.dispatchAgent(dispatchInfo);
   }
 
@@ -363,6 +495,8 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
       throw new InternalErrorException("Unexpected agent state: " + agent.getState());
     }
     agent.setState(AgentState.ready);
+    app.taskDispatcher.taskChanged(task, 0);
+    app.taskDispatcher.agentChanged(agent, AgentState.busy);
     AgentDispatchInfo dispatchInfo = new AgentDispatchInfo();
     dispatchInfo.setAgentId(agent.getId());
     dispatchInfo.setRouterId(agent.getRouter().getId());
@@ -378,7 +512,9 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
       case waiting:
         assert task.getAgent() == null : "Waiting task " + task.getRef() + " has assigned agent: "
             + task.getAgent().getRef();
+        Queue queue = task.getQueue();
         task.makeCanceled();
+        app.taskDispatcher.taskChanged(task, queue, -1);
         return;
       case canceled:
         throw new InvalidStateException("Task already canceled");
@@ -404,7 +540,9 @@ public class CoreTaskService extends CoreRouterObjectService<TaskDto, Task> impl
     if (!task.getState().isDeleteAllowed()) {
       throw new InvalidStateException("Deleting task in state " + task.getState() + " not allowed");
     }
+    app.taskDispatcher.taskRemoved(task);
     em.remove(task);
+    app.db.task.evictRef(routerObjectRef);
   }
 
 }
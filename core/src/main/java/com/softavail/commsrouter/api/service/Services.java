@@ -30,6 +30,8 @@ public class Services {
   public final CoreAgentService agent;
   public final CoreSkillService skill;
   public final CoreRouterService router;
+  public final CoreBulkDeleteService bulkDelete;
+  public final CoreAgentPollService agentPoll;
 
   public Services(AppContext context) {
     this.task = new CoreTaskService(context);
@@ -38,6 +40,8 @@ public class Services {
     this.agent = new CoreAgentService(context);
     this.skill = new CoreSkillService(context);
     this.router = new CoreRouterService(context);
+    this.bulkDelete = new CoreBulkDeleteService(context);
+    this.agentPoll = new CoreAgentPollService(context);
   }
 
 }
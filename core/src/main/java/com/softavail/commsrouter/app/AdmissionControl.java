@@ -0,0 +1,151 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import com.softavail.commsrouter.api.exception.TooManyRequestsException;
+import com.softavail.commsrouter.metrics.MetricsRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per router limits on task and agent writes, checked before the write transaction starts.
+ *
+ * <p>Each router gets its own task and agent token buckets. New tasks are also refused while the
+ * router has too many waiting tasks, or while dispatcher jobs wait too long for a thread, so one
+ * busy router can not bury the dispatcher under work it can not keep up with. Every check reads
+ * lock free state: a bucket is a single atomic and the waiting tasks of a router a single atomic
+ * counter, kept by {@link QueueCounters} and compared-and-set by its reconcile.
+ *
+ * <p>Limits follow configuration reloads. A changed rate or burst starts the routers over with
+ * full buckets of the new size.
+ *
+ * @author ikrustev
+ */
+public class AdmissionControl implements ConfigurationListener {
+
+  private static final long BACKLOG_RETRY_AFTER_SECONDS = 1;
+
+  private volatile Limits limits;
+  private final QueueCounters queueCounters;
+  private final LongSupplier dispatchLagMillis;
+  private final ConcurrentMap<String, TokenBucket> taskBuckets = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, TokenBucket> agentBuckets = new ConcurrentHashMap<>();
+
+  public AdmissionControl(CoreConfiguration configuration, QueueCounters queueCounters,
+      LongSupplier dispatchLagMillis) {
+    this.limits = new Limits(configuration);
+    this.queueCounters = queueCounters;
+    this.dispatchLagMillis = dispatchLagMillis;
+  }
+
+  @Override
+  public synchronized void configurationChanged(CoreConfiguration configuration) {
+    Limits previous = limits;
+    limits = new Limits(configuration);
+    if (previous.taskRate != limits.taskRate || previous.taskBurst != limits.taskBurst) {
+      taskBuckets.clear();
+    }
+    if (previous.agentRate != limits.agentRate || previous.agentBurst != limits.agentBurst) {
+      agentBuckets.clear();
+    }
+  }
+
+  /**
+   * @throws TooManyRequestsException if the router may not create that many tasks now
+   */
+  public void admitTasks(String routerRef, int count) throws TooManyRequestsException {
+    Limits limits = this.limits;
+    int maxWaitingTasks = limits.maxWaitingTasks;
+    if (maxWaitingTasks > 0 && queueCounters.getRouterWaitingTasks(routerRef) >= maxWaitingTasks) {
+      throw reject(routerRef, "tasks", "Router " + routerRef + " has too many waiting tasks",
+          BACKLOG_RETRY_AFTER_SECONDS);
+    }
+    if (limits.maxDispatchLagMillis > 0) {
+      long lagMillis = dispatchLagMillis.getAsLong();
+      if (lagMillis > limits.maxDispatchLagMillis) {
+        throw reject(routerRef, "tasks", "Task dispatching is behind by " + lagMillis + " ms",
+            toRetryAfterSeconds(TimeUnit.MILLISECONDS.toNanos(lagMillis)));
+      }
+    }
+    take(taskBuckets, limits.taskRate, limits.taskBurst, routerRef, count, "tasks");
+  }
+
+  /**
+   * @throws TooManyRequestsException if the router may not create or update that many agents now
+   */
+  public void admitAgentWrites(String routerRef, int count) throws TooManyRequestsException {
+    Limits limits = this.limits;
+    take(agentBuckets, limits.agentRate, limits.agentBurst, routerRef, count, "agents");
+  }
+
+  private static void take(ConcurrentMap<String, TokenBucket> buckets, int rate, int burst,
+      String routerRef, int count, String kind) throws TooManyRequestsException {
+
+    if (rate <= 0 || count <= 0) {
+      return;
+    }
+    long nowNanos = System.nanoTime();
+    long waitNanos = buckets
+        .computeIfAbsent(routerRef, ref -> new TokenBucket(rate, burst, nowNanos))
+        .tryTake(count, nowNanos);
+    if (waitNanos > 0) {
+      throw reject(routerRef, kind, "Router " + routerRef + " is over its " + kind + " rate of "
+          + rate + " per second", toRetryAfterSeconds(waitNanos));
+    }
+  }
+
+  private static TooManyRequestsException reject(String routerRef, String kind, String message,
+      long retryAfterSeconds) {
+    MetricsRegistry.getDefault().counter("commsrouter_admission_rejected_total",
+        "Writes rejected by admission control, by router and kind", "router", routerRef,
+        "kind", kind).increment();
+    return new TooManyRequestsException(message, retryAfterSeconds);
+  }
+
+  private static long toRetryAfterSeconds(long nanos) {
+    return Math.max((nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1), 1);
+  }
+
+  private static int valueOrZero(Integer value) {
+    return value != null ? value : 0;
+  }
+
+  private static final class Limits {
+
+    private final int taskRate;
+    private final int taskBurst;
+    private final int agentRate;
+    private final int agentBurst;
+    private final int maxWaitingTasks;
+    private final long maxDispatchLagMillis;
+
+    private Limits(CoreConfiguration configuration) {
+      this.taskRate = valueOrZero(configuration.getApiAdmissionTaskRate());
+      this.taskBurst = valueOrZero(configuration.getApiAdmissionTaskBurst());
+      this.agentRate = valueOrZero(configuration.getApiAdmissionAgentRate());
+      this.agentBurst = valueOrZero(configuration.getApiAdmissionAgentBurst());
+      this.maxWaitingTasks = valueOrZero(configuration.getApiAdmissionMaxWaitingTasks());
+      this.maxDispatchLagMillis =
+          valueOrZero(configuration.getApiAdmissionMaxDispatchLagMillis());
+    }
+
+  }
+
+}
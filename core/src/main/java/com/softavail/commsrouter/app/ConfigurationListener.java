@@ -0,0 +1,31 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+/**
+ * Applies a reloaded configuration to a running component. Components read the settings they
+ * hold on to, like pool sizes, rates and retry backoff, from the configuration they are given;
+ * settings read on every use pick up a reload without a listener.
+ *
+ * @author ikrustev
+ */
+@FunctionalInterface
+public interface ConfigurationListener {
+
+  void configurationChanged(CoreConfiguration configuration);
+
+}
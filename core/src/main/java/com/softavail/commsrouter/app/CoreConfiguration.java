@@ -42,6 +42,16 @@ public interface CoreConfiguration {
       return 10;
     }
 
+    @Override
+    public Integer getDispatcherTimerThreadPoolSize() {
+      return 2;
+    }
+
+    @Override
+    public Integer getDispatcherCallbackThreadPoolSize() {
+      return 10;
+    }
+
     @Override
     public Integer getDispatcherThreadShutdownDelay() {
       return 10;
@@ -57,11 +67,56 @@ public interface CoreConfiguration {
       return 10L;
     }
 
+    @Override
+    public Integer getQueueCountersReconcileDelay() {
+      return 60;
+    }
+
     @Override
     public Integer getJpaLockRetryCount() {
       return 10;
     }
 
+    @Override
+    public Integer getJpaLockRetryBackoffDelay() {
+      return 10;
+    }
+
+    @Override
+    public Integer getJpaLockRetryBackoffDelayMax() {
+      return 500;
+    }
+
+    @Override
+    public Double getJpaLockRetryJitterFactor() {
+      return 0.5;
+    }
+
+    @Override
+    public Integer getJpaJdbcBatchSize() {
+      return 50;
+    }
+
+    @Override
+    public Boolean getJpaOrderInserts() {
+      return false;
+    }
+
+    @Override
+    public Boolean getJpaOrderUpdates() {
+      return true;
+    }
+
+    @Override
+    public Integer getJpaBulkDeleteChunkSize() {
+      return 1000;
+    }
+
+    @Override
+    public Integer getJpaTaskBatchChunkSize() {
+      return 500;
+    }
+
     @Override
     public Boolean getApiEnableExpressionSkillValidation() {
       return false;
@@ -77,6 +132,91 @@ public interface CoreConfiguration {
       return false;
     }
 
+    @Override
+    public Integer getApiAgentPollMaxWait() {
+      return 60;
+    }
+
+    @Override
+    public Integer getApiTaskBatchMaxSize() {
+      return 10000;
+    }
+
+    @Override
+    public Integer getApiAgentBatchMaxSize() {
+      return 1000;
+    }
+
+    @Override
+    public Integer getApiEventsBufferSize() {
+      return 1000;
+    }
+
+    @Override
+    public Integer getApiEventsThreadPoolSize() {
+      return 4;
+    }
+
+    @Override
+    public Integer getApiEventsHeartbeatSeconds() {
+      return 15;
+    }
+
+    @Override
+    public Integer getApiEventsSendTimeoutSeconds() {
+      return 30;
+    }
+
+    @Override
+    public Integer getApiAdmissionTaskRate() {
+      return 0;
+    }
+
+    @Override
+    public Integer getApiAdmissionTaskBurst() {
+      return 100;
+    }
+
+    @Override
+    public Integer getApiAdmissionAgentRate() {
+      return 0;
+    }
+
+    @Override
+    public Integer getApiAdmissionAgentBurst() {
+      return 100;
+    }
+
+    @Override
+    public Integer getApiAdmissionMaxWaitingTasks() {
+      return 0;
+    }
+
+    @Override
+    public Integer getApiAdmissionMaxDispatchLagMillis() {
+      return 0;
+    }
+
+    @Override
+    public Integer getApiWritesThreadPoolSize() {
+      return 10;
+    }
+
+    @Override
+    public Integer getApiWritesQueueSize() {
+      return 100;
+    }
+
+    @Override
+    public Boolean getApiWritesAsyncTasks() {
+      return false;
+    }
+
+    @Override
+    public Boolean getApiWritesAsyncAgents() {
+      return false;
+    }
+
   };
 
   Integer getBackoffDelay();
@@ -87,17 +227,73 @@ public interface CoreConfiguration {
 
   Integer getDispatcherThreadPoolSize();
 
+  Integer getDispatcherTimerThreadPoolSize();
+
+  Integer getDispatcherCallbackThreadPoolSize();
+
   Integer getDispatcherThreadShutdownDelay();
 
   Integer getQueueProcessRetryDelay();
 
   Long getQueueProcessorEvictionDelay();
 
+  Integer getQueueCountersReconcileDelay();
+
   Integer getJpaLockRetryCount();
 
+  Integer getJpaLockRetryBackoffDelay();
+
+  Integer getJpaLockRetryBackoffDelayMax();
+
+  Double getJpaLockRetryJitterFactor();
+
+  Integer getJpaJdbcBatchSize();
+
+  Boolean getJpaOrderInserts();
+
+  Boolean getJpaOrderUpdates();
+
+  Integer getJpaBulkDeleteChunkSize();
+
+  Integer getJpaTaskBatchChunkSize();
+
   Boolean getApiEnableExpressionSkillValidation();
 
   Boolean getApiEnableAgentCapabilitiesValidation();
 
   Boolean getApiEnableTaskRequirementsValidation();
+
+  Integer getApiAgentPollMaxWait();
+
+  Integer getApiTaskBatchMaxSize();
+
+  Integer getApiAgentBatchMaxSize();
+
+  Integer getApiEventsBufferSize();
+
+  Integer getApiEventsThreadPoolSize();
+
+  Integer getApiEventsHeartbeatSeconds();
+
+  Integer getApiEventsSendTimeoutSeconds();
+
+  Integer getApiAdmissionTaskRate();
+
+  Integer getApiAdmissionTaskBurst();
+
+  Integer getApiAdmissionAgentRate();
+
+  Integer getApiAdmissionAgentBurst();
+
+  Integer getApiAdmissionMaxWaitingTasks();
+
+  Integer getApiAdmissionMaxDispatchLagMillis();
+
+  Integer getApiWritesThreadPoolSize();
+
+  Integer getApiWritesQueueSize();
+
+  Boolean getApiWritesAsyncTasks();
+
+  Boolean getApiWritesAsyncAgents();
 }
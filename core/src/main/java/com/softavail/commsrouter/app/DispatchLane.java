@@ -0,0 +1,170 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import com.softavail.commsrouter.metrics.MetricsRegistry;
+import com.softavail.commsrouter.util.ThreadPoolKiller;
+
+import java.util.Arrays;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One kind of dispatcher work, run on executors of its own so it can not hold up the other
+ * kinds. A lane is split into slices; work keyed to a slice, like the work of one router, only
+ * competes with the work keyed to the same slice.
+ *
+ * <p>Queue depth, busy threads and lag are exported per slice. The threads of a slice can be
+ * changed while the lane runs; the slice count can not, since keys must keep to their slice.
+ *
+ * @author ikrustev
+ */
+public class DispatchLane {
+
+  private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+
+  private final String name;
+  private final ScheduledThreadPoolExecutor[] slices;
+
+  public DispatchLane(String name, int sliceCount, int threadsPerSlice) {
+    this.name = name;
+    this.slices = new ScheduledThreadPoolExecutor[Math.max(sliceCount, 1)];
+    for (int index = 0; index < slices.length; ++index) {
+      ScheduledThreadPoolExecutor slice = createSlice(name + "-" + index, threadsPerSlice);
+      String sliceLabel = String.valueOf(index);
+      METRICS.gauge("commsrouter_dispatcher_queue_depth",
+          "Jobs waiting in a dispatcher lane, including scheduled ones",
+          () -> slice.getQueue().size(), "lane", name, "slice", sliceLabel);
+      METRICS.gauge("commsrouter_dispatcher_active_threads",
+          "Dispatcher lane threads running a job", slice::getActiveCount,
+          "lane", name, "slice", sliceLabel);
+      METRICS.gauge("commsrouter_dispatcher_lag_milliseconds",
+          "How long the most overdue job of a dispatcher lane has been waiting for a thread",
+          () -> getLagMillis(slice), "lane", name, "slice", sliceLabel);
+      slices[index] = slice;
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the slice the work of the key runs on
+   */
+  public ScheduledThreadPoolExecutor get(Long key) {
+    return slices[Math.floorMod(key.hashCode(), slices.length)];
+  }
+
+  /**
+   * @return the first slice, for lanes made of a single one
+   */
+  public ScheduledThreadPoolExecutor get() {
+    return slices[0];
+  }
+
+  /**
+   * Resizes every slice. Threads above the new size finish their current job and leave.
+   */
+  public void setThreadsPerSlice(int threadsPerSlice) {
+    int threads = Math.max(threadsPerSlice, 1);
+    Arrays.stream(slices).forEach(slice -> slice.setCorePoolSize(threads));
+  }
+
+  public int getThreadsPerSlice() {
+    return slices[0].getCorePoolSize();
+  }
+
+  public int getQueueDepth() {
+    return Arrays.stream(slices).mapToInt(slice -> slice.getQueue().size()).sum();
+  }
+
+  /**
+   * @return how long the most overdue job of any slice has been waiting for a thread
+   */
+  public long getLagMillis() {
+    return Arrays.stream(slices).mapToLong(DispatchLane::getLagMillis).max().orElse(0);
+  }
+
+  /**
+   * Stops taking work and waits, up to the deadline, for the jobs already due to finish. Jobs
+   * scheduled for later are dropped.
+   *
+   * @return whether the lane finished its jobs in time
+   */
+  public boolean drain(long deadlineNanos) throws InterruptedException {
+    stop();
+    for (ScheduledThreadPoolExecutor slice : slices) {
+      long remainingNanos = deadlineNanos - System.nanoTime();
+      if (!slice.awaitTermination(Math.max(remainingNanos, 0), TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Drops the jobs scheduled for later. The lane keeps running and taking work.
+   */
+  public void dropScheduled() {
+    Arrays.stream(slices).forEach(DispatchLane::dropScheduled);
+  }
+
+  public void shutdown(Integer shutdownDelay) {
+    stop();
+    Arrays.stream(slices)
+        .forEach(slice -> ThreadPoolKiller.shutdown(slice, "TaskDispatcher " + name,
+            shutdownDelay));
+  }
+
+  private void stop() {
+    Arrays.stream(slices).forEach(slice -> {
+      slice.shutdown();
+      // Shutdown keeps the queued jobs, due or not; only the due ones are left to run
+      dropScheduled(slice);
+    });
+  }
+
+  private static void dropScheduled(ScheduledThreadPoolExecutor slice) {
+    for (Runnable job : slice.getQueue().toArray(new Runnable[0])) {
+      if (job instanceof Delayed && ((Delayed) job).getDelay(TimeUnit.NANOSECONDS) > 0) {
+        ((Future<?>) job).cancel(false);
+        slice.remove(job);
+      }
+    }
+  }
+
+  private static long getLagMillis(ScheduledThreadPoolExecutor slice) {
+    // The queue is ordered by due time, so its head is the most overdue job
+    Runnable next = slice.getQueue().peek();
+    if (next instanceof Delayed) {
+      return Math.max(-((Delayed) next).getDelay(TimeUnit.MILLISECONDS), 0);
+    }
+    return 0;
+  }
+
+  private static ScheduledThreadPoolExecutor createSlice(String name, int threads) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return new ScheduledThreadPoolExecutor(Math.max(threads, 1),
+        runnable -> new Thread(runnable,
+            "dispatcher-" + name + "-" + threadCount.incrementAndGet()));
+  }
+
+}
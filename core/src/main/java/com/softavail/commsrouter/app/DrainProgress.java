@@ -0,0 +1,70 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+/**
+ * Where the dispatcher is in its drain, with the work it has left.
+ *
+ * @author ikrustev
+ */
+public class DrainProgress {
+
+  public enum State {
+    RUNNING, DRAIN_REQUESTED, DRAINING, DRAINED
+  }
+
+  private final State state;
+  private final int pendingMatchingJobs;
+  private final int pendingCallbacks;
+  private final int pendingTimers;
+
+  public DrainProgress(State state, int pendingMatchingJobs, int pendingCallbacks,
+      int pendingTimers) {
+    this.state = state;
+    this.pendingMatchingJobs = pendingMatchingJobs;
+    this.pendingCallbacks = pendingCallbacks;
+    this.pendingTimers = pendingTimers;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public int getPendingMatchingJobs() {
+    return pendingMatchingJobs;
+  }
+
+  public int getPendingCallbacks() {
+    return pendingCallbacks;
+  }
+
+  public int getPendingTimers() {
+    return pendingTimers;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("DrainProgress{");
+    sb.append("state=").append(state);
+    sb.append(", pendingMatchingJobs=").append(pendingMatchingJobs);
+    sb.append(", pendingCallbacks=").append(pendingCallbacks);
+    sb.append(", pendingTimers=").append(pendingTimers);
+    sb.append('}');
+    return sb.toString();
+  }
+
+}
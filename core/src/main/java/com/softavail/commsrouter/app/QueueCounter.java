@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import com.softavail.commsrouter.api.dto.model.QueueStatsDto;
+
+import java.util.Date;
+
+/**
+ * Live counts of one queue.
+ *
+ * <p>The oldest waiting date is only exact after a reconcile: when the oldest task leaves while
+ * others still wait, the next oldest is not known, so the date stays at the older value.
+ *
+ * <p>Every change moves the version, so a reconcile can tell whether the counts changed since it
+ * started reading the database.
+ *
+ * @author ikrustev
+ */
+public class QueueCounter {
+
+  private long waitingTasks;
+  private long oldestWaitingMillis;
+  private long readyAgents;
+  private long busyAgents;
+  private long version;
+
+  /**
+   * @return the number of waiting tasks after the change
+   */
+  public synchronized long addWaitingTasks(long delta, long nowMillis) {
+    ++version;
+    waitingTasks = Math.max(waitingTasks + delta, 0);
+    if (waitingTasks == 0) {
+      oldestWaitingMillis = 0;
+    } else if (oldestWaitingMillis == 0) {
+      oldestWaitingMillis = nowMillis;
+    }
+    return waitingTasks;
+  }
+
+  public synchronized void addAgents(long readyDelta, long busyDelta) {
+    ++version;
+    readyAgents = Math.max(readyAgents + readyDelta, 0);
+    busyAgents = Math.max(busyAgents + busyDelta, 0);
+  }
+
+  public synchronized long getVersion() {
+    return version;
+  }
+
+  /**
+   * Replaces the counts, unless they changed since the version was read.
+   *
+   * @return whether the counts were replaced
+   */
+  public synchronized boolean reset(long expectedVersion, long waitingTasks,
+      Date oldestWaitingTaskDate, long readyAgents, long busyAgents) {
+    if (version != expectedVersion) {
+      return false;
+    }
+    ++version;
+    this.waitingTasks = waitingTasks;
+    this.oldestWaitingMillis =
+        waitingTasks > 0 && oldestWaitingTaskDate != null ? oldestWaitingTaskDate.getTime() : 0;
+    this.readyAgents = readyAgents;
+    this.busyAgents = busyAgents;
+    return true;
+  }
+
+  public synchronized long getWaitingTasks() {
+    return waitingTasks;
+  }
+
+  public synchronized QueueStatsDto toStats() {
+    QueueStatsDto stats = new QueueStatsDto();
+    stats.setWaitingTasks(waitingTasks);
+    stats.setOldestWaitingTaskDate(oldestWaitingMillis > 0 ? new Date(oldestWaitingMillis) : null);
+    stats.setReadyAgents(readyAgents);
+    stats.setBusyAgents(busyAgents);
+    return stats;
+  }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import com.softavail.commsrouter.api.dto.model.AgentState;
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.domain.Agent;
+import com.softavail.commsrouter.domain.Queue;
+import com.softavail.commsrouter.domain.Task;
+import com.softavail.commsrouter.domain.result.QueueCountsResult;
+import com.softavail.commsrouter.jpa.JpaDbFacade;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory counters of every queue and of the waiting tasks of every router, for the queue
+ * stats and the admission limits, so they do not have to count waiting tasks.
+ *
+ * <p>The counters belong to one node: they only see the changes made through its services, so
+ * with several nodes they lag behind until the next reconcile. The queue position returned on
+ * task create is counted in the database instead, as it has to be exact.
+ *
+ * <p>Services report changes from inside their transaction and the counters move once it
+ * commits. A periodic reconcile resets them from the database, correcting any drift from
+ * changes made around the services, like bulk deletes, or on other nodes. A counter that changed
+ * while the reconcile read the database is left as it is, to be reset by the next reconcile.
+ *
+ * @author ikrustev
+ */
+public class QueueCounters {
+
+  private final JpaDbFacade db;
+  private final ConcurrentMap<Long, QueueCounter> counters = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicLong> routerWaitingTasks = new ConcurrentHashMap<>();
+
+  public QueueCounters(JpaDbFacade db) {
+    this.db = db;
+  }
+
+  public QueueCounter get(Long queueId) {
+    return counters.computeIfAbsent(queueId, id -> new QueueCounter());
+  }
+
+  /**
+   * @return the tasks waiting in all queues of the router
+   */
+  public long getRouterWaitingTasks(String routerRef) {
+    AtomicLong waitingTasks = routerWaitingTasks.get(routerRef);
+    return waitingTasks != null ? waitingTasks.get() : 0;
+  }
+
+  /**
+   * Drops the waiting task counter of a deleted router. The counters of its queues go with the
+   * next reconcile.
+   */
+  public void routerRemoved(String routerRef) {
+    routerWaitingTasks.remove(routerRef);
+  }
+
+  public void reconcile() throws CommsRouterException {
+    // Snapshot before reading, so only the counters that did not change meanwhile are reset
+    Map<Long, Long> versions = new HashMap<>();
+    counters.forEach((queueId, counter) -> versions.put(queueId, counter.getVersion()));
+    Map<String, Long> routerSnapshot = new HashMap<>();
+    routerWaitingTasks.forEach((routerRef, waitingTasks) ->
+        routerSnapshot.put(routerRef, waitingTasks.get()));
+
+    Map<Long, QueueCountsResult> counts =
+        db.transactionManager.execute("queue.reconcileCounters", db.queue::getQueueCounts);
+    Map<String, Long> routerCounts = new HashMap<>();
+    counts.values().forEach(result -> {
+      get(result.queueId).reset(versions.getOrDefault(result.queueId, 0L), result.waitingTasks,
+          result.oldestWaitingTaskDate, result.readyAgents, result.busyAgents);
+      routerCounts.merge(result.routerRef, result.waitingTasks, Long::sum);
+    });
+    versions.forEach((queueId, version) -> {
+      if (!counts.containsKey(queueId)) {
+        counters.computeIfPresent(queueId,
+            (id, counter) -> counter.getVersion() == version ? null : counter);
+      }
+    });
+    routerCounts.forEach((routerRef, waitingTasks) -> routerWaitingTasks(routerRef)
+        .compareAndSet(routerSnapshot.getOrDefault(routerRef, 0L), waitingTasks));
+    routerSnapshot.forEach((routerRef, waitingTasks) -> {
+      if (!routerCounts.containsKey(routerRef)) {
+        routerWaitingTasks.computeIfPresent(routerRef,
+            (ref, current) -> current.get() == waitingTasks ? null : current);
+      }
+    });
+  }
+
+  /**
+   * Must be called from inside the transaction changing the task.
+   *
+   * @param queue the queue the task waits or waited in, as a final task has none
+   */
+  public void taskChanged(Task task, Queue queue, long queueDelta) {
+    if (queueDelta == 0 || queue == null) {
+      return;
+    }
+    Long queueId = queue.getId();
+    String routerRef = task.getRouter().getRef();
+    db.transactionManager.afterCommit(() -> {
+      routerWaitingTasks(routerRef).addAndGet(queueDelta);
+      get(queueId).addWaitingTasks(queueDelta, System.currentTimeMillis());
+    });
+  }
+
+  /**
+   * Must be called from inside the transaction moving the task.
+   */
+  public void taskRequeued(Task task, Queue previousQueue) {
+    Long previousQueueId = previousQueue.getId();
+    Long queueId = task.getQueue().getId();
+    db.transactionManager.afterCommit(() -> {
+      long nowMillis = System.currentTimeMillis();
+      get(previousQueueId).addWaitingTasks(-1, nowMillis);
+      get(queueId).addWaitingTasks(1, nowMillis);
+    });
+  }
+
+  /**
+   * Must be called from inside the transaction changing the agent state.
+   */
+  public void agentChanged(Agent agent, AgentState previousState) {
+    long readyDelta = stateDelta(AgentState.ready, previousState, agent.getState());
+    long busyDelta = stateDelta(AgentState.busy, previousState, agent.getState());
+    if (readyDelta == 0 && busyDelta == 0) {
+      return;
+    }
+    List<Long> queueIds = agent.getAgentQueueMappings().stream()
+        .map(mapping -> mapping.getQueue().getId())
+        .collect(Collectors.toList());
+    db.transactionManager.afterCommit(
+        () -> queueIds.forEach(queueId -> get(queueId).addAgents(readyDelta, busyDelta)));
+  }
+
+  private AtomicLong routerWaitingTasks(String routerRef) {
+    return routerWaitingTasks.computeIfAbsent(routerRef, ref -> new AtomicLong());
+  }
+
+  private static long stateDelta(AgentState counted, AgentState previousState,
+      AgentState state) {
+    return (state == counted ? 1 : 0) - (previousState == counted ? 1 : 0);
+  }
+
+}
@@ -19,10 +19,13 @@ package com.softavail.commsrouter.app;
 import com.softavail.commsrouter.api.dto.model.TaskAssignmentDto;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.jpa.JpaDbFacade;
+import com.softavail.commsrouter.metrics.Counter;
+import com.softavail.commsrouter.metrics.MetricsRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.persistence.EntityManager;
@@ -34,6 +37,14 @@ public class QueueProcessor {
 
   private static final Logger LOGGER = LogManager.getLogger(QueueProcessor.class);
 
+  private static final Counter ITERATIONS = MetricsRegistry.getDefault().counter(
+      "commsrouter_queue_processor_iterations_total",
+      "Queue processor loop iterations, each looking for one assignment");
+
+  private static final Counter EMPTY_POLLS = MetricsRegistry.getDefault().counter(
+      "commsrouter_queue_processor_empty_polls_total",
+      "Queue processor loop iterations that found no waiting task with a ready agent");
+
   private final Long routerId;
   private final Long queueId;
   private final JpaDbFacade db;
@@ -67,6 +78,10 @@ public class QueueProcessor {
     return queueId;
   }
 
+  public TaskDispatcher getTaskDispatcher() {
+    return taskDispatcher;
+  }
+
   public synchronized void process() {
     LOGGER.debug("Queue processor {}: process in {}", queueId, state);
     switch (state) {
@@ -99,6 +114,14 @@ public class QueueProcessor {
         "Queue processor " + queueId + ": invalid complete state: " + state);
   }
 
+  // Nothing runs this processor any more. The idle listener is not told, as it would schedule
+  // the eviction on the same shut down lane
+  private synchronized void release() {
+    LOGGER.debug("Queue processor {}:  release {} => {}", queueId, state,
+        QueueProcessorState.IDLE);
+    state = QueueProcessorState.IDLE;
+  }
+
   private void changeState(QueueProcessorState newState) {
     LOGGER.debug("Queue processor {}:  change {} => {}", queueId, state, newState);
     QueueProcessorState oldState = state;
@@ -109,38 +132,64 @@ public class QueueProcessor {
     }
   }
 
+  // Checked under the processor lock, so a resume either finds the processor idle or is seen here
+  private synchronized boolean parkIfPaused() {
+    if (!taskDispatcher.isQueuePaused(queueId)) {
+      return false;
+    }
+    LOGGER.debug("Queue processor {}: paused", queueId);
+    changeState(QueueProcessorState.IDLE);
+    return true;
+  }
+
   public synchronized boolean isWorking() {
     return state == QueueProcessorState.CONSUME || state == QueueProcessorState.MUST_CONSUME;
   }
 
+  // One assignment per job, so the other queues of the slice get their turn in between. Lock
+  // retries are scheduled on the slice too, so a backoff does not hold its thread
   private void processQueue() {
+    if (parkIfPaused()) {
+      return;
+    }
+    ITERATIONS.increment();
+    db.transactionManager.executeWithLockRetry("queue.assign", em -> {
+      db.router.lock(em, routerId);
+      return getAssignment(em);
+    }, threadPool).whenComplete(this::onAssignment);
+  }
 
-    for (; ; ) {
-      Optional<TaskAssignmentDto> taskAssignmentDto;
-      try {
-        taskAssignmentDto = db.transactionManager.executeWithLockRetry(em -> {
-          db.router.lock(em, routerId);
-          return getAssignment(em);
-        });
-      } catch (CommsRouterException | RuntimeException e) {
-        // Failed to get assignment. Most probably DB is down, so let's try again a bit later.
-        LOGGER.error("Queue processor {}: failure getting assignment: {}", queueId, e, e);
-        threadPool.schedule(this::processQueue, processRetryDelaySeconds, TimeUnit.SECONDS);
-        return;
-      }
+  private void onAssignment(Optional<TaskAssignmentDto> taskAssignmentDto, Throwable error) {
+    try {
+      continueProcessing(taskAssignmentDto, error);
+    } catch (RejectedExecutionException ex) {
+      // The lane was shut down, as on a drain, so nothing would run the next step
+      LOGGER.debug("Queue processor {}: stopped, lane shut down: {}", queueId, ex.toString());
+      release();
+    }
+  }
 
-      if (!taskAssignmentDto.isPresent()) {
-        // No task or no agent, try to complete.
-        if (tryComplete()) {
-          return;
-        }
-        // Could not complete: somebody wants us to work more, so try one more loop.
-        continue;
-      }
+  private void continueProcessing(Optional<TaskAssignmentDto> taskAssignmentDto,
+      Throwable error) {
 
-      taskDispatcher.submitTaskAssignment(taskAssignmentDto.get());
+    if (error != null) {
+      // Failed to get assignment. Most probably DB is down, so let's try again a bit later.
+      LOGGER.error("Queue processor {}: failure getting assignment: {}", queueId, error, error);
+      threadPool.schedule(this::processQueue, processRetryDelaySeconds, TimeUnit.SECONDS);
+      return;
     }
 
+    if (taskAssignmentDto.isPresent()) {
+      taskDispatcher.submitTaskAssignment(taskAssignmentDto.get());
+    } else {
+      EMPTY_POLLS.increment();
+      // No task or no agent, try to complete.
+      if (tryComplete()) {
+        return;
+      }
+      // Could not complete: somebody wants us to work more, so try one more loop.
+    }
+    threadPool.execute(this::processQueue);
   }
 
   @SuppressWarnings("unchecked")
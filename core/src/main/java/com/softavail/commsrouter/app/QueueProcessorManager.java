@@ -77,9 +77,25 @@ public class QueueProcessorManager {
     queueProcessor.process();
   }
 
+  /**
+   * Drops the queue processors of a dispatcher that is going away, so the queues are processed
+   * afresh on the lanes of the next one.
+   */
+  public synchronized void release(TaskDispatcher taskDispatcher) {
+    queueProcessors.values().removeIf(
+        queueProcessor -> queueProcessor.getTaskDispatcher() == taskDispatcher);
+    scheduledFutures.keySet().removeIf(queueId -> {
+      if (queueProcessors.containsKey(queueId)) {
+        return false;
+      }
+      scheduledFutures.get(queueId).cancel(DO_NOT_INTERRUPT_IF_RUNNING);
+      return true;
+    });
+  }
+
   private synchronized void removeQueueProcessor(Long queueId) {
     QueueProcessor queueProcessor = queueProcessors.get(queueId);
-    if (!queueProcessor.isWorking()) {
+    if (queueProcessor != null && !queueProcessor.isWorking()) {
       queueProcessors.remove(queueId);
     }
   }
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import com.softavail.commsrouter.api.dto.model.RouterEventDto;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events of one router waiting to be sent to one subscriber.
+ *
+ * <p>Publishing never blocks on the subscriber: events go to a bounded buffer and the oldest are
+ * dropped when it is full. The next send starts with a dropped event carrying the number lost.
+ * At most one delivery runs at a time, so the sink sees events in publish order.
+ *
+ * <p>A subscriber that loses a whole buffer of events before its next send, or whose send stays
+ * blocked past the send timeout, is closed instead of being kept behind forever. Idle
+ * subscribers get heartbeats, so the ones that went away are found without waiting for an event.
+ *
+ * @author ikrustev
+ */
+public class RouterEventSubscription implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger(RouterEventSubscription.class);
+
+  public interface Sink {
+
+    void send(RouterEventDto event) throws IOException;
+
+    /**
+     * Sends nothing the subscriber acts on, to find out whether it is still there.
+     */
+    default void heartbeat() throws IOException {
+    }
+
+    /**
+     * Ends the subscriber's stream. Must not wait for a send that is blocked.
+     */
+    default void close() {
+    }
+
+  }
+
+  private interface Send {
+
+    void run() throws IOException;
+
+  }
+
+  private final RouterEvents routerEvents;
+  private final String routerRef;
+  private final int capacity;
+  private final Sink sink;
+  private final Executor executor;
+  private final Deque<RouterEventDto> buffer = new ArrayDeque<>();
+  private long dropped;
+  private boolean delivering;
+  private boolean closed;
+  private boolean sending;
+  private long sendingSinceNanos;
+  private boolean stalled;
+
+  RouterEventSubscription(RouterEvents routerEvents, String routerRef, int capacity, Sink sink,
+      Executor executor) {
+    this.routerEvents = routerEvents;
+    this.routerRef = routerRef;
+    this.capacity = Math.max(capacity, 1);
+    this.sink = sink;
+    this.executor = executor;
+  }
+
+  public String getRouterRef() {
+    return routerRef;
+  }
+
+  void offer(RouterEventDto event) {
+    boolean overflowing = false;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      if (buffer.size() == capacity) {
+        buffer.pollFirst();
+        ++dropped;
+      }
+      buffer.addLast(event);
+      if (dropped >= capacity) {
+        overflowing = true;
+      } else if (delivering) {
+        return;
+      } else {
+        delivering = true;
+      }
+    }
+    if (overflowing) {
+      LOGGER.warn("Router {}: event subscriber lost {} events, closing", routerRef, capacity);
+      close();
+      return;
+    }
+    start(this::deliver);
+  }
+
+  /**
+   * Sends a heartbeat to an idle subscriber. A subscriber with a delivery running is left to it.
+   */
+  void heartbeat() {
+    synchronized (this) {
+      if (closed || delivering) {
+        return;
+      }
+      delivering = true;
+    }
+    start(this::deliverHeartbeat);
+  }
+
+  /**
+   * Closes the subscription if its current send has been blocked for the timeout. The blocked
+   * thread is reported to the subscriptions, which lend the others a thread until it returns.
+   *
+   * @return whether the subscription was closed
+   */
+  boolean closeIfStalled(long nowNanos, long timeoutNanos) {
+    synchronized (this) {
+      if (!sending || stalled || nowNanos - sendingSinceNanos < timeoutNanos) {
+        return false;
+      }
+      stalled = true;
+    }
+    LOGGER.warn("Router {}: event subscriber send blocked for over {} ms, closing", routerRef,
+        TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+    routerEvents.sendStalled();
+    close();
+    return true;
+  }
+
+  private void start(Runnable delivery) {
+    try {
+      executor.execute(delivery);
+    } catch (RuntimeException ex) {
+      LOGGER.warn("Router {}: event delivery rejected: {}", routerRef, ex.toString());
+      close();
+    }
+  }
+
+  /**
+   * Takes the buffered events, led by a dropped event if any were lost since the last drain.
+   * Once empty, ends the current delivery, so the next offer starts another.
+   */
+  synchronized List<RouterEventDto> drain() {
+    if (buffer.isEmpty() && dropped == 0) {
+      delivering = false;
+      return Collections.emptyList();
+    }
+    List<RouterEventDto> events = new ArrayList<>(buffer.size() + 1);
+    if (dropped > 0) {
+      events.add(RouterEventDto.dropped(dropped));
+      dropped = 0;
+    }
+    events.addAll(buffer);
+    buffer.clear();
+    return events;
+  }
+
+  private void deliver() {
+    try {
+      for (List<RouterEventDto> events = drain(); !events.isEmpty(); events = drain()) {
+        for (RouterEventDto event : events) {
+          send(() -> sink.send(event));
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      gone(ex);
+    }
+  }
+
+  private void deliverHeartbeat() {
+    try {
+      send(sink::heartbeat);
+    } catch (IOException | RuntimeException ex) {
+      gone(ex);
+      return;
+    }
+    // Events offered meanwhile waited for this delivery
+    deliver();
+  }
+
+  private void send(Send send) throws IOException {
+    synchronized (this) {
+      sending = true;
+      sendingSinceNanos = System.nanoTime();
+    }
+    boolean wasStalled;
+    try {
+      send.run();
+    } finally {
+      synchronized (this) {
+        sending = false;
+        wasStalled = stalled;
+        stalled = false;
+      }
+      if (wasStalled) {
+        routerEvents.stalledSendReturned();
+      }
+    }
+    if (wasStalled) {
+      throw new IOException("Send returned after the subscription was closed");
+    }
+  }
+
+  private void gone(Exception ex) {
+    LOGGER.debug("Router {}: event subscriber gone: {}", routerRef, ex.toString());
+    close();
+  }
+
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      buffer.clear();
+      dropped = 0;
+    }
+    routerEvents.unsubscribe(this);
+    sink.close();
+  }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import com.softavail.commsrouter.api.dto.model.RouterEventDto;
+import com.softavail.commsrouter.domain.Agent;
+import com.softavail.commsrouter.domain.Queue;
+import com.softavail.commsrouter.domain.Task;
+import com.softavail.commsrouter.jpa.JpaTransactionManager;
+import com.softavail.commsrouter.util.ThreadPoolKiller;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans router events out to the subscriptions of their router.
+ *
+ * <p>Services report changes from inside their transaction. The events are captured right away
+ * and published only after the transaction commits, so subscribers never see a change that was
+ * rolled back. Nothing is captured while there are no subscribers.
+ *
+ * <p>Every heartbeat period the subscriptions are checked: the ones with a send blocked past the
+ * send timeout are closed, and the idle ones get a heartbeat. A blocked send keeps its thread,
+ * so the pool gets an extra thread until the send returns.
+ *
+ * @author ikrustev
+ */
+public class RouterEvents {
+
+  private static final Logger LOGGER = LogManager.getLogger(RouterEvents.class);
+
+  private final JpaTransactionManager transactionManager;
+  private final int bufferSize;
+  private final ExecutorService executor;
+  private final long sendTimeoutNanos;
+  private final ScheduledExecutorService heartbeatExecutor;
+  private final ConcurrentMap<String, Set<RouterEventSubscription>> subscriptions =
+      new ConcurrentHashMap<>();
+  private final AtomicInteger subscriptionCount = new AtomicInteger();
+
+  public RouterEvents(JpaTransactionManager transactionManager, CoreConfiguration configuration) {
+    this(transactionManager, configuration.getApiEventsBufferSize(),
+        Executors.newFixedThreadPool(configuration.getApiEventsThreadPoolSize()),
+        TimeUnit.SECONDS.toNanos(configuration.getApiEventsSendTimeoutSeconds()),
+        configuration.getApiEventsHeartbeatSeconds() > 0
+            ? Executors.newSingleThreadScheduledExecutor() : null);
+    if (heartbeatExecutor != null) {
+      long period = configuration.getApiEventsHeartbeatSeconds();
+      heartbeatExecutor.scheduleWithFixedDelay(
+          this::checkSubscriptions, period, period, TimeUnit.SECONDS);
+    }
+  }
+
+  RouterEvents(JpaTransactionManager transactionManager, int bufferSize,
+      ExecutorService executor, long sendTimeoutNanos) {
+    this(transactionManager, bufferSize, executor, sendTimeoutNanos, null);
+  }
+
+  private RouterEvents(JpaTransactionManager transactionManager, int bufferSize,
+      ExecutorService executor, long sendTimeoutNanos,
+      ScheduledExecutorService heartbeatExecutor) {
+    this.transactionManager = transactionManager;
+    this.bufferSize = bufferSize;
+    this.executor = executor;
+    this.sendTimeoutNanos = sendTimeoutNanos;
+    this.heartbeatExecutor = heartbeatExecutor;
+  }
+
+  public void close() {
+    if (heartbeatExecutor != null) {
+      ThreadPoolKiller.shutdown(heartbeatExecutor, "RouterEvents heartbeat", 1);
+    }
+    subscriptions.values().forEach(routerSubscriptions ->
+        new ArrayList<>(routerSubscriptions).forEach(RouterEventSubscription::close));
+    ThreadPoolKiller.shutdown(executor, "RouterEvents", 1);
+  }
+
+  /**
+   * Closes the subscriptions with a send blocked past the send timeout and sends a heartbeat to
+   * the idle ones.
+   */
+  void checkSubscriptions() {
+    try {
+      long now = System.nanoTime();
+      subscriptions.values().forEach(routerSubscriptions -> routerSubscriptions.forEach(
+          subscription -> {
+            if (!subscription.closeIfStalled(now, sendTimeoutNanos)) {
+              subscription.heartbeat();
+            }
+          }));
+    } catch (RuntimeException ex) {
+      LOGGER.error("Checking event subscriptions failed: {}", ex, ex);
+    }
+  }
+
+  /**
+   * Lends the pool a thread in place of one blocked in a send, so other routers keep their events
+   * flowing.
+   */
+  void sendStalled() {
+    if (executor instanceof ThreadPoolExecutor) {
+      ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+      synchronized (pool) {
+        pool.setMaximumPoolSize(pool.getMaximumPoolSize() + 1);
+        pool.setCorePoolSize(pool.getCorePoolSize() + 1);
+      }
+    }
+  }
+
+  /**
+   * Takes back the thread lent by {@link #sendStalled()} once the blocked send returned.
+   */
+  void stalledSendReturned() {
+    if (executor instanceof ThreadPoolExecutor) {
+      ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+      synchronized (pool) {
+        pool.setCorePoolSize(pool.getCorePoolSize() - 1);
+        pool.setMaximumPoolSize(pool.getMaximumPoolSize() - 1);
+      }
+    }
+  }
+
+  public RouterEventSubscription subscribe(String routerRef, RouterEventSubscription.Sink sink) {
+    RouterEventSubscription subscription =
+        new RouterEventSubscription(this, routerRef, bufferSize, sink, executor);
+    subscriptions.computeIfAbsent(routerRef, ref -> new CopyOnWriteArraySet<>())
+        .add(subscription);
+    subscriptionCount.incrementAndGet();
+    return subscription;
+  }
+
+  void unsubscribe(RouterEventSubscription subscription) {
+    subscriptions.computeIfPresent(subscription.getRouterRef(), (ref, routerSubscriptions) -> {
+      if (routerSubscriptions.remove(subscription)) {
+        subscriptionCount.decrementAndGet();
+      }
+      return routerSubscriptions.isEmpty() ? null : routerSubscriptions;
+    });
+  }
+
+  public boolean hasSubscribers() {
+    return subscriptionCount.get() > 0;
+  }
+
+  public void publish(String routerRef, RouterEventDto event) {
+    Set<RouterEventSubscription> routerSubscriptions = subscriptions.get(routerRef);
+    if (routerSubscriptions != null) {
+      routerSubscriptions.forEach(subscription -> subscription.offer(event));
+    }
+  }
+
+  /**
+   * Reports the current task state and, when non zero, the change of the number of tasks waiting
+   * in its queue. Must be called from inside the transaction making the change.
+   */
+  public void taskChanged(Task task, long queueDelta) {
+    taskChanged(task, task.getQueue(), queueDelta);
+  }
+
+  /**
+   * As {@link #taskChanged(Task, long)}, with the queue whose count changes given apart from the
+   * task, as a final task no longer has one.
+   */
+  public void taskChanged(Task task, Queue queue, long queueDelta) {
+    if (!hasSubscribers()) {
+      return;
+    }
+    String queueRef = task.getQueue() != null ? task.getQueue().getRef() : null;
+    List<RouterEventDto> events = new ArrayList<>(2);
+    events.add(RouterEventDto.task(task.getRef(), task.getState(), queueRef));
+    if (queueDelta != 0 && queue != null) {
+      events.add(RouterEventDto.queue(queue.getRef(), queueDelta));
+    }
+    publishAfterCommit(task.getRouter().getRef(), events);
+  }
+
+  /**
+   * Reports a task moving between queues while waiting.
+   * Must be called from inside the transaction making the change.
+   */
+  public void taskRequeued(Task task, Queue previousQueue) {
+    if (!hasSubscribers()) {
+      return;
+    }
+    List<RouterEventDto> events = new ArrayList<>(2);
+    events.add(RouterEventDto.queue(previousQueue.getRef(), -1));
+    events.add(RouterEventDto.queue(task.getQueue().getRef(), 1));
+    publishAfterCommit(task.getRouter().getRef(), events);
+  }
+
+  /**
+   * Reports a waiting task leaving its queue without a state change, as when it is deleted.
+   * Must be called from inside the transaction removing it.
+   */
+  public void taskRemoved(Task task) {
+    if (!hasSubscribers() || task.getQueue() == null) {
+      return;
+    }
+    List<RouterEventDto> events = new ArrayList<>(1);
+    events.add(RouterEventDto.queue(task.getQueue().getRef(), -1));
+    publishAfterCommit(task.getRouter().getRef(), events);
+  }
+
+  /**
+   * Reports the current agent state. Must be called from inside the transaction making the change.
+   */
+  public void agentChanged(Agent agent) {
+    if (!hasSubscribers()) {
+      return;
+    }
+    List<RouterEventDto> events = new ArrayList<>(1);
+    events.add(RouterEventDto.agent(agent.getRef(), agent.getState()));
+    publishAfterCommit(agent.getRouter().getRef(), events);
+  }
+
+  private void publishAfterCommit(String routerRef, List<RouterEventDto> events) {
+    transactionManager.afterCommit(() -> events.forEach(event -> publish(routerRef, event)));
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import com.softavail.commsrouter.api.dto.model.TaskAssignmentDto;
+import com.softavail.commsrouter.api.interfaces.TaskAssignmentReceiver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Agents polling for their next task, by agent id. Each receiver is handed at most one
+ * assignment and is dropped once offered one.
+ *
+ * @author ikrustev
+ */
+public class TaskAssignmentReceivers {
+
+  private final ConcurrentMap<Long, Deque<TaskAssignmentReceiver>> receivers =
+      new ConcurrentHashMap<>();
+
+  public void register(Long agentId, TaskAssignmentReceiver receiver) {
+    receivers.compute(agentId, (id, agentReceivers) -> {
+      if (agentReceivers == null) {
+        agentReceivers = new ArrayDeque<>();
+      }
+      agentReceivers.add(receiver);
+      return agentReceivers;
+    });
+  }
+
+  /**
+   * @return true if the receiver was still waiting
+   */
+  public boolean unregister(Long agentId, TaskAssignmentReceiver receiver) {
+    boolean[] removed = new boolean[1];
+    receivers.computeIfPresent(agentId, (id, agentReceivers) -> {
+      removed[0] = agentReceivers.remove(receiver);
+      return agentReceivers.isEmpty() ? null : agentReceivers;
+    });
+    return removed[0];
+  }
+
+  /**
+   * Hands the assignment to the longest waiting receiver of the agent that still takes it.
+   *
+   * @return false if no receiver took it, so it has to be delivered otherwise
+   */
+  public boolean offer(Long agentId, TaskAssignmentDto taskAssignment) {
+    for (TaskAssignmentReceiver receiver = poll(agentId); receiver != null;
+        receiver = poll(agentId)) {
+      if (receiver.receive(taskAssignment)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private TaskAssignmentReceiver poll(Long agentId) {
+    TaskAssignmentReceiver[] head = new TaskAssignmentReceiver[1];
+    receivers.computeIfPresent(agentId, (id, agentReceivers) -> {
+      head[0] = agentReceivers.poll();
+      return agentReceivers.isEmpty() ? null : agentReceivers;
+    });
+    return head[0];
+  }
+
+}
@@ -25,6 +25,7 @@ import com.softavail.commsrouter.api.exception.CallbackException;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.api.interfaces.TaskEventHandler;
 import com.softavail.commsrouter.domain.Agent;
+import com.softavail.commsrouter.domain.Queue;
 import com.softavail.commsrouter.domain.Route;
 import com.softavail.commsrouter.domain.Rule;
 import com.softavail.commsrouter.domain.Task;
@@ -32,32 +33,90 @@ import com.softavail.commsrouter.domain.dto.mappers.EntityMappers;
 import com.softavail.commsrouter.domain.result.MatchResult;
 import com.softavail.commsrouter.jpa.JpaDbFacade;
 import com.softavail.commsrouter.jpa.result.TaskEnumerableResult;
-import com.softavail.commsrouter.util.ThreadPoolKiller;
+import com.softavail.commsrouter.metrics.Counter;
+import com.softavail.commsrouter.metrics.Histogram;
+import com.softavail.commsrouter.metrics.MetricsRegistry;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * Runs the work that follows task and agent changes on three lanes, so one kind of work can not
+ * starve another: matching (one single threaded slice per group of routers, as the router lock
+ * lets only one matching transaction of a router run at a time anyway), timers, and outbound
+ * callbacks.
+ *
+ * <p>On a configuration reload the timer and callback lanes are resized, the callback retry
+ * backoff is rebuilt and the admission limits are replaced. The matching slice count stays.
+ *
+ * <p>{@link #requestDrain} only marks the dispatcher as about to drain, so the health check
+ * fails and load balancers move traffic away while it keeps dispatching. {@link #close} then
+ * drains it in three steps, all within one dispatcher shutdown delay: it stops taking dispatch
+ * signals and drops the pending expiration timers, which the next dispatcher to start rebuilds
+ * from the waiting tasks; it lets the matching jobs finish and the pending callbacks complete,
+ * keeping the last part of the delay for one last attempt of the callbacks still waiting on a
+ * retry; then it releases its queue processors. Callbacks that still fail are logged and
+ * dropped, not persisted: their tasks stay assigned. {@link #getDrainProgress} reports how far
+ * it got.
+ *
  * @author ikrustev
  */
-public class TaskDispatcher {
+public class TaskDispatcher implements ConfigurationListener {
 
   private static final Logger LOGGER = LogManager.getLogger(TaskDispatcher.class);
 
+  private static final double[] TASK_WAIT_MILLIS_BUCKETS =
+      {10, 50, 100, 500, 1000, 5000, 10000, 30000, 60000, 300000, 900000, 3600000};
+
+  private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+
+  private static final long DRAIN_POLL_MILLIS = 50;
+
+  // The share of the shutdown delay kept for the last attempt of the pending callbacks
+  private static final int LAST_ATTEMPT_SHARE = 4;
+
+  private static final Histogram TASK_WAIT = METRICS.histogram(
+      "commsrouter_task_wait_milliseconds", "Time from task create to its assignment",
+      TASK_WAIT_MILLIS_BUCKETS);
+
   private final JpaDbFacade db;
   private final EntityMappers mappers;
   private final TaskEventHandler taskEventHandler;
-  private final ScheduledThreadPoolExecutor threadPool;
+  private final DispatchLane matchingLane;
+  private final DispatchLane timerLane;
+  private final DispatchLane callbackLane;
   private final CoreConfiguration configuration;
   private final QueueProcessorManager queueProcessorManager;
-  private final RetryPolicy retryPolicy;
+  private volatile RetryPolicy retryPolicy;
+  private final TaskAssignmentReceivers assignmentReceivers = new TaskAssignmentReceivers();
+  private final RouterEvents routerEvents;
+  private final QueueCounters queueCounters;
+  private final AdmissionControl admissionControl;
+  private final ConcurrentMap<Long, TaskAssignmentDto> pendingCallbacks =
+      new ConcurrentHashMap<>();
+  private final AtomicReference<DrainProgress.State> state =
+      new AtomicReference<>(DrainProgress.State.RUNNING);
+  private final Set<Long> pausedQueues = ConcurrentHashMap.newKeySet();
+  private final ConcurrentMap<Long, ConcurrentMap<Long, ScheduledFuture<?>>> expirationTimers =
+      new ConcurrentHashMap<>();
 
   public TaskDispatcher(JpaDbFacade db, EntityMappers mappers, TaskEventHandler taskEventHandler) {
     this(db, mappers, CoreConfiguration.DEFAULT, taskEventHandler);
@@ -69,18 +128,44 @@ public class TaskDispatcher {
     this.db = db;
     this.mappers = mappers;
     this.taskEventHandler = taskEventHandler;
-    this.threadPool = new ScheduledThreadPoolExecutor(configuration.getDispatcherThreadPoolSize());
-    this.threadPool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    this.matchingLane =
+        new DispatchLane("matching", configuration.getDispatcherThreadPoolSize(), 1);
+    this.timerLane =
+        new DispatchLane("timers", 1, configuration.getDispatcherTimerThreadPoolSize());
+    this.callbackLane =
+        new DispatchLane("callbacks", 1, configuration.getDispatcherCallbackThreadPoolSize());
     this.queueProcessorManager = QueueProcessorManager.getInstance();
+    this.routerEvents = new RouterEvents(db.transactionManager, configuration);
+    this.queueCounters = new QueueCounters(db);
+    this.admissionControl =
+        new AdmissionControl(configuration, queueCounters, this::getDispatchLagMillis);
+    this.retryPolicy = createRetryPolicy(configuration);
+    METRICS.gauge("commsrouter_dispatcher_pending_callbacks",
+        "Task assignment callbacks not yet delivered or given up", pendingCallbacks::size);
+    METRICS.gauge("commsrouter_dispatcher_draining",
+        "0 while the dispatcher runs, 1 once asked to drain, 2 while it drains, 3 once drained",
+        () -> state.get().ordinal());
+    startQueueCountersReconcile();
+    startQueueProcessors();
+    restartWaitingTaskTimers();
+  }
+
+  private static RetryPolicy createRetryPolicy(CoreConfiguration configuration) {
     Integer backoffDelay = configuration.getBackoffDelay();
     Integer backoffDelayMax = configuration.getBackoffDelayMax();
-    this.retryPolicy = new RetryPolicy()
+    return new RetryPolicy()
         .retryOn(CallbackException.class)
         .retryOn(RuntimeException.class)
         .withBackoff(backoffDelay, backoffDelayMax, TimeUnit.SECONDS)
         .withJitter(configuration.getJitter(), TimeUnit.MILLISECONDS);
-    startQueueProcessors();
-    restartWaitingTaskTimers();
+  }
+
+  @Override
+  public void configurationChanged(CoreConfiguration configuration) {
+    timerLane.setThreadsPerSlice(configuration.getDispatcherTimerThreadPoolSize());
+    callbackLane.setThreadsPerSlice(configuration.getDispatcherCallbackThreadPoolSize());
+    retryPolicy = createRetryPolicy(configuration);
+    admissionControl.configurationChanged(configuration);
   }
 
   @SuppressWarnings("unchecked")
@@ -98,105 +183,474 @@ public class TaskDispatcher {
     }
   }
 
+  private void startQueueCountersReconcile() {
+    try {
+      queueCounters.reconcile();
+    } catch (CommsRouterException e) {
+      throw new RuntimeException("Can not instantiate TaskDispatcher!", e);
+    }
+    Integer reconcileDelay = configuration.getQueueCountersReconcileDelay();
+    if (reconcileDelay != null && reconcileDelay > 0) {
+      timerLane.get().scheduleWithFixedDelay(this::reconcileQueueCounters, reconcileDelay,
+          reconcileDelay, TimeUnit.SECONDS);
+    }
+  }
+
+  private void reconcileQueueCounters() {
+    try {
+      queueCounters.reconcile();
+    } catch (RuntimeException | CommsRouterException e) {
+      LOGGER.error("Reconciling queue counters failed: {}", e, e);
+    }
+  }
+
   private void process(Long routerId, Long queueId) {
+    if (!isAccepting("queue", queueId)) {
+      return;
+    }
+    if (isQueuePaused(queueId)) {
+      LOGGER.debug("Queue {} is paused", queueId);
+      return;
+    }
     queueProcessorManager
-        .processQueue(routerId, queueId, db, mappers, this, configuration, threadPool);
+        .processQueue(routerId, queueId, db, mappers, this, configuration,
+            matchingLane.get(routerId));
+  }
+
+  /**
+   * Fails the health check ahead of {@link #close}, while the dispatcher keeps dispatching.
+   *
+   * @return the progress after the request
+   */
+  public DrainProgress requestDrain() {
+    if (state.compareAndSet(DrainProgress.State.RUNNING, DrainProgress.State.DRAIN_REQUESTED)) {
+      LOGGER.info("Drain requested, {}", getDrainProgress());
+    }
+    return getDrainProgress();
   }
 
   public void close() {
     final Integer shutdownDelay = configuration.getDispatcherThreadShutdownDelay();
-    ThreadPoolKiller.shutdown(threadPool, "TaskDispatcher", shutdownDelay);
+    try {
+      drain(TimeUnit.SECONDS.toNanos(shutdownDelay));
+    } catch (InterruptedException e) {
+      LOGGER.warn("Draining interrupted, {}", getDrainProgress());
+      Thread.currentThread().interrupt();
+    }
+    matchingLane.shutdown(shutdownDelay);
+    callbackLane.shutdown(shutdownDelay);
+    timerLane.shutdown(shutdownDelay);
+    routerEvents.close();
+    state.set(DrainProgress.State.DRAINED);
+    LOGGER.info("Dispatcher drained, {}", getDrainProgress());
   }
 
-  public void dispatchTask(TaskDispatchInfo dispatchInfo) {
-    process(dispatchInfo.getRouterId(), dispatchInfo.getQueueId());
-    setTaskExpirationTimeout(dispatchInfo.getTaskId(), dispatchInfo.getQueuedTimeout());
+  private void drain(long timeoutNanos) throws InterruptedException {
+    long deadlineNanos = System.nanoTime() + timeoutNanos;
+    long callbacksDeadlineNanos = deadlineNanos - timeoutNanos / LAST_ATTEMPT_SHARE;
+
+    // Stop taking signals. Waiting tasks stay in the database for the next dispatcher to pick
+    state.set(DrainProgress.State.DRAINING);
+    LOGGER.info("Draining dispatcher, {}", getDrainProgress());
+    timerLane.drain(deadlineNanos);
+
+    // Let the matching jobs finish, then the callbacks of the assignments they made
+    if (!matchingLane.drain(deadlineNanos)) {
+      LOGGER.warn("Matching jobs did not finish in time, {}", getDrainProgress());
+    }
+    while (!pendingCallbacks.isEmpty() && callbacksDeadlineNanos - System.nanoTime() > 0) {
+      TimeUnit.MILLISECONDS.sleep(DRAIN_POLL_MILLIS);
+    }
+    // The retries still waiting for their backoff are dropped. They get their last attempt here,
+    // side by side on the callback lane, in the rest of the delay. A callback whose attempt is
+    // still running may be delivered twice, which receivers already have to handle for retries
+    callbackLane.dropScheduled();
+    if (!pendingCallbacks.isEmpty()) {
+      retryPendingCallbacks(deadlineNanos);
+    }
+    if (!callbackLane.drain(deadlineNanos)) {
+      LOGGER.warn("Callbacks did not finish in time, {}", getDrainProgress());
+    }
+
+    queueProcessorManager.release(this);
   }
 
-  public void dispatchAgent(AgentDispatchInfo dispatchInfo) {
-    threadPool.submit(() -> {
+  private void retryPendingCallbacks(long deadlineNanos) throws InterruptedException {
+    LOGGER.warn("Last attempt for {} pending callbacks", pendingCallbacks.size());
+    List<Future<?>> lastAttempts = new ArrayList<>();
+    for (TaskAssignmentDto taskAssignmentDto : pendingCallbacks.values()) {
+      lastAttempts.add(callbackLane.get().submit(() -> lastAttempt(taskAssignmentDto)));
+    }
+    for (Future<?> lastAttempt : lastAttempts) {
       try {
-        doDispatchAgent(dispatchInfo);
-      } catch (RuntimeException | CommsRouterException e) {
-        LOGGER.error("Dispatch agent {}: failure: {}", dispatchInfo.getAgentId(), e, e);
+        lastAttempt.get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+      } catch (ExecutionException e) {
+        LOGGER.error("Last callback attempt failed: {}", e.getCause(), e.getCause());
+      } catch (TimeoutException e) {
+        LOGGER.warn("Last callback attempts did not finish in time, {}", getDrainProgress());
+        break;
       }
+    }
+    // Taken off the pending ones, so an attempt not started yet does not run any more
+    pendingCallbacks.values().forEach(taskAssignmentDto -> {
+      callbackOutcome(taskAssignmentDto, "failed").increment();
+      LOGGER.error("Gave up assigning task {} to agent {}: dispatcher drained",
+          taskAssignmentDto.getTask(), taskAssignmentDto.getAgent());
     });
+    pendingCallbacks.clear();
   }
 
-  private void doDispatchAgent(AgentDispatchInfo dispatchInfo) throws CommsRouterException {
+  private void lastAttempt(TaskAssignmentDto taskAssignmentDto) {
+    // Delivered meanwhile by its regular attempt, or given up by the drain
+    if (!pendingCallbacks.remove(taskAssignmentDto.getTask().getId(), taskAssignmentDto)) {
+      return;
+    }
+    if (!isStillAssigned(taskAssignmentDto)) {
+      return;
+    }
+    try {
+      notifyTaskAssigned(taskAssignmentDto);
+    } catch (CallbackException | RuntimeException e) {
+      callbackOutcome(taskAssignmentDto, "failed").increment();
+      LOGGER.error("Failure assigning task {} to agent {} while draining: {}",
+          taskAssignmentDto.getTask(), taskAssignmentDto.getAgent(), e, e);
+    }
+  }
 
-    TaskAssignmentDto taskAssignmentDto = db.transactionManager.executeWithLockRetry(
-        em -> {
-          db.router.lock(em, dispatchInfo.getRouterId());
+  /**
+   * @return whether the dispatcher runs, drains or is drained, and the work it has left
+   */
+  public DrainProgress getDrainProgress() {
+    return new DrainProgress(state.get(), matchingLane.getQueueDepth(), pendingCallbacks.size(),
+        timerLane.getQueueDepth());
+  }
 
-          return db.queue.findAssignmentForAgent(em, dispatchInfo.getAgentId())
-              .map(this::assignTask)
-              .orElse(null);
-        }
-    );
+  private boolean isAccepting(String signal, Object id) {
+    DrainProgress.State current = state.get();
+    if (current == DrainProgress.State.RUNNING
+        || current == DrainProgress.State.DRAIN_REQUESTED) {
+      return true;
+    }
+    LOGGER.debug("Dispatcher is draining, {} {} left to the next dispatcher", signal, id);
+    return false;
+  }
+
+  public void dispatchTask(TaskDispatchInfo dispatchInfo) {
+    process(dispatchInfo.getRouterId(), dispatchInfo.getQueueId());
+    setTaskExpirationTimeout(dispatchInfo.getRouterId(), dispatchInfo.getTaskId(),
+        dispatchInfo.getQueuedTimeout());
+  }
+
+  /**
+   * Dispatches tasks created together, signalling each affected queue processor once.
+   */
+  public void dispatchTasks(List<TaskDispatchInfo> dispatchInfos) {
+    Map<Long, Long> routerIdByQueueId = new LinkedHashMap<>();
+    dispatchInfos.forEach(dispatchInfo -> {
+      routerIdByQueueId.put(dispatchInfo.getQueueId(), dispatchInfo.getRouterId());
+      setTaskExpirationTimeout(dispatchInfo.getRouterId(), dispatchInfo.getTaskId(),
+          dispatchInfo.getQueuedTimeout());
+    });
+    routerIdByQueueId.forEach((queueId, routerId) -> process(routerId, queueId));
+  }
 
-    if (taskAssignmentDto != null) {
-      submitTaskAssignment(taskAssignmentDto);
+  public void dispatchAgent(AgentDispatchInfo dispatchInfo) {
+    if (!isAccepting("agent", dispatchInfo.getAgentId())) {
+      return;
     }
+    matchingLane.get(dispatchInfo.getRouterId()).submit(() -> doDispatchAgent(dispatchInfo));
+  }
+
+  /**
+   * Dispatches agents that became ready together: one job per router matches all of them in a
+   * single transaction, under one router lock.
+   */
+  public void dispatchAgents(List<AgentDispatchInfo> dispatchInfos) {
+    if (!isAccepting("agents", dispatchInfos.size())) {
+      return;
+    }
+    Map<Long, List<Long>> agentIdsByRouterId = new LinkedHashMap<>();
+    dispatchInfos.forEach(dispatchInfo -> agentIdsByRouterId
+        .computeIfAbsent(dispatchInfo.getRouterId(), routerId -> new ArrayList<>())
+        .add(dispatchInfo.getAgentId()));
+
+    agentIdsByRouterId.forEach((routerId, agentIds) -> matchingLane.get(routerId)
+        .submit(() -> doDispatchAgents(routerId, agentIds)));
+  }
+
+  // Lock retries are scheduled on the matching slice, so a backoff does not hold its thread
+  private void doDispatchAgents(Long routerId, List<Long> agentIds) {
+
+    db.transactionManager.executeWithLockRetry("dispatch.agents", em -> {
+      db.router.lock(em, routerId);
+
+      List<TaskAssignmentDto> result = new ArrayList<>();
+      for (Long agentId : agentIds) {
+        // Tasks assigned to the previous agents are already flushed as no longer waiting
+        db.queue.findAssignmentForAgent(em, agentId)
+            .map(this::assignTask)
+            .ifPresent(result::add);
+      }
+      return result;
+    }, matchingLane.get(routerId)).whenComplete((taskAssignments, e) -> {
+      if (e != null) {
+        LOGGER.error("Dispatch agents {}: failure: {}", agentIds, e, e);
+        return;
+      }
+      taskAssignments.forEach(this::submitTaskAssignment);
+    });
+  }
+
+  private void doDispatchAgent(AgentDispatchInfo dispatchInfo) {
+
+    db.transactionManager.executeWithLockRetry("dispatch.agent", em -> {
+      db.router.lock(em, dispatchInfo.getRouterId());
+
+      return db.queue.findAssignmentForAgent(em, dispatchInfo.getAgentId())
+          .map(this::assignTask)
+          .orElse(null);
+    }, matchingLane.get(dispatchInfo.getRouterId())).whenComplete((taskAssignmentDto, e) -> {
+      if (e != null) {
+        LOGGER.error("Dispatch agent {}: failure: {}", dispatchInfo.getAgentId(), e, e);
+        return;
+      }
+      if (taskAssignmentDto != null) {
+        submitTaskAssignment(taskAssignmentDto);
+      }
+    });
   }
 
   public TaskAssignmentDto assignTask(MatchResult matchResult) {
     Agent agent = matchResult.agent;
     Task task = matchResult.task;
+    AgentState previousState = agent.getState();
     // Assign
     agent.setState(AgentState.busy);
     task.setState(TaskState.assigned);
     task.setAgent(agent);
+    taskChanged(task, -1);
+    agentChanged(agent, previousState);
+    if (task.getCreateDate() != null) {
+      long waitMillis = System.currentTimeMillis() - task.getCreateDate().getTime();
+      db.transactionManager.afterCommit(() -> TASK_WAIT.observe(waitMillis));
+    }
 
     TaskDto taskDto = mappers.task.toDto(task);
     AgentDto agentDto = mappers.agent.toDto(agent);
     return new TaskAssignmentDto(taskDto, agentDto);
   }
 
+  public RouterEvents getRouterEvents() {
+    return routerEvents;
+  }
+
+  public QueueCounters getQueueCounters() {
+    return queueCounters;
+  }
+
+  public AdmissionControl getAdmissionControl() {
+    return admissionControl;
+  }
+
+  /**
+   * @return how long the most overdue matching job has been waiting for a thread
+   */
+  public long getDispatchLagMillis() {
+    return matchingLane.getLagMillis();
+  }
+
+  public DispatchLane getMatchingLane() {
+    return matchingLane;
+  }
+
+  public DispatchLane getTimerLane() {
+    return timerLane;
+  }
+
+  public DispatchLane getCallbackLane() {
+    return callbackLane;
+  }
+
+  /**
+   * Reports a new waiting task to the queue counters and router event subscribers.
+   * Must be called from inside the transaction creating it.
+   */
+  public void taskAdded(Task task) {
+    taskChanged(task, 1);
+  }
+
+  /**
+   * Reports a task state change with the change of the number of tasks waiting in its queue.
+   * Must be called from inside the transaction making it.
+   */
+  public void taskChanged(Task task, long queueDelta) {
+    taskChanged(task, task.getQueue(), queueDelta);
+  }
+
+  /**
+   * Reports a task state change that took the task out of its queue, like a cancel.
+   * Must be called from inside the transaction making it.
+   *
+   * @param queue the queue the task waited in
+   */
+  public void taskChanged(Task task, Queue queue, long queueDelta) {
+    queueCounters.taskChanged(task, queue, queueDelta);
+    routerEvents.taskChanged(task, queue, queueDelta);
+  }
+
+  /**
+   * Reports a task being deleted. Must be called from inside the transaction deleting it.
+   */
+  public void taskRemoved(Task task) {
+    if (task.getState() == TaskState.waiting) {
+      queueCounters.taskChanged(task, task.getQueue(), -1);
+      routerEvents.taskRemoved(task);
+    }
+  }
+
+  /**
+   * Must be called from inside the transaction changing the agent state.
+   */
+  public void agentChanged(Agent agent, AgentState previousState) {
+    queueCounters.agentChanged(agent, previousState);
+    routerEvents.agentChanged(agent);
+  }
+
+  /**
+   * Stops the queue processor from assigning the tasks of the queue, e.g. while they are being
+   * deleted. An assignment already under way completes, and an agent becoming ready may still
+   * take a task of the queue. The pause holds on this node only.
+   */
+  public void pauseQueue(Long queueId) {
+    pausedQueues.add(queueId);
+  }
+
+  public void resumeQueue(Long routerId, Long queueId) {
+    if (pausedQueues.remove(queueId)) {
+      process(routerId, queueId);
+    }
+  }
+
+  boolean isQueuePaused(Long queueId) {
+    return pausedQueues.contains(queueId);
+  }
+
+  /**
+   * Drops what this node keeps for a router that is gone: the expiration timers of its tasks and
+   * its waiting task counter.
+   */
+  public void routerRemoved(Long routerId, String routerRef) {
+    Map<Long, ScheduledFuture<?>> routerTimers = expirationTimers.remove(routerId);
+    if (routerTimers != null) {
+      routerTimers.values().forEach(timer -> timer.cancel(false));
+    }
+    queueCounters.routerRemoved(routerRef);
+  }
+
+  public TaskAssignmentReceivers getAssignmentReceivers() {
+    return assignmentReceivers;
+  }
+
   public void submitTaskAssignment(TaskAssignmentDto taskAssignmentDto) {
+    if (assignmentReceivers.offer(taskAssignmentDto.getAgent().getId(), taskAssignmentDto)) {
+      LOGGER.debug("Task {} handed to polling agent {}", taskAssignmentDto.getTask().getRef(),
+          taskAssignmentDto.getAgent().getRef());
+      return;
+    }
+    Long taskId = taskAssignmentDto.getTask().getId();
+    pendingCallbacks.put(taskId, taskAssignmentDto);
     RetryPolicy retryPolicy = this.retryPolicy.copy();
-    retryPolicy.abortIf(obj -> {
-      try {
-        return db.transactionManager.execute(em -> {
-          Task task = db.task.get(em, taskAssignmentDto.getTask());
-          return task.getState() != TaskState.assigned;
-        });
-      } catch (CommsRouterException e) {
-        LOGGER.debug("Error retrieving Task: {}", taskAssignmentDto.getTask().getRef());
-        return true;
-      }
-    });
-    Failsafe.with(retryPolicy).with(threadPool)
+    retryPolicy.abortIf(obj -> !isStillAssigned(taskAssignmentDto));
+    Failsafe.with(retryPolicy).with(callbackLane.get())
         .onSuccess((ignored, executionContext) -> LOGGER.debug("Task {} assigned to agent {}",
             taskAssignmentDto.getTask(), taskAssignmentDto.getAgent()))
         .onRetry(
             (result, failure, context) -> LOGGER.warn("Retry assigning task {} to agent {}: {}, {}",
                 taskAssignmentDto.getTask(), taskAssignmentDto.getAgent(), failure, context))
-        .onFailure((ignored, throwable) -> LOGGER.error("Failure assigning task {} to agent {}: {}",
-            taskAssignmentDto.getTask(), taskAssignmentDto.getAgent(), throwable, throwable))
-        .run(() -> taskEventHandler.onTaskAssigned(taskAssignmentDto));
+        .onFailure((ignored, throwable) -> {
+          callbackOutcome(taskAssignmentDto, "failed").increment();
+          LOGGER.error("Failure assigning task {} to agent {}: {}",
+              taskAssignmentDto.getTask(), taskAssignmentDto.getAgent(), throwable, throwable);
+        })
+        .onComplete((ignored, throwable) -> pendingCallbacks.remove(taskId, taskAssignmentDto))
+        .run(() -> notifyTaskAssigned(taskAssignmentDto));
   }
 
-  private void setTaskExpirationTimeout(Long taskId, Long seconds) {
+  private boolean isStillAssigned(TaskAssignmentDto taskAssignmentDto) {
+    try {
+      return db.transactionManager.execute(em -> {
+        Task task = db.task.get(em, taskAssignmentDto.getTask());
+        return task.getState() == TaskState.assigned;
+      });
+    } catch (CommsRouterException e) {
+      LOGGER.debug("Error retrieving Task: {}", taskAssignmentDto.getTask().getRef());
+      return false;
+    }
+  }
+
+  private void notifyTaskAssigned(TaskAssignmentDto taskAssignmentDto) throws CallbackException {
+    long startNanos = System.nanoTime();
+    String outcome = "error";
+    try {
+      taskEventHandler.onTaskAssigned(taskAssignmentDto);
+      outcome = "success";
+    } finally {
+      String host = callbackHost(taskAssignmentDto);
+      METRICS.histogram("commsrouter_callback_duration_milliseconds",
+          "Task assignment callback duration, by callback host", Histogram.DEFAULT_MILLIS_BUCKETS,
+          "host", host).observe(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos)
+          / 1000.0);
+      callbackOutcome(taskAssignmentDto, outcome).increment();
+    }
+  }
+
+  private static Counter callbackOutcome(TaskAssignmentDto taskAssignmentDto, String outcome) {
+    return METRICS.counter("commsrouter_callbacks_total",
+        "Task assignment callback attempts by callback host and outcome; failed counts the "
+            + "assignments given up after all retries",
+        "host", callbackHost(taskAssignmentDto), "outcome", outcome);
+  }
+
+  private static String callbackHost(TaskAssignmentDto taskAssignmentDto) {
+    try {
+      String host = URI.create(taskAssignmentDto.getTask().getCallbackUrl()).getHost();
+      return host != null ? host : "unknown";
+    } catch (RuntimeException ex) {
+      return "unknown";
+    }
+  }
+
+  private void setTaskExpirationTimeout(Long routerId, Long taskId, Long seconds) {
+    if (!isAccepting("timer of task", taskId)) {
+      return;
+    }
 
     LOGGER.debug("Set expiration timeout:{} for task:{}", seconds, taskId);
 
-    threadPool.schedule(() -> {
-      onQueuedTaskTimeout(taskId);
+    // Kept per router, so a purged router takes its timers along
+    ConcurrentMap<Long, ScheduledFuture<?>> routerTimers =
+        expirationTimers.computeIfAbsent(routerId, id -> new ConcurrentHashMap<>());
+    ScheduledFuture<?> timer = timerLane.get().schedule(() -> {
+      routerTimers.remove(taskId);
+      onQueuedTaskTimeout(routerId, taskId);
     }, seconds, TimeUnit.SECONDS);
+    routerTimers.put(taskId, timer);
+    if (timer.isDone()) {
+      routerTimers.remove(taskId, timer);
+    }
   }
 
-  private void onQueuedTaskTimeout(Long taskId) {
+  private void onQueuedTaskTimeout(Long routerId, Long taskId) {
 
     try {
       LOGGER.debug("onQueuedTaskTimeout(): Task with ID='{}' timed-out", taskId);
-      processTaskTimeout(taskId);
+      processTaskTimeout(routerId, taskId);
     } catch (RuntimeException | CommsRouterException ex) {
       LOGGER.error("Exception while processing timeout for task {}: {}", taskId, ex);
     }
   }
 
-  private void processTaskTimeout(Long taskId) throws CommsRouterException {
+  private void processTaskTimeout(Long routerId, Long taskId) throws CommsRouterException {
 
     TaskDto taskDto = db.transactionManager.execute((em) -> {
       Task task = db.task.get(em, taskId);
@@ -258,7 +712,12 @@ public class TaskDispatcher {
           task.setExpirationDate(expirationDate);
 
           if (matchedRoute.getQueue() != null) {
+            Queue previousQueue = task.getQueue();
             task.setQueue(matchedRoute.getQueue());
+            if (!Objects.equals(matchedRoute.getQueue().getId(), previousQueue.getId())) {
+              routerEvents.taskRequeued(task, previousQueue);
+              queueCounters.taskRequeued(task, previousQueue);
+            }
           }
           break;
         }
@@ -269,7 +728,7 @@ public class TaskDispatcher {
     });
 
     if (taskDto != null) {
-      setTaskExpirationTimeout(taskDto.getId(), taskDto.getQueuedTimeout());
+      setTaskExpirationTimeout(routerId, taskDto.getId(), taskDto.getQueuedTimeout());
     }
 
   }
@@ -295,7 +754,7 @@ public class TaskDispatcher {
   }
 
   private void restartWaitingTaskTimers() {
-    threadPool.submit(this::doRestartWaitingTaskTimers);
+    timerLane.get().submit(this::doRestartWaitingTaskTimers);
   }
 
   private void doRestartWaitingTaskTimers() {
@@ -321,7 +780,7 @@ public class TaskDispatcher {
       LOGGER.trace("No expiration date, won't attach timer for task: {}", task.getRef());
     } else {
       long seconds = (task.getExpirationDate().getTime() - System.currentTimeMillis()) / 1000;
-      setTaskExpirationTimeout(task.getId(), seconds);
+      setTaskExpirationTimeout(task.getRouter().getId(), task.getId(), seconds);
     }
   }
 
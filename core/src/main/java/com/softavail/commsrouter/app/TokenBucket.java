@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free token bucket, kept as the single time at which the bucket would be full again
+ * (the generic cell rate algorithm). Taking tokens is one compare and set.
+ *
+ * @author ikrustev
+ */
+public class TokenBucket {
+
+  private final long nanosPerToken;
+  private final long burstNanos;
+  private final AtomicLong fullAtNanos;
+
+  /**
+   * @param tokensPerSecond the refill rate
+   * @param burst the bucket size
+   */
+  public TokenBucket(double tokensPerSecond, int burst, long nowNanos) {
+    this.nanosPerToken = Math.max((long) (1_000_000_000L / tokensPerSecond), 1);
+    this.burstNanos = nanosPerToken * Math.max(burst, 1);
+    this.fullAtNanos = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * @return 0 if the tokens were taken, or the nanoseconds until they would be available
+   */
+  public long tryTake(int tokens, long nowNanos) {
+    long costNanos = nanosPerToken * tokens;
+    for (; ; ) {
+      long fullAt = fullAtNanos.get();
+      long newFullAt = Math.max(fullAt, nowNanos) + costNanos;
+      long waitNanos = newFullAt - nowNanos - burstNanos;
+      if (waitNanos > 0 && fullAt > nowNanos) {
+        // More than the bucket holds is taken only from a full bucket, so wait no longer
+        return Math.min(waitNanos, fullAt - nowNanos);
+      }
+      if (fullAtNanos.compareAndSet(fullAt, newFullAt)) {
+        return 0;
+      }
+    }
+  }
+
+}
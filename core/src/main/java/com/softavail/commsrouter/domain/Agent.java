@@ -18,6 +18,7 @@ package com.softavail.commsrouter.domain;
 
 import com.softavail.commsrouter.api.dto.model.AgentState;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -28,6 +29,8 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.JoinColumn;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
@@ -39,8 +42,12 @@ import javax.persistence.TemporalType;
  */
 @Entity
 @Table(name = "agent")
+@NamedEntityGraph(name = Agent.DTO_GRAPH, attributeNodes = {
+    @NamedAttributeNode("capabilities")})
 public class Agent extends RouterObject {
 
+  public static final String DTO_GRAPH = "Agent.dto";
+
   @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true)
   @JoinColumn(name = "capabilities_attribute_group_id")
   private AttributeGroup capabilities;
@@ -54,6 +61,7 @@ public class Agent extends RouterObject {
   @Enumerated(EnumType.STRING)
   private AgentState state;
 
+  @BatchSize(size = 50)
   @OneToMany(mappedBy = "agent", cascade = CascadeType.ALL, orphanRemoval = true)
   private List<AgentQueueMapping> agentQueueMappings = new ArrayList<>();
 
@@ -41,7 +41,7 @@ public class Attribute implements Serializable {
   }
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequence.NAME)
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
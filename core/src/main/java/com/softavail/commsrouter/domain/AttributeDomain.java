@@ -43,7 +43,7 @@ import javax.persistence.Table;
 public class AttributeDomain implements Serializable {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequence.NAME)
   private Long id;
 
   @Column(name = "type")
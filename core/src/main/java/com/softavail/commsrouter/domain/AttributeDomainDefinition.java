@@ -40,7 +40,7 @@ import javax.validation.constraints.Size;
 public class AttributeDomainDefinition implements Serializable {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequence.NAME)
   private Long id;
 
   @Column(name = "enum_value")
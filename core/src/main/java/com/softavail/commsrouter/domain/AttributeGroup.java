@@ -14,6 +14,8 @@
 
 package com.softavail.commsrouter.domain;
 
+import org.hibernate.annotations.BatchSize;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -31,12 +33,14 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "attribute_group")
+@BatchSize(size = 50)
 public class AttributeGroup implements Serializable {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequence.NAME)
   private Long id;
 
+  @BatchSize(size = 50)
   @OneToMany(mappedBy = "attributeGroup", cascade = CascadeType.ALL, orphanRemoval = true)
   private List<Attribute> attributes = new ArrayList<>();
 
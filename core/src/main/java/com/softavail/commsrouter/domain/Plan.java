@@ -17,12 +17,15 @@
 package com.softavail.commsrouter.domain;
 
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.OrderColumn;
@@ -34,10 +37,15 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "plan")
+@NamedEntityGraph(name = Plan.DTO_GRAPH, attributeNodes = {
+    @NamedAttributeNode("defaultRoute")})
 public class Plan extends RouterObject {
 
+  public static final String DTO_GRAPH = "Plan.dto";
+
   private String description;
 
+  @BatchSize(size = 50)
   @OneToMany(mappedBy = "plan", cascade = CascadeType.ALL, orphanRemoval = true)
   @OrderColumn(name = "rule_order")
   private List<Rule> rules = new ArrayList<>();
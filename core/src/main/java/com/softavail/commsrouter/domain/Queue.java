@@ -17,6 +17,7 @@
 package com.softavail.commsrouter.domain;
 
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +32,7 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "queue")
+@BatchSize(size = 50)
 public class Queue extends RouterObject {
 
   private String description;
@@ -37,7 +37,7 @@ import javax.persistence.Table;
 public class Route implements Serializable {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequence.NAME)
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -16,6 +16,8 @@
 
 package com.softavail.commsrouter.domain;
 
+import org.hibernate.annotations.BatchSize;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -41,7 +43,7 @@ import javax.persistence.Table;
 public class Rule implements Serializable {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequence.NAME)
   private Long id;
 
   private String tag;
@@ -51,6 +53,7 @@ public class Rule implements Serializable {
   @JoinColumn(name = "plan_id")
   private Plan plan;
 
+  @BatchSize(size = 50)
   @OneToMany(mappedBy = "rule", cascade = CascadeType.ALL, orphanRemoval = true)
   @OrderColumn(name = "route_order")
   private List<Route> routes = new ArrayList<>();
@@ -31,6 +31,8 @@ import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
@@ -41,8 +43,15 @@ import javax.persistence.TemporalType;
  */
 @Entity
 @Table(name = "task")
+@NamedEntityGraph(name = Task.DTO_GRAPH, attributeNodes = {
+    @NamedAttributeNode("requirements"),
+    @NamedAttributeNode("userContext"),
+    @NamedAttributeNode("queue"),
+    @NamedAttributeNode("agent")})
 public class Task extends RouterObject {
 
+  public static final String DTO_GRAPH = "Task.dto";
+
   @OneToOne(cascade = CascadeType.ALL)
   @JoinColumn(name = "requirements_attribute_group_id")
   private AttributeGroup requirements;
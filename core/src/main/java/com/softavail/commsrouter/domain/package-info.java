@@ -0,0 +1,28 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Entities of the router. Their ids come from the generator declared here.
+ */
+@GenericGenerator(name = PooledSequence.NAME, strategy = "enhanced-sequence", parameters = {
+    @Parameter(name = "prefer_sequence_per_entity", value = "true"),
+    @Parameter(name = "sequence_per_entity_suffix", value = "_seq"),
+    @Parameter(name = "optimizer", value = "pooled-lo"),
+    @Parameter(name = "increment_size", value = "50")})
+package com.softavail.commsrouter.domain;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
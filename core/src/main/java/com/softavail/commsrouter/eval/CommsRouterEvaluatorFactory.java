@@ -15,6 +15,11 @@
 package com.softavail.commsrouter.eval;
 
 import com.softavail.commsrouter.api.exception.ExpressionException;
+import com.softavail.commsrouter.metrics.Histogram;
+import com.softavail.commsrouter.metrics.MetricsRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  *
@@ -27,6 +32,8 @@ public class CommsRouterEvaluatorFactory {
   }
 
   private final RsqlEvaluatorFactory rsqlFactory = new RsqlEvaluatorFactory(this);
+  private final Map<ExpressionType, Histogram> evaluationMicros =
+      new EnumMap<>(ExpressionType.class);
   private RsqlValidator rsqlValidator;
 
   private ExpressionType determineType(String expression) {
@@ -47,9 +54,31 @@ public class CommsRouterEvaluatorFactory {
     }
   }
 
+  public CommsRouterEvaluatorFactory() {
+    for (ExpressionType type : ExpressionType.values()) {
+      evaluationMicros.put(type, MetricsRegistry.getDefault().histogram(
+          "commsrouter_evaluation_duration_microseconds",
+          "Predicate evaluation time, by expression type", Histogram.DEFAULT_MICROS_BUCKETS,
+          "type", type.name().toLowerCase()));
+    }
+  }
+
   public CommsRouterEvaluator provide(String predicate, String routerRef)
       throws ExpressionException {
 
+    return timed(create(predicate, routerRef), predicate);
+  }
+
+  CommsRouterEvaluator timed(CommsRouterEvaluator evaluator, String expression) {
+    if (evaluator instanceof TimedEvaluator) {
+      return evaluator;
+    }
+    return new TimedEvaluator(this, evaluator, evaluationMicros.get(determineType(expression)));
+  }
+
+  private CommsRouterEvaluator create(String predicate, String routerRef)
+      throws ExpressionException {
+
     switch (determineType(predicate)) {
       case JEVAL:
         return new JEvalEvaluator(this, predicate);
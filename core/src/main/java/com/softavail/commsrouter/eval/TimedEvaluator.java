@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.eval;
+
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.api.exception.ExpressionException;
+import com.softavail.commsrouter.domain.AttributeGroup;
+import com.softavail.commsrouter.metrics.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the time each evaluation takes in the histogram of the expression type.
+ *
+ * @author ikrustev
+ */
+class TimedEvaluator implements CommsRouterEvaluator {
+
+  private final CommsRouterEvaluatorFactory factory;
+  private final CommsRouterEvaluator evaluator;
+  private final Histogram evaluationMicros;
+
+  TimedEvaluator(CommsRouterEvaluatorFactory factory, CommsRouterEvaluator evaluator,
+      Histogram evaluationMicros) {
+    this.factory = factory;
+    this.evaluator = evaluator;
+    this.evaluationMicros = evaluationMicros;
+  }
+
+  @Override
+  public CommsRouterEvaluator changeExpression(String expression, String routerRef)
+      throws ExpressionException {
+
+    return factory.timed(evaluator.changeExpression(expression, routerRef), expression);
+  }
+
+  @Override
+  public boolean evaluate(AttributeGroup attributes) throws CommsRouterException {
+    long startNanos = System.nanoTime();
+    try {
+      return evaluator.evaluate(attributes);
+    } finally {
+      evaluationMicros.observe(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+  }
+
+  @Override
+  public void validate() throws ExpressionException {
+    evaluator.validate();
+  }
+
+}
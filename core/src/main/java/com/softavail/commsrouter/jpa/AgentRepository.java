@@ -24,7 +24,7 @@ import com.softavail.commsrouter.domain.Agent;
 public class AgentRepository extends RouterObjectRepository<Agent> {
 
   public AgentRepository(JpaTransactionManager transactionManager) {
-    super(transactionManager);
+    super(transactionManager, Agent.DTO_GRAPH);
   }
 
 }
@@ -0,0 +1,230 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.jpa;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import javax.persistence.EntityManager;
+
+/**
+ * Set based deletes of everything that belongs to a router or a queue, one chunk of owner ids at
+ * a time. Each chunk method deletes the dependent rows first and reports the rows deleted per
+ * table. It returns the number of owner rows deleted, zero when there is nothing left.
+ *
+ * @author ikrustev
+ */
+public class BulkDeleteRepository {
+
+  public int deleteTaskChunk(EntityManager em, Long routerId, int chunkSize,
+      ObjIntConsumer<String> deleted) {
+
+    return deleteTasks(em, selectChunk(em, "Task", "router", routerId, chunkSize), deleted);
+  }
+
+  public int deleteQueueTaskChunk(EntityManager em, Long queueId, int chunkSize,
+      ObjIntConsumer<String> deleted) {
+
+    return deleteTasks(em, selectChunk(em, "Task", "queue", queueId, chunkSize), deleted);
+  }
+
+  public int deleteAgentChunk(EntityManager em, Long routerId, int chunkSize,
+      ObjIntConsumer<String> deleted) {
+
+    List<Long> ids = selectChunk(em, "Agent", "router", routerId, chunkSize);
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Long> groupIds = em.createQuery("SELECT g.id FROM Agent a JOIN a.capabilities g "
+        + "WHERE a.id IN :ids")
+        .setParameter("ids", ids)
+        .getResultList();
+
+    deleted.accept("agent_queue", em
+        .createQuery("DELETE FROM AgentQueueMapping m WHERE m.agent.id IN :ids")
+        .setParameter("ids", ids)
+        .executeUpdate());
+    int count = deleteByIds(em, "Agent", ids);
+    deleted.accept("agent", count);
+    deleteAttributeGroups(em, groupIds, deleted);
+    return count;
+  }
+
+  public int deletePlanChunk(EntityManager em, Long routerId, int chunkSize,
+      ObjIntConsumer<String> deleted) {
+
+    List<Long> ids = selectChunk(em, "Plan", "router", routerId, chunkSize);
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Long> defaultRouteIds = em.createQuery("SELECT r.id FROM Plan p JOIN p.defaultRoute r "
+        + "WHERE p.id IN :ids")
+        .setParameter("ids", ids)
+        .getResultList();
+
+    em.createQuery("UPDATE Plan p SET p.defaultRoute = NULL WHERE p.id IN :ids")
+        .setParameter("ids", ids)
+        .executeUpdate();
+    int routes = em.createQuery("DELETE FROM Route r "
+        + "WHERE r.rule.id IN (SELECT ru.id FROM Rule ru WHERE ru.plan.id IN :ids)")
+        .setParameter("ids", ids)
+        .executeUpdate();
+    routes += deleteByIds(em, "Route", defaultRouteIds);
+    deleted.accept("route", routes);
+    deleted.accept("rule", em.createQuery("DELETE FROM Rule ru WHERE ru.plan.id IN :ids")
+        .setParameter("ids", ids)
+        .executeUpdate());
+    int count = deleteByIds(em, "Plan", ids);
+    deleted.accept("plan", count);
+    return count;
+  }
+
+  public int deleteQueueChunk(EntityManager em, Long routerId, int chunkSize,
+      ObjIntConsumer<String> deleted) {
+
+    return deleteQueues(em, selectChunk(em, "Queue", "router", routerId, chunkSize), deleted);
+  }
+
+  /**
+   * Deletes the queue itself; its tasks must be gone already.
+   */
+  public int deleteQueue(EntityManager em, Long queueId, ObjIntConsumer<String> deleted) {
+    return deleteQueues(em, Collections.singletonList(queueId), deleted);
+  }
+
+  public boolean isQueueRouted(EntityManager em, Long queueId) {
+    return em.createQuery("SELECT COUNT(r.id) FROM Route r WHERE r.queue.id = :queueId",
+        Long.class)
+        .setParameter("queueId", queueId)
+        .getSingleResult() > 0;
+  }
+
+  public int deleteSkillChunk(EntityManager em, Long routerId, int chunkSize,
+      ObjIntConsumer<String> deleted) {
+
+    List<Long> ids = selectChunk(em, "Skill", "router", routerId, chunkSize);
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Long> domainIds = em.createQuery("SELECT d.id FROM Skill s JOIN s.domain d "
+        + "WHERE s.id IN :ids")
+        .setParameter("ids", ids)
+        .getResultList();
+
+    int count = deleteByIds(em, "Skill", ids);
+    deleted.accept("skill", count);
+    if (!domainIds.isEmpty()) {
+      deleted.accept("attribute_domain_definition", em
+          .createQuery("DELETE FROM AttributeDomainDefinition d "
+              + "WHERE d.attributeDomain.id IN :ids")
+          .setParameter("ids", domainIds)
+          .executeUpdate());
+      deleted.accept("attribute_domain", deleteByIds(em, "AttributeDomain", domainIds));
+    }
+    return count;
+  }
+
+  public int deleteRouter(EntityManager em, Long routerId, ObjIntConsumer<String> deleted) {
+    deleted.accept("router_config", em
+        .createQuery("DELETE FROM RouterConfig c WHERE c.id = :id")
+        .setParameter("id", routerId)
+        .executeUpdate());
+    int count = em.createQuery("DELETE FROM Router r WHERE r.id = :id")
+        .setParameter("id", routerId)
+        .executeUpdate();
+    deleted.accept("router", count);
+    return count;
+  }
+
+  private int deleteTasks(EntityManager em, List<Long> ids, ObjIntConsumer<String> deleted) {
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Long> groupIds = em.createQuery("SELECT g.id FROM Task t JOIN t.requirements g "
+        + "WHERE t.id IN :ids")
+        .setParameter("ids", ids)
+        .getResultList();
+    @SuppressWarnings("unchecked")
+    List<Long> contextIds = em.createQuery("SELECT g.id FROM Task t JOIN t.userContext g "
+        + "WHERE t.id IN :ids")
+        .setParameter("ids", ids)
+        .getResultList();
+    groupIds.addAll(contextIds);
+
+    int count = deleteByIds(em, "Task", ids);
+    deleted.accept("task", count);
+    deleteAttributeGroups(em, groupIds, deleted);
+    return count;
+  }
+
+  private int deleteQueues(EntityManager em, List<Long> ids, ObjIntConsumer<String> deleted) {
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    deleted.accept("agent_queue", em
+        .createQuery("DELETE FROM AgentQueueMapping m WHERE m.queue.id IN :ids")
+        .setParameter("ids", ids)
+        .executeUpdate());
+    int count = deleteByIds(em, "Queue", ids);
+    deleted.accept("queue", count);
+    return count;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Long> selectChunk(EntityManager em, String entityName, String owner,
+      Long ownerId, int chunkSize) {
+
+    return em.createQuery("SELECT e.id FROM " + entityName + " e "
+        + "WHERE e." + owner + ".id = :ownerId ORDER BY e.id")
+        .setParameter("ownerId", ownerId)
+        .setMaxResults(chunkSize)
+        .getResultList();
+  }
+
+  private void deleteAttributeGroups(EntityManager em, List<Long> groupIds,
+      ObjIntConsumer<String> deleted) {
+
+    if (groupIds.isEmpty()) {
+      return;
+    }
+    deleted.accept("attribute", em
+        .createQuery("DELETE FROM Attribute a WHERE a.attributeGroup.id IN :ids")
+        .setParameter("ids", groupIds)
+        .executeUpdate());
+    deleted.accept("attribute_group", deleteByIds(em, "AttributeGroup", groupIds));
+  }
+
+  private int deleteByIds(EntityManager em, String entityName, Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    return em.createQuery("DELETE FROM " + entityName + " e WHERE e.id IN :ids")
+        .setParameter("ids", ids)
+        .executeUpdate();
+  }
+
+}
@@ -19,7 +19,11 @@ package com.softavail.commsrouter.jpa;
 import com.softavail.commsrouter.app.CoreConfiguration;
 import com.softavail.commsrouter.domain.Agent;
 import com.softavail.commsrouter.domain.Skill;
+import com.softavail.commsrouter.metrics.MetricsRegistry;
+import com.softavail.commsrouter.metrics.TransactionMetrics;
 
+import java.util.HashMap;
+import java.util.Map;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
 
@@ -31,6 +35,7 @@ public class JpaDbFacade {
   private static final String PERSISTENCE_UNIT = "com.softavail.comms-router.core-pu";
 
   public final JpaTransactionManager transactionManager;
+  public final TransactionMetrics transactionMetrics;
 
   public final RouterRepository router;
   public final QueueRepository queue;
@@ -38,6 +43,7 @@ public class JpaDbFacade {
   public final RouterObjectRepository<Agent> agent;
   public final TaskRepository task;
   public final RouterObjectRepository<Skill> skill;
+  public final BulkDeleteRepository bulkDelete;
 
   public JpaDbFacade() {
     this(CoreConfiguration.DEFAULT, PERSISTENCE_UNIT);
@@ -53,9 +59,18 @@ public class JpaDbFacade {
 
   public JpaDbFacade(CoreConfiguration configuration, String unit) {
 
-    EntityManagerFactory emf = Persistence.createEntityManagerFactory(unit);
+    EntityManagerFactory emf =
+        Persistence.createEntityManagerFactory(unit, getPersistenceProperties(configuration));
 
-    transactionManager = new JpaTransactionManager(emf, configuration.getJpaLockRetryCount());
+    LockRetryBackoff lockRetryBackoff = new LockRetryBackoff(
+        configuration.getJpaLockRetryBackoffDelay(),
+        configuration.getJpaLockRetryBackoffDelayMax(),
+        configuration.getJpaLockRetryJitterFactor());
+
+    transactionMetrics = new TransactionMetrics();
+    MetricsRegistry.getDefault().register("transactions", transactionMetrics);
+    transactionManager = new JpaTransactionManager(emf, configuration.getJpaLockRetryCount(),
+        lockRetryBackoff, transactionMetrics);
 
     this.router = new RouterRepository(transactionManager);
     this.queue = new QueueRepository(transactionManager);
@@ -63,7 +78,17 @@ public class JpaDbFacade {
     this.agent = new AgentRepository(transactionManager);
     this.task = new TaskRepository(transactionManager);
     this.skill = new SkillRepository(transactionManager);
+    this.bulkDelete = new BulkDeleteRepository();
+
+  }
 
+  public static Map<String, Object> getPersistenceProperties(CoreConfiguration configuration) {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("hibernate.jdbc.batch_size", configuration.getJpaJdbcBatchSize());
+    properties.put("hibernate.jdbc.batch_versioned_data", true);
+    properties.put("hibernate.order_inserts", configuration.getJpaOrderInserts());
+    properties.put("hibernate.order_updates", configuration.getJpaOrderUpdates());
+    return properties;
   }
 
   public void close() {
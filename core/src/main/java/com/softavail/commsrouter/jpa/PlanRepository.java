@@ -25,7 +25,7 @@ import com.softavail.commsrouter.domain.Plan;
 public class PlanRepository extends RouterObjectRepository<Plan> {
 
   public PlanRepository(JpaTransactionManager transactionManager) {
-    super(transactionManager);
+    super(transactionManager, Plan.DTO_GRAPH);
   }
 
 }
@@ -22,8 +22,14 @@ import com.softavail.commsrouter.api.dto.model.TaskState;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.domain.Queue;
 import com.softavail.commsrouter.domain.result.MatchResult;
+import com.softavail.commsrouter.domain.result.QueueCountsResult;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import javax.persistence.EntityManager;
 
@@ -59,6 +65,76 @@ public class QueueRepository extends RouterObjectRepository<Queue> {
         .getSingleResult();
   }
 
+  /**
+   * Waiting task counts of several queues with one grouped query. Queues with no waiting tasks
+   * are not in the result.
+   */
+  @SuppressWarnings("unchecked")
+  public Map<Long, Long> getQueueSizes(EntityManager em, Collection<Long> queueIds)
+      throws CommsRouterException {
+
+    Map<Long, Long> sizes = new HashMap<>();
+    if (queueIds.isEmpty()) {
+      return sizes;
+    }
+
+    String qlString = "SELECT q.id, COUNT(t.id) FROM Task t JOIN t.queue q "
+        + "WHERE q.id IN :queueIds AND t.state = :state GROUP BY q.id";
+
+    List<Object[]> rows = em.createQuery(qlString)
+        .setParameter("queueIds", queueIds)
+        .setParameter("state", TaskState.waiting)
+        .getResultList();
+
+    rows.forEach(row -> sizes.put((Long) row[0], (Long) row[1]));
+    return sizes;
+  }
+
+  /**
+   * Waiting tasks and ready and busy agents of every queue, with three grouped queries.
+   */
+  @SuppressWarnings("unchecked")
+  public Map<Long, QueueCountsResult> getQueueCounts(EntityManager em)
+      throws CommsRouterException {
+
+    Map<Long, QueueCountsResult> counts = new HashMap<>();
+    List<Object[]> queueRows =
+        em.createQuery("SELECT q.id, r.ref FROM Queue q JOIN q.router r").getResultList();
+    queueRows.forEach(row ->
+        counts.put((Long) row[0], new QueueCountsResult((Long) row[0], (String) row[1])));
+
+    List<Object[]> taskRows = em.createQuery("SELECT q.id, COUNT(t.id), MIN(t.createDate) "
+        + "FROM Task t JOIN t.queue q WHERE t.state = :state GROUP BY q.id")
+        .setParameter("state", TaskState.waiting)
+        .getResultList();
+    taskRows.forEach(row -> {
+      QueueCountsResult result = counts.get((Long) row[0]);
+      if (result != null) {
+        result.waitingTasks = (Long) row[1];
+        result.oldestWaitingTaskDate = (Date) row[2];
+      }
+    });
+
+    List<Object[]> agentRows = em.createQuery("SELECT q.id, a.state, COUNT(a.id) "
+        + "FROM Queue q JOIN q.agentQueueMappings m JOIN m.agent a "
+        + "WHERE a.state IN :states GROUP BY q.id, a.state")
+        .setParameter("states", Arrays.asList(AgentState.ready, AgentState.busy))
+        .getResultList();
+    agentRows.forEach(row -> {
+      QueueCountsResult result = counts.get((Long) row[0]);
+      if (result == null) {
+        return;
+      }
+      if (row[1] == AgentState.ready) {
+        result.readyAgents = (Long) row[2];
+      } else {
+        result.busyAgents = (Long) row[2];
+      }
+    });
+
+    return counts;
+  }
+
   @SuppressWarnings("unchecked")
   public Optional<MatchResult> findAssignment(EntityManager em, Long queueId)
       throws CommsRouterException {
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.jpa;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Objects;
+
+/**
+ * Concurrent ref to id lookup, so repositories can resolve refs with a primary key find.
+ *
+ * <p>Ids are never reused, so an entry can only go stale when its object is deleted or replaced.
+ * Every directory belongs to one node and nothing tells it about deletes on other nodes, so an
+ * id from the directory is only a hint: callers check it against the database, with a primary
+ * key lookup or lock, and on a miss evict the entry and fall back to the ref query. Evicting on
+ * local deletes only saves that check.
+ *
+ * @author ikrustev
+ */
+public class RefDirectory {
+
+  public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+  private final Cache<Key, Long> ids;
+
+  public RefDirectory() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  public RefDirectory(long maximumSize) {
+    this.ids = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  public Long get(String routerRef, String ref) {
+    return ids.getIfPresent(new Key(routerRef, ref));
+  }
+
+  public void put(String routerRef, String ref, Long id) {
+    ids.put(new Key(routerRef, ref), id);
+  }
+
+  public void evict(String routerRef, String ref) {
+    ids.invalidate(new Key(routerRef, ref));
+  }
+
+  public long size() {
+    return ids.size();
+  }
+
+  private static final class Key {
+
+    private final String routerRef;
+    private final String ref;
+
+    private Key(String routerRef, String ref) {
+      this.routerRef = routerRef;
+      this.ref = ref;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) object;
+      return Objects.equals(routerRef, other.routerRef) && Objects.equals(ref, other.ref);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(routerRef, ref);
+    }
+
+  }
+
+}
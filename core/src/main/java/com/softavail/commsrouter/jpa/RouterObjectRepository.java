@@ -20,9 +20,14 @@ import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.api.exception.NotFoundException;
 import com.softavail.commsrouter.domain.RouterObject;
+import com.softavail.commsrouter.domain.result.VersionResult;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 
 /**
  * @author ikrustev
@@ -30,8 +35,36 @@ import javax.persistence.EntityManager;
 public class RouterObjectRepository<ENTITYT extends RouterObject>
     extends GenericRepository<ENTITYT> {
 
+  private static final String LOAD_GRAPH_HINT = "javax.persistence.loadgraph";
+
+  private final String dtoGraphName;
+  private final RefDirectory refDirectory = new RefDirectory();
+
   public RouterObjectRepository(JpaTransactionManager transactionManager) {
+    this(transactionManager, null);
+  }
+
+  /**
+   * @param dtoGraphName name of the entity graph holding the associations the DTO mapper reads.
+   */
+  public RouterObjectRepository(JpaTransactionManager transactionManager, String dtoGraphName) {
     super(transactionManager);
+    this.dtoGraphName = dtoGraphName;
+  }
+
+  public EntityGraph<?> getDtoGraph(EntityManager em) {
+    if (dtoGraphName == null) {
+      return null;
+    }
+    return em.getEntityGraph(dtoGraphName);
+  }
+
+  public <Q extends Query> Q withDtoGraph(EntityManager em, Q query) {
+    EntityGraph<?> graph = getDtoGraph(em);
+    if (graph != null) {
+      query.setHint(LOAD_GRAPH_HINT, graph);
+    }
+    return query;
   }
 
   public ENTITYT get(EntityManager em, RouterObjectRef routerObjectRef) throws NotFoundException {
@@ -42,13 +75,60 @@ public class RouterObjectRepository<ENTITYT extends RouterObject>
     throw new NotFoundException(entityClass.getSimpleName() + " " + routerObjectRef + " not found");
   }
 
-  @SuppressWarnings("unchecked")
+  public ENTITYT getForDto(EntityManager em, RouterObjectRef routerObjectRef)
+      throws NotFoundException {
+    ENTITYT entity = getNoThrow(em, routerObjectRef, true);
+    if (entity != null) {
+      return entity;
+    }
+    throw new NotFoundException(entityClass.getSimpleName() + " " + routerObjectRef + " not found");
+  }
+
   public ENTITYT getNoThrow(EntityManager em, RouterObjectRef routerObjectRef)
       throws NotFoundException {
-    String query = "SELECT e FROM " + entityClass.getSimpleName()
+    return getNoThrow(em, routerObjectRef, false);
+  }
+
+  private ENTITYT getNoThrow(EntityManager em, RouterObjectRef routerObjectRef, boolean forDto) {
+    String routerRef = routerObjectRef.getRouterRef();
+    String ref = routerObjectRef.getRef();
+
+    Long id = refDirectory.get(routerRef, ref);
+    if (id != null) {
+      ENTITYT entity = find(em, id, forDto);
+      if (entity != null && ref.equals(entity.getRef())) {
+        return entity;
+      }
+      refDirectory.evict(routerRef, ref);
+    }
+
+    ENTITYT entity = query(em, routerObjectRef, forDto);
+    if (entity != null) {
+      refDirectory.put(routerRef, ref, entity.getId());
+    }
+    return entity;
+  }
+
+  private ENTITYT find(EntityManager em, Long id, boolean forDto) {
+    EntityGraph<?> graph = forDto ? getDtoGraph(em) : null;
+    if (graph == null) {
+      return em.find(entityClass, id);
+    }
+    Map<String, Object> hints = Collections.singletonMap(LOAD_GRAPH_HINT, graph);
+    return em.find(entityClass, id, hints);
+  }
+
+  @SuppressWarnings("unchecked")
+  private ENTITYT query(EntityManager em, RouterObjectRef routerObjectRef, boolean forDto) {
+    String queryString = "SELECT e FROM " + entityClass.getSimpleName()
         + " e JOIN e.router r WHERE r.ref = :routerRef AND e.ref = :ref";
 
-    List<ENTITYT> result = em.createQuery(query)
+    Query query = em.createQuery(queryString);
+    if (forDto) {
+      withDtoGraph(em, query);
+    }
+
+    List<ENTITYT> result = query
         .setParameter("routerRef", routerObjectRef.getRouterRef())
         .setParameter("ref", routerObjectRef.getRef())
         .getResultList();
@@ -62,6 +142,44 @@ public class RouterObjectRepository<ENTITYT extends RouterObject>
     return result.get(0);
   }
 
+  /**
+   * Reads only the id and version of an object, without loading it or its associations.
+   */
+  @SuppressWarnings("unchecked")
+  public VersionResult getVersion(EntityManager em, RouterObjectRef routerObjectRef)
+      throws NotFoundException {
+
+    String routerRef = routerObjectRef.getRouterRef();
+    String ref = routerObjectRef.getRef();
+
+    Long id = refDirectory.get(routerRef, ref);
+    if (id != null) {
+      List<Integer> versions = em
+          .createQuery("SELECT e.version FROM " + entityClass.getSimpleName()
+              + " e WHERE e.id = :id")
+          .setParameter("id", id)
+          .getResultList();
+      if (!versions.isEmpty()) {
+        return new VersionResult(id, versions.get(0));
+      }
+      refDirectory.evict(routerRef, ref);
+    }
+
+    List<Object[]> rows = em
+        .createQuery("SELECT e.id, e.version FROM " + entityClass.getSimpleName()
+            + " e JOIN e.router r WHERE r.ref = :routerRef AND e.ref = :ref")
+        .setParameter("routerRef", routerRef)
+        .setParameter("ref", ref)
+        .getResultList();
+    if (rows.isEmpty()) {
+      throw new NotFoundException(entityClass.getSimpleName() + " " + routerObjectRef
+          + " not found");
+    }
+    Object[] row = rows.get(0);
+    refDirectory.put(routerRef, ref, (Long) row[0]);
+    return new VersionResult((Long) row[0], (Integer) row[1]);
+  }
+
   @SuppressWarnings("unchecked")
   public List<ENTITYT> list(EntityManager em, String routerRef) {
     return em
@@ -78,7 +196,12 @@ public class RouterObjectRepository<ENTITYT extends RouterObject>
     if (entity != null) {
       em.remove(entity);
     }
+    evictRef(routerObjectRef);
     return entity;
   }
 
+  public void evictRef(RouterObjectRef routerObjectRef) {
+    refDirectory.evict(routerObjectRef.getRouterRef(), routerObjectRef.getRef());
+  }
+
 }
@@ -30,6 +30,8 @@ import javax.persistence.LockModeType;
  */
 public class RouterRepository extends GenericRepository<Router> {
 
+  private final RefDirectory refDirectory = new RefDirectory();
+
   public RouterRepository(JpaTransactionManager transactionManager) {
     super(transactionManager);
   }
@@ -45,6 +47,15 @@ public class RouterRepository extends GenericRepository<Router> {
   @SuppressWarnings("unchecked")
   public Router getByRefNoThrow(EntityManager em, String ref) throws NotFoundException {
 
+    Long id = refDirectory.get(null, ref);
+    if (id != null) {
+      Router router = em.find(Router.class, id);
+      if (router != null && ref.equals(router.getRef())) {
+        return router;
+      }
+      refDirectory.evict(null, ref);
+    }
+
     String query = "SELECT r FROM Router r WHERE r.ref = :ref";
 
     List<Router> result = em.createQuery(query).setParameter("ref", ref).getResultList();
@@ -55,7 +66,9 @@ public class RouterRepository extends GenericRepository<Router> {
 
     assert result.size() == 1;
 
-    return result.get(0);
+    Router router = result.get(0);
+    refDirectory.put(null, ref, router.getId());
+    return router;
   }
 
   public Long getIdByRef(EntityManager em, String ref) throws NotFoundException {
@@ -66,9 +79,24 @@ public class RouterRepository extends GenericRepository<Router> {
     throw new NotFoundException(entityClass.getSimpleName() + " " + ref + " not found");
   }
 
+  /**
+   * A directory hit is checked with a primary key lookup, as the router may have been deleted or
+   * replaced, on this node or on another one.
+   */
   @SuppressWarnings("unchecked")
   public Long getIdByRefNoThrow(EntityManager em, String ref) throws NotFoundException {
 
+    Long id = refDirectory.get(null, ref);
+    if (id != null) {
+      List<String> refs = em.createQuery("SELECT r.ref FROM Router r WHERE r.id = :id")
+          .setParameter("id", id)
+          .getResultList();
+      if (!refs.isEmpty() && ref.equals(refs.get(0))) {
+        return id;
+      }
+      refDirectory.evict(null, ref);
+    }
+
     String query = "SELECT r.id FROM Router r WHERE r.ref = :ref";
 
     List<Long> result = em.createQuery(query).setParameter("ref", ref).getResultList();
@@ -79,7 +107,9 @@ public class RouterRepository extends GenericRepository<Router> {
 
     assert result.size() == 1;
 
-    return result.get(0);
+    id = result.get(0);
+    refDirectory.put(null, ref, id);
+    return id;
   }
 
   public void deleteByRef(EntityManager em, String ref) throws CommsRouterException {
@@ -87,20 +117,29 @@ public class RouterRepository extends GenericRepository<Router> {
     if (router != null) {
       em.remove(router);
     }
+    refDirectory.evict(null, ref);
+  }
+
+  public void evictRef(String ref) {
+    refDirectory.evict(null, ref);
   }
 
   public void lock(EntityManager em, Long routerId) {
     em.find(Router.class, routerId, LockModeType.PESSIMISTIC_WRITE);
   }
 
-  public void lockConfig(EntityManager em, Long routerId) {
-    em.find(RouterConfig.class, routerId, LockModeType.PESSIMISTIC_WRITE);
+  public RouterConfig lockConfig(EntityManager em, Long routerId) {
+    return em.find(RouterConfig.class, routerId, LockModeType.PESSIMISTIC_WRITE);
   }
 
-  @SuppressWarnings("unchecked")
   public void lockConfigByRef(EntityManager em, String routerRef) throws NotFoundException {
-    Long routerId = getIdByRef(em, routerRef);
-    lockConfig(em, routerId);
+    // The lock itself checks a directory hit, so it is not looked up first
+    Long routerId = refDirectory.get(null, routerRef);
+    if (routerId == null || lockConfig(em, routerId) == null) {
+      // Not in the directory, or a stale entry - the router was deleted or replaced
+      refDirectory.evict(null, routerRef);
+      lockConfig(em, getIdByRef(em, routerRef));
+    }
   }
 
 }
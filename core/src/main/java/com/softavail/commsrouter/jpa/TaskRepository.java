@@ -21,6 +21,7 @@ import com.softavail.commsrouter.api.exception.NotFoundException;
 import com.softavail.commsrouter.domain.Task;
 import com.softavail.commsrouter.jpa.result.TaskEnumerableResult;
 
+import java.util.List;
 import javax.persistence.EntityManager;
 
 /**
@@ -29,7 +30,7 @@ import javax.persistence.EntityManager;
 public class TaskRepository extends RouterObjectRepository<Task> {
 
   public TaskRepository(JpaTransactionManager transactionManager) {
-    super(transactionManager);
+    super(transactionManager, Task.DTO_GRAPH);
   }
 
   public TaskEnumerableResult enumerableResultFilteredByWaitingState() {
@@ -56,4 +57,17 @@ public class TaskRepository extends RouterObjectRepository<Task> {
     throw new NotFoundException("Task with tag: '" + tag + "' not found");
   }
 
+  public Task findAssignedToAgent(EntityManager em, Long agentId) {
+
+    List<Task> tasks = withDtoGraph(em, em.createQuery(
+        "SELECT t FROM Task t WHERE t.agent.id = :agentId AND t.state = :state", Task.class))
+        .setParameter("agentId", agentId)
+        .setParameter("state", TaskState.assigned)
+        .getResultList();
+
+    assert tasks.size() <= 1 : "Agent " + agentId + " has " + tasks.size() + " assigned tasks";
+
+    return tasks.isEmpty() ? null : tasks.get(0);
+  }
+
 }
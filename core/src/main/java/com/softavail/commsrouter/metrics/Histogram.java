@@ -0,0 +1,88 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed bucket histogram. Each bucket counts the observations less than or equal to its upper
+ * bound and greater than the previous one; the last, implicit bucket is unbounded.
+ *
+ * @author ikrustev
+ */
+public class Histogram {
+
+  public static final double[] DEFAULT_MILLIS_BUCKETS =
+      {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+  public static final double[] DEFAULT_MICROS_BUCKETS =
+      {0.5, 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 5000, 25000, 100000};
+
+  private final double[] upperBounds;
+  private final LongAdder[] counts;
+  private final LongAdder count = new LongAdder();
+  private final DoubleAdder sum = new DoubleAdder();
+
+  public Histogram() {
+    this(DEFAULT_MILLIS_BUCKETS);
+  }
+
+  public Histogram(double... upperBounds) {
+    this.upperBounds = upperBounds.clone();
+    Arrays.sort(this.upperBounds);
+    this.counts = new LongAdder[this.upperBounds.length + 1];
+    for (int i = 0; i < counts.length; ++i) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  public void observe(double value) {
+    int index = Arrays.binarySearch(upperBounds, value);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    counts[index].increment();
+    count.increment();
+    sum.add(value);
+  }
+
+  public double[] getUpperBounds() {
+    return upperBounds.clone();
+  }
+
+  /**
+   * @return the count of each bucket, not cumulative; the last element is the unbounded bucket
+   */
+  public long[] getBucketCounts() {
+    long[] result = new long[counts.length];
+    for (int i = 0; i < counts.length; ++i) {
+      result[i] = counts[i].sum();
+    }
+    return result;
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public double getSum() {
+    return sum.sum();
+  }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named counters, gauges and histograms of the process, written out in the Prometheus text
+ * format.
+ *
+ * <p>Getting a metric with the same name and labels again returns the same instance, so call
+ * sites look their metrics up once and keep them in fields. Recording is then lock free.
+ *
+ * @author ikrustev
+ */
+public class MetricsRegistry {
+
+  private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+  public static MetricsRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  private static class Family {
+
+    private final MetricType type;
+    private final String help;
+    private final ConcurrentMap<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+    private Family(MetricType type, String help) {
+      this.type = type;
+      this.help = help;
+    }
+
+  }
+
+  private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+  private final ConcurrentMap<String, MetricsCollector> collectors = new ConcurrentHashMap<>();
+
+  public Counter counter(String name, String help, String... labels) {
+    return (Counter) family(name, MetricType.COUNTER, help).metrics
+        .computeIfAbsent(PrometheusTextWriter.labels(labels), key -> new Counter());
+  }
+
+  public Histogram histogram(String name, String help, double[] upperBounds, String... labels) {
+    return (Histogram) family(name, MetricType.HISTOGRAM, help).metrics
+        .computeIfAbsent(PrometheusTextWriter.labels(labels), key -> new Histogram(upperBounds));
+  }
+
+  /**
+   * Registers a gauge read on each scrape, replacing any previous one with the same labels.
+   */
+  public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+    family(name, MetricType.GAUGE, help).metrics.put(PrometheusTextWriter.labels(labels), value);
+  }
+
+  /**
+   * Registers a collector under a name, replacing any previous one with the same name.
+   */
+  public void register(String name, MetricsCollector collector) {
+    collectors.put(name, collector);
+  }
+
+  public void unregister(String name) {
+    collectors.remove(name);
+  }
+
+  private Family family(String name, MetricType type, String help) {
+    Family family = families.computeIfAbsent(name, key -> new Family(type, help));
+    if (family.type != type) {
+      throw new IllegalArgumentException(
+          "Metric " + name + " is a " + family.type + ", not a " + type);
+    }
+    return family;
+  }
+
+  public String scrape() {
+    PrometheusTextWriter writer = new PrometheusTextWriter();
+    families.forEach((name, family) -> {
+      writer.family(name, family.type, family.help);
+      for (Map.Entry<String, Object> entry : family.metrics.entrySet()) {
+        write(writer, name, family.type, entry.getKey(), entry.getValue());
+      }
+    });
+    collectors.values().forEach(collector -> collector.collect(writer));
+    return writer.toString();
+  }
+
+  private void write(PrometheusTextWriter writer, String name, MetricType type, String labels,
+      Object metric) {
+    switch (type) {
+      case COUNTER:
+        writer.sample(name, labels, ((Counter) metric).get());
+        break;
+      case GAUGE:
+        writer.sample(name, labels, ((DoubleSupplier) metric).getAsDouble());
+        break;
+      case HISTOGRAM:
+        writer.histogram(name, labels, (Histogram) metric);
+        break;
+      default:
+        throw new IllegalStateException("Unexpected metric type: " + type);
+    }
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.metrics;
+
+/**
+ * Builds the Prometheus text exposition format, version 0.0.4.
+ *
+ * <p>Labels are passed pre-rendered, as returned by {@link #labels(String...)}, so a metric
+ * renders its labels once and not on every scrape.
+ *
+ * @author ikrustev
+ */
+public class PrometheusTextWriter {
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final StringBuilder text = new StringBuilder(4096);
+
+  /**
+   * @param keyValues label names and values, alternating
+   * @return the labels rendered without braces, empty for none
+   */
+  public static String labels(String... keyValues) {
+    if (keyValues.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be given as name and value pairs");
+    }
+    StringBuilder labels = new StringBuilder();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      if (labels.length() > 0) {
+        labels.append(',');
+      }
+      labels.append(keyValues[i]).append("=\"");
+      escape(labels, keyValues[i + 1] != null ? keyValues[i + 1] : "");
+      labels.append('"');
+    }
+    return labels.toString();
+  }
+
+  private static void escape(StringBuilder builder, String value) {
+    for (int i = 0; i < value.length(); ++i) {
+      char ch = value.charAt(i);
+      switch (ch) {
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        default:
+          builder.append(ch);
+      }
+    }
+  }
+
+  public PrometheusTextWriter family(String name, MetricType type, String help) {
+    text.append("# HELP ").append(name).append(' ').append(help.replace("\n", " ")).append('\n');
+    text.append("# TYPE ").append(name).append(' ').append(type.name().toLowerCase())
+        .append('\n');
+    return this;
+  }
+
+  public PrometheusTextWriter sample(String name, String labels, double value) {
+    text.append(name);
+    if (!labels.isEmpty()) {
+      text.append('{').append(labels).append('}');
+    }
+    text.append(' ').append(format(value)).append('\n');
+    return this;
+  }
+
+  /**
+   * Writes the cumulative buckets, the sum and the count of a histogram.
+   */
+  public PrometheusTextWriter histogram(String name, String labels, Histogram histogram) {
+    double[] upperBounds = histogram.getUpperBounds();
+    long[] bucketCounts = histogram.getBucketCounts();
+    String separator = labels.isEmpty() ? "" : ",";
+    long cumulative = 0;
+    for (int i = 0; i < upperBounds.length; ++i) {
+      cumulative += bucketCounts[i];
+      sample(name + "_bucket", labels + separator + "le=\"" + format(upperBounds[i]) + "\"",
+          cumulative);
+    }
+    cumulative += bucketCounts[upperBounds.length];
+    sample(name + "_bucket", labels + separator + "le=\"+Inf\"", cumulative);
+    sample(name + "_sum", labels, histogram.getSum());
+    // The buckets are read one by one, so keep the count consistent with them
+    sample(name + "_count", labels, cumulative);
+    return this;
+  }
+
+  private static String format(double value) {
+    if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+      return Long.toString((long) value);
+    }
+    return Double.toString(value);
+  }
+
+  @Override
+  public String toString() {
+    return text.toString();
+  }
+
+}
@@ -0,0 +1,122 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.metrics;
+
+import com.softavail.commsrouter.jpa.TransactionListener;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Per call site counters and histograms of the transactions run by the JpaTransactionManager.
+ *
+ * @author ikrustev
+ */
+public class TransactionMetrics implements TransactionListener, MetricsCollector {
+
+  public static class TagMetrics {
+
+    public final Counter transactions = new Counter();
+    public final Counter attempts = new Counter();
+    public final Counter commits = new Counter();
+    public final Counter rollbacks = new Counter();
+    public final Counter lockRetries = new Counter();
+    public final Histogram lockWaitMillis = new Histogram();
+    public final Histogram durationMillis = new Histogram();
+
+  }
+
+  private final ConcurrentMap<String, TagMetrics> tags = new ConcurrentHashMap<>();
+
+  public TagMetrics get(String tag) {
+    return tags.computeIfAbsent(tag, key -> new TagMetrics());
+  }
+
+  public Map<String, TagMetrics> getAll() {
+    return Collections.unmodifiableMap(tags);
+  }
+
+  @Override
+  public void onAttempt(String tag, int attempt) {
+    get(tag).attempts.increment();
+  }
+
+  @Override
+  public void onRollback(String tag, Throwable cause) {
+    get(tag).rollbacks.increment();
+  }
+
+  @Override
+  public void onLockRetry(String tag, int attempt, long delayMillis) {
+    TagMetrics metrics = get(tag);
+    metrics.lockRetries.increment();
+    metrics.lockWaitMillis.observe(delayMillis);
+  }
+
+  @Override
+  public void onCompleted(String tag, boolean committed, int attempts, long durationNanos) {
+    TagMetrics metrics = get(tag);
+    metrics.transactions.increment();
+    if (committed) {
+      metrics.commits.increment();
+    }
+    metrics.durationMillis.observe(TimeUnit.NANOSECONDS.toMicros(durationNanos) / 1000.0);
+  }
+
+  @Override
+  public void collect(PrometheusTextWriter writer) {
+    Map<String, String> labels = new TreeMap<>();
+    tags.keySet().forEach(tag -> labels.put(tag, PrometheusTextWriter.labels("tag", tag)));
+
+    writeCounter(writer, labels, "commsrouter_transactions_total",
+        "Transactions run, by call site", metrics -> metrics.transactions);
+    writeCounter(writer, labels, "commsrouter_transaction_attempts_total",
+        "Transaction attempts including lock retries, by call site", metrics -> metrics.attempts);
+    writeCounter(writer, labels, "commsrouter_transaction_commits_total",
+        "Committed transactions, by call site", metrics -> metrics.commits);
+    writeCounter(writer, labels, "commsrouter_transaction_rollbacks_total",
+        "Rolled back transaction attempts, by call site", metrics -> metrics.rollbacks);
+    writeCounter(writer, labels, "commsrouter_transaction_lock_retries_total",
+        "Optimistic lock retries, by call site", metrics -> metrics.lockRetries);
+    writeHistogram(writer, labels, "commsrouter_transaction_lock_wait_milliseconds",
+        "Back off before an optimistic lock retry, by call site",
+        metrics -> metrics.lockWaitMillis);
+    writeHistogram(writer, labels, "commsrouter_transaction_duration_milliseconds",
+        "Transaction duration including retries, by call site",
+        metrics -> metrics.durationMillis);
+  }
+
+  private void writeCounter(PrometheusTextWriter writer, Map<String, String> labels, String name,
+      String help, Function<TagMetrics, Counter> counter) {
+    writer.family(name, MetricType.COUNTER, help);
+    labels.forEach((tag, tagLabels) ->
+        writer.sample(name, tagLabels, counter.apply(get(tag)).get()));
+  }
+
+  private void writeHistogram(PrometheusTextWriter writer, Map<String, String> labels,
+      String name, String help, Function<TagMetrics, Histogram> histogram) {
+    writer.family(name, MetricType.HISTOGRAM, help);
+    labels.forEach((tag, tagLabels) ->
+        writer.histogram(name, tagLabels, histogram.apply(get(tag))));
+  }
+
+}
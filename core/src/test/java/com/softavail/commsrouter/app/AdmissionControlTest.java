@@ -0,0 +1,175 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.softavail.commsrouter.api.exception.TooManyRequestsException;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author ikrustev
+ */
+public class AdmissionControlTest {
+
+  private long waitingTasks;
+  private long dispatchLagMillis;
+
+  private final QueueCounters queueCounters = new QueueCounters(null) {
+    @Override
+    public long getRouterWaitingTasks(String routerRef) {
+      return "busy".equals(routerRef) ? waitingTasks : 0;
+    }
+  };
+
+  private final Map<String, Integer> limits = new HashMap<>();
+
+  @Test
+  public void admitsWithoutLimits() throws TooManyRequestsException {
+    waitingTasks = 1_000_000;
+    dispatchLagMillis = 60_000;
+    AdmissionControl admissionControl = create();
+
+    admissionControl.admitTasks("busy", 10_000);
+    admissionControl.admitAgentWrites("busy", 10_000);
+  }
+
+  @Test
+  public void rejectsTasksOverTheRate() throws TooManyRequestsException {
+    limits.put("getApiAdmissionTaskRate", 1);
+    limits.put("getApiAdmissionTaskBurst", 2);
+    AdmissionControl admissionControl = create();
+
+    admissionControl.admitTasks("router", 2);
+    assertEquals(1, rejectTasks(admissionControl, "router", 1).getRetryAfterSeconds());
+    // Every router has its own bucket
+    admissionControl.admitTasks("other", 2);
+    // Agent writes are not limited by the task rate
+    admissionControl.admitAgentWrites("router", 100);
+  }
+
+  @Test
+  public void retryAfterCoversTheMissingTokens() throws TooManyRequestsException {
+    limits.put("getApiAdmissionTaskRate", 1);
+    limits.put("getApiAdmissionTaskBurst", 5);
+    AdmissionControl admissionControl = create();
+
+    admissionControl.admitTasks("router", 1);
+    TooManyRequestsException ex = rejectTasks(admissionControl, "router", 5);
+    assertEquals(1, ex.getRetryAfterSeconds());
+    admissionControl.admitTasks("router", 4);
+    ex = rejectTasks(admissionControl, "router", 3);
+    assertEquals(3, ex.getRetryAfterSeconds());
+  }
+
+  @Test
+  public void rejectsTasksWhileTheRouterBacklogIsFull() throws TooManyRequestsException {
+    limits.put("getApiAdmissionMaxWaitingTasks", 10);
+    AdmissionControl admissionControl = create();
+
+    waitingTasks = 9;
+    admissionControl.admitTasks("busy", 1);
+    waitingTasks = 10;
+    assertEquals(1, rejectTasks(admissionControl, "busy", 1).getRetryAfterSeconds());
+    admissionControl.admitTasks("router", 1);
+    admissionControl.admitAgentWrites("busy", 1);
+  }
+
+  @Test
+  public void rejectsTasksWhileDispatchingIsBehind() throws TooManyRequestsException {
+    limits.put("getApiAdmissionMaxDispatchLagMillis", 500);
+    AdmissionControl admissionControl = create();
+
+    dispatchLagMillis = 500;
+    admissionControl.admitTasks("router", 1);
+    dispatchLagMillis = 2_500;
+    assertEquals(3, rejectTasks(admissionControl, "router", 1).getRetryAfterSeconds());
+    dispatchLagMillis = 501;
+    assertEquals(1, rejectTasks(admissionControl, "router", 1).getRetryAfterSeconds());
+  }
+
+  @Test
+  public void rejectsAgentWritesOverTheRate() throws TooManyRequestsException {
+    limits.put("getApiAdmissionAgentRate", 1);
+    limits.put("getApiAdmissionAgentBurst", 3);
+    AdmissionControl admissionControl = create();
+
+    admissionControl.admitAgentWrites("router", 3);
+    try {
+      admissionControl.admitAgentWrites("router", 1);
+      fail("Agent write admitted over the rate");
+    } catch (TooManyRequestsException ex) {
+      assertEquals(1, ex.getRetryAfterSeconds());
+    }
+    admissionControl.admitTasks("router", 100);
+  }
+
+  @Test
+  public void changedLimitsRefillTheBuckets() throws TooManyRequestsException {
+    limits.put("getApiAdmissionTaskRate", 1);
+    limits.put("getApiAdmissionTaskBurst", 1);
+    AdmissionControl admissionControl = create();
+
+    admissionControl.admitTasks("router", 1);
+    rejectTasks(admissionControl, "router", 1);
+
+    // Unchanged limits keep the drained bucket
+    admissionControl.configurationChanged(configuration());
+    rejectTasks(admissionControl, "router", 1);
+
+    limits.put("getApiAdmissionTaskBurst", 2);
+    admissionControl.configurationChanged(configuration());
+    admissionControl.admitTasks("router", 2);
+    rejectTasks(admissionControl, "router", 1);
+
+    limits.remove("getApiAdmissionTaskRate");
+    admissionControl.configurationChanged(configuration());
+    admissionControl.admitTasks("router", 100);
+  }
+
+  private AdmissionControl create() {
+    return new AdmissionControl(configuration(), queueCounters, () -> dispatchLagMillis);
+  }
+
+  private CoreConfiguration configuration() {
+    Map<String, Integer> overrides = new HashMap<>(limits);
+    return (CoreConfiguration) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] {CoreConfiguration.class}, (proxy, method, args) -> {
+          if (overrides.containsKey(method.getName())) {
+            return overrides.get(method.getName());
+          }
+          return method.invoke(CoreConfiguration.DEFAULT, args);
+        });
+  }
+
+  private static TooManyRequestsException rejectTasks(AdmissionControl admissionControl,
+      String routerRef, int count) {
+    try {
+      admissionControl.admitTasks(routerRef, count);
+    } catch (TooManyRequestsException ex) {
+      return ex;
+    }
+    fail("Tasks admitted for router " + routerRef);
+    return null;
+  }
+
+}
@@ -0,0 +1,121 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author ikrustev
+ */
+public class DispatchLaneTest {
+
+  private final DispatchLane lane = new DispatchLane("test", 2, 1);
+
+  @After
+  public void shutdown() {
+    lane.shutdown(1);
+  }
+
+  @Test
+  public void keysStickToTheirSlice() {
+    assertSame(lane.get(1L), lane.get(3L));
+    assertNotSame(lane.get(1L), lane.get(2L));
+  }
+
+  @Test
+  public void busySliceDoesNotHoldUpTheOther() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    lane.get(1L).submit(() -> {
+      started.countDown();
+      release.await();
+      return null;
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    lane.get(1L).submit(() -> { });
+    lane.get(1L).submit(() -> { });
+
+    CountDownLatch otherRan = new CountDownLatch(1);
+    lane.get(2L).submit(otherRan::countDown);
+    assertTrue(otherRan.await(5, TimeUnit.SECONDS));
+
+    assertEquals(2, lane.getQueueDepth());
+    Thread.sleep(20);
+    assertTrue(lane.getLagMillis() > 0);
+
+    release.countDown();
+  }
+
+  @Test
+  public void resizesSlicesInPlace() throws InterruptedException {
+    DispatchLane resized = new DispatchLane("resized", 1, 1);
+    try {
+      resized.setThreadsPerSlice(2);
+      assertEquals(2, resized.getThreadsPerSlice());
+
+      CountDownLatch bothRunning = new CountDownLatch(2);
+      CountDownLatch release = new CountDownLatch(1);
+      for (int i = 0; i < 2; ++i) {
+        resized.get().submit(() -> {
+          bothRunning.countDown();
+          release.await();
+          return null;
+        });
+      }
+      assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+      release.countDown();
+
+      resized.setThreadsPerSlice(0);
+      assertEquals(1, resized.getThreadsPerSlice());
+    } finally {
+      resized.shutdown(1);
+    }
+  }
+
+  @Test
+  public void drainRunsDueJobsAndDropsLaterOnes() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean dueRan = new AtomicBoolean();
+    AtomicBoolean laterRan = new AtomicBoolean();
+    lane.get(1L).submit(() -> {
+      release.await();
+      return null;
+    });
+    lane.get(1L).submit(() -> dueRan.set(true));
+    lane.get(2L).schedule(() -> laterRan.set(true), 1, TimeUnit.HOURS);
+
+    long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+    assertFalse(lane.drain(deadlineNanos));
+
+    release.countDown();
+    assertTrue(lane.drain(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+    assertTrue(dueRan.get());
+    assertFalse(laterRan.get());
+  }
+
+}
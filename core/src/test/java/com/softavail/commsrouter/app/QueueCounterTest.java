@@ -0,0 +1,53 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+/**
+ * @author ikrustev
+ */
+public class QueueCounterTest {
+
+  @Test
+  public void resetReplacesUnchangedCounts() {
+    QueueCounter counter = new QueueCounter();
+    counter.addWaitingTasks(3, 1000);
+
+    assertTrue(counter.reset(counter.getVersion(), 5, new Date(500), 1, 2));
+    assertEquals(5, counter.getWaitingTasks());
+    assertEquals(new Date(500), counter.toStats().getOldestWaitingTaskDate());
+  }
+
+  @Test
+  public void resetKeepsCountsChangedSinceTheSnapshot() {
+    QueueCounter counter = new QueueCounter();
+    long version = counter.getVersion();
+    // A task committed after the reconcile read the database
+    counter.addWaitingTasks(1, 1000);
+
+    assertFalse(counter.reset(version, 0, null, 0, 0));
+    assertEquals(1, counter.getWaitingTasks());
+  }
+
+}
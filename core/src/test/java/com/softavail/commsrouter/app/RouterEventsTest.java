@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.softavail.commsrouter.api.dto.model.RouterEventDto;
+import com.softavail.commsrouter.api.dto.model.RouterEventType;
+import com.softavail.commsrouter.app.RouterEventSubscription.Sink;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ikrustev
+ */
+public class RouterEventsTest {
+
+  private static final int BUFFER_SIZE = 3;
+  private static final long SEND_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private final RouterEvents routerEvents = new RouterEvents(null, BUFFER_SIZE,
+      Executors.newFixedThreadPool(1), SEND_TIMEOUT_NANOS);
+
+  @After
+  public void close() {
+    routerEvents.close();
+  }
+
+  @Test
+  public void slowSubscriberLosesOldestEvents() throws InterruptedException {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch allReceived = new CountDownLatch(5);
+    List<RouterEventDto> received = new CopyOnWriteArrayList<>();
+
+    routerEvents.subscribe("router", event -> {
+      received.add(event);
+      allReceived.countDown();
+      sending.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    routerEvents.publish("router", RouterEventDto.queue("q0", 1));
+    assertTrue(sending.await(5, TimeUnit.SECONDS));
+    for (int i = 1; i <= 5; ++i) {
+      routerEvents.publish("router", RouterEventDto.queue("q" + i, 1));
+    }
+    routerEvents.publish("other", RouterEventDto.queue("other", 1));
+    release.countDown();
+
+    assertTrue(allReceived.await(5, TimeUnit.SECONDS));
+    assertEquals(5, received.size());
+    assertEquals("q0", received.get(0).getRef());
+    assertEquals(RouterEventType.dropped, received.get(1).getType());
+    assertEquals(Long.valueOf(2), received.get(1).getDelta());
+    assertEquals("q3", received.get(2).getRef());
+    assertEquals("q4", received.get(3).getRef());
+    assertEquals("q5", received.get(4).getRef());
+  }
+
+  @Test
+  public void failingSubscriberIsClosed() throws InterruptedException {
+    CountDownLatch failed = new CountDownLatch(1);
+    RouterEventSubscription subscription = routerEvents.subscribe("router", event -> {
+      failed.countDown();
+      throw new IOException("gone");
+    });
+    assertTrue(routerEvents.hasSubscribers());
+
+    routerEvents.publish("router", RouterEventDto.queue("q0", 1));
+    assertTrue(failed.await(5, TimeUnit.SECONDS));
+
+    for (int i = 0; i < 50 && routerEvents.hasSubscribers(); ++i) {
+      Thread.sleep(10);
+    }
+    assertTrue(subscription.isClosed());
+    assertFalse(routerEvents.hasSubscribers());
+  }
+
+  @Test
+  public void goneSubscriberIsClosedOnHeartbeat() throws InterruptedException {
+    CountDownLatch closed = new CountDownLatch(1);
+    RouterEventSubscription subscription = routerEvents.subscribe("router", new Sink() {
+
+      @Override
+      public void send(RouterEventDto event) {
+      }
+
+      @Override
+      public void heartbeat() throws IOException {
+        throw new IOException("gone");
+      }
+
+      @Override
+      public void close() {
+        closed.countDown();
+      }
+
+    });
+
+    routerEvents.checkSubscriptions();
+
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+    assertTrue(subscription.isClosed());
+    assertFalse(routerEvents.hasSubscribers());
+  }
+
+  @Test
+  public void stalledSubscriberIsClosed() throws InterruptedException {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch closed = new CountDownLatch(1);
+    CountDownLatch otherReceived = new CountDownLatch(1);
+    RouterEventSubscription subscription = routerEvents.subscribe("router", new Sink() {
+
+      @Override
+      public void send(RouterEventDto event) {
+        sending.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      @Override
+      public void close() {
+        closed.countDown();
+      }
+
+    });
+    routerEvents.subscribe("other", event -> otherReceived.countDown());
+
+    routerEvents.publish("router", RouterEventDto.queue("q0", 1));
+    assertTrue(sending.await(5, TimeUnit.SECONDS));
+    routerEvents.checkSubscriptions();
+    assertFalse(subscription.isClosed());
+
+    Thread.sleep(TimeUnit.NANOSECONDS.toMillis(SEND_TIMEOUT_NANOS) * 2);
+    routerEvents.checkSubscriptions();
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+    assertTrue(subscription.isClosed());
+
+    // The only pool thread is still blocked, the other router gets a lent one
+    routerEvents.publish("other", RouterEventDto.queue("q0", 1));
+    assertTrue(otherReceived.await(5, TimeUnit.SECONDS));
+    release.countDown();
+  }
+
+  @Test
+  public void overflowingSubscriberIsClosed() throws InterruptedException {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    RouterEventSubscription subscription = routerEvents.subscribe("router", event -> {
+      sending.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    routerEvents.publish("router", RouterEventDto.queue("q0", 1));
+    assertTrue(sending.await(5, TimeUnit.SECONDS));
+    for (int i = 1; i <= BUFFER_SIZE * 2; ++i) {
+      routerEvents.publish("router", RouterEventDto.queue("q" + i, 1));
+    }
+    release.countDown();
+
+    assertTrue(subscription.isClosed());
+    assertFalse(routerEvents.hasSubscribers());
+  }
+
+}
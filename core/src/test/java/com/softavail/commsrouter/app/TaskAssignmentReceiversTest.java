@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.softavail.commsrouter.api.dto.model.TaskAssignmentDto;
+import com.softavail.commsrouter.api.interfaces.TaskAssignmentReceiver;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author ikrustev
+ */
+public class TaskAssignmentReceiversTest {
+
+  private final TaskAssignmentReceivers receivers = new TaskAssignmentReceivers();
+
+  @Test
+  public void offerWithoutReceivers() {
+    assertFalse(receivers.offer(1L, new TaskAssignmentDto()));
+  }
+
+  @Test
+  public void receiverTakesOneAssignment() {
+    List<TaskAssignmentDto> received = new ArrayList<>();
+    receivers.register(1L, received::add);
+
+    TaskAssignmentDto assignment = new TaskAssignmentDto();
+    assertFalse(receivers.offer(2L, assignment));
+    assertTrue(receivers.offer(1L, assignment));
+    assertFalse(receivers.offer(1L, new TaskAssignmentDto()));
+
+    assertEquals(1, received.size());
+    assertSame(assignment, received.get(0));
+  }
+
+  @Test
+  public void goneReceiverIsSkipped() {
+    List<TaskAssignmentDto> received = new ArrayList<>();
+    receivers.register(1L, assignment -> false);
+    receivers.register(1L, received::add);
+
+    assertTrue(receivers.offer(1L, new TaskAssignmentDto()));
+    assertEquals(1, received.size());
+  }
+
+  @Test
+  public void unregisteredReceiverIsNotOffered() {
+    TaskAssignmentReceiver receiver = assignment -> true;
+    receivers.register(1L, receiver);
+
+    assertTrue(receivers.unregister(1L, receiver));
+    assertFalse(receivers.unregister(1L, receiver));
+    assertFalse(receivers.offer(1L, new TaskAssignmentDto()));
+  }
+
+}
@@ -0,0 +1,191 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.softavail.commsrouter.api.dto.model.AgentDto;
+import com.softavail.commsrouter.api.dto.model.TaskAssignmentDto;
+import com.softavail.commsrouter.api.dto.model.TaskDto;
+import com.softavail.commsrouter.api.dto.model.TaskState;
+import com.softavail.commsrouter.api.exception.CallbackException;
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.domain.Queue;
+import com.softavail.commsrouter.domain.Router;
+import com.softavail.commsrouter.domain.Task;
+import com.softavail.commsrouter.jpa.JpaDbFacade;
+import com.softavail.commsrouter.util.Uuid;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author ikrustev
+ */
+public class TaskDispatcherDrainTest {
+
+  private JpaDbFacade db;
+  private Router router;
+  private Queue queue;
+  private TaskDispatcher dispatcher;
+
+  @Before
+  public void start() throws CommsRouterException, InterruptedException {
+    db = new JpaDbFacade("mnf-pu-test");
+    db.transactionManager.executeVoid(em -> {
+      router = new Router();
+      router.setRef(Uuid.get());
+      em.persist(router);
+      queue = new Queue();
+      queue.setRef(Uuid.get());
+      queue.setRouter(router);
+      queue.setPredicate("1==1");
+      em.persist(queue);
+      Task task = new Task();
+      task.setRef(Uuid.get());
+      task.setRouter(router);
+      task.setQueue(queue);
+      task.setState(TaskState.waiting);
+      task.setCallbackUrl("http://localhost/callback");
+      task.setExpirationDate(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+      em.persist(task);
+    });
+    dispatcher = new TaskDispatcher(db, null, CoreConfiguration.DEFAULT, null);
+    // The expiration timer of the waiting task is restarted in the background
+    long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (dispatcher.getDrainProgress().getPendingTimers() == 0
+        && deadlineNanos - System.nanoTime() > 0) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+  }
+
+  @After
+  public void stop() {
+    dispatcher.close();
+    db.close();
+  }
+
+  @Test
+  public void requestDrainOnlyFailsTheHealthCheck() {
+    assertEquals(DrainProgress.State.RUNNING, dispatcher.getDrainProgress().getState());
+
+    DrainProgress progress = dispatcher.requestDrain();
+
+    assertEquals(DrainProgress.State.DRAIN_REQUESTED, progress.getState());
+    assertEquals(1, progress.getPendingTimers());
+  }
+
+  @Test
+  public void closeDropsTimersWithinTheShutdownDelay() {
+    dispatcher.requestDrain();
+    long startNanos = System.nanoTime();
+
+    dispatcher.close();
+
+    long elapsedNanos = System.nanoTime() - startNanos;
+    DrainProgress progress = dispatcher.getDrainProgress();
+    assertEquals(DrainProgress.State.DRAINED, progress.getState());
+    assertEquals(0, progress.getPendingTimers());
+    assertEquals(0, progress.getPendingMatchingJobs());
+    assertEquals(0, progress.getPendingCallbacks());
+    assertTrue("Took " + elapsedNanos + "ns", elapsedNanos < TimeUnit.SECONDS
+        .toNanos(CoreConfiguration.DEFAULT.getDispatcherThreadShutdownDelay()));
+  }
+
+  @Test
+  public void lastCallbackAttemptsRunSideBySide() throws CommsRouterException {
+    dispatcher.close();
+    List<TaskAssignmentDto> assignments = new ArrayList<>();
+    for (int i = 0; i < 3; ++i) {
+      assignments.add(createAssignedTask());
+    }
+    int shutdownDelaySeconds = 4;
+    // The last attempts get the last quarter of the delay; one at a time they would not fit
+    long lastAttemptMillis = TimeUnit.SECONDS.toMillis(shutdownDelaySeconds) / 6;
+    AtomicLong lastAttemptsFromNanos = new AtomicLong(Long.MAX_VALUE);
+    Set<String> delivered = ConcurrentHashMap.newKeySet();
+    dispatcher = new TaskDispatcher(db, null, configuration(shutdownDelaySeconds),
+        taskAssignment -> {
+          if (System.nanoTime() - lastAttemptsFromNanos.get() < 0) {
+            throw new CallbackException("Not yet");
+          }
+          try {
+            TimeUnit.MILLISECONDS.sleep(lastAttemptMillis);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+          delivered.add(taskAssignment.getTask().getRef());
+        });
+    long startNanos = System.nanoTime();
+    lastAttemptsFromNanos.set(startNanos + TimeUnit.SECONDS.toNanos(shutdownDelaySeconds) * 3 / 4);
+    assignments.forEach(dispatcher::submitTaskAssignment);
+
+    dispatcher.close();
+
+    long elapsedNanos = System.nanoTime() - startNanos;
+    assertEquals(3, delivered.size());
+    assertEquals(0, dispatcher.getDrainProgress().getPendingCallbacks());
+    assertTrue("Took " + elapsedNanos + "ns",
+        elapsedNanos < TimeUnit.SECONDS.toNanos(shutdownDelaySeconds));
+  }
+
+  @Test
+  public void drainRequestAfterCloseKeepsTheDispatcherDrained() {
+    dispatcher.close();
+
+    assertEquals(DrainProgress.State.DRAINED, dispatcher.requestDrain().getState());
+  }
+
+  private TaskAssignmentDto createAssignedTask() throws CommsRouterException {
+    Task task = new Task();
+    task.setRef(Uuid.get());
+    task.setRouter(router);
+    task.setState(TaskState.assigned);
+    task.setCallbackUrl("http://localhost/callback");
+    db.transactionManager.executeVoid(em -> em.persist(task));
+    TaskDto taskDto = new TaskDto();
+    taskDto.setId(task.getId());
+    taskDto.setRef(task.getRef());
+    taskDto.setRouterRef(router.getRef());
+    taskDto.setCallbackUrl(task.getCallbackUrl());
+    AgentDto agentDto = new AgentDto();
+    agentDto.setId(task.getId());
+    agentDto.setRef(task.getRef());
+    return new TaskAssignmentDto(taskDto, agentDto);
+  }
+
+  private static CoreConfiguration configuration(int shutdownDelaySeconds) {
+    return (CoreConfiguration) Proxy.newProxyInstance(CoreConfiguration.class.getClassLoader(),
+        new Class<?>[] {CoreConfiguration.class}, (proxy, method, args) -> {
+          if (method.getName().equals("getDispatcherThreadShutdownDelay")) {
+            return shutdownDelaySeconds;
+          }
+          return method.invoke(CoreConfiguration.DEFAULT, args);
+        });
+  }
+
+}
@@ -0,0 +1,75 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ikrustev
+ */
+public class TokenBucketTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void burstThenRate() {
+    long now = 0;
+    TokenBucket bucket = new TokenBucket(10, 5, now);
+
+    for (int i = 0; i < 5; ++i) {
+      assertEquals(0, bucket.tryTake(1, now));
+    }
+    long wait = bucket.tryTake(1, now);
+    assertEquals(SECOND / 10, wait);
+
+    now += wait;
+    assertEquals(0, bucket.tryTake(1, now));
+    assertTrue(bucket.tryTake(1, now) > 0);
+  }
+
+  @Test
+  public void refillsUpToBurst() {
+    long now = 0;
+    TokenBucket bucket = new TokenBucket(10, 5, now);
+    assertEquals(0, bucket.tryTake(5, now));
+
+    now += 10 * SECOND;
+    assertEquals(0, bucket.tryTake(5, now));
+    assertTrue(bucket.tryTake(1, now) > 0);
+  }
+
+  @Test
+  public void moreThanBurstFromFullBucket() {
+    long now = 0;
+    TokenBucket bucket = new TokenBucket(10, 5, now);
+    assertEquals(0, bucket.tryTake(1, now));
+
+    // Not full: waits until it is, not forever
+    assertEquals(SECOND / 10, bucket.tryTake(20, now));
+
+    now += SECOND / 10;
+    assertEquals(0, bucket.tryTake(20, now));
+    // In debt for the extra tokens
+    assertEquals(SECOND * 16 / 10, bucket.tryTake(1, now));
+  }
+
+}
@@ -0,0 +1,106 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.jpa.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.softavail.commsrouter.api.dto.model.AgentDto;
+import com.softavail.commsrouter.api.dto.model.AgentState;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskDto;
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.TaskAssignmentDto;
+import com.softavail.commsrouter.api.dto.model.TaskDto;
+import com.softavail.commsrouter.api.dto.model.TaskState;
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.api.service.CoreAgentPollService;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ikrustev
+ */
+public class CoreAgentPollServiceJpaTest extends TestBase {
+
+  private final CoreAgentPollService agentPollService = new CoreAgentPollService(app);
+
+  // Nothing assigned while waiting: the poll gets no task and stops waiting when timed out
+  @Test
+  public void pollTimeoutTest() throws CommsRouterException, InterruptedException {
+    RouterObjectRef agentRef = new RouterObjectRef("polling-agent", "01");
+    queueService.replace(newCreateQueueArg("1==1", "description_one"), agentRef);
+    agentService.replace(newCreateAgentArg("address_one"), agentRef);
+    Long agentId = agentService.get(agentRef).getId();
+
+    CountDownLatch received = new CountDownLatch(1);
+    Runnable stopWaiting = agentPollService.pollNextTask(agentRef, assignment -> {
+      received.countDown();
+      return true;
+    });
+
+    assertFalse(received.await(200, TimeUnit.MILLISECONDS));
+    stopWaiting.run();
+    assertFalse(app.taskDispatcher.getAssignmentReceivers()
+        .offer(agentId, new TaskAssignmentDto()));
+    assertEquals(1, received.getCount());
+  }
+
+  // A task assigned while the agent waits is handed to the poll instead of the callback
+  @Test
+  public void assignmentWakesPollTest()
+      throws CommsRouterException, InterruptedException, MalformedURLException {
+
+    RouterObjectRef agentRef = new RouterObjectRef("polling-agent", "01");
+    RouterObjectRef queueRef = new RouterObjectRef("polled-queue", "01");
+    queueService.replace(newCreateQueueArg("1==1", "description_one"), queueRef);
+    agentService.replace(newCreateAgentArg("address_one"), agentRef);
+    CreatedTaskDto task = taskService.create(
+        newCreateTaskArg(queueRef.getRef(), "https://localhost:8084", null), "01");
+
+    CountDownLatch woken = new CountDownLatch(1);
+    List<TaskAssignmentDto> received = new CopyOnWriteArrayList<>();
+    Runnable stopWaiting = agentPollService.pollNextTask(agentRef, assignment -> {
+      received.add(assignment);
+      woken.countDown();
+      return true;
+    });
+
+    AgentDto agent = agentService.get(agentRef);
+    agentService.update(newUpdateAgentArg("address_one", AgentState.ready), agent);
+
+    assertTrue(woken.await(10, TimeUnit.SECONDS));
+    stopWaiting.run();
+    assertEquals(1, received.size());
+    assertEquals(task.getRef(), received.get(0).getTask().getRef());
+    assertEquals(agentRef.getRef(), received.get(0).getAgent().getRef());
+    TaskDto assigned = taskService.get(new RouterObjectRef(task.getRef(), "01"));
+    assertEquals(TaskState.assigned, assigned.getState());
+
+    // Polling again returns the task still assigned, without waiting
+    List<TaskAssignmentDto> current = new CopyOnWriteArrayList<>();
+    agentPollService.pollNextTask(agentRef, current::add).run();
+    assertEquals(1, current.size());
+    assertEquals(task.getRef(), current.get(0).getTask().getRef());
+  }
+
+}
@@ -5,17 +5,27 @@
 package com.softavail.commsrouter.jpa.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
+import com.softavail.commsrouter.api.dto.arg.UpdateAgentBatchItemArg;
 import com.softavail.commsrouter.api.dto.misc.PaginatedList;
 import com.softavail.commsrouter.api.dto.misc.PagingRequest;
 import com.softavail.commsrouter.api.dto.model.AgentDto;
 import com.softavail.commsrouter.api.dto.model.AgentState;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.UpdatedAgentBatchItemDto;
 import com.softavail.commsrouter.api.exception.BadValueException;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.app.CoreConfiguration;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author G.Ivanov
  */
@@ -59,6 +69,21 @@ public class CoreAgentServiceJpaTest extends TestBase {
     assertEquals(agent.getState(), AgentState.ready);
   }
 
+  // The version probe gives the hash of the loaded agent, before and after an update
+  @Test
+  public void getHashTest() throws CommsRouterException {
+    RouterObjectRef ref = new RouterObjectRef("agent-hash", "01");
+    queueService.replace(newCreateQueueArg("1==1", "description_one"), ref);
+    agentService.replace(newCreateAgentArg("address_one"), ref);
+    AgentDto beforeUpdate = agentService.get(ref);
+    assertEquals(beforeUpdate.getHash(), agentService.getHash(ref));
+
+    agentService.update(newUpdateAgentArg("address_two", AgentState.ready), beforeUpdate);
+    AgentDto agent = agentService.get(ref);
+    assertEquals(agent.getHash(), agentService.getHash(ref));
+    assertNotEquals(beforeUpdate.getHash(), agentService.getHash(ref));
+  }
+
   // Setting state to busy. Expecting a BadValueException
   @Test(expected = BadValueException.class)
   public void updateStateBusy() throws CommsRouterException {
@@ -80,4 +105,63 @@ public class CoreAgentServiceJpaTest extends TestBase {
     assertEquals(agent.getState(), AgentState.offline);
   }
 
+  // Batch update applies the valid changes and reports the rejected ones
+  @Test
+  public void updateBatchTest() throws CommsRouterException {
+    queueService.create(newCreateQueueArg("1==1", "description_one"), "01");
+    agentService.replace(newCreateAgentArg("address_one"), new RouterObjectRef("agent-1", "01"));
+    agentService.replace(newCreateAgentArg("address_two"), new RouterObjectRef("agent-2", "01"));
+
+    String firstHash = agentService.get(new RouterObjectRef("agent-1", "01")).getHash();
+    String secondHash = agentService.get(new RouterObjectRef("agent-2", "01")).getHash();
+
+    List<UpdateAgentBatchItemArg> args = new ArrayList<>();
+    args.add(newUpdateAgentBatchItemArg("agent-1", firstHash, AgentState.ready));
+    args.add(newUpdateAgentBatchItemArg("agent-2", secondHash, AgentState.busy));
+    args.add(newUpdateAgentBatchItemArg("no-such-agent", firstHash, AgentState.ready));
+    UpdateAgentBatchItemArg withCapabilities =
+        newUpdateAgentBatchItemArg("agent-2", secondHash, null);
+    withCapabilities.setCapabilities(newCreateAgentArg("address_three").getCapabilities());
+    withCapabilities.setAddress("address_three");
+    args.add(withCapabilities);
+    UpdateAgentBatchItemArg stale = newUpdateAgentBatchItemArg("agent-1", "stale", null);
+    stale.setAddress("address_stale");
+    args.add(stale);
+
+    List<UpdatedAgentBatchItemDto> results = agentService.updateBatch(args, "01");
+
+    assertEquals(args.size(), results.size());
+    assertTrue(results.get(0).isUpdated());
+    assertFalse(results.get(1).isUpdated());
+    assertEquals("BadValueException", results.get(1).getErrorCode());
+    assertFalse(results.get(2).isUpdated());
+    assertEquals("NotFoundException", results.get(2).getErrorCode());
+    assertTrue(results.get(3).isUpdated());
+    assertFalse(results.get(4).isUpdated());
+    assertEquals("PreconditionFailedException", results.get(4).getErrorCode());
+
+    AgentDto first = agentService.get(new RouterObjectRef("agent-1", "01"));
+    assertEquals(AgentState.ready, first.getState());
+    assertEquals("address_one", first.getAddress());
+    AgentDto second = agentService.get(new RouterObjectRef("agent-2", "01"));
+    assertEquals(AgentState.offline, second.getState());
+    assertEquals("address_three", second.getAddress());
+  }
+
+  @Test(expected = BadValueException.class)
+  public void updateBatchOverMaxSizeTest() throws CommsRouterException {
+    int maxSize = CoreConfiguration.DEFAULT.getApiAgentBatchMaxSize();
+    UpdateAgentBatchItemArg arg = newUpdateAgentBatchItemArg("agent", "hash", AgentState.ready);
+    agentService.updateBatch(Collections.nCopies(maxSize + 1, arg), "01");
+  }
+
+  private UpdateAgentBatchItemArg newUpdateAgentBatchItemArg(String ref, String hash,
+      AgentState state) {
+    UpdateAgentBatchItemArg arg = new UpdateAgentBatchItemArg();
+    arg.setRef(ref);
+    arg.setHash(hash);
+    arg.setState(state);
+    return arg;
+  }
+
 }
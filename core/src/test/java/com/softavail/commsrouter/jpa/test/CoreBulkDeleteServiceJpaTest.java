@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.jpa.test;
+
+import static org.junit.Assert.assertEquals;
+
+import com.softavail.commsrouter.api.dto.misc.PagingRequest;
+import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
+import com.softavail.commsrouter.api.dto.model.BulkDeleteState;
+import com.softavail.commsrouter.api.dto.model.BulkDeleteStatusDto;
+import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.api.exception.InvalidStateException;
+import com.softavail.commsrouter.api.exception.NotFoundException;
+import com.softavail.commsrouter.app.QueueCounters;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+
+/**
+ * @author ikrustev
+ */
+public class CoreBulkDeleteServiceJpaTest extends TestBase {
+
+  private static final int TASK_COUNT = 7;
+
+  @Test
+  public void purgeRouterTest() throws CommsRouterException, MalformedURLException {
+    ApiObjectRef queue = queueService.create(newCreateQueueArg("1==1", "queue"), "01");
+    agentService.replace(newCreateAgentArg("agent"), new RouterObjectRef("agent", "01"));
+    ApiObjectRef plan =
+        planService.create(newCreatePlanArg("plan", "1==1", queue.getRef()), "01");
+    for (int i = 0; i < TASK_COUNT; ++i) {
+      taskService.create(newCreateTaskArg(queue.getRef(), "https://test.com", null), "01");
+    }
+    taskService.create(newCreateTaskArg(null, "https://test.com", plan.getRef()), "01");
+
+    BulkDeleteStatusDto status = app.svc.bulkDelete.deleteRouter("01", false);
+
+    assertEquals(BulkDeleteState.completed, status.getState());
+    assertEquals(Long.valueOf(TASK_COUNT + 1), status.getDeleted().get("task"));
+    assertEquals(Long.valueOf(1), status.getDeleted().get("agent"));
+    assertEquals(Long.valueOf(1), status.getDeleted().get("plan"));
+    assertEquals(Long.valueOf(1), status.getDeleted().get("queue"));
+    assertEquals(Long.valueOf(1), status.getDeleted().get("router"));
+    assertEquals(status.getState(), app.svc.bulkDelete.getStatus(status.getId()).getState());
+
+    // The other router is untouched
+    assertEquals("name_two", routerService.get("02").getName());
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void purgedRouterNotFoundTest() throws CommsRouterException {
+    queueService.create(newCreateQueueArg("1==1", "queue"), "01");
+    app.svc.bulkDelete.deleteRouter("01", false);
+    routerService.get("01");
+  }
+
+  @Test
+  public void purgedRouterCounterDroppedTest()
+      throws CommsRouterException, MalformedURLException {
+    ApiObjectRef queue = queueService.create(newCreateQueueArg("1==1", "queue"), "01");
+    for (int i = 0; i < TASK_COUNT; ++i) {
+      taskService.create(newCreateTaskArg(queue.getRef(), "https://test.com", null), "01");
+    }
+    QueueCounters queueCounters = app.taskDispatcher.getQueueCounters();
+    assertEquals(TASK_COUNT, queueCounters.getRouterWaitingTasks("01"));
+
+    app.svc.bulkDelete.deleteRouter("01", false);
+
+    assertEquals(0, queueCounters.getRouterWaitingTasks("01"));
+  }
+
+  @Test
+  public void purgeQueueTest() throws CommsRouterException, MalformedURLException {
+    ApiObjectRef queue = queueService.create(newCreateQueueArg("1==1", "queue"), "01");
+    ApiObjectRef other = queueService.create(newCreateQueueArg("1==1", "other"), "01");
+    agentService.replace(newCreateAgentArg("agent"), new RouterObjectRef("agent", "01"));
+    for (int i = 0; i < TASK_COUNT; ++i) {
+      taskService.create(newCreateTaskArg(queue.getRef(), "https://test.com", null), "01");
+    }
+    taskService.create(newCreateTaskArg(other.getRef(), "https://test.com", null), "01");
+
+    RouterObjectRef queueRef = new RouterObjectRef(queue.getRef(), "01");
+    BulkDeleteStatusDto status = app.svc.bulkDelete.deleteQueue(queueRef, false);
+
+    assertEquals(BulkDeleteState.completed, status.getState());
+    assertEquals(Long.valueOf(TASK_COUNT), status.getDeleted().get("task"));
+    assertEquals(Long.valueOf(1), status.getDeleted().get("queue"));
+    assertEquals(1, taskService.list(new PagingRequest("01", null, 10, null, null))
+        .getList().size());
+    assertEquals(1, queueService.list(new PagingRequest("01", null, 10, null, null))
+        .getList().size());
+  }
+
+  @Test(expected = InvalidStateException.class)
+  public void purgeRoutedQueueTest() throws CommsRouterException {
+    ApiObjectRef queue = queueService.create(newCreateQueueArg("1==1", "queue"), "01");
+    planService.create(newCreatePlanArg("plan", "1==1", queue.getRef()), "01");
+    app.svc.bulkDelete.deleteQueue(new RouterObjectRef(queue.getRef(), "01"), false);
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void unknownStatusTest() throws CommsRouterException {
+    app.svc.bulkDelete.getStatus("unknown");
+  }
+
+}
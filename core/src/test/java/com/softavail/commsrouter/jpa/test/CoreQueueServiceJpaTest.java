@@ -5,14 +5,18 @@
 package com.softavail.commsrouter.jpa.test;
 
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskDto;
 import com.softavail.commsrouter.api.dto.model.QueueDto;
+import com.softavail.commsrouter.api.dto.model.QueueStatsDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
+import com.softavail.commsrouter.api.dto.model.TaskState;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import java.net.MalformedURLException;
 import java.util.Collection;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import org.junit.Test;
 
 /**
@@ -30,6 +34,18 @@ public class CoreQueueServiceJpaTest extends TestBase {
     assertEquals(queue.getDescription(), "description_one");
   }
 
+  // Testing that lookups by ref see the replaced queue, not the cached id of the old one
+  @Test
+  public void replaceTwiceTest() throws CommsRouterException {
+    RouterObjectRef id = new RouterObjectRef("queue_replaced", "01");
+    queueService.replace(newCreateQueueArg("1==1", "description_one"), id);
+    QueueDto first = queueService.get(id);
+    queueService.replace(newCreateQueueArg("1==1", "description_two"), id);
+    QueueDto second = queueService.get(id);
+    assertNotEquals(first.getId(), second.getId());
+    assertEquals("description_two", second.getDescription());
+  }
+
   // Testing the update method
   @Test
   public void updateTest() throws CommsRouterException {
@@ -54,6 +70,34 @@ public class CoreQueueServiceJpaTest extends TestBase {
     assertEquals(size, 1);
   }
 
+  // The live counters follow task creates and cancels and agree with the database
+  @Test
+  public void getStatsTest() throws CommsRouterException, MalformedURLException {
+    ApiObjectRef queue = queueService.create(newCreateQueueArg("1==1", "description_one"), "01");
+    RouterObjectRef queueRef = new RouterObjectRef(queue.getRef(), "01");
+    CreatedTaskDto first =
+        taskService.create(newCreateTaskArg(queue.getRef(), "https://test.com", null), "01");
+    CreatedTaskDto second =
+        taskService.create(newCreateTaskArg(queue.getRef(), "https://test.com", null), "01");
+    assertEquals(Long.valueOf(0), first.getQueueTasks());
+    assertEquals(Long.valueOf(1), second.getQueueTasks());
+
+    QueueStatsDto stats = queueService.getStats(queueRef);
+    assertEquals(queue.getRef(), stats.getRef());
+    assertEquals(2, stats.getWaitingTasks());
+    assertNotNull(stats.getOldestWaitingTaskDate());
+
+    taskService.update(newUpdateTaskArg(0, TaskState.canceled),
+        new RouterObjectRef(first.getRef(), "01"));
+    assertEquals(1, queueService.getStats(queueRef).getWaitingTasks());
+
+    app.taskDispatcher.getQueueCounters().reconcile();
+    stats = queueService.getStats(queueRef);
+    assertEquals(1, stats.getWaitingTasks());
+    assertEquals(0, stats.getReadyAgents());
+    assertEquals(0, stats.getBusyAgents());
+  }
+
   // Testing the getTasks method
   @Test
   public void getTasksTest() throws CommsRouterException, MalformedURLException {
@@ -6,6 +6,8 @@
 package com.softavail.commsrouter.jpa.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import com.softavail.commsrouter.api.dto.arg.CreateRouterArg;
 import com.softavail.commsrouter.api.dto.misc.PaginatedList;
@@ -13,6 +15,7 @@ import com.softavail.commsrouter.api.dto.misc.PagingRequest;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.RouterDto;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.domain.Router;
 import org.junit.Test;
 
 /**
@@ -80,6 +83,21 @@ public class CoreRouterServiceJpaTest extends TestBase {
     assertEquals("description_nine", router.getDescription());
   }
 
+  // Testing that a cached id is not returned once the router is deleted behind the repository,
+  // as by another node
+  @Test
+  public void getIdByRefAfterDeleteElsewhereTest() throws CommsRouterException {
+    Long id = app.db.transactionManager.execute(em -> app.db.router.getIdByRefNoThrow(em, "02"));
+    assertNotNull(id);
+
+    em.getTransaction().begin();
+    em.remove(em.find(Router.class, id));
+    em.getTransaction().commit();
+
+    assertNull(app.db.transactionManager
+        .execute(em -> app.db.router.getIdByRefNoThrow(em, "02")));
+  }
+
   @Test
   public void getDtoEntityTest() {
     Class<RouterDto> newRouter = routerService.getDtoEntityClass();
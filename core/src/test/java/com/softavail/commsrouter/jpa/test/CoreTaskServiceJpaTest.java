@@ -5,20 +5,28 @@
 package com.softavail.commsrouter.jpa.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
+import com.softavail.commsrouter.api.dto.arg.CreateTaskArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateTaskContext;
 import com.softavail.commsrouter.api.dto.misc.PaginatedList;
 import com.softavail.commsrouter.api.dto.misc.PagingRequest;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskBatchItemDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
 import com.softavail.commsrouter.api.dto.model.TaskState;
 import com.softavail.commsrouter.api.exception.BadValueException;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.app.CoreConfiguration;
 import org.junit.Test;
 
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @author G.Ivanov
@@ -106,4 +114,46 @@ public class CoreTaskServiceJpaTest extends TestBase {
     assertEquals(task.getList().get(0).getCallbackUrl(), "https://test.com");
   }
 
+  // Batch create reports each task separately and positions them after each other
+  @Test
+  public void createBatchTest() throws MalformedURLException, CommsRouterException {
+    ApiObjectRef queue = queueService.create(newCreateQueueArg("1==1", "desctiption_one"), "01");
+    ApiObjectRef plan =
+        planService.create(newCreatePlanArg("description_one", "1==1", queue.getRef()), "01");
+
+    List<CreateTaskArg> args = new ArrayList<>();
+    args.add(newCreateTaskArg(queue.getRef(), "https://test.com", null));
+    args.add(newCreateTaskArg(null, "https://test.com", plan.getRef()));
+    args.add(newCreateTaskArg("no-such-queue", "https://test.com", null));
+    args.add(newCreateTaskArg(queue.getRef(), "https://test.com", plan.getRef()));
+    args.add(newCreateTaskArg(queue.getRef(), "https://test.com", null));
+
+    List<CreatedTaskBatchItemDto> results = taskService.createBatch(args, "01");
+
+    assertEquals(args.size(), results.size());
+    for (int index = 0; index < results.size(); ++index) {
+      assertEquals(index, results.get(index).getIndex());
+    }
+    assertTrue(results.get(0).isCreated());
+    assertEquals(Long.valueOf(0), results.get(0).getQueueTasks());
+    assertTrue(results.get(1).isCreated());
+    assertEquals(Long.valueOf(1), results.get(1).getQueueTasks());
+    assertFalse(results.get(2).isCreated());
+    assertEquals("NotFoundException", results.get(2).getErrorCode());
+    assertFalse(results.get(3).isCreated());
+    assertEquals("BadValueException", results.get(3).getErrorCode());
+    assertTrue(results.get(4).isCreated());
+    assertEquals(Long.valueOf(2), results.get(4).getQueueTasks());
+
+    PaginatedList<TaskDto> tasks = taskService.list(new PagingRequest("01", null, 10, null, null));
+    assertEquals(3, tasks.getList().size());
+  }
+
+  @Test(expected = BadValueException.class)
+  public void createBatchOverMaxSizeTest() throws MalformedURLException, CommsRouterException {
+    int maxSize = CoreConfiguration.DEFAULT.getApiTaskBatchMaxSize();
+    CreateTaskArg arg = newCreateTaskArg("queue", "https://test.com", null);
+    taskService.createBatch(Collections.nCopies(maxSize + 1, arg), "01");
+  }
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.jpa.test;
+
+import static org.junit.Assert.assertTrue;
+
+import com.softavail.commsrouter.api.dto.model.TaskState;
+import com.softavail.commsrouter.app.CoreConfiguration;
+import com.softavail.commsrouter.domain.AttributeGroup;
+import com.softavail.commsrouter.domain.Queue;
+import com.softavail.commsrouter.domain.Router;
+import com.softavail.commsrouter.domain.Task;
+import com.softavail.commsrouter.jpa.JpaDbFacade;
+import com.softavail.commsrouter.util.Uuid;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * Measures the JDBC statements needed to persist a task the way CoreTaskService.create does -
+ * one transaction per task with requirements and user context attribute groups.
+ * The baseline maps every id to IDENTITY (META-INF/identity-ids.xml), where Hibernate has to
+ * insert each row on its own to read the generated key back.
+ */
+public class TaskCreateRoundTripsJpaTest {
+
+  private static final Logger LOGGER = LogManager.getLogger(TaskCreateRoundTripsJpaTest.class);
+
+  private static final String PERSISTENCE_UNIT = "mnf-pu-test";
+  private static final String IDENTITY_PERSISTENCE_UNIT = "mnf-pu-test-identity";
+  private static final int TASK_COUNT = 200;
+  private static final int ATTRIBUTE_COUNT = 10;
+
+  @Test
+  public void pooledSequenceTaskCreateUsesFewerStatementsThanIdentity() {
+    double before = statementsPerTaskCreate(IDENTITY_PERSISTENCE_UNIT, "round_trips_identity");
+    double after = statementsPerTaskCreate(PERSISTENCE_UNIT, "round_trips_sequence");
+
+    LOGGER.info("Statements per task create: identity {}, pooled sequence {}", before, after);
+
+    assertTrue("Pooled sequence: " + after + ", identity: " + before, after < before);
+  }
+
+  private double statementsPerTaskCreate(String persistenceUnit, String database) {
+    Map<String, Object> properties =
+        new HashMap<>(JpaDbFacade.getPersistenceProperties(CoreConfiguration.DEFAULT));
+    properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:" + database);
+    properties.put("hibernate.generate_statistics", true);
+
+    EntityManagerFactory emf = Persistence.createEntityManagerFactory(persistenceUnit, properties);
+    try {
+      EntityManager em = emf.createEntityManager();
+      em.getTransaction().begin();
+      Router router = new Router();
+      router.setRef(Uuid.get());
+      em.persist(router);
+      Queue queue = new Queue();
+      queue.setRef(Uuid.get());
+      queue.setRouter(router);
+      queue.setPredicate("1==1");
+      em.persist(queue);
+      em.getTransaction().commit();
+
+      Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+      statistics.clear();
+
+      for (int i = 0; i < TASK_COUNT; ++i) {
+        em.getTransaction().begin();
+        Task task = new Task();
+        task.setRef(Uuid.get());
+        task.setRouter(router);
+        task.setQueue(queue);
+        task.setState(TaskState.waiting);
+        task.setCallbackUrl("http://localhost/callback");
+        task.setRequirements(createAttributes("requirement"));
+        task.setUserContext(createAttributes("context"));
+        em.persist(task);
+        em.getTransaction().commit();
+        em.clear();
+      }
+
+      em.close();
+      return (double) statistics.getPrepareStatementCount() / TASK_COUNT;
+    } finally {
+      emf.close();
+    }
+  }
+
+  private AttributeGroup createAttributes(String prefix) {
+    AttributeGroup group = new AttributeGroup();
+    for (int i = 0; i < ATTRIBUTE_COUNT; ++i) {
+      group.add(prefix + i, "value" + i);
+    }
+    return group;
+  }
+
+}
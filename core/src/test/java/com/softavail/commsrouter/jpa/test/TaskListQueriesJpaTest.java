@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.jpa.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.softavail.commsrouter.api.dto.model.AgentState;
+import com.softavail.commsrouter.api.dto.model.TaskDto;
+import com.softavail.commsrouter.api.dto.model.TaskState;
+import com.softavail.commsrouter.domain.Agent;
+import com.softavail.commsrouter.domain.AttributeGroup;
+import com.softavail.commsrouter.domain.Queue;
+import com.softavail.commsrouter.domain.Router;
+import com.softavail.commsrouter.domain.Task;
+import com.softavail.commsrouter.domain.dto.mappers.AttributesMapper;
+import com.softavail.commsrouter.domain.dto.mappers.TaskMapper;
+import com.softavail.commsrouter.jpa.TaskRepository;
+import com.softavail.commsrouter.util.Uuid;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.TypedQuery;
+
+/**
+ * Counts the statements needed to load and map a page of tasks with and without the DTO graph.
+ */
+public class TaskListQueriesJpaTest {
+
+  private static final Logger LOGGER = LogManager.getLogger(TaskListQueriesJpaTest.class);
+
+  private static final int PAGE_SIZE = 50;
+
+  private final TaskRepository repository = new TaskRepository(null);
+  private final TaskMapper mapper = new TaskMapper(new AttributesMapper());
+
+  private EntityManagerFactory emf;
+
+  @Before
+  public void createTasks() {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:task_list_queries");
+    properties.put("hibernate.generate_statistics", true);
+    emf = Persistence.createEntityManagerFactory("mnf-pu-test", properties);
+
+    EntityManager em = emf.createEntityManager();
+    em.getTransaction().begin();
+    Router router = new Router();
+    router.setRef("router");
+    em.persist(router);
+    for (int i = 0; i < PAGE_SIZE; ++i) {
+      Queue queue = new Queue();
+      queue.setRef("queue" + i);
+      queue.setRouter(router);
+      queue.setPredicate("1==1");
+      em.persist(queue);
+
+      Agent agent = new Agent();
+      agent.setRef("agent" + i);
+      agent.setRouter(router);
+      agent.setState(AgentState.busy);
+      agent.setCapabilities(createAttributes("capability"));
+      em.persist(agent);
+
+      Task task = new Task();
+      task.setRef(Uuid.get());
+      task.setRouter(router);
+      task.setQueue(queue);
+      task.setAgent(agent);
+      task.setState(TaskState.assigned);
+      task.setRequirements(createAttributes("requirement"));
+      task.setUserContext(createAttributes("context"));
+      em.persist(task);
+    }
+    em.getTransaction().commit();
+    em.close();
+  }
+
+  @After
+  public void close() {
+    emf.close();
+  }
+
+  @Test
+  public void dtoGraphAvoidsPerRowSelects() {
+    long plain = statementsToListAndMap(false);
+    long withGraph = statementsToListAndMap(true);
+
+    LOGGER.info("Statements to list and map {} tasks: plain {}, with DTO graph {}",
+        PAGE_SIZE, plain, withGraph);
+
+    assertTrue("Plain: " + plain + ", with DTO graph: " + withGraph, withGraph < plain);
+    // The page itself, the router, and a few batched attribute group and attribute list loads
+    assertTrue("With DTO graph: " + withGraph, withGraph <= 8);
+  }
+
+  private long statementsToListAndMap(boolean useDtoGraph) {
+    Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    EntityManager em = emf.createEntityManager();
+    try {
+      TypedQuery<Task> query = em.createQuery(
+          "SELECT t FROM Task t JOIN t.router r WHERE r.ref = :routerRef", Task.class);
+      if (useDtoGraph) {
+        repository.withDtoGraph(em, query);
+      }
+      List<Task> tasks = query
+          .setParameter("routerRef", "router")
+          .setMaxResults(PAGE_SIZE)
+          .getResultList();
+
+      List<TaskDto> dtos = mapper.toDto(tasks);
+      assertEquals(PAGE_SIZE, dtos.size());
+      dtos.forEach(dto -> assertEquals(1, dto.getRequirements().size()));
+    } finally {
+      em.close();
+    }
+
+    return statistics.getPrepareStatementCount();
+  }
+
+  private AttributeGroup createAttributes(String name) {
+    AttributeGroup group = new AttributeGroup();
+    group.add(name, "value");
+    return group;
+  }
+
+}
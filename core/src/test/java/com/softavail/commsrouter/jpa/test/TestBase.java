@@ -77,13 +77,16 @@ public class TestBase {
     em = emf.createEntityManager();
     createRouter("name_one", "description_one", "01");
     createRouter("name_two", "description_two", "02");
+    // The schema is recreated for each test, so drop the counters of the previous one
+    app.taskDispatcher.getQueueCounters().reconcile();
   }
 
   @BeforeClass
   public static void setTestCoreQueueService() {
     CommsRouterEvaluatorFactory evf = new CommsRouterEvaluatorFactory();
     JpaDbFacade db = new JpaDbFacade( "mnf-pu-test");
-    TaskDispatcher td = new TaskDispatcher(db, null, new CoreConfiguration() {
+    EntityMappers enm = new EntityMappers();
+    TaskDispatcher td = new TaskDispatcher(db, enm, new CoreConfiguration() {
       @Override
       public Integer getBackoffDelay() {
         return CoreConfiguration.DEFAULT.getBackoffDelay();
@@ -104,6 +107,16 @@ public class TestBase {
         return 20;
       }
 
+      @Override
+      public Integer getDispatcherTimerThreadPoolSize() {
+        return CoreConfiguration.DEFAULT.getDispatcherTimerThreadPoolSize();
+      }
+
+      @Override
+      public Integer getDispatcherCallbackThreadPoolSize() {
+        return CoreConfiguration.DEFAULT.getDispatcherCallbackThreadPoolSize();
+      }
+
       @Override
       public Integer getDispatcherThreadShutdownDelay() {
         return CoreConfiguration.DEFAULT.getDispatcherThreadShutdownDelay();
@@ -119,11 +132,56 @@ public class TestBase {
         return CoreConfiguration.DEFAULT.getQueueProcessorEvictionDelay();
       }
 
+      @Override
+      public Integer getQueueCountersReconcileDelay() {
+        return CoreConfiguration.DEFAULT.getQueueCountersReconcileDelay();
+      }
+
       @Override
       public Integer getJpaLockRetryCount() {
         return CoreConfiguration.DEFAULT.getJpaLockRetryCount();
       }
 
+      @Override
+      public Integer getJpaLockRetryBackoffDelay() {
+        return CoreConfiguration.DEFAULT.getJpaLockRetryBackoffDelay();
+      }
+
+      @Override
+      public Integer getJpaLockRetryBackoffDelayMax() {
+        return CoreConfiguration.DEFAULT.getJpaLockRetryBackoffDelayMax();
+      }
+
+      @Override
+      public Double getJpaLockRetryJitterFactor() {
+        return CoreConfiguration.DEFAULT.getJpaLockRetryJitterFactor();
+      }
+
+      @Override
+      public Integer getJpaJdbcBatchSize() {
+        return CoreConfiguration.DEFAULT.getJpaJdbcBatchSize();
+      }
+
+      @Override
+      public Boolean getJpaOrderInserts() {
+        return CoreConfiguration.DEFAULT.getJpaOrderInserts();
+      }
+
+      @Override
+      public Boolean getJpaOrderUpdates() {
+        return CoreConfiguration.DEFAULT.getJpaOrderUpdates();
+      }
+
+      @Override
+      public Integer getJpaBulkDeleteChunkSize() {
+        return CoreConfiguration.DEFAULT.getJpaBulkDeleteChunkSize();
+      }
+
+      @Override
+      public Integer getJpaTaskBatchChunkSize() {
+        return CoreConfiguration.DEFAULT.getJpaTaskBatchChunkSize();
+      }
+
       @Override
       public Boolean getApiEnableExpressionSkillValidation() {
         return false;
@@ -138,8 +196,92 @@ public class TestBase {
       public Boolean getApiEnableTaskRequirementsValidation() {
         return false;
       }
+
+      @Override
+      public Integer getApiAgentPollMaxWait() {
+        return CoreConfiguration.DEFAULT.getApiAgentPollMaxWait();
+      }
+
+      @Override
+      public Integer getApiTaskBatchMaxSize() {
+        return CoreConfiguration.DEFAULT.getApiTaskBatchMaxSize();
+      }
+
+      @Override
+      public Integer getApiAgentBatchMaxSize() {
+        return CoreConfiguration.DEFAULT.getApiAgentBatchMaxSize();
+      }
+
+      @Override
+      public Integer getApiEventsBufferSize() {
+        return CoreConfiguration.DEFAULT.getApiEventsBufferSize();
+      }
+
+      @Override
+      public Integer getApiEventsThreadPoolSize() {
+        return CoreConfiguration.DEFAULT.getApiEventsThreadPoolSize();
+      }
+
+      @Override
+      public Integer getApiEventsHeartbeatSeconds() {
+        return CoreConfiguration.DEFAULT.getApiEventsHeartbeatSeconds();
+      }
+
+      @Override
+      public Integer getApiEventsSendTimeoutSeconds() {
+        return CoreConfiguration.DEFAULT.getApiEventsSendTimeoutSeconds();
+      }
+
+      @Override
+      public Integer getApiAdmissionTaskRate() {
+        return CoreConfiguration.DEFAULT.getApiAdmissionTaskRate();
+      }
+
+      @Override
+      public Integer getApiAdmissionTaskBurst() {
+        return CoreConfiguration.DEFAULT.getApiAdmissionTaskBurst();
+      }
+
+      @Override
+      public Integer getApiAdmissionAgentRate() {
+        return CoreConfiguration.DEFAULT.getApiAdmissionAgentRate();
+      }
+
+      @Override
+      public Integer getApiAdmissionAgentBurst() {
+        return CoreConfiguration.DEFAULT.getApiAdmissionAgentBurst();
+      }
+
+      @Override
+      public Integer getApiAdmissionMaxWaitingTasks() {
+        return CoreConfiguration.DEFAULT.getApiAdmissionMaxWaitingTasks();
+      }
+
+      @Override
+      public Integer getApiAdmissionMaxDispatchLagMillis() {
+        return CoreConfiguration.DEFAULT.getApiAdmissionMaxDispatchLagMillis();
+      }
+
+      @Override
+      public Integer getApiWritesThreadPoolSize() {
+        return CoreConfiguration.DEFAULT.getApiWritesThreadPoolSize();
+      }
+
+      @Override
+      public Integer getApiWritesQueueSize() {
+        return CoreConfiguration.DEFAULT.getApiWritesQueueSize();
+      }
+
+      @Override
+      public Boolean getApiWritesAsyncTasks() {
+        return CoreConfiguration.DEFAULT.getApiWritesAsyncTasks();
+      }
+
+      @Override
+      public Boolean getApiWritesAsyncAgents() {
+        return CoreConfiguration.DEFAULT.getApiWritesAsyncAgents();
+      }
     }, null);
-    EntityMappers enm = new EntityMappers();
     app = new AppContext(db, evf, td, enm, CoreConfiguration.DEFAULT);
     // Instantiating all of the services
     queueService = new CoreQueueService(app);
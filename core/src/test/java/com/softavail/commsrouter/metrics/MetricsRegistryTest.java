@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author ikrustev
+ */
+public class MetricsRegistryTest {
+
+  private final MetricsRegistry registry = new MetricsRegistry();
+
+  @Test
+  public void sameNameAndLabelsGiveSameCounter() {
+    Counter counter = registry.counter("requests_total", "Requests", "host", "a");
+    assertSame(counter, registry.counter("requests_total", "Requests", "host", "a"));
+    assertTrue(counter != registry.counter("requests_total", "Requests", "host", "b"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void typeMismatchIsRejected() {
+    registry.counter("requests", "Requests");
+    registry.histogram("requests", "Requests", Histogram.DEFAULT_MILLIS_BUCKETS);
+  }
+
+  @Test
+  public void scrapeWritesPrometheusText() {
+    registry.counter("requests_total", "Requests", "host", "a\"b").add(3);
+    registry.gauge("depth", "Queue depth", () -> 7);
+    Histogram histogram =
+        registry.histogram("latency_milliseconds", "Latency", new double[]{1, 10});
+    histogram.observe(0.5);
+    histogram.observe(5);
+    histogram.observe(50);
+
+    String expected = ""
+        + "# HELP depth Queue depth\n"
+        + "# TYPE depth gauge\n"
+        + "depth 7\n"
+        + "# HELP latency_milliseconds Latency\n"
+        + "# TYPE latency_milliseconds histogram\n"
+        + "latency_milliseconds_bucket{le=\"1\"} 1\n"
+        + "latency_milliseconds_bucket{le=\"10\"} 2\n"
+        + "latency_milliseconds_bucket{le=\"+Inf\"} 3\n"
+        + "latency_milliseconds_sum 55.5\n"
+        + "latency_milliseconds_count 3\n"
+        + "# HELP requests_total Requests\n"
+        + "# TYPE requests_total counter\n"
+        + "requests_total{host=\"a\\\"b\"} 3\n";
+    assertEquals(expected, registry.scrape());
+  }
+
+  @Test
+  public void collectorsAreScraped() {
+    TransactionMetrics transactionMetrics = new TransactionMetrics();
+    transactionMetrics.onCompleted("task.create", true, 1, 2_000_000);
+    registry.register("transactions", transactionMetrics);
+
+    String text = registry.scrape();
+    assertTrue(text, text.contains("commsrouter_transactions_total{tag=\"task.create\"} 1\n"));
+    assertTrue(text, text.contains(
+        "commsrouter_transaction_duration_milliseconds_bucket{tag=\"task.create\",le=\"2\"} 1\n"));
+  }
+
+}
@@ -0,0 +1,163 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.softavail.commsrouter.jpa.JpaTransactionManager;
+import com.softavail.commsrouter.jpa.LockRetryBackoff;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Persistence;
+import javax.persistence.PersistenceException;
+
+/**
+ * @author ikrustev
+ */
+public class TransactionMetricsTest {
+
+  private EntityManagerFactory emf;
+  private TransactionMetrics metrics;
+  private JpaTransactionManager transactionManager;
+
+  @Before
+  public void setUp() {
+    emf = Persistence.createEntityManagerFactory("mnf-pu-test");
+    metrics = new TransactionMetrics();
+    transactionManager =
+        new JpaTransactionManager(emf, 5, new LockRetryBackoff(1, 4, 0.5), metrics);
+  }
+
+  @After
+  public void tearDown() {
+    transactionManager.close();
+  }
+
+  @Test
+  public void lockRetriesAreCountedPerTag() throws Exception {
+    AtomicInteger failures = new AtomicInteger(2);
+
+    String result = transactionManager.executeWithLockRetry("task.complete", em -> {
+      if (failures.getAndDecrement() > 0) {
+        throw new PersistenceException(new OptimisticLockException());
+      }
+      return "done";
+    });
+    transactionManager.execute("agent.update", em -> null);
+
+    assertEquals("done", result);
+
+    TransactionMetrics.TagMetrics complete = metrics.get("task.complete");
+    assertEquals(1, complete.transactions.get());
+    assertEquals(3, complete.attempts.get());
+    assertEquals(2, complete.rollbacks.get());
+    assertEquals(2, complete.lockRetries.get());
+    assertEquals(1, complete.commits.get());
+    assertEquals(2, complete.lockWaitMillis.getCount());
+    assertTrue(complete.lockWaitMillis.getSum() >= 1);
+
+    TransactionMetrics.TagMetrics update = metrics.get("agent.update");
+    assertEquals(1, update.attempts.get());
+    assertEquals(0, update.lockRetries.get());
+    assertEquals(1, update.durationMillis.getCount());
+  }
+
+  @Test
+  public void scheduledLockRetriesCompleteTheFuture() throws Exception {
+    AtomicInteger failures = new AtomicInteger(2);
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+    try {
+      CompletableFuture<String> result =
+          transactionManager.executeWithLockRetry("queue.assign", em -> {
+            if (failures.getAndDecrement() > 0) {
+              throw new PersistenceException(new OptimisticLockException());
+            }
+            return "done";
+          }, scheduler);
+
+      assertEquals("done", result.get(5, TimeUnit.SECONDS));
+    } finally {
+      scheduler.shutdown();
+    }
+
+    TransactionMetrics.TagMetrics assign = metrics.get("queue.assign");
+    assertEquals(3, assign.attempts.get());
+    assertEquals(2, assign.lockRetries.get());
+    assertEquals(1, assign.commits.get());
+  }
+
+  @Test
+  public void lockRetryWaitIsCappedPerCall() throws Exception {
+    JpaTransactionManager slowBackoff =
+        new JpaTransactionManager(emf, 5, new LockRetryBackoff(200, 200, 0), metrics);
+    AtomicInteger failures = new AtomicInteger(3);
+
+    long startNanos = System.nanoTime();
+    slowBackoff.executeWithLockRetry("task.complete", em -> {
+      if (failures.getAndDecrement() > 0) {
+        throw new PersistenceException(new OptimisticLockException());
+      }
+      return null;
+    });
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+    // Three retries of 200ms each, capped at 200ms in total
+    assertTrue("Waited " + elapsedMillis + "ms", elapsedMillis < 500);
+  }
+
+  @Test
+  public void failingAfterCommitActionKeepsTheCommit() throws Exception {
+    AtomicInteger actionsRun = new AtomicInteger();
+
+    String result = transactionManager.execute("task.create", em -> {
+      transactionManager.afterCommit(() -> {
+        throw new IllegalStateException("after commit");
+      });
+      transactionManager.afterCommit(actionsRun::incrementAndGet);
+      return "done";
+    });
+
+    assertEquals("done", result);
+    assertEquals(1, actionsRun.get());
+    TransactionMetrics.TagMetrics create = metrics.get("task.create");
+    assertEquals(1, create.commits.get());
+    assertEquals(0, create.rollbacks.get());
+  }
+
+  @Test
+  public void backoffGrowsUpToTheMaximum() {
+    LockRetryBackoff backoff = new LockRetryBackoff(10, 100, 0.5);
+    for (int i = 0; i < 100; ++i) {
+      long first = backoff.getDelayMillis(1);
+      assertTrue("first " + first, first >= 5 && first <= 10);
+      long third = backoff.getDelayMillis(3);
+      assertTrue("third " + third, third >= 20 && third <= 40);
+      long tenth = backoff.getDelayMillis(10);
+      assertTrue("tenth " + tenth, tenth >= 50 && tenth <= 100);
+    }
+  }
+
+}
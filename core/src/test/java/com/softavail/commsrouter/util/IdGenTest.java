@@ -1,10 +1,15 @@
 package com.softavail.commsrouter.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.stream.IntStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -35,4 +40,45 @@ public class IdGenTest {
     assertEquals("Set should have", count, set.size());
   }
 
+  @Test
+  public void concurrentRefsDoNotCollide() throws InterruptedException {
+    int threads = 8;
+    int perThread = 100_000;
+    Set<String> refs = ConcurrentHashMap.newKeySet();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int i = 0; i < threads; ++i) {
+      Thread worker = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException ex) {
+          return;
+        }
+        for (int j = 0; j < perThread; ++j) {
+          refs.add(Uuid.get());
+        }
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assertEquals(threads * perThread, refs.size());
+  }
+
+  @Test
+  public void refsSortInCreateOrder() {
+    String previous = Uuid.get();
+    for (int i = 0; i < 100_000; ++i) {
+      String ref = Uuid.get();
+      assertEquals(Uuid.LENGTH, ref.length());
+      assertTrue(previous + " then " + ref, previous.compareTo(ref) < 0);
+      assertEquals(ref.toLowerCase(), ref);
+      previous = ref;
+    }
+  }
+
 }
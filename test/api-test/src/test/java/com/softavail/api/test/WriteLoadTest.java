@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 SoftAvail, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.softavail.api.test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isOneOf;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.softavail.commsrouter.api.dto.arg.CreateQueueArg;
+import com.softavail.commsrouter.api.dto.arg.CreateRouterArg;
+import com.softavail.commsrouter.api.dto.arg.CreateTaskArg;
+import com.softavail.commsrouter.api.dto.model.attribute.AttributeGroupDto;
+import com.softavail.commsrouter.test.api.CommsRouterResource;
+import com.softavail.commsrouter.test.api.Queue;
+import com.softavail.commsrouter.test.api.Router;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test for the write endpoints: many clients create tasks in one router while another
+ * keeps reading it. Every create must either succeed or be rejected with 429, and the reads
+ * must keep being served. Run it against a server with api.writes.asyncTasks=true to see the
+ * reads stay fast while the writes queue up on their own pool.
+ */
+public class WriteLoadTest extends BaseTest {
+
+  private static final Logger LOGGER = LogManager.getLogger(WriteLoadTest.class);
+
+  private static final int WRITERS = 64;
+  private static final int WRITES_PER_WRITER = 50;
+  private static final long MAX_READ_MILLIS = 5000;
+
+  private HashMap<CommsRouterResource, String> state = new HashMap<CommsRouterResource, String>();
+  private Router r = new Router(state);
+  private Queue q = new Queue(state);
+
+  @Before
+  public void createRouterAndQueue() {
+    CreateRouterArg routerArg = new CreateRouterArg();
+    routerArg.setDescription("Write load router");
+    routerArg.setName("write-load");
+    r.create(routerArg);
+    q.create(new CreateQueueArg.Builder()
+        .predicate("1==1")
+        .description("write load queue")
+        .build());
+  }
+
+  @After
+  public void cleanup() {
+    given()
+        .pathParam("routerRef", state.get(CommsRouterResource.ROUTER))
+        .queryParam("purge", true)
+        .when().delete("/routers/{routerRef}")
+        .then().statusCode(200);
+  }
+
+  @Test
+  public void readsAreServedUnderWriteLoad() throws Exception {
+    String routerRef = state.get(CommsRouterResource.ROUTER);
+    CreateTaskArg taskArg = new CreateTaskArg();
+    taskArg.setCallbackUrl(new URL("http://localhost:8080"));
+    taskArg.setRequirements(new AttributeGroupDto());
+    taskArg.setQueueRef(state.get(CommsRouterResource.QUEUE));
+
+    ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+    ConcurrentHashMap<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+    List<Future<?>> writes = new ArrayList<>();
+    for (int i = 0; i < WRITERS; ++i) {
+      writes.add(writers.submit(() -> {
+        for (int j = 0; j < WRITES_PER_WRITER; ++j) {
+          int status = given()
+              .pathParam("routerRef", routerRef)
+              .contentType("application/json")
+              .body(taskArg)
+              .when().post("/routers/{routerRef}/tasks")
+              .then().extract().statusCode();
+          statuses.computeIfAbsent(status, key -> new AtomicInteger()).incrementAndGet();
+        }
+      }));
+    }
+
+    List<Long> readMillis = new ArrayList<>();
+    do {
+      long start = System.nanoTime();
+      given()
+          .pathParam("routerRef", routerRef)
+          .when().get("/routers/{routerRef}")
+          .then().statusCode(200);
+      readMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } while (writes.stream().anyMatch(write -> !write.isDone()));
+    for (Future<?> write : writes) {
+      write.get();
+    }
+    writers.shutdown();
+
+    Collections.sort(readMillis);
+    LOGGER.info("Create statuses: {}, reads: {}, median read ms: {}, max read ms: {}",
+        statuses, readMillis.size(), readMillis.get(readMillis.size() / 2),
+        readMillis.get(readMillis.size() - 1));
+
+    statuses.keySet().forEach(status -> assertThat(status, isOneOf(201, 429)));
+    assertThat(statuses.values().stream().mapToInt(AtomicInteger::get).sum(),
+        is(WRITERS * WRITES_PER_WRITER));
+    assertThat(readMillis.get(readMillis.size() - 1), lessThan(MAX_READ_MILLIS));
+  }
+
+}
@@ -16,20 +16,28 @@
 
 package com.softavail.commsrouter.webservice;
 
+import com.softavail.commsrouter.api.interfaces.AgentPollService;
 import com.softavail.commsrouter.api.interfaces.AgentService;
+import com.softavail.commsrouter.api.interfaces.BulkDeleteService;
 import com.softavail.commsrouter.api.interfaces.PlanService;
 import com.softavail.commsrouter.api.interfaces.QueueService;
 import com.softavail.commsrouter.api.interfaces.RouterService;
 import com.softavail.commsrouter.api.interfaces.SkillService;
 import com.softavail.commsrouter.api.interfaces.TaskService;
+import com.softavail.commsrouter.api.service.CoreAgentPollService;
 import com.softavail.commsrouter.api.service.CoreAgentService;
+import com.softavail.commsrouter.api.service.CoreBulkDeleteService;
 import com.softavail.commsrouter.api.service.CorePlanService;
 import com.softavail.commsrouter.api.service.CoreQueueService;
 import com.softavail.commsrouter.api.service.CoreRouterService;
 import com.softavail.commsrouter.api.service.CoreSkillService;
 import com.softavail.commsrouter.api.service.CoreTaskService;
 import com.softavail.commsrouter.app.AppContext;
+import com.softavail.commsrouter.app.CoreConfiguration;
+import com.softavail.commsrouter.app.RouterEvents;
+import com.softavail.commsrouter.app.TaskDispatcher;
 import com.softavail.commsrouter.providers.ClientFactory;
+import com.softavail.commsrouter.webservice.helpers.WriteExecutor;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 
 import javax.inject.Singleton;
@@ -41,9 +49,11 @@ import javax.ws.rs.client.Client;
 public class ApplicationBindings extends AbstractBinder {
 
   private final AppContext context;
+  private final WriteExecutor writeExecutor;
 
-  public ApplicationBindings(AppContext context) {
+  public ApplicationBindings(AppContext context, WriteExecutor writeExecutor) {
     this.context = context;
+    this.writeExecutor = writeExecutor;
   }
 
   @Override
@@ -77,6 +87,26 @@ public class ApplicationBindings extends AbstractBinder {
         .to(RouterService.class)
         .to(CoreRouterService.class);
 
+    bind(context.svc.bulkDelete)
+        .to(BulkDeleteService.class)
+        .to(CoreBulkDeleteService.class);
+
+    bind(context.svc.agentPoll)
+        .to(AgentPollService.class)
+        .to(CoreAgentPollService.class);
+
+    bind(context.coreConfiguration)
+        .to(CoreConfiguration.class);
+
+    bind(context.taskDispatcher.getRouterEvents())
+        .to(RouterEvents.class);
+
+    bind(context.taskDispatcher)
+        .to(TaskDispatcher.class);
+
+    bind(writeExecutor)
+        .to(WriteExecutor.class);
+
   }
 
 }
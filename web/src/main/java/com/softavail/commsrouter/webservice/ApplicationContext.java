@@ -16,6 +16,8 @@
 
 package com.softavail.commsrouter.webservice;
 
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
 import com.softavail.commsrouter.api.dto.model.TaskAssignmentDto;
 import com.softavail.commsrouter.api.exception.CallbackException;
 import com.softavail.commsrouter.app.AppContext;
@@ -28,6 +30,7 @@ import com.softavail.commsrouter.eval.RsqlValidator;
 import com.softavail.commsrouter.jpa.JpaDbFacade;
 import com.softavail.commsrouter.webservice.config.ConfigurationImpl;
 import com.softavail.commsrouter.webservice.config.ManifestConfigurationImpl;
+import com.softavail.commsrouter.webservice.helpers.WriteExecutor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.glassfish.jersey.client.ClientConfig;
@@ -51,15 +54,18 @@ public class ApplicationContext {
   private static final Logger LOGGER = LogManager.getLogger(ApplicationContext.class);
 
   private final Client client;
+  private final MediaType callbackMediaType;
   private final AppContext coreContext;
   private final ConfigurationImpl configuration;
   private final ManifestConfigurationImpl manifest;
+  private final WriteExecutor writeExecutor;
 
   public ApplicationContext(ServletContext servletContext) {
     configuration = new ConfigurationImpl(servletContext);
     LOGGER.debug("configuration: {}", configuration);
     manifest = new ManifestConfigurationImpl(servletContext);
     client = createClient();
+    callbackMediaType = MediaType.valueOf(configuration.getClientCallbackMediaType());
 
     JpaDbFacade db = new JpaDbFacade(configuration);
     CommsRouterEvaluatorFactory evaluatorFactory = new CommsRouterEvaluatorFactory();
@@ -68,6 +74,9 @@ public class ApplicationContext {
         new TaskDispatcher(db, mappers, configuration, this::handleAssignment);
     coreContext = new AppContext(db, evaluatorFactory, taskDispatcher, mappers, configuration);
     evaluatorFactory.setRsqlValidator(createRsqlValidator());
+    writeExecutor = new WriteExecutor(configuration);
+    configuration.subscribe(taskDispatcher);
+    configuration.subscribe(writeExecutor);
   }
 
   public Client getClient() {
@@ -86,11 +95,16 @@ public class ApplicationContext {
     return manifest;
   }
 
+  public WriteExecutor getWriteExecutor() {
+    return writeExecutor;
+  }
+
   private Client createClient() {
     ClientConfig config = new ClientConfig();
     config.property(ClientProperties.CONNECT_TIMEOUT, configuration.getClientConnectTimeout());
     config.property(ClientProperties.READ_TIMEOUT, configuration.getClientReadTimeout());
     config.register(new LoggingFeature());
+    config.register(new JacksonSmileProvider(WireFormats.createSmileMapper()));
     return ClientBuilder.newClient(config);
   }
 
@@ -103,7 +117,7 @@ public class ApplicationContext {
       Response response = client.target(callbackUrl)
           .property(ClientProperties.FOLLOW_REDIRECTS, configuration.getClientFollowRedirects())
           .request(MediaType.WILDCARD_TYPE)
-          .post(Entity.entity(taskAssignment, MediaType.APPLICATION_JSON_TYPE));
+          .post(Entity.entity(taskAssignment, callbackMediaType));
 
       if (response.getStatus() == Status.SERVICE_UNAVAILABLE.getStatusCode()) {
         // On 503 response we will try again
@@ -117,8 +131,12 @@ public class ApplicationContext {
   }
 
   public void close() {
-    client.close();
+    configuration.close();
+    writeExecutor.close();
+    coreContext.svc.bulkDelete.close();
+    // The dispatcher drains its pending callbacks, so the client goes after it
     coreContext.taskDispatcher.close();
+    client.close();
     coreContext.db.close();
   }
 
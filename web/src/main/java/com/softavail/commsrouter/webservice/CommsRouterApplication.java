@@ -16,6 +16,8 @@
 
 package com.softavail.commsrouter.webservice;
 
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.webservice.config.ManifestConfigurationImpl;
 import io.swagger.jaxrs.config.BeanConfig;
@@ -49,10 +51,15 @@ public class CommsRouterApplication extends ResourceConfig {
         manifest.getImplementationBuildTime(),
         manifest.getBuildJdk());
 
-    register(new ApplicationBindings(applicationContext.getCoreContext()));
+    register(new ApplicationBindings(applicationContext.getCoreContext(),
+        applicationContext.getWriteExecutor()));
 
     packages(CommsRouterApplication.class.getPackage().getName());
 
+    // JSON goes through the Jackson feature and ObjectMapperContextResolver. Smile gets its own
+    // mapper, as the context resolver hands out the JSON one for every media type.
+    register(new JacksonSmileProvider(WireFormats.createSmileMapper()));
+
     register(io.swagger.jaxrs.listing.ApiListingResource.class);
     register(io.swagger.jaxrs.listing.SwaggerSerializers.class);
 
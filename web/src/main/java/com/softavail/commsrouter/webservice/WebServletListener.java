@@ -72,8 +72,10 @@ public class WebServletListener extends EnvironmentLoader implements ServletCont
 
     sc.setInitParameter("shiroConfigLocations", shiroConfigLocations);
 
-    FilterRegistration filterRegistration =
+    FilterRegistration.Dynamic filterRegistration =
         sc.addFilter("ShiroFilter", "org.apache.shiro.web.servlet.ShiroFilter");
+    // Long-polling resources suspend the request
+    filterRegistration.setAsyncSupported(true);
     filterRegistration.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST,
         DispatcherType.FORWARD, DispatcherType.INCLUDE, DispatcherType.ERROR), true, "/*");
 
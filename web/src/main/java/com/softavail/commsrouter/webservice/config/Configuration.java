@@ -39,6 +39,11 @@ public interface Configuration {
       return true;
     }
 
+    @Override
+    public String getClientCallbackMediaType() {
+      return "application/json";
+    }
+
     @Override
     public String getShiroConfigLocations() {
       return "classpath:shiro.ini";
@@ -52,6 +57,8 @@ public interface Configuration {
   Integer getClientReadTimeout();
 
   Boolean getClientFollowRedirects();
+
+  String getClientCallbackMediaType();
   
   String getShiroConfigLocations();
 
@@ -0,0 +1,107 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the configuration file and runs a reload after it changes. Editors and deploy tools
+ * often write a file in several steps, so the reload runs once the file has been quiet for a
+ * while instead of on every event.
+ *
+ * @author ikrustev
+ */
+public class ConfigurationFileWatcher implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger(ConfigurationFileWatcher.class);
+
+  private static final long QUIET_PERIOD_MILLIS = 500;
+
+  private final Path file;
+  private final Runnable reload;
+  private final WatchService watchService;
+  private final Thread thread;
+
+  public ConfigurationFileWatcher(Path file, Runnable reload) throws IOException {
+    this.file = file.toAbsolutePath();
+    this.reload = reload;
+    this.watchService = FileSystems.getDefault().newWatchService();
+    // Watch the directory, as files replaced by a rename are not seen by a watch on the file
+    this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+    this.thread = new Thread(this::run, "config-watcher");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        if (!isFileChanged(watchService.take())) {
+          continue;
+        }
+        // Wait for the writes to settle
+        WatchKey key;
+        while ((key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          isFileChanged(key);
+        }
+        LOGGER.info("Configuration file {} changed, reloading", file);
+        try {
+          reload.run();
+        } catch (RuntimeException ex) {
+          LOGGER.error("Reloading configuration from {} failed: {}", file, ex, ex);
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException ex) {
+      LOGGER.debug("Stopped watching {}", file);
+    }
+  }
+
+  private boolean isFileChanged(WatchKey key) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW
+          || file.getFileName().equals(event.context())) {
+        changed = true;
+      }
+    }
+    key.reset();
+    return changed;
+  }
+
+  @Override
+  public void close() {
+    thread.interrupt();
+    try {
+      watchService.close();
+    } catch (IOException ex) {
+      LOGGER.warn("Closing the watch of {} failed: {}", file, ex);
+    }
+  }
+
+}
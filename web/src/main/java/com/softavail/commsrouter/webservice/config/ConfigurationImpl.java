@@ -19,6 +19,7 @@ package com.softavail.commsrouter.webservice.config;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 
+import com.softavail.commsrouter.app.ConfigurationListener;
 import com.softavail.commsrouter.app.CoreConfiguration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -31,90 +32,99 @@ import org.cfg4j.source.empty.EmptyConfigurationSource;
 import org.cfg4j.source.files.FilesConfigurationSource;
 import org.cfg4j.source.inmemory.InMemoryConfigurationSource;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.servlet.ServletContext;
 
 /**
  * Created by @author mapuo on 16.10.17.
+ *
+ * <p>Getters read an immutable {@link ConfigurationSnapshot}. When the configuration is an
+ * absolute file, changes to it are watched: the file is read into a new snapshot, which replaces
+ * the current one in a single write, and listeners apply it to the running components. A file
+ * that does not parse leaves the current snapshot in place.
  */
-public class ConfigurationImpl implements CoreConfiguration, Configuration {
+public class ConfigurationImpl implements CoreConfiguration, Configuration, AutoCloseable {
 
   private static final Logger LOGGER = LogManager.getLogger(ConfigurationImpl.class);
 
-  private static final String CLIENT_TIMEOUT_CONNECT = "client.timeout.connect";
-  private static final String CLIENT_TIMEOUT_READ = "client.timeout.read";
-  private static final String CLIENT_FOLLOW_REDIRECTS = "client.followRedirects";
-  private static final String BACKOFF_DELAY_SECONDS = "client.retry.delaySeconds";
-  private static final String BACKOFF_DELAY_MAX_SECONDS = "client.retry.delayMaxSeconds";
-  private static final String BACKOFF_JITTER_MILLIS = "client.retry.jitterMilliseconds";
-  private static final String THREAD_POOL_SIZE = "task_dispatcher.thread_pool.size";
-  private static final String THREAD_POOL_SHUTDOWN_TIMEOUT =
-      "task_dispatcher.thread_pool.shutdown.delaySeconds";
-  private static final String QUEUE_RETRY_DELAY_SECONDS = "queue.retry.delaySeconds";
-  private static final String QUEUE_PROCESSOR_EVICTION_DELAY = "queue.remove.idleDelaySeconds";
-  private static final String JPA_OPTIMISTIC_LOCK_RETRY_COUNT = "jpa.optimisticLock.retryCount";
-  private static final String API_ENABLE_EXPRESSION_SKILL_VALIDATION =
-      "api.enableExpressionSkillValidation";
-  private static final String API_ENABLE_ENABLE_AGENT_CAPABILITIES_VALIDATION =
-      "api.enableAgentCapabilitiesValidation";
-  private static final String API_ENABLE_ENABLE_TASK_REQUIREMENTS_VALIDATION =
-      "api.enableTaskRequirementsValidation";
-
-  private static final String SHIRO_CONFIG_LOCATIONS = "shiro.configLocations";
-
-  private static final Properties defaultProperties;
-
-  static {
-    defaultProperties = new Properties();
-
-    defaultProperties.setProperty(BACKOFF_DELAY_SECONDS,
-        String.valueOf(CoreConfiguration.DEFAULT.getBackoffDelay()));
-    defaultProperties.setProperty(BACKOFF_DELAY_MAX_SECONDS,
-        String.valueOf(CoreConfiguration.DEFAULT.getBackoffDelayMax()));
-    defaultProperties.setProperty(BACKOFF_JITTER_MILLIS,
-        String.valueOf(CoreConfiguration.DEFAULT.getJitter()));
-    defaultProperties.setProperty(THREAD_POOL_SIZE,
-        String.valueOf(CoreConfiguration.DEFAULT.getDispatcherThreadPoolSize()));
-    defaultProperties.setProperty(THREAD_POOL_SHUTDOWN_TIMEOUT,
-        String.valueOf(CoreConfiguration.DEFAULT.getDispatcherThreadShutdownDelay()));
-    defaultProperties.setProperty(QUEUE_PROCESSOR_EVICTION_DELAY,
-        String.valueOf(CoreConfiguration.DEFAULT.getQueueProcessRetryDelay()));
-    defaultProperties.setProperty(QUEUE_RETRY_DELAY_SECONDS,
-        String.valueOf(CoreConfiguration.DEFAULT.getQueueProcessRetryDelay()));
-    defaultProperties.setProperty(JPA_OPTIMISTIC_LOCK_RETRY_COUNT,
-        String.valueOf(CoreConfiguration.DEFAULT.getJpaLockRetryCount()));
-    defaultProperties.setProperty(API_ENABLE_EXPRESSION_SKILL_VALIDATION,
-        String.valueOf(CoreConfiguration.DEFAULT.getApiEnableExpressionSkillValidation()));
-    defaultProperties.setProperty(API_ENABLE_ENABLE_AGENT_CAPABILITIES_VALIDATION,
-        String.valueOf(CoreConfiguration.DEFAULT.getApiEnableAgentCapabilitiesValidation()));
-    defaultProperties.setProperty(API_ENABLE_ENABLE_TASK_REQUIREMENTS_VALIDATION,
-        String.valueOf(CoreConfiguration.DEFAULT.getApiEnableTaskRequirementsValidation()));
-
-    defaultProperties.setProperty(CLIENT_TIMEOUT_CONNECT,
-        String.valueOf(Configuration.DEFAULT.getClientConnectTimeout()));
-    defaultProperties.setProperty(CLIENT_TIMEOUT_READ,
-        String.valueOf(Configuration.DEFAULT.getClientReadTimeout()));
-    defaultProperties.setProperty(CLIENT_FOLLOW_REDIRECTS,
-        String.valueOf(Configuration.DEFAULT.getClientFollowRedirects()));
-    defaultProperties.setProperty(SHIRO_CONFIG_LOCATIONS,
-        String.valueOf(Configuration.DEFAULT.getShiroConfigLocations()));
-  }
-
-  private final ConfigurationProvider provider;
+  private final ConfigurationSource master;
+  private final List<ConfigurationListener> listeners = new CopyOnWriteArrayList<>();
+  private final ConfigurationFileWatcher watcher;
+  private volatile ConfigurationSnapshot snapshot;
 
   public ConfigurationImpl(ServletContext servletContext) {
-    ConfigurationSource configurationSource = getConfigFileParam(servletContext)
+    Optional<Path> configFile = getConfigFileParam(servletContext);
+    ConfigurationSource configurationSource = configFile
         .map(this::getConfigurationSource).orElse(new EmptyConfigurationSource());
 
-    ConfigurationSource master = new SkipMissingConfigurationSource(
-        new InMemoryConfigurationSource(defaultProperties), configurationSource);
+    master = new SkipMissingConfigurationSource(
+        new InMemoryConfigurationSource(ConfigurationSnapshot.getDefaultProperties()),
+        configurationSource);
+
+    snapshot = new ConfigurationSnapshot(getProvider(master));
+    watcher = configFile.filter(Path::isAbsolute).map(this::watch).orElse(null);
+  }
+
+  public ConfigurationSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Registers a listener to run with every snapshot that replaces the current one.
+   */
+  public void subscribe(ConfigurationListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Reads the configuration again and, if it changed, makes it current and runs the listeners.
+   *
+   * @return whether the configuration changed
+   */
+  public synchronized boolean reload() {
+    ConfigurationSnapshot current;
+    try {
+      current = new ConfigurationSnapshot(getProvider(master));
+    } catch (RuntimeException ex) {
+      LOGGER.error("Configuration reload failed, keeping the current one: {}", ex, ex);
+      return false;
+    }
+    if (current.equals(snapshot)) {
+      return false;
+    }
+    snapshot = current;
+    LOGGER.info("Configuration reloaded: {}", current);
+    for (ConfigurationListener listener : listeners) {
+      try {
+        listener.configurationChanged(current);
+      } catch (RuntimeException ex) {
+        LOGGER.error("Applying the reloaded configuration failed: {}", ex, ex);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void close() {
+    if (watcher != null) {
+      watcher.close();
+    }
+  }
 
-    provider = getProvider(master);
+  private ConfigurationFileWatcher watch(Path configFile) {
+    try {
+      return new ConfigurationFileWatcher(configFile, this::reload);
+    } catch (IOException ex) {
+      LOGGER.warn("Can not watch {}, configuration changes need a restart: {}", configFile, ex);
+      return null;
+    }
   }
 
   private Optional<Path> getConfigFileParam(ServletContext servletContext) {
@@ -145,83 +155,228 @@ public class ConfigurationImpl implements CoreConfiguration, Configuration {
 
   @Override
   public Integer getClientConnectTimeout() {
-    return provider.getProperty(CLIENT_TIMEOUT_CONNECT, Integer.class);
+    return snapshot.getClientConnectTimeout();
   }
 
   @Override
   public Integer getClientReadTimeout() {
-    return provider.getProperty(CLIENT_TIMEOUT_READ, Integer.class);
+    return snapshot.getClientReadTimeout();
   }
 
   @Override
   public Boolean getClientFollowRedirects() {
-    return provider.getProperty(CLIENT_FOLLOW_REDIRECTS, Boolean.class);
+    return snapshot.getClientFollowRedirects();
+  }
+
+  @Override
+  public String getClientCallbackMediaType() {
+    return snapshot.getClientCallbackMediaType();
   }
 
   @Override
   public Boolean getApiEnableExpressionSkillValidation() {
-    return provider.getProperty(API_ENABLE_EXPRESSION_SKILL_VALIDATION, Boolean.class);
+    return snapshot.getApiEnableExpressionSkillValidation();
   }
 
   @Override
   public Boolean getApiEnableAgentCapabilitiesValidation() {
-    return provider.getProperty(API_ENABLE_ENABLE_AGENT_CAPABILITIES_VALIDATION, Boolean.class);
+    return snapshot.getApiEnableAgentCapabilitiesValidation();
   }
 
   @Override
   public Boolean getApiEnableTaskRequirementsValidation() {
-    return provider.getProperty(API_ENABLE_ENABLE_TASK_REQUIREMENTS_VALIDATION, Boolean.class);
+    return snapshot.getApiEnableTaskRequirementsValidation();
+  }
+
+  @Override
+  public Integer getApiAgentPollMaxWait() {
+    return snapshot.getApiAgentPollMaxWait();
+  }
+
+  @Override
+  public Integer getApiTaskBatchMaxSize() {
+    return snapshot.getApiTaskBatchMaxSize();
+  }
+
+  @Override
+  public Integer getApiAgentBatchMaxSize() {
+    return snapshot.getApiAgentBatchMaxSize();
+  }
+
+  @Override
+  public Integer getApiEventsBufferSize() {
+    return snapshot.getApiEventsBufferSize();
+  }
+
+  @Override
+  public Integer getApiEventsThreadPoolSize() {
+    return snapshot.getApiEventsThreadPoolSize();
+  }
+
+  @Override
+  public Integer getApiEventsHeartbeatSeconds() {
+    return snapshot.getApiEventsHeartbeatSeconds();
+  }
+
+  @Override
+  public Integer getApiEventsSendTimeoutSeconds() {
+    return snapshot.getApiEventsSendTimeoutSeconds();
+  }
+
+  @Override
+  public Integer getApiAdmissionTaskRate() {
+    return snapshot.getApiAdmissionTaskRate();
+  }
+
+  @Override
+  public Integer getApiAdmissionTaskBurst() {
+    return snapshot.getApiAdmissionTaskBurst();
+  }
+
+  @Override
+  public Integer getApiAdmissionAgentRate() {
+    return snapshot.getApiAdmissionAgentRate();
+  }
+
+  @Override
+  public Integer getApiAdmissionAgentBurst() {
+    return snapshot.getApiAdmissionAgentBurst();
+  }
+
+  @Override
+  public Integer getApiAdmissionMaxWaitingTasks() {
+    return snapshot.getApiAdmissionMaxWaitingTasks();
+  }
+
+  @Override
+  public Integer getApiAdmissionMaxDispatchLagMillis() {
+    return snapshot.getApiAdmissionMaxDispatchLagMillis();
+  }
+
+  @Override
+  public Integer getApiWritesThreadPoolSize() {
+    return snapshot.getApiWritesThreadPoolSize();
+  }
+
+  @Override
+  public Integer getApiWritesQueueSize() {
+    return snapshot.getApiWritesQueueSize();
+  }
+
+  @Override
+  public Boolean getApiWritesAsyncTasks() {
+    return snapshot.getApiWritesAsyncTasks();
+  }
+
+  @Override
+  public Boolean getApiWritesAsyncAgents() {
+    return snapshot.getApiWritesAsyncAgents();
   }
 
   @Override
   public String getShiroConfigLocations() {
-    return provider.getProperty(SHIRO_CONFIG_LOCATIONS, String.class);
+    return snapshot.getShiroConfigLocations();
   }
 
   @Override
   public Integer getBackoffDelay() {
-    return provider.getProperty(BACKOFF_DELAY_SECONDS, Integer.class);
+    return snapshot.getBackoffDelay();
   }
 
   @Override
   public Integer getBackoffDelayMax() {
-    return provider.getProperty(BACKOFF_DELAY_MAX_SECONDS, Integer.class);
+    return snapshot.getBackoffDelayMax();
   }
 
   @Override
   public Integer getJitter() {
-    return provider.getProperty(BACKOFF_JITTER_MILLIS, Integer.class);
+    return snapshot.getJitter();
   }
 
   @Override
   public Integer getDispatcherThreadPoolSize() {
-    return provider.getProperty(THREAD_POOL_SIZE, Integer.class);
+    return snapshot.getDispatcherThreadPoolSize();
+  }
+
+  @Override
+  public Integer getDispatcherTimerThreadPoolSize() {
+    return snapshot.getDispatcherTimerThreadPoolSize();
+  }
+
+  @Override
+  public Integer getDispatcherCallbackThreadPoolSize() {
+    return snapshot.getDispatcherCallbackThreadPoolSize();
   }
 
   @Override
   public Integer getDispatcherThreadShutdownDelay() {
-    return provider.getProperty(THREAD_POOL_SHUTDOWN_TIMEOUT, Integer.class);
+    return snapshot.getDispatcherThreadShutdownDelay();
   }
 
   @Override
   public Integer getQueueProcessRetryDelay() {
-    return provider.getProperty(QUEUE_RETRY_DELAY_SECONDS, Integer.class);
+    return snapshot.getQueueProcessRetryDelay();
   }
 
   @Override
   public Long getQueueProcessorEvictionDelay() {
-    return provider.getProperty(QUEUE_PROCESSOR_EVICTION_DELAY, Long.class);
+    return snapshot.getQueueProcessorEvictionDelay();
+  }
+
+  @Override
+  public Integer getQueueCountersReconcileDelay() {
+    return snapshot.getQueueCountersReconcileDelay();
   }
 
   @Override
   public Integer getJpaLockRetryCount() {
-    return provider.getProperty(JPA_OPTIMISTIC_LOCK_RETRY_COUNT, Integer.class);
+    return snapshot.getJpaLockRetryCount();
+  }
+
+  @Override
+  public Integer getJpaLockRetryBackoffDelay() {
+    return snapshot.getJpaLockRetryBackoffDelay();
+  }
+
+  @Override
+  public Integer getJpaLockRetryBackoffDelayMax() {
+    return snapshot.getJpaLockRetryBackoffDelayMax();
+  }
+
+  @Override
+  public Double getJpaLockRetryJitterFactor() {
+    return snapshot.getJpaLockRetryJitterFactor();
+  }
+
+  @Override
+  public Integer getJpaJdbcBatchSize() {
+    return snapshot.getJpaJdbcBatchSize();
+  }
+
+  @Override
+  public Boolean getJpaOrderInserts() {
+    return snapshot.getJpaOrderInserts();
+  }
+
+  @Override
+  public Boolean getJpaOrderUpdates() {
+    return snapshot.getJpaOrderUpdates();
+  }
+
+  @Override
+  public Integer getJpaBulkDeleteChunkSize() {
+    return snapshot.getJpaBulkDeleteChunkSize();
+  }
+
+  @Override
+  public Integer getJpaTaskBatchChunkSize() {
+    return snapshot.getJpaTaskBatchChunkSize();
   }
 
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("ConfigurationImpl{");
-    sb.append("provider=").append(provider.allConfigurationAsProperties());
+    sb.append("snapshot=").append(snapshot);
     sb.append('}');
     return sb.toString();
   }
@@ -0,0 +1,543 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.config;
+
+import com.softavail.commsrouter.app.CoreConfiguration;
+import org.cfg4j.provider.ConfigurationProvider;
+
+import java.util.Properties;
+
+/**
+ * The configuration as read at one point in time, with every property parsed to its type once.
+ * Getters are plain field reads, so hot paths can call them freely. A property that does not
+ * parse fails the whole snapshot, so a bad reload never replaces a good snapshot.
+ *
+ * @author ikrustev
+ */
+public class ConfigurationSnapshot implements CoreConfiguration, Configuration {
+
+  private static final String CLIENT_TIMEOUT_CONNECT = "client.timeout.connect";
+  private static final String CLIENT_TIMEOUT_READ = "client.timeout.read";
+  private static final String CLIENT_FOLLOW_REDIRECTS = "client.followRedirects";
+  private static final String CLIENT_CALLBACK_MEDIA_TYPE = "client.callbackMediaType";
+  private static final String BACKOFF_DELAY_SECONDS = "client.retry.delaySeconds";
+  private static final String BACKOFF_DELAY_MAX_SECONDS = "client.retry.delayMaxSeconds";
+  private static final String BACKOFF_JITTER_MILLIS = "client.retry.jitterMilliseconds";
+  private static final String THREAD_POOL_SIZE = "task_dispatcher.thread_pool.size";
+  private static final String TIMER_THREAD_POOL_SIZE = "task_dispatcher.timer_pool.size";
+  private static final String CALLBACK_THREAD_POOL_SIZE = "task_dispatcher.callback_pool.size";
+  private static final String THREAD_POOL_SHUTDOWN_TIMEOUT =
+      "task_dispatcher.thread_pool.shutdown.delaySeconds";
+  private static final String QUEUE_RETRY_DELAY_SECONDS = "queue.retry.delaySeconds";
+  private static final String QUEUE_PROCESSOR_EVICTION_DELAY = "queue.remove.idleDelaySeconds";
+  private static final String QUEUE_COUNTERS_RECONCILE_DELAY =
+      "queue.counters.reconcileDelaySeconds";
+  private static final String JPA_OPTIMISTIC_LOCK_RETRY_COUNT = "jpa.optimisticLock.retryCount";
+  private static final String JPA_OPTIMISTIC_LOCK_BACKOFF_DELAY = "jpa.optimisticLock.backoffDelay";
+  private static final String JPA_OPTIMISTIC_LOCK_BACKOFF_DELAY_MAX =
+      "jpa.optimisticLock.backoffDelayMax";
+  private static final String JPA_OPTIMISTIC_LOCK_JITTER_FACTOR = "jpa.optimisticLock.jitterFactor";
+  private static final String JPA_JDBC_BATCH_SIZE = "jpa.jdbc.batchSize";
+  private static final String JPA_ORDER_INSERTS = "jpa.jdbc.orderInserts";
+  private static final String JPA_ORDER_UPDATES = "jpa.jdbc.orderUpdates";
+  private static final String JPA_BULK_DELETE_CHUNK_SIZE = "jpa.bulkDelete.chunkSize";
+  private static final String JPA_TASK_BATCH_CHUNK_SIZE = "jpa.taskBatch.chunkSize";
+  private static final String API_ENABLE_EXPRESSION_SKILL_VALIDATION =
+      "api.enableExpressionSkillValidation";
+  private static final String API_ENABLE_ENABLE_AGENT_CAPABILITIES_VALIDATION =
+      "api.enableAgentCapabilitiesValidation";
+  private static final String API_ENABLE_ENABLE_TASK_REQUIREMENTS_VALIDATION =
+      "api.enableTaskRequirementsValidation";
+  private static final String API_AGENT_POLL_MAX_WAIT = "api.agentPoll.maxWait";
+  private static final String API_TASK_BATCH_MAX_SIZE = "api.taskBatch.maxSize";
+  private static final String API_AGENT_BATCH_MAX_SIZE = "api.agentBatch.maxSize";
+  private static final String API_EVENTS_BUFFER_SIZE = "api.events.bufferSize";
+  private static final String API_EVENTS_THREAD_POOL_SIZE = "api.events.threadPoolSize";
+  private static final String API_EVENTS_HEARTBEAT_SECONDS = "api.events.heartbeatSeconds";
+  private static final String API_EVENTS_SEND_TIMEOUT_SECONDS = "api.events.sendTimeoutSeconds";
+  private static final String API_ADMISSION_TASK_RATE = "api.admission.taskRate";
+  private static final String API_ADMISSION_TASK_BURST = "api.admission.taskBurst";
+  private static final String API_ADMISSION_AGENT_RATE = "api.admission.agentRate";
+  private static final String API_ADMISSION_AGENT_BURST = "api.admission.agentBurst";
+  private static final String API_ADMISSION_MAX_WAITING_TASKS = "api.admission.maxWaitingTasks";
+  private static final String API_ADMISSION_MAX_DISPATCH_LAG = "api.admission.maxDispatchLagMillis";
+  private static final String API_WRITES_THREAD_POOL_SIZE = "api.writes.threadPoolSize";
+  private static final String API_WRITES_QUEUE_SIZE = "api.writes.queueSize";
+  private static final String API_WRITES_ASYNC_TASKS = "api.writes.asyncTasks";
+  private static final String API_WRITES_ASYNC_AGENTS = "api.writes.asyncAgents";
+
+  private static final String SHIRO_CONFIG_LOCATIONS = "shiro.configLocations";
+
+  private static final Properties DEFAULT_PROPERTIES;
+
+  static {
+    DEFAULT_PROPERTIES = new Properties();
+
+    DEFAULT_PROPERTIES.setProperty(BACKOFF_DELAY_SECONDS,
+        String.valueOf(CoreConfiguration.DEFAULT.getBackoffDelay()));
+    DEFAULT_PROPERTIES.setProperty(BACKOFF_DELAY_MAX_SECONDS,
+        String.valueOf(CoreConfiguration.DEFAULT.getBackoffDelayMax()));
+    DEFAULT_PROPERTIES.setProperty(BACKOFF_JITTER_MILLIS,
+        String.valueOf(CoreConfiguration.DEFAULT.getJitter()));
+    DEFAULT_PROPERTIES.setProperty(THREAD_POOL_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getDispatcherThreadPoolSize()));
+    DEFAULT_PROPERTIES.setProperty(TIMER_THREAD_POOL_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getDispatcherTimerThreadPoolSize()));
+    DEFAULT_PROPERTIES.setProperty(CALLBACK_THREAD_POOL_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getDispatcherCallbackThreadPoolSize()));
+    DEFAULT_PROPERTIES.setProperty(THREAD_POOL_SHUTDOWN_TIMEOUT,
+        String.valueOf(CoreConfiguration.DEFAULT.getDispatcherThreadShutdownDelay()));
+    DEFAULT_PROPERTIES.setProperty(QUEUE_PROCESSOR_EVICTION_DELAY,
+        String.valueOf(CoreConfiguration.DEFAULT.getQueueProcessRetryDelay()));
+    DEFAULT_PROPERTIES.setProperty(QUEUE_COUNTERS_RECONCILE_DELAY,
+        String.valueOf(CoreConfiguration.DEFAULT.getQueueCountersReconcileDelay()));
+    DEFAULT_PROPERTIES.setProperty(QUEUE_RETRY_DELAY_SECONDS,
+        String.valueOf(CoreConfiguration.DEFAULT.getQueueProcessRetryDelay()));
+    DEFAULT_PROPERTIES.setProperty(JPA_OPTIMISTIC_LOCK_RETRY_COUNT,
+        String.valueOf(CoreConfiguration.DEFAULT.getJpaLockRetryCount()));
+    DEFAULT_PROPERTIES.setProperty(JPA_OPTIMISTIC_LOCK_BACKOFF_DELAY,
+        String.valueOf(CoreConfiguration.DEFAULT.getJpaLockRetryBackoffDelay()));
+    DEFAULT_PROPERTIES.setProperty(JPA_OPTIMISTIC_LOCK_BACKOFF_DELAY_MAX,
+        String.valueOf(CoreConfiguration.DEFAULT.getJpaLockRetryBackoffDelayMax()));
+    DEFAULT_PROPERTIES.setProperty(JPA_OPTIMISTIC_LOCK_JITTER_FACTOR,
+        String.valueOf(CoreConfiguration.DEFAULT.getJpaLockRetryJitterFactor()));
+    DEFAULT_PROPERTIES.setProperty(JPA_JDBC_BATCH_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getJpaJdbcBatchSize()));
+    DEFAULT_PROPERTIES.setProperty(JPA_ORDER_INSERTS,
+        String.valueOf(CoreConfiguration.DEFAULT.getJpaOrderInserts()));
+    DEFAULT_PROPERTIES.setProperty(JPA_ORDER_UPDATES,
+        String.valueOf(CoreConfiguration.DEFAULT.getJpaOrderUpdates()));
+    DEFAULT_PROPERTIES.setProperty(JPA_BULK_DELETE_CHUNK_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getJpaBulkDeleteChunkSize()));
+    DEFAULT_PROPERTIES.setProperty(JPA_TASK_BATCH_CHUNK_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getJpaTaskBatchChunkSize()));
+    DEFAULT_PROPERTIES.setProperty(API_ENABLE_EXPRESSION_SKILL_VALIDATION,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiEnableExpressionSkillValidation()));
+    DEFAULT_PROPERTIES.setProperty(API_ENABLE_ENABLE_AGENT_CAPABILITIES_VALIDATION,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiEnableAgentCapabilitiesValidation()));
+    DEFAULT_PROPERTIES.setProperty(API_ENABLE_ENABLE_TASK_REQUIREMENTS_VALIDATION,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiEnableTaskRequirementsValidation()));
+    DEFAULT_PROPERTIES.setProperty(API_AGENT_POLL_MAX_WAIT,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiAgentPollMaxWait()));
+    DEFAULT_PROPERTIES.setProperty(API_TASK_BATCH_MAX_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiTaskBatchMaxSize()));
+    DEFAULT_PROPERTIES.setProperty(API_AGENT_BATCH_MAX_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiAgentBatchMaxSize()));
+    DEFAULT_PROPERTIES.setProperty(API_EVENTS_BUFFER_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiEventsBufferSize()));
+    DEFAULT_PROPERTIES.setProperty(API_EVENTS_THREAD_POOL_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiEventsThreadPoolSize()));
+    DEFAULT_PROPERTIES.setProperty(API_EVENTS_HEARTBEAT_SECONDS,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiEventsHeartbeatSeconds()));
+    DEFAULT_PROPERTIES.setProperty(API_EVENTS_SEND_TIMEOUT_SECONDS,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiEventsSendTimeoutSeconds()));
+    DEFAULT_PROPERTIES.setProperty(API_ADMISSION_TASK_RATE,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiAdmissionTaskRate()));
+    DEFAULT_PROPERTIES.setProperty(API_ADMISSION_TASK_BURST,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiAdmissionTaskBurst()));
+    DEFAULT_PROPERTIES.setProperty(API_ADMISSION_AGENT_RATE,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiAdmissionAgentRate()));
+    DEFAULT_PROPERTIES.setProperty(API_ADMISSION_AGENT_BURST,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiAdmissionAgentBurst()));
+    DEFAULT_PROPERTIES.setProperty(API_ADMISSION_MAX_WAITING_TASKS,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiAdmissionMaxWaitingTasks()));
+    DEFAULT_PROPERTIES.setProperty(API_ADMISSION_MAX_DISPATCH_LAG,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiAdmissionMaxDispatchLagMillis()));
+    DEFAULT_PROPERTIES.setProperty(API_WRITES_THREAD_POOL_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiWritesThreadPoolSize()));
+    DEFAULT_PROPERTIES.setProperty(API_WRITES_QUEUE_SIZE,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiWritesQueueSize()));
+    DEFAULT_PROPERTIES.setProperty(API_WRITES_ASYNC_TASKS,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiWritesAsyncTasks()));
+    DEFAULT_PROPERTIES.setProperty(API_WRITES_ASYNC_AGENTS,
+        String.valueOf(CoreConfiguration.DEFAULT.getApiWritesAsyncAgents()));
+
+    DEFAULT_PROPERTIES.setProperty(CLIENT_TIMEOUT_CONNECT,
+        String.valueOf(Configuration.DEFAULT.getClientConnectTimeout()));
+    DEFAULT_PROPERTIES.setProperty(CLIENT_TIMEOUT_READ,
+        String.valueOf(Configuration.DEFAULT.getClientReadTimeout()));
+    DEFAULT_PROPERTIES.setProperty(CLIENT_FOLLOW_REDIRECTS,
+        String.valueOf(Configuration.DEFAULT.getClientFollowRedirects()));
+    DEFAULT_PROPERTIES.setProperty(CLIENT_CALLBACK_MEDIA_TYPE,
+        Configuration.DEFAULT.getClientCallbackMediaType());
+    DEFAULT_PROPERTIES.setProperty(SHIRO_CONFIG_LOCATIONS,
+        String.valueOf(Configuration.DEFAULT.getShiroConfigLocations()));
+  }
+
+  private final Properties properties;
+  private final Integer clientConnectTimeout;
+  private final Integer clientReadTimeout;
+  private final Boolean clientFollowRedirects;
+  private final String clientCallbackMediaType;
+  private final Boolean apiEnableExpressionSkillValidation;
+  private final Boolean apiEnableAgentCapabilitiesValidation;
+  private final Boolean apiEnableTaskRequirementsValidation;
+  private final Integer apiAgentPollMaxWait;
+  private final Integer apiTaskBatchMaxSize;
+  private final Integer apiAgentBatchMaxSize;
+  private final Integer apiEventsBufferSize;
+  private final Integer apiEventsThreadPoolSize;
+  private final Integer apiEventsHeartbeatSeconds;
+  private final Integer apiEventsSendTimeoutSeconds;
+  private final Integer apiAdmissionTaskRate;
+  private final Integer apiAdmissionTaskBurst;
+  private final Integer apiAdmissionAgentRate;
+  private final Integer apiAdmissionAgentBurst;
+  private final Integer apiAdmissionMaxWaitingTasks;
+  private final Integer apiAdmissionMaxDispatchLagMillis;
+  private final Integer apiWritesThreadPoolSize;
+  private final Integer apiWritesQueueSize;
+  private final Boolean apiWritesAsyncTasks;
+  private final Boolean apiWritesAsyncAgents;
+  private final String shiroConfigLocations;
+  private final Integer backoffDelay;
+  private final Integer backoffDelayMax;
+  private final Integer jitter;
+  private final Integer dispatcherThreadPoolSize;
+  private final Integer dispatcherTimerThreadPoolSize;
+  private final Integer dispatcherCallbackThreadPoolSize;
+  private final Integer dispatcherThreadShutdownDelay;
+  private final Integer queueProcessRetryDelay;
+  private final Long queueProcessorEvictionDelay;
+  private final Integer queueCountersReconcileDelay;
+  private final Integer jpaLockRetryCount;
+  private final Integer jpaLockRetryBackoffDelay;
+  private final Integer jpaLockRetryBackoffDelayMax;
+  private final Double jpaLockRetryJitterFactor;
+  private final Integer jpaJdbcBatchSize;
+  private final Boolean jpaOrderInserts;
+  private final Boolean jpaOrderUpdates;
+  private final Integer jpaBulkDeleteChunkSize;
+  private final Integer jpaTaskBatchChunkSize;
+
+  public ConfigurationSnapshot(ConfigurationProvider provider) {
+    this.properties = provider.allConfigurationAsProperties();
+    this.clientConnectTimeout = provider.getProperty(CLIENT_TIMEOUT_CONNECT, Integer.class);
+    this.clientReadTimeout = provider.getProperty(CLIENT_TIMEOUT_READ, Integer.class);
+    this.clientFollowRedirects = provider.getProperty(CLIENT_FOLLOW_REDIRECTS, Boolean.class);
+    this.clientCallbackMediaType = provider.getProperty(CLIENT_CALLBACK_MEDIA_TYPE, String.class);
+    this.apiEnableExpressionSkillValidation =
+        provider.getProperty(API_ENABLE_EXPRESSION_SKILL_VALIDATION, Boolean.class);
+    this.apiEnableAgentCapabilitiesValidation =
+        provider.getProperty(API_ENABLE_ENABLE_AGENT_CAPABILITIES_VALIDATION, Boolean.class);
+    this.apiEnableTaskRequirementsValidation =
+        provider.getProperty(API_ENABLE_ENABLE_TASK_REQUIREMENTS_VALIDATION, Boolean.class);
+    this.apiAgentPollMaxWait = provider.getProperty(API_AGENT_POLL_MAX_WAIT, Integer.class);
+    this.apiTaskBatchMaxSize = provider.getProperty(API_TASK_BATCH_MAX_SIZE, Integer.class);
+    this.apiAgentBatchMaxSize = provider.getProperty(API_AGENT_BATCH_MAX_SIZE, Integer.class);
+    this.apiEventsBufferSize = provider.getProperty(API_EVENTS_BUFFER_SIZE, Integer.class);
+    this.apiEventsThreadPoolSize = provider.getProperty(API_EVENTS_THREAD_POOL_SIZE, Integer.class);
+    this.apiEventsHeartbeatSeconds =
+        provider.getProperty(API_EVENTS_HEARTBEAT_SECONDS, Integer.class);
+    this.apiEventsSendTimeoutSeconds =
+        provider.getProperty(API_EVENTS_SEND_TIMEOUT_SECONDS, Integer.class);
+    this.apiAdmissionTaskRate = provider.getProperty(API_ADMISSION_TASK_RATE, Integer.class);
+    this.apiAdmissionTaskBurst = provider.getProperty(API_ADMISSION_TASK_BURST, Integer.class);
+    this.apiAdmissionAgentRate = provider.getProperty(API_ADMISSION_AGENT_RATE, Integer.class);
+    this.apiAdmissionAgentBurst = provider.getProperty(API_ADMISSION_AGENT_BURST, Integer.class);
+    this.apiAdmissionMaxWaitingTasks =
+        provider.getProperty(API_ADMISSION_MAX_WAITING_TASKS, Integer.class);
+    this.apiAdmissionMaxDispatchLagMillis =
+        provider.getProperty(API_ADMISSION_MAX_DISPATCH_LAG, Integer.class);
+    this.apiWritesThreadPoolSize = provider.getProperty(API_WRITES_THREAD_POOL_SIZE, Integer.class);
+    this.apiWritesQueueSize = provider.getProperty(API_WRITES_QUEUE_SIZE, Integer.class);
+    this.apiWritesAsyncTasks = provider.getProperty(API_WRITES_ASYNC_TASKS, Boolean.class);
+    this.apiWritesAsyncAgents = provider.getProperty(API_WRITES_ASYNC_AGENTS, Boolean.class);
+    this.shiroConfigLocations = provider.getProperty(SHIRO_CONFIG_LOCATIONS, String.class);
+    this.backoffDelay = provider.getProperty(BACKOFF_DELAY_SECONDS, Integer.class);
+    this.backoffDelayMax = provider.getProperty(BACKOFF_DELAY_MAX_SECONDS, Integer.class);
+    this.jitter = provider.getProperty(BACKOFF_JITTER_MILLIS, Integer.class);
+    this.dispatcherThreadPoolSize = provider.getProperty(THREAD_POOL_SIZE, Integer.class);
+    this.dispatcherTimerThreadPoolSize =
+        provider.getProperty(TIMER_THREAD_POOL_SIZE, Integer.class);
+    this.dispatcherCallbackThreadPoolSize =
+        provider.getProperty(CALLBACK_THREAD_POOL_SIZE, Integer.class);
+    this.dispatcherThreadShutdownDelay =
+        provider.getProperty(THREAD_POOL_SHUTDOWN_TIMEOUT, Integer.class);
+    this.queueProcessRetryDelay = provider.getProperty(QUEUE_RETRY_DELAY_SECONDS, Integer.class);
+    this.queueProcessorEvictionDelay =
+        provider.getProperty(QUEUE_PROCESSOR_EVICTION_DELAY, Long.class);
+    this.queueCountersReconcileDelay =
+        provider.getProperty(QUEUE_COUNTERS_RECONCILE_DELAY, Integer.class);
+    this.jpaLockRetryCount = provider.getProperty(JPA_OPTIMISTIC_LOCK_RETRY_COUNT, Integer.class);
+    this.jpaLockRetryBackoffDelay =
+        provider.getProperty(JPA_OPTIMISTIC_LOCK_BACKOFF_DELAY, Integer.class);
+    this.jpaLockRetryBackoffDelayMax =
+        provider.getProperty(JPA_OPTIMISTIC_LOCK_BACKOFF_DELAY_MAX, Integer.class);
+    this.jpaLockRetryJitterFactor =
+        provider.getProperty(JPA_OPTIMISTIC_LOCK_JITTER_FACTOR, Double.class);
+    this.jpaJdbcBatchSize = provider.getProperty(JPA_JDBC_BATCH_SIZE, Integer.class);
+    this.jpaOrderInserts = provider.getProperty(JPA_ORDER_INSERTS, Boolean.class);
+    this.jpaOrderUpdates = provider.getProperty(JPA_ORDER_UPDATES, Boolean.class);
+    this.jpaBulkDeleteChunkSize = provider.getProperty(JPA_BULK_DELETE_CHUNK_SIZE, Integer.class);
+    this.jpaTaskBatchChunkSize = provider.getProperty(JPA_TASK_BATCH_CHUNK_SIZE, Integer.class);
+  }
+
+  /**
+   * @return the properties every snapshot starts from, overridden by the configuration file
+   */
+  public static Properties getDefaultProperties() {
+    Properties properties = new Properties();
+    properties.putAll(DEFAULT_PROPERTIES);
+    return properties;
+  }
+
+  @Override
+  public Integer getClientConnectTimeout() {
+    return clientConnectTimeout;
+  }
+
+  @Override
+  public Integer getClientReadTimeout() {
+    return clientReadTimeout;
+  }
+
+  @Override
+  public Boolean getClientFollowRedirects() {
+    return clientFollowRedirects;
+  }
+
+  @Override
+  public String getClientCallbackMediaType() {
+    return clientCallbackMediaType;
+  }
+
+  @Override
+  public Boolean getApiEnableExpressionSkillValidation() {
+    return apiEnableExpressionSkillValidation;
+  }
+
+  @Override
+  public Boolean getApiEnableAgentCapabilitiesValidation() {
+    return apiEnableAgentCapabilitiesValidation;
+  }
+
+  @Override
+  public Boolean getApiEnableTaskRequirementsValidation() {
+    return apiEnableTaskRequirementsValidation;
+  }
+
+  @Override
+  public Integer getApiAgentPollMaxWait() {
+    return apiAgentPollMaxWait;
+  }
+
+  @Override
+  public Integer getApiTaskBatchMaxSize() {
+    return apiTaskBatchMaxSize;
+  }
+
+  @Override
+  public Integer getApiAgentBatchMaxSize() {
+    return apiAgentBatchMaxSize;
+  }
+
+  @Override
+  public Integer getApiEventsBufferSize() {
+    return apiEventsBufferSize;
+  }
+
+  @Override
+  public Integer getApiEventsThreadPoolSize() {
+    return apiEventsThreadPoolSize;
+  }
+
+  @Override
+  public Integer getApiEventsHeartbeatSeconds() {
+    return apiEventsHeartbeatSeconds;
+  }
+
+  @Override
+  public Integer getApiEventsSendTimeoutSeconds() {
+    return apiEventsSendTimeoutSeconds;
+  }
+
+  @Override
+  public Integer getApiAdmissionTaskRate() {
+    return apiAdmissionTaskRate;
+  }
+
+  @Override
+  public Integer getApiAdmissionTaskBurst() {
+    return apiAdmissionTaskBurst;
+  }
+
+  @Override
+  public Integer getApiAdmissionAgentRate() {
+    return apiAdmissionAgentRate;
+  }
+
+  @Override
+  public Integer getApiAdmissionAgentBurst() {
+    return apiAdmissionAgentBurst;
+  }
+
+  @Override
+  public Integer getApiAdmissionMaxWaitingTasks() {
+    return apiAdmissionMaxWaitingTasks;
+  }
+
+  @Override
+  public Integer getApiAdmissionMaxDispatchLagMillis() {
+    return apiAdmissionMaxDispatchLagMillis;
+  }
+
+  @Override
+  public Integer getApiWritesThreadPoolSize() {
+    return apiWritesThreadPoolSize;
+  }
+
+  @Override
+  public Integer getApiWritesQueueSize() {
+    return apiWritesQueueSize;
+  }
+
+  @Override
+  public Boolean getApiWritesAsyncTasks() {
+    return apiWritesAsyncTasks;
+  }
+
+  @Override
+  public Boolean getApiWritesAsyncAgents() {
+    return apiWritesAsyncAgents;
+  }
+
+  @Override
+  public String getShiroConfigLocations() {
+    return shiroConfigLocations;
+  }
+
+  @Override
+  public Integer getBackoffDelay() {
+    return backoffDelay;
+  }
+
+  @Override
+  public Integer getBackoffDelayMax() {
+    return backoffDelayMax;
+  }
+
+  @Override
+  public Integer getJitter() {
+    return jitter;
+  }
+
+  @Override
+  public Integer getDispatcherThreadPoolSize() {
+    return dispatcherThreadPoolSize;
+  }
+
+  @Override
+  public Integer getDispatcherTimerThreadPoolSize() {
+    return dispatcherTimerThreadPoolSize;
+  }
+
+  @Override
+  public Integer getDispatcherCallbackThreadPoolSize() {
+    return dispatcherCallbackThreadPoolSize;
+  }
+
+  @Override
+  public Integer getDispatcherThreadShutdownDelay() {
+    return dispatcherThreadShutdownDelay;
+  }
+
+  @Override
+  public Integer getQueueProcessRetryDelay() {
+    return queueProcessRetryDelay;
+  }
+
+  @Override
+  public Long getQueueProcessorEvictionDelay() {
+    return queueProcessorEvictionDelay;
+  }
+
+  @Override
+  public Integer getQueueCountersReconcileDelay() {
+    return queueCountersReconcileDelay;
+  }
+
+  @Override
+  public Integer getJpaLockRetryCount() {
+    return jpaLockRetryCount;
+  }
+
+  @Override
+  public Integer getJpaLockRetryBackoffDelay() {
+    return jpaLockRetryBackoffDelay;
+  }
+
+  @Override
+  public Integer getJpaLockRetryBackoffDelayMax() {
+    return jpaLockRetryBackoffDelayMax;
+  }
+
+  @Override
+  public Double getJpaLockRetryJitterFactor() {
+    return jpaLockRetryJitterFactor;
+  }
+
+  @Override
+  public Integer getJpaJdbcBatchSize() {
+    return jpaJdbcBatchSize;
+  }
+
+  @Override
+  public Boolean getJpaOrderInserts() {
+    return jpaOrderInserts;
+  }
+
+  @Override
+  public Boolean getJpaOrderUpdates() {
+    return jpaOrderUpdates;
+  }
+
+  @Override
+  public Integer getJpaBulkDeleteChunkSize() {
+    return jpaBulkDeleteChunkSize;
+  }
+
+  @Override
+  public Integer getJpaTaskBatchChunkSize() {
+    return jpaTaskBatchChunkSize;
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof ConfigurationSnapshot)) {
+      return false;
+    }
+    return properties.equals(((ConfigurationSnapshot) object).properties);
+  }
+
+  @Override
+  public int hashCode() {
+    return properties.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("ConfigurationSnapshot{");
+    sb.append("properties=").append(properties);
+    sb.append('}');
+    return sb.toString();
+  }
+
+}
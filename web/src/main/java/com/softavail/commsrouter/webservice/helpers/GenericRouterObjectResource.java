@@ -18,6 +18,7 @@ package com.softavail.commsrouter.webservice.helpers;
 
 import com.softavail.commsrouter.api.dto.misc.PaginatedList;
 import com.softavail.commsrouter.api.dto.misc.PagingRequest;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
@@ -62,8 +63,8 @@ import javax.ws.rs.core.Response.Status;
 /**
  * Created by @author mapuo on 04.09.17.
  */
-@Produces({MediaType.APPLICATION_JSON})
-@Consumes({MediaType.APPLICATION_JSON})
+@Produces({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
 public abstract class GenericRouterObjectResource<T extends RouterObjectRef>
     extends RouterObjectResource {
 
@@ -140,7 +141,6 @@ public abstract class GenericRouterObjectResource<T extends RouterObjectRef>
         .header(PaginatedService.NEXT_TOKEN_HEADER, pagedList.getNextToken())
         .tag(new EntityTag(tags))
         .entity(genericEntity)
-        .type(MediaType.APPLICATION_JSON_TYPE)
         .build();
   }
 
@@ -165,6 +165,15 @@ public abstract class GenericRouterObjectResource<T extends RouterObjectRef>
 
     LOGGER.debug("Getting {}", routerObjectId);
 
+    if (ifNoneMatch != null) {
+      // Polling clients mostly get 304, answer that from the version alone
+      ResponseBuilder notModified =
+          request.evaluatePreconditions(new EntityTag(getService().getHash(routerObjectId)));
+      if (notModified != null) {
+        return notModified.build();
+      }
+    }
+
     T entity = getService().get(routerObjectId);
     EntityTag entityTag = new EntityTag(entity.getHash());
 
@@ -0,0 +1,137 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.helpers;
+
+import com.softavail.commsrouter.api.exception.TooManyRequestsException;
+import com.softavail.commsrouter.app.ConfigurationListener;
+import com.softavail.commsrouter.app.CoreConfiguration;
+import com.softavail.commsrouter.metrics.MetricsRegistry;
+import com.softavail.commsrouter.util.ThreadPoolKiller;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.container.AsyncResponse;
+
+/**
+ * Runs the writes of resources served asynchronously on a bounded pool of its own, so container
+ * threads are not held while writes wait on transactions and row locks. When the pool queue is
+ * full, the write is rejected with 429 Too Many Requests instead of queueing up.
+ *
+ * <p>Writes of the other resources run on the container thread, as before.
+ *
+ * <p>A configuration reload resizes the pool. Which resources are served asynchronously and the
+ * queue size are fixed at start.
+ *
+ * @author ikrustev
+ */
+public class WriteExecutor implements ConfigurationListener {
+
+  public enum Resource {
+    TASKS, AGENTS
+  }
+
+  @FunctionalInterface
+  public interface Write {
+    Object run() throws Exception;
+  }
+
+  private static final long RETRY_AFTER_SECONDS = 1;
+
+  private final boolean asyncTasks;
+  private final boolean asyncAgents;
+  private final ThreadPoolExecutor threadPool;
+
+  public WriteExecutor(CoreConfiguration configuration) {
+    this.asyncTasks = Boolean.TRUE.equals(configuration.getApiWritesAsyncTasks());
+    this.asyncAgents = Boolean.TRUE.equals(configuration.getApiWritesAsyncAgents());
+    if (!asyncTasks && !asyncAgents) {
+      this.threadPool = null;
+      return;
+    }
+    int threads = Math.max(configuration.getApiWritesThreadPoolSize(), 1);
+    AtomicInteger threadCount = new AtomicInteger();
+    this.threadPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(configuration.getApiWritesQueueSize(), 1)),
+        runnable -> new Thread(runnable, "api-writes-" + threadCount.incrementAndGet()));
+    MetricsRegistry.getDefault().gauge("commsrouter_api_writes_queue_depth",
+        "Asynchronous API writes waiting for a thread", () -> threadPool.getQueue().size());
+  }
+
+  @Override
+  public void configurationChanged(CoreConfiguration configuration) {
+    if (threadPool == null) {
+      return;
+    }
+    int threads = Math.max(configuration.getApiWritesThreadPoolSize(), 1);
+    // Grow the maximum first and shrink it last, so it never falls below the core size
+    if (threads > threadPool.getMaximumPoolSize()) {
+      threadPool.setMaximumPoolSize(threads);
+      threadPool.setCorePoolSize(threads);
+    } else {
+      threadPool.setCorePoolSize(threads);
+      threadPool.setMaximumPoolSize(threads);
+    }
+  }
+
+  public boolean isAsync(Resource resource) {
+    switch (resource) {
+      case TASKS:
+        return asyncTasks;
+      case AGENTS:
+        return asyncAgents;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Runs the write and resumes the response with its result, or with the exception it throws.
+   */
+  public void submit(Resource resource, AsyncResponse asyncResponse, Write write) {
+    if (!isAsync(resource)) {
+      resume(asyncResponse, write);
+      return;
+    }
+    try {
+      threadPool.execute(() -> resume(asyncResponse, write));
+    } catch (RejectedExecutionException ex) {
+      asyncResponse.resume(
+          new TooManyRequestsException("Too many pending writes", RETRY_AFTER_SECONDS));
+    }
+  }
+
+  public void close() {
+    if (threadPool != null) {
+      ThreadPoolKiller.shutdown(threadPool, "WriteExecutor");
+    }
+  }
+
+  private static void resume(AsyncResponse asyncResponse, Write write) {
+    Object result;
+    try {
+      result = write.run();
+    } catch (Exception ex) {
+      asyncResponse.resume(ex);
+      return;
+    }
+    asyncResponse.resume(result);
+  }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.mappers;
+
+import com.softavail.commsrouter.api.exception.ExceptionPresentation;
+import com.softavail.commsrouter.api.exception.TooManyRequestsException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Maps rejected writes to 429 with a Retry-After header. Rejections are expected under load,
+ * so they are not logged as errors.
+ *
+ * @author ikrustev
+ */
+@Provider
+public class TooManyRequestsMapper implements ExceptionMapper<TooManyRequestsException> {
+
+  private static final Logger LOGGER = LogManager.getLogger(TooManyRequestsMapper.class);
+
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  @Context
+  private HttpHeaders headers;
+
+  @Override
+  public Response toResponse(TooManyRequestsException exception) {
+
+    LOGGER.debug(exception.getMessage());
+
+    return Response.status(TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, exception.getRetryAfterSeconds())
+        .entity(new ExceptionPresentation(exception))
+        .type(headers.getMediaType())
+        .build();
+  }
+
+}
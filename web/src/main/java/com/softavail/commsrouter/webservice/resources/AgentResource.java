@@ -18,14 +18,22 @@ package com.softavail.commsrouter.webservice.resources;
 
 import com.softavail.commsrouter.api.dto.arg.CreateAgentArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateAgentArg;
+import com.softavail.commsrouter.api.dto.arg.UpdateAgentBatchItemArg;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
 import com.softavail.commsrouter.api.dto.model.AgentDto;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
+import com.softavail.commsrouter.api.dto.model.TaskAssignmentDto;
+import com.softavail.commsrouter.api.dto.model.UpdatedAgentBatchItemDto;
+import com.softavail.commsrouter.api.exception.BadValueException;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.api.exception.ExceptionPresentation;
+import com.softavail.commsrouter.api.interfaces.AgentPollService;
 import com.softavail.commsrouter.api.interfaces.AgentService;
 import com.softavail.commsrouter.api.interfaces.RouterObjectService;
+import com.softavail.commsrouter.app.CoreConfiguration;
 import com.softavail.commsrouter.webservice.helpers.GenericRouterObjectResource;
+import com.softavail.commsrouter.webservice.helpers.WriteExecutor;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -35,14 +43,24 @@ import io.swagger.annotations.ResponseHeader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -53,15 +71,26 @@ import javax.ws.rs.core.Response.Status;
  * Created by @author mapuo on 31.08.17.
  */
 @Api("/agents")
-@Produces({MediaType.APPLICATION_JSON})
-@Consumes({MediaType.APPLICATION_JSON})
+@Produces({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
 public class AgentResource extends GenericRouterObjectResource<AgentDto> {
 
   private static final Logger LOGGER = LogManager.getLogger(AgentResource.class);
 
+  private static final Pattern WAIT_PATTERN = Pattern.compile("(\\d+)(ms|s|m)?");
+
   @Inject
   private AgentService agentService;
 
+  @Inject
+  private AgentPollService agentPollService;
+
+  @Inject
+  private CoreConfiguration configuration;
+
+  @Inject
+  private WriteExecutor writeExecutor;
+
   @Override
   protected RouterObjectService<AgentDto> getService() {
     return agentService;
@@ -76,13 +105,14 @@ public class AgentResource extends GenericRouterObjectResource<AgentDto> {
           responseHeaders = {
               @ResponseHeader(name = HttpHeaders.ETAG, description = "ETag of the resource",
                   response = String.class)})})
-  public Response create(CreateAgentArg agentArg) throws CommsRouterException {
+  public void create(CreateAgentArg agentArg, @Suspended AsyncResponse asyncResponse) {
 
     LOGGER.debug("Creating agent {}", agentArg);
 
-    ApiObjectRef agent = agentService.create(agentArg, routerRef);
-
-    return createResponse(agent);
+    writeExecutor.submit(WriteExecutor.Resource.AGENTS, asyncResponse, () -> {
+      ApiObjectRef agent = agentService.create(agentArg, routerRef);
+      return createResponse(agent);
+    });
   }
 
   @PUT
@@ -101,21 +131,50 @@ public class AgentResource extends GenericRouterObjectResource<AgentDto> {
           response = ExceptionPresentation.class),
       @ApiResponse(code = 405, message = "Validation exception",
           response = ExceptionPresentation.class)})
-  public Response create(
+  public void create(
       @ApiParam(value = "The id of the agent to be replaced", required = true)
       @PathParam("resourceId")
           String resourceId,
       @ApiParam(value = "CreateAgentArg object specifying all the parameters")
-          CreateAgentArg agentArg)
-      throws CommsRouterException {
+          CreateAgentArg agentArg,
+      @Suspended
+          AsyncResponse asyncResponse) {
 
     LOGGER.debug("Replacing agent: {}, with id: {}", agentArg, resourceId);
 
     RouterObjectRef objectRef = getRouterObjectRef(resourceId);
 
-    ApiObjectRef agent = agentService.replace(agentArg, objectRef);
+    writeExecutor.submit(WriteExecutor.Resource.AGENTS, asyncResponse, () -> {
+      ApiObjectRef agent = agentService.replace(agentArg, objectRef);
+      return createResponse(agent);
+    });
+  }
 
-    return createResponse(agent);
+  @POST
+  @Path("batch")
+  @ApiOperation(
+      value = "Update Agents in bulk",
+      notes = "Update several Agents within a Router in one transaction. The result holds the "
+          + "outcome of each agent, in the order they were given. Each agent carries the hash "
+          + "it is based on, checked as the If-Match of a single update")
+  @ApiResponses({
+      @ApiResponse(
+          code = 200,
+          message = "Processed",
+          response = UpdatedAgentBatchItemDto.class,
+          responseContainer = "List"),
+      @ApiResponse(code = 400, message = "Too many agents in the batch",
+          response = ExceptionPresentation.class)})
+  public List<UpdatedAgentBatchItemDto> updateBatch(List<UpdateAgentBatchItemArg> agentArgs)
+      throws CommsRouterException {
+
+    if (agentArgs == null) {
+      throw new IllegalArgumentException("Expected a list of agents");
+    }
+
+    LOGGER.debug("Updating {} agents", agentArgs.size());
+
+    return agentService.updateBatch(agentArgs, routerRef);
   }
 
   @POST
@@ -135,7 +194,7 @@ public class AgentResource extends GenericRouterObjectResource<AgentDto> {
           response = ExceptionPresentation.class),
       @ApiResponse(code = 412, message = "Precondition Failed",
           response = ExceptionPresentation.class)})
-  public Response update(
+  public void update(
       @ApiParam(value = "ETag header from creating or retrieving resource", required = true)
       @HeaderParam(HttpHeaders.IF_MATCH)
           String ifMatch,
@@ -145,20 +204,90 @@ public class AgentResource extends GenericRouterObjectResource<AgentDto> {
       @ApiParam(
           value = "UpdateAgentArg object representing parameters of the Agent to be updated",
           required = true)
-          UpdateAgentArg agentArg)
-      throws CommsRouterException {
+          UpdateAgentArg agentArg,
+      @Suspended
+          AsyncResponse asyncResponse) {
 
     LOGGER.debug("Updating agent {}", agentArg);
 
     RouterObjectRef objectId = getRouterObjectRef(resourceId);
     objectId.setHash(ifMatch);
 
-    agentService.update(agentArg, objectId);
-    AgentDto updatedAgent = agentService.get(objectId);
+    writeExecutor.submit(WriteExecutor.Resource.AGENTS, asyncResponse, () -> {
+      agentService.update(agentArg, objectId);
+      AgentDto updatedAgent = agentService.get(objectId);
+
+      return Response.status(Status.NO_CONTENT)
+          .tag(new EntityTag(updatedAgent.getHash()))
+          .build();
+    });
+  }
+
+  @GET
+  @Path("{resourceId}/next-task")
+  @ApiOperation(
+      value = "Wait for the next Task of an Agent",
+      notes = "Returns the task currently assigned to the agent or waits for the next one. "
+          + "A task returned here is not sent to its callback URL",
+      response = TaskAssignmentDto.class)
+  @ApiResponses({
+      @ApiResponse(code = 200, message = "Assigned task", response = TaskAssignmentDto.class),
+      @ApiResponse(code = 204, message = "No task was assigned while waiting"),
+      @ApiResponse(code = 400, message = "Invalid wait",
+          response = ExceptionPresentation.class),
+      @ApiResponse(code = 404, message = "Agent not found",
+          response = ExceptionPresentation.class)})
+  public void nextTask(
+      @ApiParam(value = "ID of the polling agent")
+      @PathParam("resourceId")
+          String resourceId,
+      @ApiParam(value = "How long to wait, e.g. 30s, 500ms or 1m; capped by the server")
+      @QueryParam("wait")
+      @DefaultValue("30s")
+          String wait,
+      @Suspended
+          AsyncResponse asyncResponse)
+      throws CommsRouterException {
+
+    long waitMillis = Math.min(parseWaitMillis(wait),
+        TimeUnit.SECONDS.toMillis(configuration.getApiAgentPollMaxWait()));
+    RouterObjectRef objectId = getRouterObjectRef(resourceId);
+
+    LOGGER.debug("Agent {} polling for {} ms", objectId, waitMillis);
+
+    asyncResponse.setTimeoutHandler(response -> response.resume(Response.noContent().build()));
+    // A zero timeout would suspend the request forever
+    asyncResponse.setTimeout(Math.max(waitMillis, 1), TimeUnit.MILLISECONDS);
+
+    Runnable stopWaiting = agentPollService.pollNextTask(objectId, taskAssignment ->
+        asyncResponse.resume(Response.ok(taskAssignment).build()));
+
+    asyncResponse.register((CompletionCallback) throwable -> stopWaiting.run());
+    if (asyncResponse.isDone()) {
+      // Timed out or disconnected before the callback was registered
+      stopWaiting.run();
+    }
+  }
 
-    return Response.status(Status.NO_CONTENT)
-        .tag(new EntityTag(updatedAgent.getHash()))
-        .build();
+  private static long parseWaitMillis(String wait) throws BadValueException {
+    Matcher matcher = WAIT_PATTERN.matcher(wait.trim());
+    if (!matcher.matches()) {
+      throw new BadValueException("Invalid wait '" + wait + "', expected e.g. 30s, 500ms or 1m");
+    }
+    long amount;
+    try {
+      amount = Long.parseLong(matcher.group(1));
+    } catch (NumberFormatException ex) {
+      throw new BadValueException("Invalid wait '" + wait + "'", ex);
+    }
+    String unit = matcher.group(2);
+    if ("ms".equals(unit)) {
+      return amount;
+    }
+    if ("m".equals(unit)) {
+      return TimeUnit.MINUTES.toMillis(amount);
+    }
+    return TimeUnit.SECONDS.toMillis(amount);
   }
 
 }
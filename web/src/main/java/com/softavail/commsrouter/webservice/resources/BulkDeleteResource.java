@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.resources;
+
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
+import com.softavail.commsrouter.api.dto.model.BulkDeleteStatusDto;
+import com.softavail.commsrouter.api.exception.CommsRouterException;
+import com.softavail.commsrouter.api.exception.ExceptionPresentation;
+import com.softavail.commsrouter.api.interfaces.BulkDeleteService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Status of the router purges started with DELETE /routers/{ref}?purge=true&amp;async=true and
+ * of the queue purges started with POST /routers/{ref}/queues/{id}/purge?async=true. The status
+ * is kept in memory by the node that runs the purge, for its last 100 finished purges; it is
+ * lost on restart and not known to other nodes.
+ *
+ * @author ikrustev
+ */
+@Path("deletions")
+@Api("/deletions")
+@Produces({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
+public class BulkDeleteResource {
+
+  @Inject
+  private BulkDeleteService bulkDeleteService;
+
+  @GET
+  @Path("{id}")
+  @ApiOperation(value = "Get the progress of a purge", tags = "routers",
+      notes = "Answered only by the node that runs the purge, for its last 100 finished purges")
+  @ApiResponses({
+      @ApiResponse(code = 200, message = "Successful operation",
+          response = BulkDeleteStatusDto.class),
+      @ApiResponse(code = 404, message = "Purge not found",
+          response = ExceptionPresentation.class)})
+  public BulkDeleteStatusDto get(
+      @ApiParam(value = "The id returned when the purge was started", required = true)
+      @PathParam("id") String id)
+      throws CommsRouterException {
+
+    return bulkDeleteService.getStatus(id);
+  }
+
+}
@@ -0,0 +1,83 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.resources;
+
+import com.softavail.commsrouter.app.DrainProgress;
+import com.softavail.commsrouter.app.TaskDispatcher;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Readiness of the router process for load balancers and rolling deploys. Once a drain is
+ * requested the check fails, while the body keeps reporting the work the dispatcher has left.
+ * A pre-stop hook posts to {@code health/drain}, waits for the load balancer to notice and only
+ * then stops the process, which drains the dispatcher.
+ *
+ * @author ikrustev
+ */
+@Path("health")
+@Api("/health")
+public class HealthResource {
+
+  @Inject
+  private TaskDispatcher taskDispatcher;
+
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @ApiOperation(value = "Get the health of the service",
+      notes = "The dispatcher state and its pending matching jobs, callbacks and timers",
+      response = DrainProgress.class)
+  @ApiResponses({
+      @ApiResponse(code = 200, message = "Dispatching", response = DrainProgress.class),
+      @ApiResponse(code = 503, message = "Drain requested, draining or drained",
+          response = DrainProgress.class)})
+  public Response get() {
+    return toResponse(taskDispatcher.getDrainProgress());
+  }
+
+  @POST
+  @Path("drain")
+  @Produces(MediaType.APPLICATION_JSON)
+  @ApiOperation(value = "Request a drain of the service",
+      notes = "Fails the health check ahead of the shutdown, while the dispatcher keeps "
+          + "dispatching. The drain itself runs when the service stops",
+      response = DrainProgress.class)
+  @ApiResponses({
+      @ApiResponse(code = 503, message = "Drain requested", response = DrainProgress.class)})
+  public Response drain() {
+    return toResponse(taskDispatcher.requestDrain());
+  }
+
+  private static Response toResponse(DrainProgress progress) {
+    Status status = progress.getState() == DrainProgress.State.RUNNING
+        ? Status.OK
+        : Status.SERVICE_UNAVAILABLE;
+    return Response.status(status).entity(progress).build();
+  }
+
+}
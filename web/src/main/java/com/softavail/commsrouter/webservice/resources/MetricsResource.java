@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.resources;
+
+import com.softavail.commsrouter.metrics.MetricsRegistry;
+import com.softavail.commsrouter.metrics.PrometheusTextWriter;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Counters, gauges and histograms of the router process in the Prometheus text format.
+ *
+ * @author ikrustev
+ */
+@Path("metrics")
+@Api("/metrics")
+public class MetricsResource {
+
+  @GET
+  @Produces(PrometheusTextWriter.CONTENT_TYPE)
+  @ApiOperation(value = "Get the metrics of the service",
+      notes = "Task wait, queue processor, callback, transaction, evaluation and dispatcher "
+          + "thread pool metrics in the Prometheus text exposition format")
+  public String get() {
+    return MetricsRegistry.getDefault().scrape();
+  }
+
+}
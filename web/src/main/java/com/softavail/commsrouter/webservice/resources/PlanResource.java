@@ -18,6 +18,7 @@ package com.softavail.commsrouter.webservice.resources;
 
 import com.softavail.commsrouter.api.dto.arg.CreatePlanArg;
 import com.softavail.commsrouter.api.dto.arg.UpdatePlanArg;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.PlanDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
@@ -53,8 +54,8 @@ import javax.ws.rs.core.Response.Status;
  * Created by @author mapuo on 31.08.17.
  */
 @Api("/plans")
-@Produces({MediaType.APPLICATION_JSON})
-@Consumes({MediaType.APPLICATION_JSON})
+@Produces({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
 public class PlanResource extends GenericRouterObjectResource<PlanDto> {
 
   private static final Logger LOGGER = LogManager.getLogger(PlanResource.class);
@@ -19,12 +19,16 @@ package com.softavail.commsrouter.webservice.resources;
 import com.softavail.commsrouter.api.dto.arg.CreateQueueArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateQueueArg;
 import com.softavail.commsrouter.api.dto.misc.SizeDto;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
+import com.softavail.commsrouter.api.dto.model.BulkDeleteStatusDto;
 import com.softavail.commsrouter.api.dto.model.QueueDto;
+import com.softavail.commsrouter.api.dto.model.QueueStatsDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.api.exception.ExceptionPresentation;
+import com.softavail.commsrouter.api.interfaces.BulkDeleteService;
 import com.softavail.commsrouter.api.interfaces.QueueService;
 import com.softavail.commsrouter.api.interfaces.RouterObjectService;
 import com.softavail.commsrouter.webservice.helpers.GenericRouterObjectResource;
@@ -37,9 +41,12 @@ import io.swagger.annotations.ResponseHeader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.net.URI;
+import java.net.URL;
 import java.util.Collection;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
@@ -47,18 +54,20 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriBuilder;
 
 /**
  * Created by @author mapuo on 31.08.17.
  */
 @Api("/queues")
-@Produces({MediaType.APPLICATION_JSON})
-@Consumes({MediaType.APPLICATION_JSON})
+@Produces({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
 public class QueueResource extends GenericRouterObjectResource<QueueDto> {
 
   private static final Logger LOGGER = LogManager.getLogger(QueueResource.class);
@@ -66,6 +75,9 @@ public class QueueResource extends GenericRouterObjectResource<QueueDto> {
   @Inject
   private QueueService queueService;
 
+  @Inject
+  private BulkDeleteService bulkDeleteService;
+
   @Override
   protected RouterObjectService<QueueDto> getService() {
     return queueService;
@@ -184,6 +196,22 @@ public class QueueResource extends GenericRouterObjectResource<QueueDto> {
     return new SizeDto(queueSize);
   }
 
+  @GET
+  @Path("{resourceId}/stats")
+  @ApiOperation(
+      value = "Get the live counters of the Queue",
+      notes = "Returns the waiting Tasks, the oldest waiting Task date and the ready and busy "
+          + "Agents of the Queue identified by {resourceId}, from in-memory counters that are "
+          + "periodically reconciled with the database")
+  @ApiResponses({
+      @ApiResponse(code = 200, message = "Successful operation",
+          response = QueueStatsDto.class)})
+  public QueueStatsDto getStats(@PathParam("resourceId") String resourceId)
+      throws CommsRouterException {
+
+    return queueService.getStats(getRouterObjectRef(resourceId));
+  }
+
   @GET
   @Path("{resourceId}/tasks")
   @ApiOperation(
@@ -198,4 +226,47 @@ public class QueueResource extends GenericRouterObjectResource<QueueDto> {
     return queueService.getTasks(getRouterObjectRef(resourceId));
   }
 
+  @POST
+  @Path("{resourceId}/purge")
+  @ApiOperation(
+      value = "Delete the Queue with its Tasks",
+      notes = "Deletes the tasks of the Queue in chunks and then the Queue itself. The Queue must "
+          + "not be used by a Plan. Its processor is paused while the purge runs. With async the "
+          + "call returns right away and the progress can be followed at the returned location.")
+  @ApiResponses({
+      @ApiResponse(code = 200, message = "Purge completed", response = BulkDeleteStatusDto.class),
+      @ApiResponse(code = 202, message = "Purge started", response = BulkDeleteStatusDto.class,
+          responseHeaders = {
+              @ResponseHeader(name = HttpHeaders.LOCATION, response = URL.class,
+                  description = "The location of the purge status")}),
+      @ApiResponse(code = 400, message = "The queue is used by a plan",
+          response = ExceptionPresentation.class),
+      @ApiResponse(code = 404, message = "Queue not found",
+          response = ExceptionPresentation.class)})
+  public Response purge(
+      @ApiParam(value = "The id of the queue to be purged", required = true)
+      @PathParam("resourceId") String resourceId,
+      @ApiParam(value = "Run the purge in the background")
+      @DefaultValue("false")
+      @QueryParam("async") boolean async)
+      throws CommsRouterException {
+
+    RouterObjectRef objectRef = getRouterObjectRef(resourceId);
+
+    LOGGER.debug("Purging queue: {}, async: {}", objectRef, async);
+
+    BulkDeleteStatusDto status = bulkDeleteService.deleteQueue(objectRef, async);
+    if (!async) {
+      return Response.ok(status).build();
+    }
+
+    URI statusLocation = UriBuilder.fromResource(BulkDeleteResource.class)
+        .path("{id}").build(status.getId());
+
+    return Response.status(Status.ACCEPTED)
+        .header(HttpHeaders.LOCATION, statusLocation.toString())
+        .entity(status)
+        .build();
+  }
+
 }
@@ -20,13 +20,19 @@ import com.softavail.commsrouter.api.dto.arg.CreateRouterArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateRouterArg;
 import com.softavail.commsrouter.api.dto.misc.PaginatedList;
 import com.softavail.commsrouter.api.dto.misc.PagingRequest;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
+import com.softavail.commsrouter.api.dto.model.BulkDeleteStatusDto;
 import com.softavail.commsrouter.api.dto.model.RouterDto;
+import com.softavail.commsrouter.api.dto.model.RouterEventDto;
 import com.softavail.commsrouter.api.exception.CommsRouterException;
 import com.softavail.commsrouter.api.exception.ExceptionPresentation;
+import com.softavail.commsrouter.api.interfaces.BulkDeleteService;
 import com.softavail.commsrouter.api.interfaces.PaginatedService;
 import com.softavail.commsrouter.api.service.CoreRouterService;
 import com.softavail.commsrouter.api.service.PaginationHelper;
+import com.softavail.commsrouter.app.RouterEventSubscription;
+import com.softavail.commsrouter.app.RouterEvents;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -35,7 +41,11 @@ import io.swagger.annotations.ApiResponses;
 import io.swagger.annotations.ResponseHeader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.glassfish.jersey.media.sse.SseFeature;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
 import java.util.List;
@@ -73,8 +83,8 @@ import javax.ws.rs.core.UriBuilder;
  */
 @Path("routers")
 @Api()
-@Produces({MediaType.APPLICATION_JSON})
-@Consumes({MediaType.APPLICATION_JSON})
+@Produces({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
 public class RouterResource {
 
   private static final Logger LOGGER = LogManager.getLogger(RouterResource.class);
@@ -85,6 +95,12 @@ public class RouterResource {
   @Inject
   private CoreRouterService routerService;
 
+  @Inject
+  private BulkDeleteService bulkDeleteService;
+
+  @Inject
+  private RouterEvents routerEvents;
+
   @GET
   @ApiOperation(value = "Get All Routers",
       notes = "Returns a list of Router. A single Router object represents "
@@ -140,7 +156,6 @@ public class RouterResource {
         .header(PaginatedService.NEXT_TOKEN_HEADER, pagedList.getNextToken())
         .tag(new EntityTag(tags))
         .entity(genericEntity)
-        .type(MediaType.APPLICATION_JSON_TYPE)
         .build();
   }
 
@@ -298,19 +313,125 @@ public class RouterResource {
 
   @DELETE
   @Path("{ref}")
-  @ApiOperation(value = "Deletes an existing router by ID", tags = "routers")
+  @ApiOperation(value = "Deletes an existing router by ID", tags = "routers",
+      notes = "Without purge the router must be empty. With purge everything in the router is "
+          + "deleted in chunks; with async the call returns right away and the progress can be "
+          + "followed at the returned location.")
   @ApiResponses({
-      @ApiResponse(code = 200, message = "Successful operation"),
+      @ApiResponse(code = 200, message = "Purge completed", response = BulkDeleteStatusDto.class),
+      @ApiResponse(code = 202, message = "Purge started", response = BulkDeleteStatusDto.class,
+          responseHeaders = {
+              @ResponseHeader(name = HttpHeaders.LOCATION, response = URL.class,
+                  description = "The location of the purge status")}),
+      @ApiResponse(code = 204, message = "Successful operation"),
       @ApiResponse(code = 400, message = "Invalid ID supplied",
           response = ExceptionPresentation.class),
       @ApiResponse(code = 404, message = "Router not found",
           response = ExceptionPresentation.class)})
-  public void delete(@ApiParam(value = "The id of the router to be deleted",
-      required = true) @PathParam("ref") String ref) throws CommsRouterException {
+  public Response delete(
+      @ApiParam(value = "The id of the router to be deleted", required = true)
+      @PathParam("ref") String ref,
+      @ApiParam(value = "Delete everything in the router as well")
+      @DefaultValue("false")
+      @QueryParam("purge") boolean purge,
+      @ApiParam(value = "Run the purge in the background")
+      @DefaultValue("false")
+      @QueryParam("async") boolean async)
+      throws CommsRouterException {
+
+    if (!purge) {
+      LOGGER.debug("Deleting router: {}", ref);
+      routerService.delete(ref);
+      return Response.noContent().build();
+    }
 
-    LOGGER.debug("Deleting router: {}", ref);
+    LOGGER.debug("Purging router: {}, async: {}", ref, async);
+
+    BulkDeleteStatusDto status = bulkDeleteService.deleteRouter(ref, async);
+    if (!async) {
+      return Response.ok(status).build();
+    }
+
+    URI statusLocation = UriBuilder.fromResource(BulkDeleteResource.class)
+        .path("{id}").build(status.getId());
+
+    return Response.status(Status.ACCEPTED)
+        .header(HttpHeaders.LOCATION, statusLocation.toString())
+        .entity(status)
+        .build();
+  }
+
+  @GET
+  @Path("{ref}/events")
+  @Produces(SseFeature.SERVER_SENT_EVENTS)
+  @ApiOperation(value = "Stream router events", tags = "routers",
+      notes = "Server-sent events for task and agent state transitions and for changes of the "
+          + "number of tasks waiting in a queue, published once the change is committed. "
+          + "A subscriber falling behind loses the oldest events and is sent a dropped event "
+          + "with their count. Idle streams get heartbeat comments. A subscriber that loses a "
+          + "whole buffer of events, or that stops reading for the send timeout, is disconnected.",
+      response = RouterEventDto.class)
+  @ApiResponses({
+      @ApiResponse(code = 200, message = "Successful operation"),
+      @ApiResponse(code = 404, message = "Router not found",
+          response = ExceptionPresentation.class)})
+  public EventOutput events(
+      @ApiParam(value = "The id of the router", required = true)
+      @PathParam("ref") String ref)
+      throws CommsRouterException {
+
+    routerService.get(ref);
+
+    LOGGER.debug("Streaming events of router: {}", ref);
+
+    EventOutput eventOutput = new EventOutput();
+    routerEvents.subscribe(ref, new EventOutputSink(eventOutput));
+    return eventOutput;
+  }
+
+  private static class EventOutputSink implements RouterEventSubscription.Sink {
+
+    private final EventOutput eventOutput;
+
+    EventOutputSink(EventOutput eventOutput) {
+      this.eventOutput = eventOutput;
+    }
+
+    @Override
+    public void send(RouterEventDto event) throws IOException {
+      write(new OutboundEvent.Builder()
+          .name(event.getType().name())
+          .mediaType(MediaType.APPLICATION_JSON_TYPE)
+          .data(RouterEventDto.class, event)
+          .build());
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+      write(new OutboundEvent.Builder().comment("heartbeat").build());
+    }
+
+    @Override
+    public void close() {
+      try {
+        eventOutput.close();
+      } catch (IOException ex) {
+        LOGGER.debug("Closing event output failed: {}", ex.toString());
+      }
+    }
+
+    private void write(OutboundEvent event) throws IOException {
+      if (eventOutput.isClosed()) {
+        throw new IOException("Event output closed");
+      }
+      try {
+        eventOutput.write(event);
+      } catch (IOException | RuntimeException ex) {
+        close();
+        throw ex;
+      }
+    }
 
-    routerService.delete(ref);
   }
 
   // Sub-resources
@@ -18,6 +18,7 @@ package com.softavail.commsrouter.webservice.resources;
 
 import com.softavail.commsrouter.api.dto.arg.CreateSkillArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateSkillArg;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
 import com.softavail.commsrouter.api.dto.model.ApiObjectRef;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.skill.SkillDto;
@@ -54,8 +55,8 @@ import javax.ws.rs.core.Response.Status;
  * @author ikrustev
  */
 @Api("/skills")
-@Produces({MediaType.APPLICATION_JSON})
-@Consumes({MediaType.APPLICATION_JSON})
+@Produces({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
 public class SkillResource extends GenericRouterObjectResource<SkillDto> {
 
   private static final Logger LOGGER = LogManager.getLogger(SkillResource.class);
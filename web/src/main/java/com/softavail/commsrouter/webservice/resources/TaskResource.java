@@ -18,6 +18,8 @@ package com.softavail.commsrouter.webservice.resources;
 
 import com.softavail.commsrouter.api.dto.arg.CreateTaskArg;
 import com.softavail.commsrouter.api.dto.arg.UpdateTaskArg;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
+import com.softavail.commsrouter.api.dto.model.CreatedTaskBatchItemDto;
 import com.softavail.commsrouter.api.dto.model.CreatedTaskDto;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
@@ -26,6 +28,7 @@ import com.softavail.commsrouter.api.exception.ExceptionPresentation;
 import com.softavail.commsrouter.api.interfaces.RouterObjectService;
 import com.softavail.commsrouter.api.interfaces.TaskService;
 import com.softavail.commsrouter.webservice.helpers.GenericRouterObjectResource;
+import com.softavail.commsrouter.webservice.helpers.WriteExecutor;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -36,6 +39,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.net.URL;
+import java.util.List;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
@@ -45,7 +49,9 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.ResourceContext;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -56,8 +62,8 @@ import javax.ws.rs.core.Response.Status;
 /**
  * Created by @author mapuo on 31.08.17.
  */
-@Produces({MediaType.APPLICATION_JSON})
-@Consumes({MediaType.APPLICATION_JSON})
+@Produces({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
 @Api("/tasks")
 public class TaskResource extends GenericRouterObjectResource<TaskDto> {
 
@@ -66,6 +72,9 @@ public class TaskResource extends GenericRouterObjectResource<TaskDto> {
   @Inject
   private TaskService taskService;
 
+  @Inject
+  private WriteExecutor writeExecutor;
+
   @Context
   private ResourceContext resourceContext;
 
@@ -78,8 +87,7 @@ public class TaskResource extends GenericRouterObjectResource<TaskDto> {
     ResponseBuilder builder = Response.status(Status.CREATED)
         .header(HttpHeaders.LOCATION, getLocation(task).toString())
         .header(TaskService.X_QUEUE_SIZE, task.getQueueTasks())
-        .entity(task)
-        .type(MediaType.APPLICATION_JSON_TYPE);
+        .entity(task);
 
     return builder.build();
   }
@@ -94,7 +102,7 @@ public class TaskResource extends GenericRouterObjectResource<TaskDto> {
 
     TaskDto taskDto = taskService.getByTag(routerRef, tag);
 
-    return Response.ok(taskDto, MediaType.APPLICATION_JSON_TYPE)
+    return Response.ok(taskDto)
         .build();
   }
 
@@ -116,14 +124,40 @@ public class TaskResource extends GenericRouterObjectResource<TaskDto> {
                   name = TaskService.X_QUEUE_SIZE,
                   response = Long.class,
                   description = "The number of tasks in the queue before that one")}))
-  public Response create(CreateTaskArg taskArg)
-      throws CommsRouterException {
+  public void create(CreateTaskArg taskArg, @Suspended AsyncResponse asyncResponse) {
 
     LOGGER.debug("Creating Task: {}", taskArg);
 
-    CreatedTaskDto task = taskService.create(taskArg, routerRef);
+    writeExecutor.submit(WriteExecutor.Resource.TASKS, asyncResponse, () -> {
+      CreatedTaskDto task = taskService.create(taskArg, routerRef);
+      return createResponse(task);
+    });
+  }
+
+  @POST
+  @Path("batch")
+  @ApiOperation(
+      value = "Add new Tasks in bulk",
+      notes = "Create several Tasks within a Router. The result holds the outcome of each task, "
+          + "in the order they were given")
+  @ApiResponses({
+      @ApiResponse(
+          code = 200,
+          message = "Processed",
+          response = CreatedTaskBatchItemDto.class,
+          responseContainer = "List"),
+      @ApiResponse(code = 400, message = "Too many tasks in the batch",
+          response = ExceptionPresentation.class)})
+  public List<CreatedTaskBatchItemDto> createBatch(List<CreateTaskArg> taskArgs)
+      throws CommsRouterException {
+
+    if (taskArgs == null) {
+      throw new IllegalArgumentException("Expected a list of tasks");
+    }
 
-    return createResponse(task);
+    LOGGER.debug("Creating {} Tasks", taskArgs.size());
+
+    return taskService.createBatch(taskArgs, routerRef);
   }
 
   @PUT
@@ -140,21 +174,23 @@ public class TaskResource extends GenericRouterObjectResource<TaskDto> {
           response = ExceptionPresentation.class),
       @ApiResponse(code = 405, message = "Validation exception",
           response = ExceptionPresentation.class)})
-  public Response create(
+  public void create(
       @ApiParam(value = "The id of the task to be replaced", required = true)
       @PathParam("resourceId")
           String resourceId,
       @ApiParam("CreateTaskArg object specifying all the parameters")
-          CreateTaskArg taskArg)
-      throws CommsRouterException {
+          CreateTaskArg taskArg,
+      @Suspended
+          AsyncResponse asyncResponse) {
 
     LOGGER.debug("Replacing task: {}, with id: {}", taskArg, resourceId);
 
     RouterObjectRef objectId = getRouterObjectRef(resourceId);
 
-    CreatedTaskDto task = taskService.replace(taskArg, objectId);
-
-    return createResponse(task);
+    writeExecutor.submit(WriteExecutor.Resource.TASKS, asyncResponse, () -> {
+      CreatedTaskDto task = taskService.replace(taskArg, objectId);
+      return createResponse(task);
+    });
   }
 
   @POST
@@ -170,14 +206,17 @@ public class TaskResource extends GenericRouterObjectResource<TaskDto> {
           response = ExceptionPresentation.class),
       @ApiResponse(code = 405, message = "Validation exception",
           response = ExceptionPresentation.class)})
-  public void update(@PathParam("resourceId") String resourceId, UpdateTaskArg taskArg)
-      throws CommsRouterException {
+  public void update(@PathParam("resourceId") String resourceId, UpdateTaskArg taskArg,
+      @Suspended AsyncResponse asyncResponse) {
 
     RouterObjectRef objectId = getRouterObjectRef(resourceId);
 
     LOGGER.debug("Updating task: {}", taskArg);
 
-    taskService.update(taskArg, objectId);
+    writeExecutor.submit(WriteExecutor.Resource.TASKS, asyncResponse, () -> {
+      taskService.update(taskArg, objectId);
+      return Response.noContent().build();
+    });
   }
 
   // Sub-resources
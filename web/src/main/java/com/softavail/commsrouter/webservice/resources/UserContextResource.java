@@ -17,6 +17,7 @@
 package com.softavail.commsrouter.webservice.resources;
 
 import com.softavail.commsrouter.api.dto.arg.UpdateTaskContext;
+import com.softavail.commsrouter.api.dto.misc.WireFormats;
 import com.softavail.commsrouter.api.dto.model.RouterObjectRef;
 import com.softavail.commsrouter.api.dto.model.TaskDto;
 import com.softavail.commsrouter.api.dto.model.attribute.AttributeGroupDto;
@@ -43,8 +44,8 @@ import javax.ws.rs.core.Response;
 /**
  * Created by @author mapuo on 18.09.17.
  */
-@Produces({MediaType.APPLICATION_JSON})
-@Consumes({MediaType.APPLICATION_JSON})
+@Produces({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, WireFormats.APPLICATION_SMILE})
 public class UserContextResource {
 
   private static final Logger LOGGER = LogManager.getLogger(UserContextResource.class);
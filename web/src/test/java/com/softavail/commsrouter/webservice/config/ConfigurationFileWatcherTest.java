@@ -0,0 +1,92 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ikrustev
+ */
+public class ConfigurationFileWatcherTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Semaphore reloads = new Semaphore(0);
+
+  @Test
+  public void burstOfWritesReloadsOnce() throws IOException, InterruptedException {
+    Path file = folder.newFile("comms-router.properties").toPath();
+    try (ConfigurationFileWatcher watcher = new ConfigurationFileWatcher(file, reloads::release)) {
+      // Each write comes within the quiet period of the previous one
+      for (int i = 0; i < 5; ++i) {
+        write(file, "api.taskBatch.maxSize=" + i);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(0, reloads.availablePermits());
+      }
+
+      assertTrue(reloads.tryAcquire(10, TimeUnit.SECONDS));
+      assertFalse(reloads.tryAcquire(1, TimeUnit.SECONDS));
+
+      // A later change reloads again
+      write(file, "api.taskBatch.maxSize=10");
+      assertTrue(reloads.tryAcquire(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void otherFilesInTheDirectoryAreIgnored() throws IOException, InterruptedException {
+    Path file = folder.newFile("comms-router.properties").toPath();
+    try (ConfigurationFileWatcher watcher = new ConfigurationFileWatcher(file, reloads::release)) {
+      write(folder.getRoot().toPath().resolve("other.properties"), "api.taskBatch.maxSize=1");
+      assertFalse(reloads.tryAcquire(2, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void failedReloadKeepsWatching() throws IOException, InterruptedException {
+    Path file = folder.newFile("comms-router.properties").toPath();
+    Runnable reload = () -> {
+      reloads.release();
+      throw new IllegalStateException("reload failed");
+    };
+    try (ConfigurationFileWatcher watcher = new ConfigurationFileWatcher(file, reload)) {
+      write(file, "api.taskBatch.maxSize=1");
+      assertTrue(reloads.tryAcquire(10, TimeUnit.SECONDS));
+      write(file, "api.taskBatch.maxSize=2");
+      assertTrue(reloads.tryAcquire(10, TimeUnit.SECONDS));
+    }
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,127 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.softavail.commsrouter.app.CoreConfiguration;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.servlet.ServletContext;
+
+/**
+ * @author ikrustev
+ */
+public class ConfigurationImplTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ConfigurationImpl configuration;
+
+  @After
+  public void close() {
+    if (configuration != null) {
+      configuration.close();
+    }
+  }
+
+  @Test
+  public void reloadNotifiesListenersOfChanges() throws IOException {
+    Path file = folder.newFile("comms-router.properties").toPath();
+    write(file, "api.admission.taskRate=100");
+    configuration = new ConfigurationImpl(servletContext(file));
+    assertEquals(Integer.valueOf(100), configuration.getApiAdmissionTaskRate());
+
+    List<CoreConfiguration> notified = new CopyOnWriteArrayList<>();
+    configuration.subscribe(notified::add);
+
+    // Nothing changed, nobody is notified
+    assertFalse(configuration.reload());
+    assertTrue(notified.isEmpty());
+
+    write(file, "api.admission.taskRate=200");
+    assertTrue(configuration.reload());
+    assertEquals(1, notified.size());
+    assertSame(configuration.getSnapshot(), notified.get(0));
+    assertEquals(Integer.valueOf(200), notified.get(0).getApiAdmissionTaskRate());
+    assertEquals(Integer.valueOf(200), configuration.getApiAdmissionTaskRate());
+  }
+
+  @Test
+  public void invalidReloadKeepsTheCurrentSnapshot() throws IOException {
+    Path file = folder.newFile("comms-router.properties").toPath();
+    write(file, "api.admission.taskRate=100");
+    configuration = new ConfigurationImpl(servletContext(file));
+    ConfigurationSnapshot snapshot = configuration.getSnapshot();
+
+    List<CoreConfiguration> notified = new CopyOnWriteArrayList<>();
+    configuration.subscribe(notified::add);
+
+    write(file, "api.admission.taskRate=many");
+    assertFalse(configuration.reload());
+    assertTrue(notified.isEmpty());
+    assertSame(snapshot, configuration.getSnapshot());
+  }
+
+  @Test
+  public void failingListenerDoesNotStopTheOthers() throws IOException {
+    Path file = folder.newFile("comms-router.properties").toPath();
+    write(file, "api.taskBatch.maxSize=10");
+    configuration = new ConfigurationImpl(servletContext(file));
+
+    List<CoreConfiguration> notified = new CopyOnWriteArrayList<>();
+    configuration.subscribe(changed -> {
+      throw new IllegalStateException("listener failed");
+    });
+    configuration.subscribe(notified::add);
+
+    write(file, "api.taskBatch.maxSize=20");
+    assertTrue(configuration.reload());
+    assertEquals(1, notified.size());
+    assertEquals(Integer.valueOf(20), configuration.getApiTaskBatchMaxSize());
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static ServletContext servletContext(Path configFile) {
+    return (ServletContext) Proxy.newProxyInstance(ServletContext.class.getClassLoader(),
+        new Class<?>[] {ServletContext.class}, (proxy, method, args) -> {
+          if (method.getName().equals("getInitParameter")
+              && Configuration.SYSTEM_PROPERTY_KEY.equals(args[0])) {
+            return configFile.toAbsolutePath().toString();
+          }
+          return null;
+        });
+  }
+
+}
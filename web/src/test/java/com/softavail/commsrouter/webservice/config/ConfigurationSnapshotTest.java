@@ -0,0 +1,92 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.softavail.commsrouter.app.CoreConfiguration;
+import org.cfg4j.provider.ConfigurationProviderBuilder;
+import org.cfg4j.source.inmemory.InMemoryConfigurationSource;
+import org.junit.Test;
+
+import java.util.Properties;
+
+/**
+ * @author ikrustev
+ */
+public class ConfigurationSnapshotTest {
+
+  @Test
+  public void defaultsMatchTheCoreDefaults() {
+    ConfigurationSnapshot snapshot = snapshot(ConfigurationSnapshot.getDefaultProperties());
+
+    assertEquals(CoreConfiguration.DEFAULT.getBackoffDelay(), snapshot.getBackoffDelay());
+    assertEquals(CoreConfiguration.DEFAULT.getDispatcherThreadPoolSize(),
+        snapshot.getDispatcherThreadPoolSize());
+    assertEquals(CoreConfiguration.DEFAULT.getJpaLockRetryJitterFactor(),
+        snapshot.getJpaLockRetryJitterFactor());
+    assertEquals(CoreConfiguration.DEFAULT.getApiAdmissionTaskBurst(),
+        snapshot.getApiAdmissionTaskBurst());
+    assertEquals(CoreConfiguration.DEFAULT.getApiWritesAsyncTasks(),
+        snapshot.getApiWritesAsyncTasks());
+    assertEquals(Configuration.DEFAULT.getClientCallbackMediaType(),
+        snapshot.getClientCallbackMediaType());
+  }
+
+  @Test
+  public void parsesEveryPropertyToItsType() {
+    Properties properties = ConfigurationSnapshot.getDefaultProperties();
+    properties.setProperty("api.admission.taskRate", "250");
+    properties.setProperty("api.writes.asyncAgents", "true");
+    properties.setProperty("jpa.optimisticLock.jitterFactor", "0.25");
+    properties.setProperty("queue.remove.idleDelaySeconds", "3600");
+    properties.setProperty("client.callbackMediaType", "application/x-jackson-smile");
+
+    ConfigurationSnapshot snapshot = snapshot(properties);
+
+    assertEquals(Integer.valueOf(250), snapshot.getApiAdmissionTaskRate());
+    assertEquals(Boolean.TRUE, snapshot.getApiWritesAsyncAgents());
+    assertEquals(Double.valueOf(0.25), snapshot.getJpaLockRetryJitterFactor());
+    assertEquals(Long.valueOf(3600), snapshot.getQueueProcessorEvictionDelay());
+    assertEquals("application/x-jackson-smile", snapshot.getClientCallbackMediaType());
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void invalidPropertyFailsTheSnapshot() {
+    Properties properties = ConfigurationSnapshot.getDefaultProperties();
+    properties.setProperty("api.admission.taskRate", "many");
+    snapshot(properties);
+  }
+
+  @Test
+  public void equalPropertiesGiveEqualSnapshots() {
+    Properties properties = ConfigurationSnapshot.getDefaultProperties();
+    ConfigurationSnapshot snapshot = snapshot(properties);
+    assertEquals(snapshot, snapshot(properties));
+    assertEquals(snapshot.hashCode(), snapshot(properties).hashCode());
+
+    properties.setProperty("api.taskBatch.maxSize", "5");
+    assertNotEquals(snapshot, snapshot(properties));
+  }
+
+  private static ConfigurationSnapshot snapshot(Properties properties) {
+    return new ConfigurationSnapshot(new ConfigurationProviderBuilder()
+        .withConfigurationSource(new InMemoryConfigurationSource(properties)).build());
+  }
+
+}
@@ -0,0 +1,68 @@
+/* 
+ * Copyright 2018 SoftAvail Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.softavail.commsrouter.webservice.mappers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.softavail.commsrouter.api.exception.ExceptionPresentation;
+import com.softavail.commsrouter.api.exception.TooManyRequestsException;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * @author ikrustev
+ */
+public class TooManyRequestsMapperTest {
+
+  @Test
+  public void mapsTo429WithRetryAfter() throws Exception {
+    TooManyRequestsMapper mapper = new TooManyRequestsMapper();
+    Field headers = TooManyRequestsMapper.class.getDeclaredField("headers");
+    headers.setAccessible(true);
+    headers.set(mapper, headers(MediaType.APPLICATION_JSON_TYPE));
+
+    Response response =
+        mapper.toResponse(new TooManyRequestsException("Router r1 is over its rate", 7));
+
+    assertEquals(429, response.getStatus());
+    assertEquals("7", response.getHeaderString(HttpHeaders.RETRY_AFTER));
+    assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+    assertTrue(response.getEntity() instanceof ExceptionPresentation);
+    JsonNode error = new ObjectMapper().valueToTree(response.getEntity()).get("error");
+    assertEquals("TooManyRequestsException", error.get("code").asText());
+    assertEquals("Router r1 is over its rate", error.get("description").asText());
+  }
+
+  private static HttpHeaders headers(MediaType mediaType) {
+    return (HttpHeaders) Proxy.newProxyInstance(HttpHeaders.class.getClassLoader(),
+        new Class<?>[] {HttpHeaders.class}, (proxy, method, args) -> {
+          if (method.getName().equals("getMediaType")) {
+            return mediaType;
+          }
+          throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+}